@@ -84,6 +84,10 @@ public class DroneInfo {
         return estimatedMaxTimeFlight;
     }
     
+    public String getTypeFailure() {
+        return typeFailure;
+    }
+    
     public HomeLocation getHomeLocation() {
         return homeLocation;
     }  
@@ -104,6 +108,14 @@ public class DroneInfo {
         this.countWaypoint = Integer.parseInt(count);
     }
     
+    public void setNextWaypoint(int next) {
+        this.nextWaypoint = next;
+    } 
+    
+    public void setCountWaypoint(int count) {
+        this.countWaypoint = count;
+    }
+    
     public void setEstimatedTimeToDoRTL(double time) {
         this.estimatedTimeToDoRTL = time;
     }
@@ -140,6 +152,14 @@ public class DroneInfo {
         }
     }
     
+    public void setDistanceToHome(double dist) {
+        this.distanceToHome = dist;
+    }
+    
+    public void setDistanceToCurrentWaypoint(double dist) {
+        this.distanceToCurrentWaypoint = dist;
+    }
+    
     /**
      * Parser the info of home location of the drone
      * @param home the home containing the coordinate latitude, longitude and altitude.
@@ -0,0 +1,334 @@
+package lib.uav.module.comm;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lib.color.StandardPrints;
+import lib.uav.struct.Heading;
+import lib.uav.struct.HeadingJSON;
+import lib.uav.struct.Parameter;
+import lib.uav.struct.ParameterJSON;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.WaypointJSON;
+import lib.uav.struct.mission.Mission;
+
+/**
+ * The class models an ordered queue of commands (POST) to the autopilot of
+ * one vehicle. The methods don't block the caller, they return a future with
+ * the result of the command ({@code true} if success).
+ * Rules:
+ * (1) the commands are sent in the order they were submitted;
+ * (2) the commands waiting in the queue are sent together, pipelined in the
+ *     same connection, so the round trips of a sequence of commands overlap;
+ * (3) redundant commands waiting in the queue are coalesced: a parameter (ex:
+ *     WPNAV_SPEED) or the velocity keeps only the last value, and a mission,
+ *     waypoint, mode or heading replaces the previous one of the same kind if
+ *     it is the last command of the queue. The coalesced commands share the
+ *     same future.
+ * Note: use one instance per vehicle (per DataAcquisition).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see DataAcquisitionS2DK#POST(java.lang.String[], java.lang.String[])
+ */
+public class AutopilotCommandPipeline {
+
+    private final HTTPRequest http;
+    private final ExecutorService executor;
+    private final LinkedList<Command> queue = new LinkedList<>();
+    private final Gson gson = new Gson();
+    private boolean draining;
+
+    private long countSubmitted;
+    private long countCoalesced;
+    private long countSent;
+    private long countBatches;
+
+    /**
+     * Class constructor.
+     * @param http object that sends the commands (ex: DataAcquisitionS2DK)
+     * @since version 4.0.0
+     */
+    public AutopilotCommandPipeline(HTTPRequest http) {
+        this.http = http;
+        this.executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Send a mission to the autopilot (first clear the mission).
+     * @param mission the mission to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setMission(Mission mission) {
+        return submit("/set-mission/", gson.toJson(mission), "mission", false);
+    }
+
+    /**
+     * Send a mission in JSON to the autopilot (first clear the mission).
+     * @param missionJson the mission in JSON to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setMission(String missionJson) {
+        return submit("/set-mission/", missionJson, "mission", false);
+    }
+
+    /**
+     * Send a mission to the autopilot (add in the end of the mission).
+     * @param mission the mission to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> appendMission(Mission mission) {
+        return submit("/append-mission/", gson.toJson(mission), null, false);
+    }
+
+    /**
+     * Send a waypoint to the autopilot (first clear the mission).
+     * @param waypoint the waypoint to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setWaypoint(Waypoint waypoint) {
+        return submit("/set-waypoint/", gson.toJson(new WaypointJSON(waypoint)), "mission", false);
+    }
+
+    /**
+     * Send a waypoint in JSON to the autopilot (first clear the mission).
+     * @param waypointJson the waypoint in JSON (WaypointJSON) to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setWaypoint(String waypointJson) {
+        return submit("/set-waypoint/", waypointJson, "mission", false);
+    }
+
+    /**
+     * Send a waypoint to the autopilot (add in the end of the mission).
+     * @param waypoint the waypoint to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> appendWaypoint(Waypoint waypoint) {
+        return submit("/append-waypoint/", gson.toJson(new WaypointJSON(waypoint)), null, false);
+    }
+
+    /**
+     * Send a new flight mode to the autopilot.
+     * @param mode the flight mode to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setMode(String mode) {
+        return submit("/set-mode/", gson.toJson(mode), "mode", false);
+    }
+
+    /**
+     * Send a new heading to the autopilot.
+     * @param heading the heading to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setHeading(Heading heading) {
+        return submit("/set-heading/", gson.toJson(new HeadingJSON(heading)), "heading", false);
+    }
+
+    /**
+     * Send a new parameter to the autopilot.
+     * @param key the key of parameter to be changed
+     * @param value the value of parameter to changed
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setParameter(String key, double value) {
+        String json = gson.toJson(new ParameterJSON(new Parameter(key, value)));
+        return submit("/set-parameter/", json, "parameter:" + key, true);
+    }
+
+    /**
+     * Send a new velocity to the autopilot.
+     * @param velocity the velocity to be sent to the autopilot
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setVelocity(double velocity) {
+        return submit("/set-velocity/", gson.toJson(velocity), "velocity", true);
+    }
+
+    /**
+     * This command changes the navigation speed of the aircraft (WPNAV_SPEED).
+     * @param value the new value of navegation speed in cm/s
+     * @return the future with the result of the command
+     * @since version 4.0.0
+     */
+    public CompletableFuture<Boolean> setNavigationSpeed(double value) {
+        return setParameter("WPNAV_SPEED", value);
+    }
+
+    /**
+     * Waits for the result of a command.
+     * @param future the future of the command
+     * @return {@code true} if the command was a success
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean waitResult(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: waitResult()");
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            StandardPrints.printMsgWarning("Warning [ExecutionException]: waitResult()");
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Stops the thread of the queue after sending the commands already submitted.
+     * @since version 4.0.0
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the number of commands submitted.
+     * @return the number of commands submitted
+     * @since version 4.0.0
+     */
+    public synchronized long getCountSubmitted() {
+        return countSubmitted;
+    }
+
+    /**
+     * Gets the number of commands coalesced with a previous one (not sent).
+     * @return the number of commands coalesced
+     * @since version 4.0.0
+     */
+    public synchronized long getCountCoalesced() {
+        return countCoalesced;
+    }
+
+    /**
+     * Gets the number of commands sent to the autopilot.
+     * @return the number of commands sent
+     * @since version 4.0.0
+     */
+    public synchronized long getCountSent() {
+        return countSent;
+    }
+
+    /**
+     * Gets the number of groups of commands sent together (pipelined).
+     * @return the number of groups of commands
+     * @since version 4.0.0
+     */
+    public synchronized long getCountBatches() {
+        return countBatches;
+    }
+
+    private synchronized CompletableFuture<Boolean> submit(String url, String json,
+            String key, boolean anyPosition) {
+        countSubmitted++;
+        if (key != null && !queue.isEmpty()) {
+            Command last = queue.getLast();
+            if (key.equals(last.key)) {
+                last.url = url;
+                last.json = json;
+                countCoalesced++;
+                return last.future;
+            }
+            if (anyPosition) {
+                for (Command cmd : queue) {
+                    if (key.equals(cmd.key)) {
+                        cmd.json = json;
+                        countCoalesced++;
+                        return cmd.future;
+                    }
+                }
+            }
+        }
+        Command cmd = new Command(url, json, key);
+        queue.add(cmd);
+        if (!draining) {
+            draining = true;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        }
+        return cmd.future;
+    }
+
+    /**
+     * Sends the commands of the queue until it is empty.
+     */
+    private void drain() {
+        while (true) {
+            List<Command> batch;
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                batch = new ArrayList<>(queue);
+                queue.clear();
+                countSent += batch.size();
+                countBatches++;
+            }
+            String[] urls = new String[batch.size()];
+            String[] jsons = new String[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                urls[i] = batch.get(i).url;
+                jsons[i] = batch.get(i).json;
+            }
+            boolean[] resp;
+            try {
+                if (http instanceof DataAcquisitionS2DK) {
+                    resp = ((DataAcquisitionS2DK) http).POST(urls, jsons);
+                } else {
+                    resp = new boolean[urls.length];
+                    for (int i = 0; i < urls.length; i++) {
+                        resp[i] = http.POST(urls[i], jsons[i]);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                StandardPrints.printMsgWarning("Warning [RuntimeException]: drain()");
+                ex.printStackTrace();
+                resp = new boolean[urls.length];
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(resp[i]);
+            }
+        }
+    }
+
+    /**
+     * The class models a command waiting in the queue.
+     */
+    private static class Command {
+
+        String url;
+        String json;
+        final String key;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Command(String url, String json, String key) {
+            this.url = url;
+            this.json = json;
+            this.key = key;
+        }
+    }
+
+}
@@ -1,11 +1,11 @@
 package lib.uav.module.comm;
 
-import java.io.PrintStream;
 import lib.uav.struct.Heading;
 import lib.uav.struct.Parameter;
 import lib.uav.struct.mission.Mission;
 import lib.uav.struct.Waypoint;
 import lib.uav.hardware.aircraft.Drone;
+import lib.uav.util.FlightDataRecorder;
 
 /**
  * The class models all MOSA and IFA system communication with Autopilot.
@@ -15,7 +15,7 @@ import lib.uav.hardware.aircraft.Drone;
 public abstract class DataAcquisition {
            
     public Drone drone;
-    public PrintStream printLogOverhead;
+    public FlightDataRecorder printLogOverhead;
     public boolean debug = false; 
     
     /**
@@ -5,11 +5,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.PrintStream;
+import lib.uav.util.FlightDataRecorder;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.util.Arrays;
 import lib.color.StandardPrints;
 import lib.uav.struct.Heading;
 import lib.uav.struct.HeadingJSON;
@@ -18,6 +19,7 @@ import lib.uav.struct.mission.Mission;
 import lib.uav.struct.ParameterJSON;
 import lib.uav.struct.Waypoint;
 import lib.uav.struct.WaypointJSON;
+import lib.uav.struct.constants.Constants;
 import lib.uav.hardware.aircraft.Drone;
 
 /**
@@ -36,6 +38,9 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
     private final String HOST;  
     private final String PROTOCOL;
     private final int PORT;
+    private final HTTPConnectionPool pool;
+    private boolean keepAlive;
+    private final ParserAllSensors parserAllSensors = new ParserAllSensors();
 
     /**
      * Class constructor.
@@ -50,6 +55,9 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
         this.PROTOCOL = "http://";
         this.PORT = 50000;
         this.printLogOverhead = null;
+        this.pool = new HTTPConnectionPool(HOST, PORT, UAV_SOURCE, 
+                Constants.MAX_CONNECTIONS_S2DK, Constants.TIME_OUT_CONNECTION_S2DK);
+        this.keepAlive = true;
     }
     
     /**
@@ -58,19 +66,49 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
      * @param uavSource IFA or MOSA
      * @param host ip of UAV-S2DK
      * @param port network port used in UAV-S2DK
-     * @param overhead file to print informations overhead
+     * @param overhead recorder of the informations of overhead (can be null)
      * @since version 4.0.0
      */
     public DataAcquisitionS2DK(Drone drone, String uavSource, String host, int port, 
-            PrintStream overhead) {
+            FlightDataRecorder overhead) {
         this.drone = drone;
         this.UAV_SOURCE = uavSource;           
         this.HOST = host;        
         this.PORT = port;
         this.printLogOverhead = overhead;
         this.PROTOCOL = "http://";
+        this.pool = new HTTPConnectionPool(HOST, PORT, UAV_SOURCE, 
+                Constants.MAX_CONNECTIONS_S2DK, Constants.TIME_OUT_CONNECTION_S2DK);
+        this.keepAlive = true;
     } 
     
+    /**
+     * Set the use of persistent connections (keep-alive) with UAV-S2DK.
+     * @param keepAlive if {@code true} reuses the connections of the pool
+     *                  if {@code false} opens a new connection in each request
+     * @since version 4.0.0
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+    
+    /**
+     * Gets the pool of persistent connections used with UAV-S2DK.
+     * @return the pool of connections
+     * @since version 4.0.0
+     */
+    public HTTPConnectionPool getConnectionPool() {
+        return pool;
+    }
+    
+    /**
+     * Close the persistent connections with UAV-S2DK.
+     * @since version 4.0.0
+     */
+    public void close() {
+        pool.close();
+    }
+    
     /**
      * Verifies if the S2DK server is running
      * @return {@code true} if server if running
@@ -271,10 +309,9 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
      */
     @Override
     public void getLocation() {
-        String gps = GET("/get-gps/");
-        drone.getSensors().getGPS().parserInfoGPS(gps);
-        String barometer = GET("/get-barometer/");
-        drone.getSensors().getBarometer().parserInfoBarometer(barometer);
+        String v[] = GET(new String[]{"/get-gps/", "/get-barometer/"});
+        drone.getSensors().getGPS().parserInfoGPS(v[0]);
+        drone.getSensors().getBarometer().parserInfoBarometer(v[1]);
         String msg = String.format(
                 "gps (lat, lng, alt_rel, alt_abs): [%3.7f, %3.7f, %3.2f, %3.2f]", 
                 drone.getSensors().getGPS().lat, 
@@ -550,36 +587,16 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
      * {"all-sensors": [-22.0059333, -47.8987082, 0.07, 870.0, 0.009657, 2.025, 
      * 0.004823, 116, 0.0, 0.0, 3, 10, 121, 65535, [0.0, -0.31, 0.01], 0, 0, 
      * 0.16173128321728691, null, "STABILIZE", "STANDBY", false, true, true]} 
+     * Note: the line is converted in a single pass by ParserAllSensors.
      * @since version 4.0.0
+     * @see ParserAllSensors
      */
     @Override
     public void getAllInfoSensors() {
         String allinfo = GET("/get-all-sensors/");
-        allinfo = allinfo.replace("[", "");
-        allinfo = allinfo.replace("]", "");
-        allinfo = allinfo.replace("\"", "");
-        allinfo = allinfo.substring(14, allinfo.length() - 1);
-        String v[] = allinfo.split(", ");
-        drone.getSensors().getGPS().updateGPS(v[0], v[1]);
-        drone.getSensors().getBarometer().updateBarometer(v[2], v[3]);
-        drone.getSensors().getAttitude().updateAttitude(v[4], v[5], v[6]);
-        drone.getSensors().getSensorUAV().setHeading(v[7]);
-        drone.getSensors().getSensorUAV().setGroundspeed(v[8]);
-        drone.getSensors().getSensorUAV().setAirspeed(v[9]);
-        drone.getSensors().getGPSInfo().setFixType(v[10]);
-        drone.getSensors().getGPSInfo().setSatellitesVisible(v[11]);
-        drone.getSensors().getGPSInfo().setEPH(v[12]);
-        drone.getSensors().getGPSInfo().setEPV(v[13]);
-        drone.getSensors().getVelocity().updateVelocity(v[14], v[15], v[16]);
-        drone.getInfo().setNextWaypoint(v[17]);
-        drone.getInfo().setCountWaypoint(v[18]);
-        drone.getInfo().setDistanceToHome(v[19]);
-        drone.getInfo().setDistanceToCurrentWaypoint(v[20]);
-        drone.getSensors().getStatusUAV().setMode(v[21]);
-        drone.getSensors().getStatusUAV().setSystemStatus(v[22]);
-        drone.getSensors().getStatusUAV().setArmed(v[23]);
-        drone.getSensors().getStatusUAV().setIsArmable(v[24]);
-        drone.getSensors().getStatusUAV().setEkfOk(v[25]);
+        synchronized (parserAllSensors) {
+            parserAllSensors.parse(allinfo, drone);
+        }
     } 
     
     /**
@@ -593,26 +610,18 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
     public boolean POST(String urlPost, String jsonMsg){
         try {
             long timeInit = System.currentTimeMillis();
-            URL url = new URL(PROTOCOL + HOST + ":" + PORT + urlPost);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setDoOutput(true);
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("UAV-Source", UAV_SOURCE);
-            OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream());
             StandardPrints.printMsgEmph3(jsonMsg);
-            writer.write(jsonMsg);
-            writer.flush();
-            writer.close();
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            String inputLine = in.readLine();
-            StandardPrints.printMsgEmph4(inputLine);               
-            in.close();
+            String inputLine;
+            if (keepAlive){
+                inputLine = pool.POST(urlPost, jsonMsg);
+            } else {
+                inputLine = POSTNewConnection(urlPost, jsonMsg);
+            }
+            StandardPrints.printMsgEmph4(inputLine);
             long timeFinal = System.currentTimeMillis();
             long time = timeFinal - timeInit;
             if (printLogOverhead != null){
-                printLogOverhead.println("Time-in-POST(ms);" + urlPost + ";" + time);
-                printLogOverhead.flush();
+                printLogOverhead.record("Time-in-POST(ms);" + urlPost + ";" + time);
             }
             return true;
         } catch (MalformedURLException ex) {
@@ -641,17 +650,15 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
         String inputLine = "";
         try{
             long timeInit = System.currentTimeMillis();
-            URL url = new URL(PROTOCOL + HOST + ":" + PORT + urlGet);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestProperty("UAV-Source", UAV_SOURCE);
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));        
-            inputLine = in.readLine();
-            in.close();
+            if (keepAlive){
+                inputLine = pool.GET(urlGet);
+            } else {
+                inputLine = GETNewConnection(urlGet);
+            }
             long timeFinal = System.currentTimeMillis();
             long time = timeFinal - timeInit;
             if (printLogOverhead != null){
-                printLogOverhead.println("Time-in-GET(ms);" + urlGet + ";" + time);
-                printLogOverhead.flush();
+                printLogOverhead.record("Time-in-GET(ms);" + urlGet + ";" + time);
             }
             return inputLine;
         } catch (MalformedURLException ex) {
@@ -664,4 +671,131 @@ public class DataAcquisitionS2DK extends DataAcquisition implements HTTPRequest{
             return inputLine;
         } 
     }
+    
+    /**
+     * Method that makes several GET requests pipelined in the same connection.
+     * Note: without keep-alive the requests are made one by one.
+     * @param urlsGet the URLs to the GET
+     * @return the content of each GET (same order of the URLs)
+     * @since version 4.0.0
+     */
+    public String[] GET(String[] urlsGet) {
+        if (!keepAlive){
+            String[] inputLines = new String[urlsGet.length];
+            for (int i = 0; i < urlsGet.length; i++){
+                inputLines[i] = GET(urlsGet[i]);
+            }
+            return inputLines;
+        }
+        try{
+            long timeInit = System.currentTimeMillis();
+            String[] inputLines = pool.GET(urlsGet);
+            for (int i = 0; i < inputLines.length; i++){
+                if (inputLines[i] == null){
+                    StandardPrints.printMsgWarning("Warning [IOException]: GET() " + urlsGet[i]);
+                    inputLines[i] = "";
+                }
+            }
+            long timeFinal = System.currentTimeMillis();
+            long time = timeFinal - timeInit;
+            if (printLogOverhead != null){
+                printLogOverhead.record("Time-in-GET(ms);" + String.join(",", urlsGet) + ";" + time);
+            }
+            return inputLines;
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: GET()");
+            ex.printStackTrace();
+            String[] inputLines = new String[urlsGet.length];
+            Arrays.fill(inputLines, "");
+            return inputLines;
+        }
+    }
+    
+    /**
+     * Method that makes several POST requests pipelined in the same connection.
+     * Note: the requests are answered in order; without keep-alive they are 
+     * made one by one.
+     * @param urlsPost the URLs to the POST
+     * @param jsonMsgs the messages in JSON to the POST (same order of the URLs)
+     * @return {@code true} in the position of each request that was a success
+     * @since version 4.0.0
+     */
+    public boolean[] POST(String[] urlsPost, String[] jsonMsgs) {
+        boolean[] resp = new boolean[urlsPost.length];
+        if (!keepAlive || urlsPost.length == 1){
+            for (int i = 0; i < urlsPost.length; i++){
+                resp[i] = POST(urlsPost[i], jsonMsgs[i]);
+            }
+            return resp;
+        }
+        try{
+            long timeInit = System.currentTimeMillis();
+            for (String jsonMsg : jsonMsgs){
+                StandardPrints.printMsgEmph3(jsonMsg);
+            }
+            String[] inputLines = pool.POST(urlsPost, jsonMsgs);
+            for (int i = 0; i < inputLines.length; i++){
+                if (inputLines[i] != null){
+                    StandardPrints.printMsgEmph4(inputLines[i]);
+                    resp[i] = true;
+                } else {
+                    StandardPrints.printMsgWarning("Warning [IOException]: POST() " + urlsPost[i]);
+                }
+            }
+            long timeFinal = System.currentTimeMillis();
+            long time = timeFinal - timeInit;
+            if (printLogOverhead != null){
+                printLogOverhead.record("Time-in-POST(ms);" + String.join(",", urlsPost) + ";" + time);
+            }
+            return resp;
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: POST()");
+            ex.printStackTrace();
+            return resp;
+        }
+    }
+    
+    /**
+     * Method that makes a POST request opening a new connection.
+     * @param urlPost the URL to the POST
+     * @param jsonMsg the message in JSON to the POST
+     * @return the first line of the response
+     * @throws IOException if there is an error in the communication
+     * @since version 4.0.0
+     */
+    private String POSTNewConnection(String urlPost, String jsonMsg) throws IOException {
+        URL url = new URL(PROTOCOL + HOST + ":" + PORT + urlPost);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("UAV-Source", UAV_SOURCE);
+        connection.setRequestProperty("Connection", "close");
+        OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream());
+        writer.write(jsonMsg);
+        writer.flush();
+        writer.close();
+        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+        String inputLine = in.readLine();
+        in.close();
+        return inputLine;
+    }
+    
+    /**
+     * Method that makes a GET request opening a new connection.
+     * @param urlGet the URL to the GET
+     * @return the first line of the response
+     * @throws IOException if there is an error in the communication
+     * @since version 4.0.0
+     */
+    private String GETNewConnection(String urlGet) throws IOException {
+        URL url = new URL(PROTOCOL + HOST + ":" + PORT + urlGet);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("UAV-Source", UAV_SOURCE);
+        connection.setRequestProperty("Connection", "close");
+        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));        
+        String inputLine = in.readLine();
+        in.close();
+        return inputLine;
+    }
 }
@@ -0,0 +1,460 @@
+package lib.uav.module.comm;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class models a bounded pool of persistent (keep-alive) HTTP/1.1
+ * connections to a single host.
+ * Note: if the server answers with HTTP/1.0 or "Connection: close" the
+ * connection is discarded after the response and a new one is opened in the
+ * next request, so the behavior is the same of a new connection per request.
+ * A response with status of error (400 or more) is a failure of the request,
+ * as in HttpURLConnection: the single requests throw an IOException and the
+ * pipelined requests give null in its position.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see DataAcquisitionS2DK
+ */
+public class HTTPConnectionPool {
+
+    private final String host;
+    private final int port;
+    private final String uavSource;
+    private final int timeout;
+    private final Semaphore permits;
+    private final ArrayBlockingQueue<Connection> idle;
+
+    private long countConnectionsOpened;
+    private long countRequests;
+
+    /**
+     * Class constructor.
+     * @param host ip of the HTTP server
+     * @param port network port of the HTTP server
+     * @param uavSource IFA or MOSA (value of the header UAV-Source)
+     * @param maxConnections maximum number of connections opened at the same time
+     * @param timeout timeout to connect and to read (in milliseconds)
+     * @since version 4.0.0
+     */
+    public HTTPConnectionPool(String host, int port, String uavSource,
+            int maxConnections, int timeout) {
+        this.host = host;
+        this.port = port;
+        this.uavSource = uavSource;
+        this.timeout = timeout;
+        this.permits = new Semaphore(maxConnections, true);
+        this.idle = new ArrayBlockingQueue<>(maxConnections);
+    }
+
+    /**
+     * Method that makes a GET request
+     * @param urlGet the URL to the GET
+     * @return the first line of the response body
+     * @throws IOException if there is an error in the communication or the
+     *         server answers with a status of error
+     * @since version 4.0.0
+     */
+    public String GET(String urlGet) throws IOException {
+        return request("GET", urlGet, null);
+    }
+
+    /**
+     * Method that makes a POST request
+     * @param urlPost the URL to the POST
+     * @param jsonMsg the message in JSON to the POST
+     * @return the first line of the response body
+     * @throws IOException if there is an error in the communication or the
+     *         server answers with a status of error
+     * @since version 4.0.0
+     */
+    public String POST(String urlPost, String jsonMsg) throws IOException {
+        return request("POST", urlPost, jsonMsg);
+    }
+
+    /**
+     * Method that makes several GET requests pipelined in the same connection.
+     * Note: all requests are written before the first response is read. If the
+     * server closes the connection after a response the remaining requests are
+     * sent one by one.
+     * @param urlsGet the URLs to the GET
+     * @return the first line of the response body of each URL (same order)
+     *         or null if the server answered the URL with a status of error
+     * @throws IOException if there is an error in the communication
+     * @since version 4.0.0
+     */
+    public String[] GET(String[] urlsGet) throws IOException {
+        return pipeline("GET", urlsGet, new String[urlsGet.length]);
+    }
+
+    /**
+     * Method that makes several POST requests pipelined in the same connection.
+     * Note: the server answers the requests of a connection in the order they
+     * were written, so the order of the commands is kept and only one round
+     * trip is waited for all of them.
+     * @param urlsPost the URLs to the POST
+     * @param jsonMsgs the messages in JSON to the POST (same order of the URLs)
+     * @return the first line of the response body of each URL (same order)
+     *         or null if the server answered the URL with a status of error
+     * @throws IOException if there is an error in the communication
+     * @since version 4.0.0
+     */
+    public String[] POST(String[] urlsPost, String[] jsonMsgs) throws IOException {
+        return pipeline("POST", urlsPost, jsonMsgs);
+    }
+
+    private String[] pipeline(String method, String[] urls, String[] bodies) throws IOException {
+        String[] responses = new String[urls.length];
+        int[] codes = new int[urls.length];
+        Connection conn = acquire();
+        boolean reusable = false;
+        int i = 0;
+        try {
+            StringBuilder sb = new StringBuilder();
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            for (int j = 0; j < urls.length; j++) {
+                byte[] content = bodies[j] == null ? new byte[0] : bodies[j].getBytes(StandardCharsets.UTF_8);
+                sb.setLength(0);
+                writeHeader(sb, method, urls[j], content.length);
+                data.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                data.write(content);
+            }
+            send(conn, data.toByteArray());
+            reusable = true;
+            while (i < urls.length && reusable) {
+                reusable = readResponse(conn, responses, codes, i);
+                if (codes[i] >= 400) {
+                    responses[i] = null;
+                }
+                i++;
+            }
+        } catch (StaleConnectionException ex) {
+            //the server closed the idle connection, the requests are sent one by one.
+            reusable = false;
+        } finally {
+            release(conn, reusable);
+        }
+        for (; i < urls.length; i++) {
+            try {
+                responses[i] = request(method, urls[i], bodies[i]);
+            } catch (HTTPStatusException ex) {
+                responses[i] = null;
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Close all idle connections of the pool.
+     * @since version 4.0.0
+     */
+    public void close() {
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            conn.close();
+        }
+    }
+
+    /**
+     * Gets the number of TCP connections opened by this pool.
+     * @return the number of TCP connections opened
+     * @since version 4.0.0
+     */
+    public synchronized long getCountConnectionsOpened() {
+        return countConnectionsOpened;
+    }
+
+    /**
+     * Gets the number of HTTP requests made by this pool.
+     * @return the number of HTTP requests made
+     * @since version 4.0.0
+     */
+    public synchronized long getCountRequests() {
+        return countRequests;
+    }
+
+    private String request(String method, String url, String body) throws IOException {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        for (int attempt = 0; ; attempt++) {
+            Connection conn = acquire();
+            boolean reusable = false;
+            try {
+                StringBuilder sb = new StringBuilder();
+                writeHeader(sb, method, url, content.length);
+                send(conn, sb.toString().getBytes(StandardCharsets.US_ASCII), content);
+                String[] response = new String[1];
+                int[] code = new int[1];
+                reusable = readResponse(conn, response, code, 0);
+                if (code[0] >= 400) {
+                    throw new HTTPStatusException(code[0], url);
+                }
+                return response[0];
+            } catch (StaleConnectionException ex) {
+                //the server closed the idle connection, try again in a new one.
+                if (attempt > 0) {
+                    throw ex;
+                }
+            } finally {
+                release(conn, reusable);
+            }
+        }
+    }
+
+    private void writeHeader(StringBuilder sb, String method, String url, int length) {
+        sb.append(method).append(' ').append(url).append(" HTTP/1.1\r\n");
+        sb.append("Host: ").append(host).append(':').append(port).append("\r\n");
+        sb.append("UAV-Source: ").append(uavSource).append("\r\n");
+        sb.append("Connection: keep-alive\r\n");
+        if (method.equals("POST")) {
+            sb.append("Content-Type: application/json\r\n");
+            sb.append("Content-Length: ").append(length).append("\r\n");
+        }
+        sb.append("\r\n");
+    }
+
+    /**
+     * Writes the data in the connection. A reused connection that the server
+     * already closed may fail in the write (broken pipe or reset) instead of
+     * the read, so it is also stale.
+     */
+    private static void send(Connection conn, byte[]... parts) throws IOException {
+        try {
+            for (byte[] part : parts) {
+                conn.out.write(part);
+            }
+            conn.out.flush();
+        } catch (SocketException ex) {
+            if (conn.used) {
+                throw new StaleConnectionException();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads one response of the connection (first line of the body and
+     * status code).
+     * @return {@code true} if the connection can be reused
+     *         {@code false} otherwise
+     */
+    private boolean readResponse(Connection conn, String[] responses, int[] codes, int index)
+            throws IOException {
+        String statusLine = readLine(conn.in);
+        if (statusLine == null) {
+            if (conn.used) {
+                throw new StaleConnectionException();
+            }
+            throw new IOException("connection closed by the server");
+        }
+        synchronized (this) {
+            countRequests++;
+        }
+        conn.used = true;
+        codes[index] = parseStatusCode(statusLine);
+        boolean keepAlive = statusLine.startsWith("HTTP/1.1");
+        int contentLength = -1;
+        boolean chunked = false;
+        String line;
+        while ((line = readLine(conn.in)) != null && !line.isEmpty()) {
+            int sep = line.indexOf(':');
+            if (sep < 0) {
+                continue;
+            }
+            String name = line.substring(0, sep).trim();
+            String value = line.substring(sep + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = Integer.parseInt(value);
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = value.equalsIgnoreCase("chunked");
+            } else if (name.equalsIgnoreCase("Connection")) {
+                keepAlive = value.equalsIgnoreCase("keep-alive");
+            }
+        }
+        byte[] body;
+        if (chunked) {
+            body = readChunked(conn.in);
+        } else if (contentLength >= 0) {
+            body = readFully(conn.in, contentLength);
+        } else {
+            body = readToEnd(conn.in);
+            keepAlive = false;
+        }
+        responses[index] = firstLine(new String(body, StandardCharsets.UTF_8));
+        return keepAlive;
+    }
+
+    private Connection acquire() throws IOException {
+        try {
+            if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("timeout waiting for a free connection");
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException("interrupted waiting for a free connection");
+        }
+        Connection conn = idle.poll();
+        if (conn != null) {
+            return conn;
+        }
+        try {
+            Socket socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(timeout);
+            socket.connect(new InetSocketAddress(host, port), timeout);
+            synchronized (this) {
+                countConnectionsOpened++;
+            }
+            return new Connection(socket);
+        } catch (IOException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void release(Connection conn, boolean reusable) {
+        if (!reusable || !idle.offer(conn)) {
+            conn.close();
+        }
+        permits.release();
+    }
+
+    private static int parseStatusCode(String statusLine) throws IOException {
+        String[] v = statusLine.split(" ");
+        try {
+            return Integer.parseInt(v[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("invalid status line: " + statusLine);
+        }
+    }
+
+    private static String firstLine(String body) {
+        int end = body.indexOf('\n');
+        if (end < 0) {
+            return body;
+        }
+        if (end > 0 && body.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return body.substring(0, end);
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int len = sb.length();
+                if (len > 0 && sb.charAt(len - 1) == '\r') {
+                    sb.setLength(len - 1);
+                }
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        int pos = 0;
+        while (pos < length) {
+            int n = in.read(data, pos, length - pos);
+            if (n < 0) {
+                throw new IOException("unexpected end of response");
+            }
+            pos += n;
+        }
+        return data;
+    }
+
+    private static byte[] readChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            String line = readLine(in);
+            if (line == null) {
+                throw new IOException("unexpected end of response");
+            }
+            int sep = line.indexOf(';');
+            int size = Integer.parseInt((sep < 0 ? line : line.substring(0, sep)).trim(), 16);
+            if (size == 0) {
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    //trailer headers are ignored
+                }
+                return out.toByteArray();
+            }
+            out.write(readFully(in, size));
+            readLine(in);
+        }
+    }
+
+    private static byte[] readToEnd(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The class models a TCP connection of the pool.
+     */
+    private static class Connection {
+
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        boolean used;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+            this.used = false;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+
+            }
+        }
+    }
+
+    /**
+     * Exception thrown when a reused connection was closed by the server.
+     */
+    private static class StaleConnectionException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException() {
+            super("connection closed by the server");
+        }
+    }
+
+    /**
+     * Exception thrown when the server answers with a status of error.
+     */
+    private static class HTTPStatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        HTTPStatusException(int code, String url) {
+            super("status " + code + " in " + url);
+        }
+    }
+
+}
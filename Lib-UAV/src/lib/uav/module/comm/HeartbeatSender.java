@@ -0,0 +1,100 @@
+package lib.uav.module.comm;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lib.color.StandardPrints;
+
+/**
+ * The class sends the heartbeat of a system (MOSA) to the watchdog of other
+ * system (IFA) in a dedicated channel (UDP), separated of the socket of the
+ * messages, so that a beat is never waiting behind a message.
+ * Each beat is a datagram with its sequence number, sent in a fixed period by
+ * its own thread. The beats stop when the process dies or stalls (the JVM or
+ * the machine frozen) or when the system is marked as not alive.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see HeartbeatWatchdog
+ */
+public class HeartbeatSender {
+
+    private final String host;
+    private final int port;
+    private final long period;
+    private ScheduledExecutorService executor;
+    private DatagramSocket socket;
+    private volatile boolean alive = true;
+    private long sequence;
+
+    /**
+     * Class constructor.
+     * @param host ip of the machine of the watchdog
+     * @param port network port of the watchdog
+     * @param period period of the beats (in milliseconds)
+     * @since version 4.0.0
+     */
+    public HeartbeatSender(String host, int port, long period) {
+        this.host = host;
+        this.port = port;
+        this.period = period;
+    }
+
+    /**
+     * Starts the thread that sends the beats.
+     * @since version 4.0.0
+     */
+    public void start() {
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            socket = new DatagramSocket();
+            byte data[] = new byte[Long.BYTES];
+            DatagramPacket packet = new DatagramPacket(data, data.length, address, port);
+            executor = Executors.newSingleThreadScheduledExecutor();
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    if (!alive) {
+                        return;
+                    }
+                    try {
+                        ByteBuffer.wrap(data).putLong(sequence++);
+                        socket.send(packet);
+                    } catch (IOException ex) {
+                        //the next beat tries again (the watchdog tolerates missed beats)
+                    }
+                }
+            }, 0, period, TimeUnit.MILLISECONDS);
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: start()");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Defines if the system is alive (without it the beats are not sent).
+     * @param alive {@code false} to stop the beats
+     * @since version 4.0.0
+     */
+    public void setAlive(boolean alive) {
+        this.alive = alive;
+    }
+
+    /**
+     * Stops the thread and closes the channel.
+     * @since version 4.0.0
+     */
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package lib.uav.module.comm;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Executors;
+import lib.color.StandardPrints;
+
+/**
+ * The class receives the heartbeat of other system (MOSA) in a dedicated
+ * channel (UDP) and detects when the beats stop: the system is considered
+ * dead when no beat arrives during missed * period.
+ * The time of the last beat is measured with System.nanoTime() (monotonic,
+ * it does not jump with the adjust of the clock). The thread waits the beats
+ * with timeout of a period, so the timeout is detected at most one period
+ * after it happens, and the listener is called by the own thread.
+ * Note: the watchdog is armed only after the first beat (the other system
+ * starts after this one).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see HeartbeatSender
+ */
+public class HeartbeatWatchdog {
+
+    private final int port;
+    private final long period;
+    private final long timeout;
+    private DatagramSocket socket;
+    private Runnable listener;
+    private volatile boolean running;
+    private volatile boolean armed;
+    private volatile boolean expired;
+    private volatile long timeLastBeat;
+    private volatile long timeDetection;
+    private long countBeats;
+    private long maxInterval;
+
+    /**
+     * Class constructor.
+     * @param port network port where the beats arrive
+     * @param period period of the beats (in milliseconds)
+     * @param missed number of beats missed to consider the system dead
+     * @since version 4.0.0
+     */
+    public HeartbeatWatchdog(int port, long period, int missed) {
+        this.port = port;
+        this.period = period;
+        this.timeout = missed * period * 1000000L;
+    }
+
+    /**
+     * Defines the action executed once, when the beats stop (called by the
+     * thread of the watchdog).
+     * @param listener the action
+     * @since version 4.0.0
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts the thread that receives the beats.
+     * @since version 4.0.0
+     */
+    public void start() {
+        try {
+            socket = new DatagramSocket(port);
+            socket.setSoTimeout((int) Math.max(period, 1));
+        } catch (SocketException ex) {
+            StandardPrints.printMsgWarning("Warning [SocketException]: start()");
+            ex.printStackTrace();
+            return;
+        }
+        running = true;
+        Executors.newSingleThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                byte data[] = new byte[Long.BYTES];
+                DatagramPacket packet = new DatagramPacket(data, data.length);
+                while (running) {
+                    try {
+                        socket.receive(packet);
+                        beat(System.nanoTime());
+                    } catch (SocketTimeoutException ex) {
+                        //verified below
+                    } catch (IOException ex) {
+                        if (running) {
+                            StandardPrints.printMsgWarning("Warning [IOException]: run()");
+                        }
+                        break;
+                    }
+                    check(System.nanoTime());
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the thread and closes the channel.
+     * @since version 4.0.0
+     */
+    public void stop() {
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Check if the thread of the watchdog detected that the beats stopped
+     * (the same moment the listener runs, so the time of detection is known;
+     * after stop() the state doesn't change).
+     * @return {@code true} if the other system is considered dead
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Check if the first beat already arrived.
+     * @return {@code true} if the watchdog is armed
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isArmed() {
+        return armed;
+    }
+
+    /**
+     * Gets the time between the last beat and the detection of the timeout.
+     * @return the time in milliseconds (0 if the timeout was not detected)
+     * @since version 4.0.0
+     */
+    public double getTimeToDetection() {
+        return expired ? (timeDetection - timeLastBeat) / 1e6 : 0;
+    }
+
+    /**
+     * Gets the time of the detection of the timeout.
+     * @return the time of System.nanoTime() (0 if the timeout was not detected)
+     * @since version 4.0.0
+     */
+    public long getTimeDetection() {
+        return timeDetection;
+    }
+
+    public synchronized long getCountBeats() {
+        return countBeats;
+    }
+
+    /**
+     * Gets the biggest interval between two beats received.
+     * @return the interval in milliseconds
+     * @since version 4.0.0
+     */
+    public synchronized double getMaxInterval() {
+        return maxInterval / 1e6;
+    }
+
+    private synchronized void beat(long time) {
+        if (armed) {
+            maxInterval = Math.max(maxInterval, time - timeLastBeat);
+        }
+        timeLastBeat = time;
+        countBeats++;
+        armed = true;
+    }
+
+    private void check(long time) {
+        if (expired || !armed || time - timeLastBeat <= timeout) {
+            return;
+        }
+        timeDetection = time;
+        expired = true;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+}
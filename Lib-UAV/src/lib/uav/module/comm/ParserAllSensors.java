@@ -0,0 +1,352 @@
+package lib.uav.module.comm;
+
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneInfo;
+import lib.uav.hardware.aircraft.DroneSensors;
+import lib.uav.hardware.sensors.StatusUAV;
+
+/**
+ * The class converts the response get-all-sensors of UAV-S2DK in the values of
+ * the sensors of the drone in a single pass over the line, without creating
+ * intermediate strings.
+ * FORMAT:
+ * {"all-sensors": [-22.0059333, -47.8987082, 0.07, 870.0, 0.009657, 2.025,
+ * 0.004823, 116, 0.0, 0.0, 3, 10, 121, 65535, [0.0, -0.31, 0.01], 0, 0,
+ * 0.16173128321728691, null, "STABILIZE", "STANDBY", false, true, true]}
+ * Note: the values are the same of the parser based in split(", "). A value
+ * that is not a number (ex: null) does not change the field, as in the methods
+ * update and set of the sensors. This class is not thread safe, use one
+ * instance per thread.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see DataAcquisitionS2DK#getAllInfoSensors()
+ */
+public class ParserAllSensors {
+
+    private static final int NUMBER_FIELDS = 26;
+
+    private static final double POW10[] = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private String line;
+    private int pos;
+    private int end;
+    private int start;
+    private int stop;
+    private double valueDouble;
+    private int valueInt;
+
+    /**
+     * Class constructor.
+     * @since version 4.0.0
+     */
+    public ParserAllSensors() {
+
+    }
+
+    /**
+     * Converts the line get-all-sensors to the values of the sensors of the drone.
+     * @param line the response of get-all-sensors
+     * @param drone the drone to be updated
+     * @throws IllegalArgumentException if the line doesn't have all the fields
+     * @throws NumberFormatException if next waypoint or count waypoint are not integers
+     * @since version 4.0.0
+     */
+    public void parse(String line, Drone drone) {
+        this.line = line;
+        this.end = line.lastIndexOf('}');
+        int begin = line.indexOf(':');
+        if (begin < 0 || end < begin) {
+            throw new IllegalArgumentException("invalid line all-sensors");
+        }
+        this.pos = begin + 1;
+        DroneSensors sensors = drone.getSensors();
+        DroneInfo info = drone.getInfo();
+
+        //gps (lat, lng)
+        if (nextDouble()) {
+            sensors.getGPS().lat = valueDouble;
+            if (nextDouble()) {
+                sensors.getGPS().lng = valueDouble;
+            }
+        } else {
+            next();
+        }
+        //barometer (alt_rel, alt_abs)
+        if (nextDouble()) {
+            sensors.getBarometer().alt_rel = valueDouble;
+            if (nextDouble()) {
+                sensors.getBarometer().alt_abs = valueDouble;
+            }
+        } else {
+            next();
+        }
+        //attitude (pitch, yaw, roll)
+        if (nextDouble()) {
+            sensors.getAttitude().pitch = valueDouble;
+            if (nextDouble()) {
+                sensors.getAttitude().yaw = valueDouble;
+                if (nextDouble()) {
+                    sensors.getAttitude().roll = valueDouble;
+                }
+            } else {
+                next();
+            }
+        } else {
+            next();
+            next();
+        }
+        //heading, groundspeed, airspeed
+        if (nextDouble()) {
+            sensors.getSensorUAV().heading = valueDouble;
+        }
+        if (nextDouble()) {
+            sensors.getSensorUAV().groundspeed = valueDouble;
+        }
+        if (nextDouble()) {
+            sensors.getSensorUAV().airspeed = valueDouble;
+        }
+        //gpsinfo (fix type, satellites visible, eph, epv)
+        if (nextInt()) {
+            sensors.getGPSInfo().fixType = valueInt;
+        }
+        if (nextInt()) {
+            sensors.getGPSInfo().satellitesVisible = valueInt;
+        }
+        if (nextInt()) {
+            sensors.getGPSInfo().eph = valueInt;
+        }
+        if (nextInt()) {
+            sensors.getGPSInfo().epv = valueInt;
+        }
+        //velocity (vx, vy, vz)
+        if (nextDouble()) {
+            sensors.getVelocity().vx = valueDouble;
+            if (nextDouble()) {
+                sensors.getVelocity().vy = valueDouble;
+                if (nextDouble()) {
+                    sensors.getVelocity().vz = valueDouble;
+                }
+            } else {
+                next();
+            }
+        } else {
+            next();
+            next();
+        }
+        //next waypoint, count waypoint
+        if (!nextInt()) {
+            throw new NumberFormatException("next waypoint: " + token());
+        }
+        info.setNextWaypoint(valueInt);
+        if (!nextInt()) {
+            throw new NumberFormatException("count waypoint: " + token());
+        }
+        info.setCountWaypoint(valueInt);
+        //distance to home, distance to current waypoint
+        info.setDistanceToHome(nextDouble() ? valueDouble : -1);
+        info.setDistanceToCurrentWaypoint(nextDouble() ? valueDouble : -1);
+        //mode, system status, armed, is armable, ekf ok
+        StatusUAV status = sensors.getStatusUAV();
+        next();
+        status.mode = reuse(status.mode);
+        next();
+        status.systemStatus = reuse(status.systemStatus);
+        status.armed = nextBoolean();
+        status.isArmable = nextBoolean();
+        status.ekfOk = nextBoolean();
+        this.line = null;
+    }
+
+    /**
+     * Moves to the next field, the field is in [start, stop).
+     * Note: the characters '[', ']' and '"' are ignored as in the old parser.
+     */
+    private void next() {
+        if (pos > end) {
+            throw new IllegalArgumentException("line all-sensors with less than "
+                    + NUMBER_FIELDS + " fields");
+        }
+        int i = pos;
+        while (i < end && isIgnored(line.charAt(i))) {
+            i++;
+        }
+        while (i < end && line.charAt(i) == ' ') {
+            i++;
+        }
+        while (i < end && isIgnored(line.charAt(i))) {
+            i++;
+        }
+        start = i;
+        while (i < end && line.charAt(i) != ',') {
+            i++;
+        }
+        pos = i + 1;
+        while (i > start && isIgnored(line.charAt(i - 1))) {
+            i--;
+        }
+        stop = i;
+    }
+
+    private static boolean isIgnored(char c) {
+        return c == '[' || c == ']' || c == '"';
+    }
+
+    private boolean nextBoolean() {
+        next();
+        return stop - start == 4 && line.regionMatches(true, start, "true", 0, 4);
+    }
+
+    private String reuse(String old) {
+        int len = stop - start;
+        if (old != null && old.length() == len && line.regionMatches(start, old, 0, len)) {
+            return old;
+        }
+        return line.substring(start, stop);
+    }
+
+    /**
+     * Checks if the field is null (sensor without value) to avoid the
+     * exception of Double.parseDouble, that is the most expensive path.
+     */
+    private boolean isNull() {
+        return stop - start == 4 && line.startsWith("null", start);
+    }
+
+    private String token() {
+        return line.substring(start, stop);
+    }
+
+    /**
+     * Reads the next field as int (same rules of Integer.parseInt).
+     * @return {@code true} if the field is a valid int {@code false} otherwise
+     */
+    private boolean nextInt() {
+        next();
+        int i = start;
+        if (i == stop) {
+            return false;
+        }
+        boolean negative = false;
+        char c = line.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+            if (i == stop) {
+                return false;
+            }
+        }
+        long value = 0;
+        for (; i < stop; i++) {
+            c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return false;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            return false;
+        }
+        valueInt = (int) value;
+        return true;
+    }
+
+    /**
+     * Reads the next field as double (same value of Double.parseDouble).
+     * Note: decimal numbers with up to 15 significant digits are converted
+     * directly (exact), the others use Double.parseDouble.
+     * @return {@code true} if the field is a valid double {@code false} otherwise
+     */
+    private boolean nextDouble() {
+        next();
+        int i = start;
+        if (i == stop || isNull()) {
+            return false;
+        }
+        boolean negative = false;
+        char c = line.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean hasDigit = false;
+        boolean hasPoint = false;
+        for (; i < stop; i++) {
+            c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (hasPoint) {
+                    exp10--;
+                }
+                if (digits > 15) {
+                    return parseDoubleSlow();
+                }
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else if ((c == 'e' || c == 'E') && hasDigit) {
+                int e = 0;
+                boolean expNegative = false;
+                i++;
+                if (i < stop && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+                    expNegative = line.charAt(i) == '-';
+                    i++;
+                }
+                if (i == stop) {
+                    return false;
+                }
+                for (; i < stop; i++) {
+                    c = line.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return false;
+                    }
+                    e = e * 10 + (c - '0');
+                    if (e > 1000) {
+                        return parseDoubleSlow();
+                    }
+                }
+                exp10 += expNegative ? -e : e;
+                break;
+            } else {
+                return parseDoubleSlow();
+            }
+        }
+        if (!hasDigit) {
+            return parseDoubleSlow();
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exp10 >= 0 && digits + exp10 <= 15) {
+            value = mantissa * POW10[exp10];
+        } else if (exp10 < 0 && -exp10 < POW10.length) {
+            value = mantissa / POW10[-exp10];
+        } else {
+            return parseDoubleSlow();
+        }
+        valueDouble = negative ? -value : value;
+        return true;
+    }
+
+    private boolean parseDoubleSlow() {
+        try {
+            valueDouble = Double.parseDouble(token());
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+}
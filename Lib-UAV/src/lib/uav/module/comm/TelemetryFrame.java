@@ -0,0 +1,255 @@
+package lib.uav.module.comm;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneInfo;
+import lib.uav.hardware.aircraft.DroneSensors;
+
+/**
+ * The class models the binary frame of telemetry sent by IFA to GCS (same
+ * fields of Drone.toString(), without the text formatting and parsing).
+ * Layout of the version 1 (big-endian, fixed order, 91 bytes + strings):
+ *   byte version; uint timestamp (s); float time;
+ *   int lat, lng (1e-7 degrees); float altRel, altAbs;
+ *   ushort voltage (mV); short current (cA); short level (0.1 %);
+ *   short pitch, yaw, roll (1e-4 rad); short vx, vy, vz (cm/s);
+ *   byte fixType; byte satellitesVisible; ushort eph; ushort epv;
+ *   ushort heading (0.1 degrees); short groundspeed, airspeed (cm/s);
+ *   ushort nextWaypoint; ushort countWaypoint;
+ *   float distanceToHome, distanceToCurrentWaypoint;
+ *   string mode; string systemStatus; byte flags (armed, isArmable, ekfOk);
+ *   string typeFailure; float estimatedTimeToDoRTL, estimatedConsumptionBatForRTL,
+ *   estimatedMaxDistReached, estimatedMaxTimeFlight;
+ *   short distanceSonar (cm); short temperature (0.01 degrees celsius).
+ * The resolutions are the same of the text (Drone.toString()) and the values
+ * out of range are saturated.
+ * The strings are a byte with the length and the bytes in UTF-8.
+ * The frame is sent in one line (Base64), so it shares the socket with the
+ * text messages. The GCS asks for it (GCS_IFA_TELEMETRY_BINARY), the IFA
+ * keeps the text (Drone.toString()) for the GCS that don't ask.
+ * Note: use one instance per thread (the buffer is reused).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see lib.uav.struct.constants.TypeMsgCommunication#IFA_GCS_INFO_BIN
+ */
+public class TelemetryFrame {
+
+    public static final byte VERSION = 1;
+    private static final byte ARMED = 1;
+    private static final byte IS_ARMABLE = 2;
+    private static final byte EKF_OK = 4;
+    private static final int MAX_LENGTH_STRING = 255;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private final String lastString[] = new String[3];
+    private final byte lastBytes[][] = new byte[3][];
+
+    public long timestamp;                              //in milliseconds (resolution of 1 s)
+    public double time;                                 //in seconds
+    public double lat;
+    public double lng;
+    public double altRel;
+    public double altAbs;
+    public double voltage;
+    public double current;
+    public double level;
+    public double pitch;
+    public double yaw;
+    public double roll;
+    public double vx;
+    public double vy;
+    public double vz;
+    public int fixType;
+    public int satellitesVisible;
+    public int eph;
+    public int epv;
+    public double heading;
+    public double groundspeed;
+    public double airspeed;
+    public int nextWaypoint;
+    public int countWaypoint;
+    public double distanceToHome;
+    public double distanceToCurrentWaypoint;
+    public String mode;
+    public String systemStatus;
+    public boolean armed;
+    public boolean isArmable;
+    public boolean ekfOk;
+    public String typeFailure;
+    public double estimatedTimeToDoRTL;
+    public double estimatedConsumptionBatForRTL;
+    public double estimatedMaxDistReached;
+    public double estimatedMaxTimeFlight;
+    public double distanceSonar;                        //-1 if there is not
+    public double temperature;                          //-1 if there is not
+
+    /**
+     * Encodes the current data of the drone in a frame.
+     * @param drone instance of the aircraft
+     * @return the frame in Base64 (one line)
+     * @since version 4.0.0
+     */
+    public String encode(Drone drone) {
+        DroneSensors s = drone.getSensors();
+        DroneInfo info = drone.getInfo();
+        buffer.clear();
+        buffer.put(VERSION);
+        buffer.putInt((int) (System.currentTimeMillis() / 1000));
+        buffer.putFloat((float) info.getTime());
+        buffer.putInt((int) Math.round(s.getGPS().lat * 1e7));
+        buffer.putInt((int) Math.round(s.getGPS().lng * 1e7));
+        buffer.putFloat((float) s.getBarometer().alt_rel);
+        buffer.putFloat((float) s.getBarometer().alt_abs);
+        putUnsigned(s.getBattery().voltage, 1e3);
+        putSigned(s.getBattery().current, 1e2);
+        putSigned(s.getBattery().level, 1e1);
+        putSigned(s.getAttitude().pitch, 1e4);
+        putSigned(s.getAttitude().yaw, 1e4);
+        putSigned(s.getAttitude().roll, 1e4);
+        putSigned(s.getVelocity().vx, 1e2);
+        putSigned(s.getVelocity().vy, 1e2);
+        putSigned(s.getVelocity().vz, 1e2);
+        buffer.put((byte) s.getGPSInfo().fixType);
+        buffer.put((byte) s.getGPSInfo().satellitesVisible);
+        putUnsigned(s.getGPSInfo().eph, 1);
+        putUnsigned(s.getGPSInfo().epv, 1);
+        putUnsigned(s.getSensorUAV().heading, 1e1);
+        putSigned(s.getSensorUAV().groundspeed, 1e2);
+        putSigned(s.getSensorUAV().airspeed, 1e2);
+        putUnsigned(info.getNextWaypoint(), 1);
+        putUnsigned(info.getCountWaypoint(), 1);
+        buffer.putFloat((float) info.getDistanceToHome());
+        buffer.putFloat((float) info.getDistanceToCurrentWaypoint());
+        putString(0, s.getStatusUAV().mode);
+        putString(1, s.getStatusUAV().systemStatus);
+        buffer.put((byte) ((s.getStatusUAV().armed ? ARMED : 0)
+                | (s.getStatusUAV().isArmable ? IS_ARMABLE : 0)
+                | (s.getStatusUAV().ekfOk ? EKF_OK : 0)));
+        putString(2, info.getTypeFailure());
+        buffer.putFloat((float) info.getEstimatedTimeToDoRTL());
+        buffer.putFloat((float) info.getEstimatedConsumptionBatForRTL());
+        buffer.putFloat((float) info.getEstimatedMaxDistReached());
+        buffer.putFloat((float) info.getEstimatedMaxTimeFlight());
+        putSigned(s.getSonar().distance, 1e2);
+        putSigned(s.getTemperature().temperature, 1e2);
+        return Base64.getEncoder().encodeToString(
+                Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * Decodes a frame and updates the fields of this object.
+     * @param line the frame in Base64 (without the header of the message)
+     * @return {@code true} if the frame was decoded
+     *         {@code false} if the frame is invalid or of another version
+     * @since version 4.0.0
+     */
+    public boolean decode(String line) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(line.trim()));
+            if (in.get() != VERSION) {
+                return false;
+            }
+            timestamp = (in.getInt() & 0xffffffffL) * 1000;
+            time = in.getFloat();
+            lat = in.getInt() / 1e7;
+            lng = in.getInt() / 1e7;
+            altRel = in.getFloat();
+            altAbs = in.getFloat();
+            voltage = in.getChar() / 1e3;
+            current = in.getShort() / 1e2;
+            level = in.getShort() / 1e1;
+            pitch = in.getShort() / 1e4;
+            yaw = in.getShort() / 1e4;
+            roll = in.getShort() / 1e4;
+            vx = in.getShort() / 1e2;
+            vy = in.getShort() / 1e2;
+            vz = in.getShort() / 1e2;
+            fixType = in.get() & 0xff;
+            satellitesVisible = in.get() & 0xff;
+            eph = in.getChar();
+            epv = in.getChar();
+            heading = in.getChar() / 1e1;
+            groundspeed = in.getShort() / 1e2;
+            airspeed = in.getShort() / 1e2;
+            nextWaypoint = in.getChar();
+            countWaypoint = in.getChar();
+            distanceToHome = in.getFloat();
+            distanceToCurrentWaypoint = in.getFloat();
+            mode = getString(in, mode);
+            systemStatus = getString(in, systemStatus);
+            byte flags = in.get();
+            armed = (flags & ARMED) != 0;
+            isArmable = (flags & IS_ARMABLE) != 0;
+            ekfOk = (flags & EKF_OK) != 0;
+            typeFailure = getString(in, typeFailure);
+            estimatedTimeToDoRTL = in.getFloat();
+            estimatedConsumptionBatForRTL = in.getFloat();
+            estimatedMaxDistReached = in.getFloat();
+            estimatedMaxTimeFlight = in.getFloat();
+            distanceSonar = in.getShort() / 1e2;
+            temperature = in.getShort() / 1e2;
+            return true;
+        } catch (IllegalArgumentException | BufferUnderflowException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes value * scale in a short (saturated).
+     */
+    private void putSigned(double value, double scale) {
+        long v = Math.round(value * scale);
+        buffer.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v)));
+    }
+
+    /**
+     * Writes value * scale in an unsigned short (saturated).
+     */
+    private void putUnsigned(double value, double scale) {
+        long v = Math.round(value * scale);
+        buffer.putChar((char) Math.max(Character.MIN_VALUE, Math.min(Character.MAX_VALUE, v)));
+    }
+
+    /**
+     * Writes a string (the bytes of the last value are reused).
+     */
+    private void putString(int id, String value) {
+        if (value == null) {
+            value = "";
+        }
+        if (!value.equals(lastString[id])) {
+            byte bytes[] = value.getBytes(StandardCharsets.UTF_8);
+            lastBytes[id] = bytes.length > MAX_LENGTH_STRING ?
+                    Arrays.copyOf(bytes, MAX_LENGTH_STRING) : bytes;
+            lastString[id] = value;
+        }
+        buffer.put((byte) lastBytes[id].length);
+        buffer.put(lastBytes[id]);
+    }
+
+    /**
+     * Reads a string (the previous value is kept if it is equal).
+     */
+    private static String getString(ByteBuffer in, String previous) {
+        int length = in.get() & 0xff;
+        if (previous != null && previous.length() == length) {
+            boolean equal = true;
+            for (int i = 0; i < length && equal; i++) {
+                equal = in.get(in.position() + i) == previous.charAt(i);
+            }
+            if (equal) {
+                in.position(in.position() + length);
+                return previous;
+            }
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+}
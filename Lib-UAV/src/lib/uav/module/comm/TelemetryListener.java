@@ -0,0 +1,22 @@
+package lib.uav.module.comm;
+
+import lib.uav.hardware.aircraft.Drone;
+
+/**
+ * Interface representing who receives the telemetry frames of the aircraft
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see TelemetryStreamS2DK
+ */
+public interface TelemetryListener {
+    
+    /**
+     * Method called after a new telemetry frame is updated in the drone.
+     * Note: it is called by the thread of the stream, it must return quickly.
+     * @param drone the drone with the values of the frame
+     * @param countFrames number of frames received until now
+     * @since version 4.0.0
+     */
+    public void updateTelemetry(Drone drone, long countFrames);
+    
+}
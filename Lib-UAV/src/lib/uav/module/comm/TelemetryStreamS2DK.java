@@ -0,0 +1,306 @@
+package lib.uav.module.comm;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.struct.constants.Constants;
+
+/**
+ * The class models the subscription to the telemetry of UAV-S2DK. A single
+ * long-lived connection receives the frames of stream-all-sensors (same format
+ * of get-all-sensors, one frame per line) when the autopilot data change.
+ * Each frame is updated in the drone and delivered to the listeners.
+ * Note: if the UAV-S2DK does not have the stream (old version) the thread
+ * stops and no frame arrives, so waitNextFrame returns {@code false} after
+ * the timeout and the caller can poll with getAllInfoSensors.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see DataAcquisitionS2DK#getAllInfoSensors()
+ */
+public class TelemetryStreamS2DK {
+
+    private static final String URL_STREAM = "/stream-all-sensors/";
+
+    private final Drone drone;
+    private final String uavSource;
+    private final String host;
+    private final int port;
+    private final ParserAllSensors parser = new ParserAllSensors();
+    private final List<TelemetryListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    private volatile boolean running;
+    private volatile Socket socket;
+    private long countFrames;
+    private long countFramesConsumed;
+    private long countConnectionsOpened;
+    private byte[] bufferFrame = new byte[512];
+    private int lengthFrame;
+
+    /**
+     * Class constructor.
+     * @param drone instance of the aircraft
+     * @param uavSource IFA or MOSA (value of the header UAV-Source)
+     * @param host ip of the UAV-S2DK
+     * @param port network port of the UAV-S2DK
+     * @since version 4.0.0
+     */
+    public TelemetryStreamS2DK(Drone drone, String uavSource, String host, int port) {
+        this.drone = drone;
+        this.uavSource = uavSource;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Adds a listener of the telemetry frames.
+     * @param listener the listener
+     * @since version 4.0.0
+     */
+    public void addListener(TelemetryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener of the telemetry frames.
+     * @param listener the listener
+     * @since version 4.0.0
+     */
+    public void removeListener(TelemetryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Thread that keeps the connection with UAV-S2DK and receives the frames.
+     * If the connection falls, it is opened again.
+     * @since version 4.0.0
+     */
+    public void start() {
+        running = true;
+        Executors.newSingleThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        if (!receiveFrames()) {
+                            StandardPrints.printMsgWarning("Warning: UAV-S2DK without "
+                                    + URL_STREAM + " (using polling)");
+                            running = false;
+                        }
+                    } catch (IOException ex) {
+                        if (running) {
+                            StandardPrints.printMsgWarning("Warning [IOException]: TelemetryStreamS2DK.start()");
+                        }
+                    } catch (RuntimeException ex) {
+                        StandardPrints.printMsgWarning("Warning [RuntimeException]: TelemetryStreamS2DK.start()");
+                        ex.printStackTrace();
+                    }
+                    closeSocket();
+                    if (running) {
+                        try {
+                            Thread.sleep(Constants.TIME_TO_RECONNECT_STREAM_S2DK);
+                        } catch (InterruptedException ex) {
+                            running = false;
+                        }
+                    }
+                }
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the subscription and closes the connection.
+     * @since version 4.0.0
+     */
+    public void stop() {
+        running = false;
+        closeSocket();
+    }
+
+    /**
+     * Waits for a frame not yet consumed by this method.
+     * Note: the method must be used by a single thread (the monitoring thread).
+     * @param timeout maximum time to wait (in milliseconds)
+     * @return {@code true} if a new frame arrived
+     *         {@code false} if the timeout expired or the stream is stopped
+     * @throws InterruptedException if the thread is interrupted
+     * @since version 4.0.0
+     */
+    public boolean waitNextFrame(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock) {
+            while (countFrames == countFramesConsumed) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !running) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            countFramesConsumed = countFrames;
+            return true;
+        }
+    }
+
+    /**
+     * Checks if the stream is running (connected or reconnecting).
+     * @return {@code true} if running {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the number of frames received.
+     * @return the number of frames received
+     * @since version 4.0.0
+     */
+    public long getCountFrames() {
+        synchronized (lock) {
+            return countFrames;
+        }
+    }
+
+    /**
+     * Gets the number of connections opened with the UAV-S2DK.
+     * @return the number of connections opened
+     * @since version 4.0.0
+     */
+    public long getCountConnectionsOpened() {
+        synchronized (lock) {
+            return countConnectionsOpened;
+        }
+    }
+
+    /**
+     * Opens the connection and reads the frames until the connection is closed.
+     * @return {@code false} if the UAV-S2DK does not have the stream
+     */
+    private boolean receiveFrames() throws IOException {
+        Socket s = new Socket();
+        s.setTcpNoDelay(true);
+        s.setKeepAlive(true);
+        s.setSoTimeout(Constants.TIME_OUT_CONNECTION_S2DK);
+        s.connect(new InetSocketAddress(host, port), Constants.TIME_OUT_CONNECTION_S2DK);
+        socket = s;
+        synchronized (lock) {
+            countConnectionsOpened++;
+        }
+        InputStream in = new BufferedInputStream(s.getInputStream());
+        OutputStream out = s.getOutputStream();
+        String request = "GET " + URL_STREAM + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "UAV-Source: " + uavSource + "\r\n"
+                + "Accept: application/x-ndjson\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        String statusLine = HTTPConnectionPool.readLine(in);
+        if (statusLine == null) {
+            throw new IOException("connection closed by the server");
+        }
+        if (statusLine.contains(" 404")) {
+            return false;
+        }
+        if (!statusLine.contains(" 200")) {
+            throw new IOException("unexpected response: " + statusLine);
+        }
+        boolean chunked = false;
+        String line;
+        while ((line = HTTPConnectionPool.readLine(in)) != null && !line.isEmpty()) {
+            int sep = line.indexOf(':');
+            if (sep > 0 && line.substring(0, sep).trim().equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = line.substring(sep + 1).trim().equalsIgnoreCase("chunked");
+            }
+        }
+        lengthFrame = 0;
+        if (chunked) {
+            while (running) {
+                line = HTTPConnectionPool.readLine(in);
+                if (line == null) {
+                    return true;
+                }
+                int sep = line.indexOf(';');
+                int size = Integer.parseInt((sep < 0 ? line : line.substring(0, sep)).trim(), 16);
+                if (size == 0) {
+                    return true;
+                }
+                for (int i = 0; i < size; i++) {
+                    int c = in.read();
+                    if (c < 0) {
+                        return true;
+                    }
+                    append(c);
+                }
+                HTTPConnectionPool.readLine(in);
+            }
+        } else {
+            int c;
+            while (running && (c = in.read()) >= 0) {
+                append(c);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a byte to the current frame, the frame ends in '\n'.
+     */
+    private void append(int c) {
+        if (c == '\n') {
+            if (lengthFrame > 0) {
+                deliver(new String(bufferFrame, 0, lengthFrame, StandardCharsets.UTF_8));
+            }
+            lengthFrame = 0;
+            return;
+        }
+        if (c == '\r') {
+            return;
+        }
+        if (lengthFrame == bufferFrame.length) {
+            byte[] bigger = new byte[bufferFrame.length * 2];
+            System.arraycopy(bufferFrame, 0, bigger, 0, lengthFrame);
+            bufferFrame = bigger;
+        }
+        bufferFrame[lengthFrame++] = (byte) c;
+    }
+
+    private void deliver(String frame) {
+        if (!frame.startsWith("{\"all-sensors\"")) {
+            return;//keep-alive or unknown frame
+        }
+        parser.parse(frame, drone);
+        long count;
+        synchronized (lock) {
+            count = ++countFrames;
+            lock.notifyAll();
+        }
+        for (TelemetryListener listener : listeners) {
+            listener.updateTelemetry(drone, count);
+        }
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ex) {
+
+            }
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package lib.uav.module.replanner;
+
+import lib.uav.struct.mission.Mission3D;
+
+/**
+ * Interface of the path replanners executed inside the IFA (without a new
+ * JVM and without the files config.sgl, route.txt and routeGeo.txt).
+ * The implementations are found by java.util.ServiceLoader: the jar declares
+ * the class in META-INF/services/lib.uav.module.replanner.ReplannerProvider
+ * and is put in the classpath of the IFA or in the directory of the replanner.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see ReplannerProviders
+ */
+public interface ReplannerProvider {
+
+    /**
+     * Gets the name of the method (value of prop.ifa.replanner.method).
+     * @return the name of the method (example: GH4s)
+     * @since version 4.0.0
+     */
+    public String getName();
+
+    /**
+     * Loads the static data of the method (map, base configuration). Called
+     * once, when the IFA starts, before any replanning.
+     * @param dirReplanner directory of the replanner (example: ../Modules-IFA/GH4s/)
+     * @throws Exception if the data can't be loaded (the provider is not used)
+     * @since version 4.0.0
+     */
+    public void load(String dirReplanner) throws Exception;
+
+    /**
+     * Calculates the emergency route. It can be called by several threads.
+     * @param request the state of the aircraft and the parameters of the method
+     * @return the route in Cartesian coordinates (only x and y are used), or
+     *         null if there is no route
+     * @since version 4.0.0
+     */
+    public Mission3D replan(ReplanningRequest request);
+
+}
@@ -0,0 +1,94 @@
+package lib.uav.module.replanner;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import lib.color.StandardPrints;
+
+/**
+ * The class finds the replanners executed inside the IFA (ReplannerProvider)
+ * in the classpath and in the jars of the directory of the replanner.
+ * The provider is searched and loaded once per method; if there is no provider
+ * the IFA uses the external replanner (script and files).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see ReplannerProvider
+ */
+public class ReplannerProviders {
+
+    private static final Map<String, ReplannerProvider> providers = new HashMap<>();
+
+    /**
+     * Gets the provider of a method (searched and loaded in the first call).
+     * @param name the name of the method (prop.ifa.replanner.method)
+     * @param dirReplanner directory of the replanner
+     * @return the provider or null if there is not (use the external replanner)
+     * @since version 4.0.0
+     */
+    public static synchronized ReplannerProvider get(String name, String dirReplanner) {
+        String key = name + "@" + dirReplanner;
+        if (providers.containsKey(key)) {
+            return providers.get(key);
+        }
+        ReplannerProvider provider = find(name, dirReplanner);
+        providers.put(key, provider);
+        return provider;
+    }
+
+    private static ReplannerProvider find(String name, String dirReplanner) {
+        Iterator<ReplannerProvider> it = ServiceLoader.load(ReplannerProvider.class,
+                createClassLoader(dirReplanner)).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) {
+                    return null;
+                }
+                ReplannerProvider provider = it.next();
+                if (provider.getName().equals(name)) {
+                    provider.load(dirReplanner);
+                    StandardPrints.printMsgEmph("replanner in process: " + name);
+                    return provider;
+                }
+            } catch (ServiceConfigurationError ex) {
+                StandardPrints.printMsgWarning("Warning [ServiceConfigurationError]: find() " + ex.getMessage());
+            } catch (Exception ex) {
+                StandardPrints.printMsgWarning("Warning [Exception]: find() " + ex);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Creates the class loader with the jars of the directory of the replanner.
+     */
+    private static ClassLoader createClassLoader(String dirReplanner) {
+        ClassLoader parent = ReplannerProvider.class.getClassLoader();
+        File files[] = dirReplanner == null ? null : new File(dirReplanner).listFiles();
+        if (files == null) {
+            return parent;
+        }
+        List<URL> urls = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(".jar")) {
+                try {
+                    urls.add(file.toURI().toURL());
+                } catch (MalformedURLException ex) {
+                    StandardPrints.printMsgWarning("Warning [MalformedURLException]: createClassLoader()");
+                }
+            }
+        }
+        if (urls.isEmpty()) {
+            return parent;
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), parent);
+    }
+
+}
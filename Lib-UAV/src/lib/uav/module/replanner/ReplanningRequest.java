@@ -0,0 +1,45 @@
+package lib.uav.module.replanner;
+
+/**
+ * The class models the input of a replanning in memory (the same values that
+ * the external replanners receive in config.sgl and instance).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see ReplannerProvider
+ */
+public class ReplanningRequest {
+
+    public final double px;                 //in meters
+    public final double py;                 //in meters
+    public final double speed;              //in meters/seconds
+    public final double angle;              //in radians (angle math)
+    public final double altitude;           //relative altitude in meters
+    public final int numberWaypoints;
+    public final double delta;              //risk allocated
+    public final double timeExec;           //in seconds
+
+    /**
+     * Class constructor.
+     * @param px position x of the aircraft (Cartesian coordinates)
+     * @param py position y of the aircraft (Cartesian coordinates)
+     * @param speed speed of the aircraft
+     * @param angle direction of the aircraft
+     * @param altitude relative altitude of the aircraft
+     * @param numberWaypoints number of waypoints of the route
+     * @param delta risk allocated during the route
+     * @param timeExec maximum execution time of the method
+     * @since version 4.0.0
+     */
+    public ReplanningRequest(double px, double py, double speed, double angle,
+            double altitude, int numberWaypoints, double delta, double timeExec) {
+        this.px = px;
+        this.py = py;
+        this.speed = speed;
+        this.angle = angle;
+        this.altitude = altitude;
+        this.numberWaypoints = numberWaypoints;
+        this.delta = delta;
+        this.timeExec = timeExec;
+    }
+
+}
@@ -16,6 +16,7 @@ import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.constants.TypeReplanner;
 import lib.uav.struct.constants.TypeSystemExecIFA;
 import lib.uav.struct.constants.TypeSystemExecMOSA;
+import lib.uav.struct.constants.TypeTelemetryUAV;
 
 /**
  * The class reads the file with configurations/properties of the MOSA and IFA systems.
@@ -38,9 +39,14 @@ public class ReaderFileConfig {
     private String dirMission;
     private double altRelMission;
     private double freqUpdateDataAP;
+    private String typeTelemetry;
     private boolean hasRouteSimplifier;
     private String dirRouteSimplifier;
     private String factorRouteSimplifier;
+    private boolean hasRouteCache;
+    private String dirRouteCache;
+    private int maxEntriesRouteCache;
+    private long maxSizeRouteCache;
     
     private String dirFiles;
     private String fileGeoBase;
@@ -54,6 +60,9 @@ public class ReaderFileConfig {
     private int portNetworkIFAandGCS;
     private int portNetworkMOSAandGCS;
     private int portNetworkS2DK;
+    private int portNetworkHeartbeatIFAandMOSA;
+    private int periodHeartbeat;
+    private int missedHeartbeat;
         
     //sensor
     private boolean hasCamera;
@@ -103,6 +112,8 @@ public class ReaderFileConfig {
     //ifa
     //global
     private String systemExecIFA;
+    private double horizonGeofence;
+    private double marginGeofence;
     
     //replanner
     private String localExecReplanner;
@@ -114,6 +125,13 @@ public class ReaderFileConfig {
     private String numberWaypointsReplanner;
     private String deltaReplanner; 
     private String typeAltitudeDecayReplanner;
+    private String[] portfolioReplanner;
+    private double deadlinePortfolioReplanner;
+    private double cpuSpeculativeReplanner;
+    private double maxAgeSpeculativeReplanner;
+    private double maxDistanceSpeculativeReplanner;
+    private boolean isHedgedReplanner;
+    private double deadlineOffboardReplanner;
     
     //fixed route
     private String dirFixedRouteIFA;
@@ -137,6 +155,8 @@ public class ReaderFileConfig {
     private String deltaPlannerHGA4m;
     private String maxVelocityPlannerHGA4m;
     private String maxControlPlannerHGA4m;
+    private int parallelLegsPlannerHGA4m;
+    private int lookaheadPlannerHGA4m;
     
     //ccqsp4m
     private String waypointsPlannerCCQSP4m;
@@ -147,6 +167,9 @@ public class ReaderFileConfig {
     
     //astar4m
     private String fileMissionPlannerAStar4m;
+    private boolean isInJvmPlannerAStar4m;
+    private double sizeCellPlannerAStar4m;
+    private long maxTimePlannerAStar4m;
     
     //pathplanner4m
     private String fileMissionPlannerGPathPlanner4m;
@@ -208,9 +231,14 @@ public class ReaderFileConfig {
             dirMission            = prop.getProperty("prop.global.mission.dir");
             altRelMission         = Double.parseDouble(prop.getProperty("prop.global.mission.altitude_relative"));
             freqUpdateDataAP      = Double.parseDouble(prop.getProperty("prop.global.freq_update_data_ap"));
+            typeTelemetry         = prop.getProperty("prop.global.type_telemetry", TypeTelemetryUAV.POLLING);
             hasRouteSimplifier    = Boolean.parseBoolean(prop.getProperty("prop.global.has_route_simplifier"));
             dirRouteSimplifier    = prop.getProperty("prop.route_simplifier.dir");
             factorRouteSimplifier = prop.getProperty("prop.route_simplifier.factor");
+            hasRouteCache         = Boolean.parseBoolean(prop.getProperty("prop.global.has_route_cache", "FALSE"));
+            dirRouteCache         = prop.getProperty("prop.route_cache.dir", "../Modules-Global/Route-Cache/");
+            maxEntriesRouteCache  = Integer.parseInt(prop.getProperty("prop.route_cache.max_entries", "1000"));
+            maxSizeRouteCache     = Long.parseLong(prop.getProperty("prop.route_cache.max_size", "16384")) * 1024;
                                           
             dirFiles              = prop.getProperty("prop.global.dir_files");
             fileFeatureMission    = prop.getProperty("prop.global.file.feature_mission");
@@ -224,6 +252,9 @@ public class ReaderFileConfig {
             portNetworkIFAandGCS  = Integer.parseInt(prop.getProperty("prop.global.comm.port_network_ifa_gcs"));
             portNetworkMOSAandGCS = Integer.parseInt(prop.getProperty("prop.global.comm.port_network_mosa_gcs"));
             portNetworkS2DK        = Integer.parseInt(prop.getProperty("prop.global.comm.port_network_s2dk"));
+            portNetworkHeartbeatIFAandMOSA = Integer.parseInt(prop.getProperty("prop.global.comm.port_network_heartbeat_ifa_mosa", "5558"));
+            periodHeartbeat        = Integer.parseInt(prop.getProperty("prop.global.comm.heartbeat_period", "20"));
+            missedHeartbeat        = Integer.parseInt(prop.getProperty("prop.global.comm.heartbeat_missed", "3"));
             
             //modules hardware
             hasCamera             = Boolean.parseBoolean(prop.getProperty("prop.hw.sensor.has_camera"));
@@ -275,6 +306,8 @@ public class ReaderFileConfig {
             
             //ifa
             systemExecIFA              = prop.getProperty("prop.ifa.global.system_exec");
+            horizonGeofence            = Double.parseDouble(prop.getProperty("prop.ifa.global.geofence_horizon", "3.0"));
+            marginGeofence             = Double.parseDouble(prop.getProperty("prop.ifa.global.geofence_margin", "2.0"));
             localExecReplanner         = prop.getProperty("prop.ifa.replanner.local_exec");
             methodReplanner            = prop.getProperty("prop.ifa.replanner.method");
             cmdExecReplanner           = prop.getProperty("prop.ifa.replanner.cmd_exec");
@@ -282,6 +315,13 @@ public class ReaderFileConfig {
             timeExecReplanner          = prop.getProperty("prop.ifa.replanner.time_exec");
             numberWaypointsReplanner   = prop.getProperty("prop.ifa.replanner.number_waypoints");
             deltaReplanner             = prop.getProperty("prop.ifa.replanner.delta");
+            portfolioReplanner         = parsePortfolio(prop.getProperty("prop.ifa.replanner.portfolio", ""));
+            deadlinePortfolioReplanner = Double.parseDouble(prop.getProperty("prop.ifa.replanner.portfolio_deadline", "3.0"));
+            cpuSpeculativeReplanner    = Double.parseDouble(prop.getProperty("prop.ifa.replanner.speculative_cpu", "0.0"));
+            maxAgeSpeculativeReplanner = Double.parseDouble(prop.getProperty("prop.ifa.replanner.speculative_max_age", "5.0"));
+            maxDistanceSpeculativeReplanner = Double.parseDouble(prop.getProperty("prop.ifa.replanner.speculative_max_distance", "10.0"));
+            isHedgedReplanner          = Boolean.parseBoolean(prop.getProperty("prop.ifa.replanner.hedged", "false"));
+            deadlineOffboardReplanner  = Double.parseDouble(prop.getProperty("prop.ifa.replanner.offboard_deadline", "5.0"));
             dirFixedRouteIFA           = prop.getProperty("prop.ifa.fixed_route.dir");
             fileFixedRouteIFA          = prop.getProperty("prop.ifa.fixed_route.file_waypoints");
             
@@ -297,6 +337,8 @@ public class ReaderFileConfig {
             deltaPlannerHGA4m         = prop.getProperty("prop.mosa.planner.hga4m.delta");
             maxVelocityPlannerHGA4m   = prop.getProperty("prop.mosa.planner.hga4m.max_velocity");
             maxControlPlannerHGA4m    = prop.getProperty("prop.mosa.planner.hga4m.max_control");                        
+            parallelLegsPlannerHGA4m  = Integer.parseInt(prop.getProperty("prop.mosa.planner.hga4m.parallel_legs", "1"));
+            lookaheadPlannerHGA4m     = Integer.parseInt(prop.getProperty("prop.mosa.planner.hga4m.lookahead", "2"));
             
             waypointsPlannerCCQSP4m   = prop.getProperty("prop.mosa.planner.ccqsp4m.waypoints");
             timeHorizonPlannerCCQSP4m = prop.getProperty("prop.mosa.planner.ccqsp4m.time_horizon");
@@ -305,6 +347,9 @@ public class ReaderFileConfig {
             stdPositionPlannerCCQSP4m = prop.getProperty("prop.mosa.planner.ccqsp4m.std_position");
             
             fileMissionPlannerAStar4m = prop.getProperty("prop.mosa.planner.astar4m.file_mission");         
+            isInJvmPlannerAStar4m     = Boolean.parseBoolean(prop.getProperty("prop.mosa.planner.astar4m.in_jvm", "TRUE"));
+            sizeCellPlannerAStar4m    = Double.parseDouble(prop.getProperty("prop.mosa.planner.astar4m.size_cell", "1.0"));
+            maxTimePlannerAStar4m     = Long.parseLong(prop.getProperty("prop.mosa.planner.astar4m.max_time", "0"));
             
             fileMissionPlannerGPathPlanner4m = prop.getProperty("prop.mosa.planner.gpathplanner4m.file_mission");         
             
@@ -385,6 +430,11 @@ public class ReaderFileConfig {
             StandardPrints.printMsgError2("Error [[file ./config-global.properties]] type of data acquisition not valid");
             return false;
         }
+        if (!typeTelemetry.equals(TypeTelemetryUAV.POLLING) && 
+                !typeTelemetry.equals(TypeTelemetryUAV.STREAMING)){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] type of telemetry not valid");
+            return false;
+        }
         if (systemExecIFA == null || 
                 (!systemExecIFA.equals(TypeSystemExecIFA.REPLANNER) &&
                  !systemExecIFA.equals(TypeSystemExecIFA.FIXED_ROUTE) && 
@@ -392,6 +442,14 @@ public class ReaderFileConfig {
             StandardPrints.printMsgError2("Error [[file ./config-global.properties]] type of system exec not valid");
             return false;
         }
+        if (periodHeartbeat < 0 || missedHeartbeat < 1){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] period or missed beats of heartbeat not valid");
+            return false;
+        }
+        if (horizonGeofence < 0 || marginGeofence < 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] horizon or margin of geofence not valid");
+            return false;
+        }
         if (localExecReplanner == null || 
                 (!localExecReplanner.equals(LocalExecPlanner.ONBOARD) &&
                  !localExecReplanner.equals(LocalExecPlanner.OFFBOARD))){
@@ -417,6 +475,37 @@ public class ReaderFileConfig {
             StandardPrints.printMsgError2("Error [[file ./config-global.properties]] type altitude decay not valid");
             return false;
         }
+        for (int i = 0; i < portfolioReplanner.length; i++) {
+            String method = portfolioReplanner[i];
+            if (getDirReplanner(method) == null || 
+                    method.equals(TypeReplanner.GA_GA_4S) || 
+                    method.equals(TypeReplanner.GA_GH_4S)){
+                StandardPrints.printMsgError2("Error [[file ./config-global.properties]] method of portfolio not valid: " + method);
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (portfolioReplanner[j].equals(method)){
+                    StandardPrints.printMsgError2("Error [[file ./config-global.properties]] method of portfolio repeated: " + method);
+                    return false;
+                }
+            }
+        }
+        if (deadlinePortfolioReplanner <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] deadline of portfolio not valid");
+            return false;
+        }
+        if (cpuSpeculativeReplanner < 0 || cpuSpeculativeReplanner > 1){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] cpu of speculative replanner not valid");
+            return false;
+        }
+        if (maxAgeSpeculativeReplanner <= 0 || maxDistanceSpeculativeReplanner <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] staleness of speculative replanner not valid");
+            return false;
+        }
+        if (deadlineOffboardReplanner <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] deadline of offboard replanner not valid");
+            return false;
+        }
         if (systemExecMOSA == null || 
                 (!systemExecMOSA.equals(TypeSystemExecMOSA.FIXED_ROUTE) && 
                  !systemExecMOSA.equals(TypeSystemExecMOSA.PLANNER))){
@@ -429,6 +518,30 @@ public class ReaderFileConfig {
             StandardPrints.printMsgError2("Error [[file ./config-global.properties]] type of local exec method not valid");
             return false;
         }
+        if (parallelLegsPlannerHGA4m < 1){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] number of parallel legs of HGA4m not valid");
+            return false;
+        }
+        if (lookaheadPlannerHGA4m < 1){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] lookahead of HGA4m not valid");
+            return false;
+        }
+        if (sizeCellPlannerAStar4m <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] size of cell of A_STAR4m not valid");
+            return false;
+        }
+        if (maxTimePlannerAStar4m < 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] max time of A_STAR4m not valid");
+            return false;
+        }
+        if (maxEntriesRouteCache <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] max entries of route cache not valid");
+            return false;
+        }
+        if (maxSizeRouteCache <= 0){
+            StandardPrints.printMsgError2("Error [[file ./config-global.properties]] max size of route cache not valid");
+            return false;
+        }
         if (methodPlanner == null || 
                 (!methodPlanner.equals(TypePlanner.HGA4M) &&
                  !methodPlanner.equals(TypePlanner.CCQSP4M) && 
@@ -448,33 +561,9 @@ public class ReaderFileConfig {
      */
     public boolean parseToVariables(){
         try{
-            if (methodReplanner.equals(TypeReplanner.DE4S)){
-                typeReplanner = TypeReplanner.DE4S;
-                dirReplanner = "../Modules-IFA/DE4s/";
-            }else if (methodReplanner.equals(TypeReplanner.GH4S)){
-                typeReplanner = TypeReplanner.GH4S;
-                dirReplanner = "../Modules-IFA/GH4s/";
-            }else if (methodReplanner.equals(TypeReplanner.GA4S)){
-                typeReplanner = TypeReplanner.GA4S;
-                dirReplanner = "../Modules-IFA/GA4s/";
-            }else if (methodReplanner.equals(TypeReplanner.MPGA4S)){
-                typeReplanner = TypeReplanner.MPGA4S;
-                dirReplanner = "../Modules-IFA/MPGA4s/";
-            }else if (methodReplanner.equals(TypeReplanner.MS4S)){
-                typeReplanner = TypeReplanner.MS4S;
-                dirReplanner = "../Modules-IFA/MS4s/";
-            }else if (methodReplanner.equals(TypeReplanner.GA_GA_4S)){
-                typeReplanner = TypeReplanner.GA_GA_4S;
-                dirReplanner = "../Modules-IFA/GA-GA-4s/";
-            }else if (methodReplanner.equals(TypeReplanner.GA_GH_4S)){
-                typeReplanner = TypeReplanner.GA_GH_4S;
-                dirReplanner = "../Modules-IFA/GA-GH-4s/";
-            }else if (methodReplanner.equals(TypeReplanner.PRE_PLANNED4s)){
-                typeReplanner = TypeReplanner.PRE_PLANNED4s;
-                dirReplanner = "../Modules-IFA/Fixed-Route4s/";
-            }else if (methodReplanner.equals(TypeReplanner.G_PATH_REPLANNER4s)){
-                typeReplanner = TypeReplanner.G_PATH_REPLANNER4s;
-                dirReplanner = "../Modules-IFA/G-Path-Replanner4s/";
+            if (getDirReplanner(methodReplanner) != null){
+                typeReplanner = methodReplanner;
+                dirReplanner = getDirReplanner(methodReplanner);
             }
             if (methodPlanner.equals(TypePlanner.HGA4M)){
                 typePlanner = TypePlanner.HGA4M;
@@ -534,6 +623,10 @@ public class ReaderFileConfig {
         return freqUpdateDataAP;
     }
     
+    public String getTypeTelemetry() {
+        return typeTelemetry;
+    }
+    
     public boolean hasRouteSimplifier() {
         return hasRouteSimplifier;
     }
@@ -546,6 +639,22 @@ public class ReaderFileConfig {
         return factorRouteSimplifier;
     }
     
+    public boolean hasRouteCache() {
+        return hasRouteCache;
+    }
+    
+    public String getDirRouteCache() {
+        return dirRouteCache;
+    }
+    
+    public int getMaxEntriesRouteCache() {
+        return maxEntriesRouteCache;
+    }
+    
+    public long getMaxSizeRouteCache() {
+        return maxSizeRouteCache;
+    }
+    
     public String getDirFiles() {
         return dirFiles;
     }
@@ -587,6 +696,28 @@ public class ReaderFileConfig {
         return portNetworkS2DK;
     }
     
+    public int getPortNetworkHeartbeatIFAandMOSA() {
+        return portNetworkHeartbeatIFAandMOSA;
+    }
+    
+    /**
+     * Gets the period of the heartbeat of MOSA to IFA.
+     * @return the period in milliseconds (0 -> the heartbeat is not used)
+     * @since version 4.0.0
+     */
+    public int getPeriodHeartbeat() {
+        return periodHeartbeat;
+    }
+    
+    /**
+     * Gets the number of beats missed to consider MOSA dead.
+     * @return the number of beats
+     * @since version 4.0.0
+     */
+    public int getMissedHeartbeat() {
+        return missedHeartbeat;
+    }
+    
     //hardwares
     public boolean hasCamera() {
         return hasCamera;
@@ -744,6 +875,25 @@ public class ReaderFileConfig {
         return systemExecIFA;
     }
     
+    /**
+     * Gets the time of the prediction of the trajectory checked against the
+     * no-fly zones (geofence).
+     * @return the horizon in seconds (0 -> the geofence is not used)
+     * @since version 4.0.0
+     */
+    public double getHorizonGeofence() {
+        return horizonGeofence;
+    }
+    
+    /**
+     * Gets the distance kept from the no-fly zones (geofence).
+     * @return the margin in meters
+     * @since version 4.0.0
+     */
+    public double getMarginGeofence() {
+        return marginGeofence;
+    }
+    
     public String getLocalExecReplanner() {
         return localExecReplanner;
     }
@@ -776,6 +926,117 @@ public class ReaderFileConfig {
         return deltaReplanner;
     }
     
+    /**
+     * Gets the methods of the portfolio of replanners (run at the same time).
+     * @return the methods in order of preference (empty if the portfolio is not used)
+     * @since version 4.0.0
+     */
+    public String[] getPortfolioReplanner() {
+        return portfolioReplanner;
+    }
+    
+    /**
+     * Gets the deadline of the portfolio of replanners.
+     * @return the deadline in seconds
+     * @since version 4.0.0
+     */
+    public double getDeadlinePortfolioReplanner() {
+        return deadlinePortfolioReplanner;
+    }
+    
+    /**
+     * Gets the fraction of time used by the speculative replanner.
+     * @return the fraction in [0, 1] (0 if the speculative replanner is not used)
+     * @since version 4.0.0
+     */
+    public double getCpuSpeculativeReplanner() {
+        return cpuSpeculativeReplanner;
+    }
+    
+    /**
+     * Gets the maximum age of the route of the speculative replanner.
+     * @return the age in seconds
+     * @since version 4.0.0
+     */
+    public double getMaxAgeSpeculativeReplanner() {
+        return maxAgeSpeculativeReplanner;
+    }
+    
+    /**
+     * Gets the maximum distance between the aircraft and the start of the 
+     * route of the speculative replanner.
+     * @return the distance in meters
+     * @since version 4.0.0
+     */
+    public double getMaxDistanceSpeculativeReplanner() {
+        return maxDistanceSpeculativeReplanner;
+    }
+    
+    /**
+     * Check if the replanning offboard also runs onboard at the same time
+     * (the first valid route is used).
+     * @return {@code true} if the replanning is hedged
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isHedgedReplanner() {
+        return isHedgedReplanner;
+    }
+    
+    /**
+     * Gets the maximum time to wait for the route of the replanner offboard.
+     * @return the deadline in seconds
+     * @since version 4.0.0
+     */
+    public double getDeadlineOffboardReplanner() {
+        return deadlineOffboardReplanner;
+    }
+    
+    /**
+     * Gets the directory of a path replanner method.
+     * @param method the path replanner method (example: GA4s)
+     * @return the directory of the method or null if the method is not valid
+     * @since version 4.0.0
+     */
+    public String getDirReplanner(String method) {
+        if (method.equals(TypeReplanner.DE4S)){
+            return "../Modules-IFA/DE4s/";
+        }else if (method.equals(TypeReplanner.GH4S)){
+            return "../Modules-IFA/GH4s/";
+        }else if (method.equals(TypeReplanner.GA4S)){
+            return "../Modules-IFA/GA4s/";
+        }else if (method.equals(TypeReplanner.MPGA4S)){
+            return "../Modules-IFA/MPGA4s/";
+        }else if (method.equals(TypeReplanner.MS4S)){
+            return "../Modules-IFA/MS4s/";
+        }else if (method.equals(TypeReplanner.GA_GA_4S)){
+            return "../Modules-IFA/GA-GA-4s/";
+        }else if (method.equals(TypeReplanner.GA_GH_4S)){
+            return "../Modules-IFA/GA-GH-4s/";
+        }else if (method.equals(TypeReplanner.PRE_PLANNED4s)){
+            return "../Modules-IFA/Fixed-Route4s/";
+        }else if (method.equals(TypeReplanner.G_PATH_REPLANNER4s)){
+            return "../Modules-IFA/G-Path-Replanner4s/";
+        }
+        return null;
+    }
+    
+    /**
+     * Separates the methods of the portfolio (separated by comma).
+     * @param portfolio the value of the property
+     * @return the methods (empty if the portfolio is not used)
+     */
+    private String[] parsePortfolio(String portfolio) {
+        if (portfolio.trim().isEmpty()){
+            return new String[0];
+        }
+        String methods[] = portfolio.split(",");
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = methods[i].trim();
+        }
+        return methods;
+    }
+    
     public String getDirFixedRouteIFA() {
         return dirFixedRouteIFA;
     }
@@ -817,6 +1078,18 @@ public class ReaderFileConfig {
         return fileMissionPlannerAStar4m;
     }
     
+    public boolean isInJvmPlannerAStar4m() {
+        return isInJvmPlannerAStar4m;
+    }
+    
+    public double getSizeCellPlannerAStar4m() {
+        return sizeCellPlannerAStar4m;
+    }
+    
+    public long getMaxTimePlannerAStar4m() {
+        return maxTimePlannerAStar4m;
+    }
+    
     public String getFileMissionPlannerGPathPlanner4m() {
         return fileMissionPlannerGPathPlanner4m;
     }
@@ -848,6 +1121,20 @@ public class ReaderFileConfig {
     public String getMaxControlPlannerHGA4m() {
         return maxControlPlannerHGA4m;
     }
+
+    public int getParallelLegsPlannerHGA4m() {
+        return parallelLegsPlannerHGA4m;
+    }
+    
+    /**
+     * Gets the number of routes planned ahead of the route flown (used with
+     * local_exec_processing=PIPELINE).
+     * @return the number of routes
+     * @since version 4.0.0
+     */
+    public int getLookaheadPlannerHGA4m() {
+        return lookaheadPlannerHGA4m;
+    }
     
     public String getWaypointsPlannerCCQSP4m() {
         return waypointsPlannerCCQSP4m;
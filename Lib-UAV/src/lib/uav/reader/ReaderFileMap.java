@@ -0,0 +1,69 @@
+package lib.uav.reader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Point3D;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+
+/**
+ * Class that reads the map files (map-full.sgl, map-nfz.sgl).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class ReaderFileMap {
+
+    /**
+     * Read a file in this format (Cartesian coordinates):.
+     * ---------------------------------------------
+     * | &lt;number of polygons&gt;                      |
+     * | 7                                         |
+     * | ...                                       |
+     * | &lt;x..., y..., n = 4, id = 0, type = n&gt;     |
+     * | 21.18014087,30.64204854,1.99912995,...    |
+     * | -14.1104258,-34.2111192,-41.8948288,...   |
+     * | ...                                       |
+     * ---------------------------------------------
+     * Note: the type of each polygon (n, p or b) is read from its line of
+     * description (the polygons without type, as in the maps of the path
+     * planner, are no-fly zones), the header with the number of polygons is
+     * not used.
+     * @param file File to read
+     * @param index object to put the regions of the map
+     * @throws FileNotFoundException
+     * @since version 4.0.0
+     */
+    public static void map(File file, RegionIndex index)
+            throws FileNotFoundException {
+        Scanner sc = new Scanner(file);
+        try {
+            int count = 0;
+            while(sc.hasNextLine()){
+                String line = sc.nextLine();
+                if (!line.startsWith("<x")){
+                    continue;
+                }
+                int i = line.indexOf("type = ");
+                String type = i < 0 ? TypeRegion.NFZ : line.substring(i + 7, line.indexOf('>', i)).trim();
+                String vx[] = sc.nextLine().split(",");
+                String vy[] = sc.nextLine().split(",");
+                List<Point3D> points = new ArrayList<>(vx.length);
+                for (int j = 0; j < vx.length; j++){
+                    points.add(new Point3D(Double.parseDouble(vx[j]),
+                            Double.parseDouble(vy[j]), 0.0));
+                }
+                index.add(new Poly3D(type + count++, points), type);
+            }
+        } catch (NoSuchElementException ex) {
+
+        } finally {
+            sc.close();
+        }
+    }
+
+}
@@ -19,13 +19,34 @@ public class Constants {
     public static final double EFFICIENCY_HORIZONTAL_NAV_REAL = 0.111;//in % of battery/meter -> foi atualizado era 0.068
     public static final double EFFICIENCY_FLIGHT_TIME_REAL    = 0.162;//in % of battery/second
     
+    //ENDURANCE ESTIMATOR (starts with the efficiencies above and learns in the flight)
+    public static final double FORGETTING_FACTOR_ENDURANCE = 0.95;//weight of the previous steps of 1% of battery
+    public static final double NUMBER_STD_DEV_RTL = 2.0;//margin of the consumption of RTL (standard deviations)
+    public static final double TIME_TO_DISARM = 5.0;//in seconds (obtained in SITL)
+    public static final double TIME_TO_CHANGE_WAYPOINT = 3.0;//in seconds (obtained in SITL)
+    
     public static final double ONE_METER = 0.000009;//one meter in degrees (lat, lng)
     
+    public static final double SIZE_CELL_GEOFENCE = 25.0;//in meters (grid hash of the no-fly zones)
+    
+    public static final double MAX_DISTANCE_LAND_BONUS = 300.0;//in meters (bonus region to land without route)
+    
+    public static final double BORDER_GRID_ASTAR = 20.0;//in meters (around the no-fly zones and the mission)
+    
     public static final int TIME_TO_SLEEP_BETWEEN_MSG = 100;//in milliseconds    
     public static final int TIME_TO_SLEEP_WAITING_SERVER = 1000;//in milliseconds
     public static final int TIME_TO_SLEEP_WAITING_FOR_AN_ACTION = 100;//in milliseconds
     public static final int TIME_TO_SLEEP_MONITORING_STATE_MACHINE = 100;//in milliseconds
     
     public static final int TIME_TO_SLEEP_NEXT_FIXED_ROUTE = 20000;//in milliseconds
+    public static final int TIME_TO_SLEEP_SPECULATIVE_REPLANNER = 1000;//in milliseconds
+    public static final int TIME_TO_REFRESH_STAGED_MISSION = 1000;//in milliseconds
+    
+    public static final int MAX_CONNECTIONS_S2DK = 4;//number of persistent connections with UAV-S2DK
+    public static final int TIME_OUT_CONNECTION_S2DK = 5000;//in milliseconds
+    public static final int TIME_TO_RECONNECT_STREAM_S2DK = 1000;//in milliseconds
+    
+    public static final int CAPACITY_FLIGHT_DATA_RECORDER = 4096;//number of records waiting to be written
+    public static final int TIME_TO_FLUSH_FLIGHT_DATA_RECORDER = 500;//in milliseconds
     
 }
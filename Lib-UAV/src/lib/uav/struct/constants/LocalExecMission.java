@@ -10,5 +10,6 @@ public class LocalExecMission {
     public static final String GROUND          = "GROUND";
     public static final String GROUND_AND_AIR  = "GROUND_AND_AIR";
     public static final String AIR             = "AIR";
+    public static final String PIPELINE        = "PIPELINE";
     
 }
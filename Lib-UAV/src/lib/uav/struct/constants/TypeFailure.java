@@ -10,7 +10,7 @@ public enum TypeFailure {
     FAIL_ENGINE, FAIL_LOW_BATTERY, FAIL_BATTERY_OVERHEATING, FAIL_GPS, FAIL_SYSTEM_MOSA, 
     FAIL_SYSTEM_IFA, FAIL_AP_CRITICAL, FAIL_AP_EMERGENCY, FAIL_AP_POWEROFF, 
     FAIL_BASED_INSERT_FAILURE, FAIL_BAD_WEATHER, FAIL_PROXIMITY_TO_GROUND, 
-    FAIL_INTRUDER_AIRCRAFT;
+    FAIL_INTRUDER_AIRCRAFT, FAIL_GEOFENCE;
     
     /**
      * Returns a string with the name of the failure that occurred.
@@ -45,6 +45,8 @@ public enum TypeFailure {
                 return "FAIL_PROXIMITY_TO_GROUND";
             case FAIL_INTRUDER_AIRCRAFT:
                 return "FAIL_INTRUDER_AIRCRAFT";
+            case FAIL_GEOFENCE:
+                return "FAIL_GEOFENCE";
             default:
                 return "null";
         }
@@ -24,6 +24,13 @@ public class TypeMsgCommunication {
     //Mensagem em que IFA diz a GCS alguma informação.
     public static final String IFA_GCS_INFO               = "IFA->GCS[INFO]";
     public static final String IFA_GCS_REPLANNER          = "IFA->GCS[REPLANNER]";
+    public static final String IFA_GCS_INFO_BIN           = "IFA->GCS[INFO-BIN]";
+    
+    //Mensagem em que GCS diz ao IFA que entende a telemetria binaria (IFA recebe em minusculo).
+    public static final String GCS_IFA_TELEMETRY_BINARY   = "gcs->ifa[telemetry-binary]";
+    
+    //Mensagem em que GCS diz ao IFA o id do pedido de rota (prefixo da rota ou da falha, IFA recebe em minusculo).
+    public static final String GCS_IFA_ROUTE_ID           = "gcs->ifa[route-id]";
     
     //Mensagem em que MOSA diz a GCS alguma informação.
     public static final String MOSA_GCS_PLANNER           = "MOSA->GCS[PLANNER]";
@@ -0,0 +1,15 @@
+package lib.uav.struct.constants;
+
+/**
+ * The class models the types of regions of the map (same letters of the
+ * files map*.sgl).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class TypeRegion {
+    
+    public static final String NFZ     = "n";
+    public static final String PENALTY = "p";
+    public static final String BONUS   = "b";
+    
+}
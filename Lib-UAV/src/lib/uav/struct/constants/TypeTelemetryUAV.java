@@ -0,0 +1,13 @@
+package lib.uav.struct.constants;
+
+/**
+ * The class models the ways of receiving the telemetry of UAV.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class TypeTelemetryUAV {
+    
+    public static final String POLLING   = "POLLING";  //GET get-all-sensors at freq_update_data_ap
+    public static final String STREAMING = "STREAMING";//frames pushed by UAV-S2DK in one connection
+    
+}
@@ -0,0 +1,375 @@
+package lib.uav.struct.geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilGeom;
+
+/**
+ * The class keeps the regions of the map (no-fly zones, penalty and bonus
+ * regions) in a grid hash, so that the queries of the emergency landing only
+ * visit the cells near the aircraft or the route instead of all the polygons:
+ * (1) the region of a type that contains a point;
+ * (2) if a segment of route crosses a no-fly zone (cells visited along the segment);
+ * (3) the nearest bonus region reachable in a straight line (cells visited in
+ *     rings around the aircraft until no nearer region is possible).
+ * Each region is registered in all the cells of its bounding box. When the
+ * map has fewer bonus regions than the cells of the rings, the bonus regions
+ * are scanned directly (cheaper on the small maps).
+ * Note: the coordinates are in meters (as in the files map*.sgl); the regions
+ * in geographic coordinates are converted with the geo base.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see lib.uav.reader.ReaderFileMap
+ */
+public class RegionIndex {
+
+    private final double sizeCell;
+    private final Map<Long, List<Region>> grid = new HashMap<>();
+    private final Map<String, List<Poly>> regions = new HashMap<>();
+    private final List<Region> bonus = new ArrayList<>();
+    private long minCellX = Long.MAX_VALUE;
+    private long maxCellX = Long.MIN_VALUE;
+    private long minCellY = Long.MAX_VALUE;
+    private long maxCellY = Long.MIN_VALUE;
+    private int markNearest;
+    private int markCross;
+
+    /**
+     * Class constructor.
+     * @param sizeCell side of the cells of the grid (in meters)
+     * @since version 4.0.0
+     */
+    public RegionIndex(double sizeCell) {
+        this.sizeCell = sizeCell;
+    }
+
+    /**
+     * Adds a region in cartesian coordinates.
+     * @param poly the polygon of the region
+     * @param type the type of the region (see TypeRegion)
+     * @since version 4.0.0
+     */
+    public synchronized void add(Poly3D poly, String type) {
+        addRegion(poly, type, poly.getVetx(), poly.getVety());
+    }
+
+    /**
+     * Adds a region in geographic coordinates (converted to meters).
+     * @param poly the polygon of the region
+     * @param type the type of the region (see TypeRegion)
+     * @param base the geo base (origin of the cartesian coordinates)
+     * @since version 4.0.0
+     */
+    public synchronized void add(PolyGeo poly, String type, PointGeo base) {
+        double vx[] = new double[poly.getNpoints()];
+        double vy[] = new double[poly.getNpoints()];
+        for (int i = 0; i < vx.length; i++) {
+            vx[i] = UtilGeo.convertGeoToX(base, poly.getVetx()[i]);
+            vy[i] = UtilGeo.convertGeoToY(base, poly.getVety()[i]);
+        }
+        addRegion(poly, type, vx, vy);
+    }
+
+    /**
+     * Gets the regions of a type in the order they were added.
+     * @param type the type of the region (see TypeRegion)
+     * @return the polygons of the regions
+     * @since version 4.0.0
+     */
+    public synchronized List<Poly> getRegions(String type) {
+        List<Poly> list = regions.get(type);
+        return list == null ? Collections.<Poly>emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the region of a type that contains the point.
+     * @param type the type of the region (see TypeRegion)
+     * @param x coordinate x of the point
+     * @param y coordinate y of the point
+     * @return the polygon of the region (the first added if there are more)
+     *         or null if the point is not in a region of the type
+     * @since version 4.0.0
+     */
+    public synchronized Poly getRegion(String type, double x, double y) {
+        List<Region> list = grid.get(key(cell(x), cell(y)));
+        if (list == null) {
+            return null;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            Region r = list.get(i);
+            if (r.type.equals(type) && r.containsBox(x, y)
+                    && UtilGeom.isInsidePoly(r.vx, r.vy, x, y)) {
+                return r.poly;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies if the point is inside a region of a type.
+     * @param type the type of the region (see TypeRegion)
+     * @param x coordinate x of the point
+     * @param y coordinate y of the point
+     * @return {@code true} if the point is inside a region of the type
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isInside(String type, double x, double y) {
+        return getRegion(type, x, y) != null;
+    }
+
+    /**
+     * Verifies if the segment of route crosses (or touches) a no-fly zone.
+     * @param x1 coordinate x of first point of the segment
+     * @param y1 coordinate y of first point of the segment
+     * @param x2 coordinate x of second point of the segment
+     * @param y2 coordinate y of second point of the segment
+     * @return {@code true} if the segment crosses a no-fly zone
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public synchronized boolean crossesNFZ(double x1, double y1, double x2, double y2) {
+        return crosses(TypeRegion.NFZ, x1, y1, x2, y2);
+    }
+
+    /**
+     * Gets the nearest bonus region that the aircraft reaches in a straight
+     * line to its center without crossing a no-fly zone.
+     * @param x coordinate x of the aircraft
+     * @param y coordinate y of the aircraft
+     * @param maxDistance maximum distance to the region (in meters)
+     * @return the polygon of the region or null if there is no region reachable
+     * @since version 4.0.0
+     */
+    public synchronized Poly nearestBonus(double x, double y, double maxDistance) {
+        Region best = nearest(x, y, maxDistance);
+        return best == null ? null : best.poly;
+    }
+
+    /**
+     * Gets the center of the nearest bonus region that the aircraft reaches in
+     * a straight line without crossing a no-fly zone (the same point used in 
+     * the check of the no-fly zones).
+     * @param x coordinate x of the aircraft
+     * @param y coordinate y of the aircraft
+     * @param maxDistance maximum distance to the region (in meters)
+     * @return the coordinates {x, y} of the center or null if there is no region reachable
+     * @since version 4.0.0
+     */
+    public synchronized double[] nearestBonusCenter(double x, double y, double maxDistance) {
+        Region best = nearest(x, y, maxDistance);
+        return best == null ? null : new double[]{best.centerX, best.centerY};
+    }
+
+    /**
+     * Searches the nearest bonus region by rings of cells around the aircraft.
+     */
+    private Region nearest(double x, double y, double maxDistance) {
+        if (grid.isEmpty()) {
+            return null;
+        }
+        markNearest++;
+        long cx = cell(x);
+        long cy = cell(y);
+        Region best = null;
+        double bestDist = Double.MAX_VALUE;
+        double span = Math.max(maxCellX - minCellX, maxCellY - minCellY) + 1;
+        double rings = Math.min(Math.ceil(maxDistance / sizeCell) + 1, span);
+        if ((2 * rings + 1) * (2 * rings + 1) > bonus.size()) {
+            for (Region r : bonus) {
+                double dist = UtilGeom.distPointToPoly(r.vx, r.vy, x, y);
+                if (dist <= maxDistance && dist < bestDist
+                        && !crosses(TypeRegion.NFZ, x, y, r.centerX, r.centerY)) {
+                    best = r;
+                    bestDist = dist;
+                }
+            }
+            return best;
+        }
+        //rings before the first occupied cell are empty
+        long ring = Math.max(Math.max(minCellX - cx, cx - maxCellX),
+                Math.max(minCellY - cy, cy - maxCellY));
+        for (ring = Math.max(ring, 0); ; ring++) {
+            for (long i = Math.max(cx - ring, minCellX); i <= Math.min(cx + ring, maxCellX); i++) {
+                boolean border = i == cx - ring || i == cx + ring;
+                long step = border ? 1 : 2 * ring;
+                for (long j = cy - ring; j <= cy + ring; j += Math.max(step, 1)) {
+                    if (j < minCellY || j > maxCellY) {
+                        continue;
+                    }
+                    List<Region> list = grid.get(key(i, j));
+                    if (list == null) {
+                        continue;
+                    }
+                    for (int k = 0; k < list.size(); k++) {
+                        Region r = list.get(k);
+                        if (r.markNearest == markNearest || !r.type.equals(TypeRegion.BONUS)) {
+                            continue;
+                        }
+                        r.markNearest = markNearest;
+                        double dist = UtilGeom.distPointToPoly(r.vx, r.vy, x, y);
+                        if (dist <= maxDistance && dist < bestDist
+                                && !crosses(TypeRegion.NFZ, x, y, r.centerX, r.centerY)) {
+                            best = r;
+                            bestDist = dist;
+                        }
+                    }
+                }
+            }
+            if (cx - ring <= minCellX && cx + ring >= maxCellX
+                    && cy - ring <= minCellY && cy + ring >= maxCellY) {
+                break;//all the cells were visited
+            }
+            //the cells of the next ring are at least this distance
+            double minNext = ring * sizeCell;
+            if (minNext > maxDistance || minNext >= bestDist) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Visits the cells crossed by the segment (grid traversal).
+     */
+    private boolean crosses(String type, double x1, double y1, double x2, double y2) {
+        markCross++;
+        long cx = cell(x1);
+        long cy = cell(y1);
+        long cxEnd = cell(x2);
+        long cyEnd = cell(y2);
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        double tDeltaX = stepX != 0 ? sizeCell / Math.abs(dx) : Double.MAX_VALUE;
+        double tDeltaY = stepY != 0 ? sizeCell / Math.abs(dy) : Double.MAX_VALUE;
+        double tMaxX = stepX > 0 ? ((cx + 1) * sizeCell - x1) / dx :
+                stepX < 0 ? (cx * sizeCell - x1) / dx : Double.MAX_VALUE;
+        double tMaxY = stepY > 0 ? ((cy + 1) * sizeCell - y1) / dy :
+                stepY < 0 ? (cy * sizeCell - y1) / dy : Double.MAX_VALUE;
+        long steps = Math.abs(cxEnd - cx) + Math.abs(cyEnd - cy);
+        for (long n = 0; n <= steps; n++) {
+            if (crossesCell(type, cx, cy, x1, y1, x2, y2)) {
+                return true;
+            }
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+        }
+        //the last cell (in case of rounding errors along the way)
+        return crossesCell(type, cxEnd, cyEnd, x1, y1, x2, y2);
+    }
+
+    private boolean crossesCell(String type, long cx, long cy,
+            double x1, double y1, double x2, double y2) {
+        List<Region> list = grid.get(key(cx, cy));
+        if (list == null) {
+            return false;
+        }
+        for (int k = 0; k < list.size(); k++) {
+            Region r = list.get(k);
+            if (r.markCross == markCross || !r.type.equals(type)) {
+                continue;
+            }
+            r.markCross = markCross;
+            if (r.overlapsBox(x1, y1, x2, y2)
+                    && UtilGeom.intersectsSegmentPoly(r.vx, r.vy, x1, y1, x2, y2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addRegion(Poly poly, String type, double vx[], double vy[]) {
+        Region region = new Region(poly, type, vx, vy);
+        for (long i = cell(region.minX); i <= cell(region.maxX); i++) {
+            for (long j = cell(region.minY); j <= cell(region.maxY); j++) {
+                List<Region> list = grid.get(key(i, j));
+                if (list == null) {
+                    list = new ArrayList<>(2);
+                    grid.put(key(i, j), list);
+                }
+                list.add(region);
+            }
+        }
+        minCellX = Math.min(minCellX, cell(region.minX));
+        maxCellX = Math.max(maxCellX, cell(region.maxX));
+        minCellY = Math.min(minCellY, cell(region.minY));
+        maxCellY = Math.max(maxCellY, cell(region.maxY));
+        List<Poly> list = regions.get(type);
+        if (list == null) {
+            list = new ArrayList<>();
+            regions.put(type, list);
+        }
+        list.add(poly);
+        if (type.equals(TypeRegion.BONUS)) {
+            bonus.add(region);
+        }
+    }
+
+    private long cell(double value) {
+        return (long) Math.floor(value / sizeCell);
+    }
+
+    private static long key(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xffffffffL);
+    }
+
+    /**
+     * The class models a region in the grid (vertices in meters and bounding box).
+     */
+    private static class Region {
+
+        final Poly poly;
+        final String type;
+        final double vx[];
+        final double vy[];
+        final double centerX;
+        final double centerY;
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        int markNearest;
+        int markCross;
+
+        Region(Poly poly, String type, double vx[], double vy[]) {
+            this.poly = poly;
+            this.type = type;
+            this.vx = vx;
+            this.vy = vy;
+            double sumX = 0;
+            double sumY = 0;
+            for (int i = 0; i < vx.length; i++) {
+                minX = Math.min(minX, vx[i]);
+                maxX = Math.max(maxX, vx[i]);
+                minY = Math.min(minY, vy[i]);
+                maxY = Math.max(maxY, vy[i]);
+                sumX += vx[i];
+                sumY += vy[i];
+            }
+            this.centerX = sumX / vx.length;
+            this.centerY = sumY / vy.length;
+        }
+
+        boolean containsBox(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+
+        boolean overlapsBox(double x1, double y1, double x2, double y2) {
+            return Math.max(x1, x2) >= minX && Math.min(x1, x2) <= maxX
+                    && Math.max(y1, y2) >= minY && Math.min(y1, y2) <= maxY;
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package lib.uav.struct.mission;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lib.color.StandardPrints;
+
+/**
+ * The class plans the routes (legs between two waypoints of the mission) while
+ * the aircraft flies: the first route is sent to the autopilot as soon as it
+ * is planned (the aircraft starts to move) and the next routes are planned in
+ * background and appended to the mission in the order of the mission.
+ * The planning runs up to lookahead routes ahead of the route flown (so the
+ * planner does not use the CPU of the companion computer with routes far
+ * from the aircraft) and up to threads routes at the same time.
+ * The route flown is obtained from the next waypoint of the autopilot and the
+ * number of waypoints of the routes already sent.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class MissionPipeline {
+
+    /**
+     * The planner of the routes of the mission.
+     * @since version 4.0.0
+     */
+    public interface RoutePlanner {
+
+        /**
+         * Plans a route (may run at the same time as other routes).
+         * @param i the i-th index of the route
+         * @return {@code true} if success {@code false} otherwise
+         * @since version 4.0.0
+         */
+        boolean plan(int i);
+
+        /**
+         * Reads a route already planned (called in the order of the mission).
+         * @param i the i-th index of the route
+         * @return the waypoints of the route or null if it fails
+         * @since version 4.0.0
+         */
+        Mission read(int i);
+    }
+
+    /**
+     * The aircraft that receives and flies the routes.
+     * @since version 4.0.0
+     */
+    public interface Vehicle {
+
+        /**
+         * Sends a route to the autopilot.
+         * @param mission the waypoints of the route
+         * @param first {@code true} for the first route (replaces the mission)
+         *              {@code false} for the next routes (appended)
+         * @return {@code true} if success {@code false} otherwise
+         * @since version 4.0.0
+         */
+        boolean send(Mission mission, boolean first);
+
+        /**
+         * Gets the index of the next waypoint of the mission sent.
+         * @return the index (0 is the first waypoint sent)
+         * @since version 4.0.0
+         */
+        int getNextWaypoint();
+    }
+
+    private final int numberRoutes;
+    private final int threads;
+    private final int lookahead;
+    private final List<Integer> endRoutes = new ArrayList<>();
+    private long timeFirstRoute;
+    private int countLate;
+
+    /**
+     * Class constructor.
+     * @param numberRoutes number of routes of the mission
+     * @param threads number of routes planned at the same time
+     * @param lookahead number of routes planned ahead of the route flown
+     * @since version 4.0.0
+     */
+    public MissionPipeline(int numberRoutes, int threads, int lookahead) {
+        this.numberRoutes = numberRoutes;
+        this.threads = Math.max(1, Math.min(threads, numberRoutes));
+        this.lookahead = Math.max(1, lookahead);
+    }
+
+    /**
+     * Plans and sends all the routes of the mission (blocked until the last
+     * route is sent).
+     * @param planner the planner of the routes
+     * @param vehicle the aircraft
+     * @param timeCheck interval to verify the progress of the aircraft while
+     *                  waiting a route (in milliseconds)
+     * @return {@code true} if all the routes were sent
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean exec(RoutePlanner planner, Vehicle vehicle, long timeCheck) {
+        long timeInit = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> routes = new ArrayList<>();
+        try {
+            for (int i = 0; i < numberRoutes; i++) {
+                Future<Boolean> route = null;
+                while (route == null) {
+                    submit(executor, routes, planner, vehicle);
+                    if (i < routes.size()) {
+                        try {
+                            if (!routes.get(i).get(timeCheck, TimeUnit.MILLISECONDS)) {
+                                return false;
+                            }
+                            route = routes.get(i);
+                        } catch (TimeoutException ex) {
+                            //the aircraft may have advanced (more routes to submit)
+                        }
+                    }
+                }
+                Mission mission = planner.read(i);
+                if (mission == null) {
+                    return false;
+                }
+                //the autopilot keeps the last waypoint as next when the mission ends
+                if (i > 0 && vehicle.getNextWaypoint() >= endRoutes.get(i - 1) - 1) {
+                    countLate++;
+                    StandardPrints.printMsgWarning("route " + i + " sent when the aircraft was going to the last waypoint");
+                }
+                if (mission.size() > 0 && !vehicle.send(mission, i == 0)) {
+                    return false;
+                }
+                endRoutes.add((i > 0 ? endRoutes.get(i - 1) : 0) + mission.size());
+                if (i == 0) {
+                    timeFirstRoute = System.currentTimeMillis() - timeInit;
+                }
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: exec()");
+            return false;
+        } catch (ExecutionException ex) {
+            StandardPrints.printMsgWarning("Warning [ExecutionException]: exec()");
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the time from the start until the first route was sent (the
+     * aircraft starts to move).
+     * @return the time in milliseconds
+     * @since version 4.0.0
+     */
+    public long getTimeFirstRoute() {
+        return timeFirstRoute;
+    }
+
+    /**
+     * Gets the number of routes sent when the aircraft was already going to
+     * the last waypoint sent (it may have waited the planner).
+     * @return the number of routes late
+     * @since version 4.0.0
+     */
+    public int getCountLate() {
+        return countLate;
+    }
+
+    private void submit(ExecutorService executor, List<Future<Boolean>> routes,
+            RoutePlanner planner, Vehicle vehicle) {
+        int limit = Math.min(numberRoutes, getRouteFlown(vehicle) + lookahead + 1);
+        while (routes.size() < limit) {
+            final int nRoute = routes.size();
+            routes.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return planner.plan(nRoute);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Gets the route flown: the first route sent whose waypoints were not all
+     * passed (the number of routes sent if all were passed).
+     */
+    private int getRouteFlown(Vehicle vehicle) {
+        int next = vehicle.getNextWaypoint();
+        int route = 0;
+        while (route < endRoutes.size() && next >= endRoutes.get(route)) {
+            route++;
+        }
+        return route;
+    }
+
+}
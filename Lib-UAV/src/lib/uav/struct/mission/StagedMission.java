@@ -0,0 +1,106 @@
+package lib.uav.struct.mission;
+
+import com.google.gson.Gson;
+import java.io.File;
+import lib.color.StandardPrints;
+import lib.uav.struct.Waypoint;
+import lib.uav.util.UtilRoute;
+
+/**
+ * The class keeps a mission read from a file already validated and serialized
+ * in JSON, so that it can be sent to the autopilot in an emergency without
+ * reading the disk or creating the JSON. The file is read again only when
+ * it changes.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see lib.uav.module.comm.AutopilotCommandPipeline#setMission(java.lang.String)
+ */
+public class StagedMission {
+
+    private final String path;
+    private final int numberWptJumps;
+    private final Gson gson = new Gson();
+    private long lastModified = -1;
+    private volatile Mission mission;
+    private volatile String json;
+
+    /**
+     * Class constructor (reads the file).
+     * @param path path the file with route (lat;lng;alt)
+     * @param numberWptJumps the number of waypoints to jump
+     * @since version 4.0.0
+     */
+    public StagedMission(String path, int numberWptJumps) {
+        this.path = path;
+        this.numberWptJumps = numberWptJumps;
+        refresh();
+    }
+
+    /**
+     * Reads the file again if it changed since the last reading.
+     * @return {@code true} if there is a valid mission
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public synchronized boolean refresh() {
+        long modified = new File(path).lastModified();
+        if (modified == lastModified) {
+            return json != null;
+        }
+        lastModified = modified;
+        Mission m = new Mission();
+        if (modified == 0 || !UtilRoute.readFileRouteIFA(m, path, numberWptJumps)) {
+            StandardPrints.printMsgWarning("Warning [StagedMission]: route not found " + path);
+            mission = null;
+            json = null;
+            return false;
+        }
+        if (!isValid(m)) {
+            StandardPrints.printMsgWarning("Warning [StagedMission]: route not valid " + path);
+            mission = null;
+            json = null;
+            return false;
+        }
+        json = gson.toJson(m);
+        mission = m;
+        return true;
+    }
+
+    /**
+     * Gets the mission serialized in JSON.
+     * @return the mission in JSON or null if there is no valid mission
+     * @since version 4.0.0
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Gets the mission.
+     * @return the mission or null if there is no valid mission
+     * @since version 4.0.0
+     */
+    public Mission getMission() {
+        return mission;
+    }
+
+    /**
+     * Verifies the coordinates of the waypoints of a mission (an empty
+     * mission is valid: there is nothing to send).
+     * @param mission the mission
+     * @return {@code true} if all waypoints have valid latitude, longitude and altitude
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean isValid(Mission mission) {
+        for (Waypoint wpt : mission.getMission()) {
+            if (!(wpt.getLat() >= -90 && wpt.getLat() <= 90)
+                    || !(wpt.getLng() >= -180 && wpt.getLng() <= 180)
+                    || !(wpt.getAlt() >= 0) || Double.isInfinite(wpt.getAlt())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,183 @@
+package lib.uav.struct.mission;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lib.uav.struct.Waypoint;
+
+/**
+ * The class models the waypoints that trigger actions of the mission (buzzer,
+ * camera, spraying) when the aircraft arrives at them.
+ * The waypoints of all actions are kept in a grid hash (cells with side equal
+ * to the horizontal radius), so each check only visits the 3x3 cells around
+ * the aircraft instead of all the waypoints of the mission.
+ * Rules (same of the previous linear search of MissionManager):
+ * (1) for each action, the nearest waypoint not yet fired is selected (the
+ *     first waypoint of the file if there is a tie);
+ * (2) the waypoint fires if the horizontal distance is smaller than the radius
+ *     and the vertical distance is smaller than the vertical error;
+ * (3) each waypoint fires only once and each action fires at most once per check.
+ * Note: the coordinates are in degrees (lat, lng) and the altitude in meters.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class WaypointTrigger {
+
+    private final double radius;
+    private final double verticalError;
+    private final double sizeCell;
+    private final Map<Long, List<Entry>> grid = new HashMap<>();
+    private final List<Runnable> actions = new ArrayList<>();
+    private Entry best[] = new Entry[0];
+    private double bestDist[] = new double[0];
+    private int countWaypoints;
+    private int countFired;
+
+    /**
+     * Class constructor.
+     * @param radius maximum horizontal distance to fire (in degrees)
+     * @param verticalError maximum vertical distance to fire (in meters)
+     * @since version 4.0.0
+     */
+    public WaypointTrigger(double radius, double verticalError) {
+        this.radius = radius;
+        this.verticalError = verticalError;
+        this.sizeCell = Math.max(radius, 1e-9);
+    }
+
+    /**
+     * Adds an action triggered by the waypoints of a mission.
+     * @param mission the waypoints of the action (only lat and lng are used)
+     * @param alt altitude of the waypoints (in meters)
+     * @param action the action executed when a waypoint is reached
+     * @since version 4.0.0
+     */
+    public synchronized void addAction(Mission mission, double alt, Runnable action) {
+        int id = actions.size();
+        actions.add(action);
+        best = new Entry[actions.size()];
+        bestDist = new double[actions.size()];
+        int order = 0;
+        for (Waypoint wpt : mission.getMission()) {
+            Entry entry = new Entry(id, order++, wpt.getLat(), wpt.getLng(), alt);
+            long key = key(cell(wpt.getLat()), cell(wpt.getLng()));
+            List<Entry> list = grid.get(key);
+            if (list == null) {
+                list = new ArrayList<>(2);
+                grid.put(key, list);
+            }
+            list.add(entry);
+            countWaypoints++;
+        }
+    }
+
+    /**
+     * Checks the position of the aircraft and executes the actions of the
+     * waypoints reached (in the thread of the caller).
+     * @param lat latitude of the aircraft
+     * @param lng longitude of the aircraft
+     * @param alt altitude relative of the aircraft
+     * @return the number of actions executed
+     * @since version 4.0.0
+     */
+    public int check(double lat, double lng, double alt) {
+        List<Runnable> fired = null;
+        synchronized (this) {
+            if (countFired == countWaypoints) {
+                return 0;
+            }
+            for (int i = 0; i < best.length; i++) {
+                best[i] = null;
+                bestDist[i] = Double.MAX_VALUE;
+            }
+            long cellLat = cell(lat);
+            long cellLng = cell(lng);
+            for (long i = cellLat - 1; i <= cellLat + 1; i++) {
+                for (long j = cellLng - 1; j <= cellLng + 1; j++) {
+                    List<Entry> list = grid.get(key(i, j));
+                    if (list == null) {
+                        continue;
+                    }
+                    for (int k = 0; k < list.size(); k++) {
+                        Entry e = list.get(k);
+                        if (Math.abs(alt - e.alt) >= verticalError) {
+                            continue;
+                        }
+                        double dist = Math.sqrt((lat - e.lat) * (lat - e.lat)
+                                + (lng - e.lng) * (lng - e.lng));
+                        if (dist < bestDist[e.action] || (dist == bestDist[e.action]
+                                && e.order < best[e.action].order)) {
+                            bestDist[e.action] = dist;
+                            best[e.action] = e;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < best.length; i++) {
+                if (best[i] != null && bestDist[i] < radius) {
+                    grid.get(key(cell(best[i].lat), cell(best[i].lng))).remove(best[i]);
+                    countFired++;
+                    if (fired == null) {
+                        fired = new ArrayList<>(2);
+                    }
+                    fired.add(actions.get(i));
+                }
+            }
+        }
+        if (fired == null) {
+            return 0;
+        }
+        for (Runnable action : fired) {
+            action.run();
+        }
+        return fired.size();
+    }
+
+    /**
+     * Gets the number of waypoints not yet fired.
+     * @return the number of waypoints not yet fired
+     * @since version 4.0.0
+     */
+    public synchronized int getCountRemaining() {
+        return countWaypoints - countFired;
+    }
+
+    /**
+     * Gets the number of waypoints fired.
+     * @return the number of waypoints fired
+     * @since version 4.0.0
+     */
+    public synchronized int getCountFired() {
+        return countFired;
+    }
+
+    private long cell(double value) {
+        return (long) Math.floor(value / sizeCell);
+    }
+
+    private static long key(long cellLat, long cellLng) {
+        return (cellLat << 32) ^ (cellLng & 0xffffffffL);
+    }
+
+    /**
+     * The class models a waypoint of an action in the grid.
+     */
+    private static class Entry {
+
+        final int action;
+        final int order;
+        final double lat;
+        final double lng;
+        final double alt;
+
+        Entry(int action, int order, double lat, double lng, double alt) {
+            this.action = action;
+            this.order = order;
+            this.lat = lat;
+            this.lng = lng;
+            this.alt = alt;
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package lib.uav.util;
+
+/**
+ * The class estimates during the flight the consumption of the battery of the
+ * aircraft, to predict if the RTL is possible and the remaining range.
+ * Model: consumption (% of battery) = a * horizontal (m) + b * up (m)
+ *                                   + c * down (m) + d * time (s)
+ * The coefficients start with the efficiencies of Constants (measured in SITL
+ * and in the iDroneAlpha) and are updated by recursive least squares with
+ * forgetting factor at each step of the battery level (the level is an integer
+ * percentage), using the distances and the time accumulated since the previous
+ * step. Until all the coefficients of distance have seen enough data (the
+ * flight may have no descent, for example) the predictions use the model of
+ * the constants as a whole (efficiencies per meter, that include the time,
+ * and no consumption per second), since mixing the efficiency per meter of
+ * the constants with the consumption per second learned is worse than both.
+ * The vertical distances use a band of altitude (hysteresis), so that
+ * the noise of the barometer is not counted as climb and descent. The speeds
+ * of the aircraft are also learned (moving average of the samples, or of
+ * each climb and descent sustained, while it moves, limited
+ * by the speeds of the parameters of the autopilot).
+ * Each sample costs O(1): 4 coefficients and a 4x4 covariance.
+ * The uncertainty of a prediction comes from the covariance of the
+ * coefficients and from the variance of the residuals.
+ * Note: not thread safe, used by the thread of monitoring of the aircraft.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class EnduranceEstimator {
+
+    private static final int N = 4;
+    private static final double MIN_SPEED = 0.5;//in m/s (below it the speed is not learned)
+    private static final double WEIGHT_SPEED = 0.05;//weight of the new sample of speed
+    private static final double BAND_ALTITUDE = 0.5;//in meters (noise of the barometer is not climb)
+    private static final double MIN_TIME_VERTICAL = 2.0;//in seconds (shorter climbs do not give the speed)
+    private static final double WEIGHT_SPEED_VERTICAL = 0.3;//weight of the new climb (or descent)
+    //meters seen before the coefficient is used: horizontal, up and down
+    private static final double MIN_SEEN[] = {100.0, 5.0, 5.0};
+
+    private final double forgetting;
+    private final double coef[] = new double[N];
+    private final double cov[][] = new double[N][N];
+    private final double covPrior[] = new double[N];
+    private final double acc[] = new double[N];
+    private final double px[] = new double[N];
+    private final double seen[] = new double[N];
+    private final double perMeter[] = new double[N - 1];
+    private double variance = 1.0 / 12;//quantization of 1% of battery
+    private final double speedMaxHorizontal;
+    private final double speedMaxUp;
+    private final double speedMaxDown;
+    private double speedHorizontal;
+    private double speedUp;
+    private double speedDown;
+    private double lastTime = Double.NaN;
+    private double lastAlt;//center of the band of altitude
+    private double lastDz;
+    private double distVertical;
+    private double timeVertical;
+    private double lastLevel;
+    private boolean synced;
+    private int countSteps;
+
+    /**
+     * Class constructor.
+     * Note: the efficiencies per meter are the consumption flying at the
+     * speeds of the parameters (they include the consumption per second).
+     * @param perMeterHorizontal consumption in % of battery/meter in horizontal
+     * @param perMeterUp consumption in % of battery/meter going up
+     * @param perMeterDown consumption in % of battery/meter going down
+     * @param perSecond consumption in % of battery/second hovering
+     * @param speedHorizontal speed horizontal of the autopilot (WPNAV_SPEED in m/s)
+     * @param speedUp speed going up of the autopilot (WPNAV_SPEED_UP in m/s)
+     * @param speedDown speed going down of the autopilot (WPNAV_SPEED_DN in m/s)
+     * @param forgetting weight of the previous steps of battery (0, 1]
+     * @since version 4.0.0
+     */
+    public EnduranceEstimator(double perMeterHorizontal, double perMeterUp, double perMeterDown,
+            double perSecond, double speedHorizontal, double speedUp, double speedDown,
+            double forgetting) {
+        this.forgetting = forgetting;
+        this.speedMaxHorizontal = speedHorizontal;
+        this.speedMaxUp = speedUp;
+        this.speedMaxDown = speedDown;
+        this.speedHorizontal = speedHorizontal;
+        this.speedUp = speedUp;
+        this.speedDown = speedDown;
+        coef[0] = speedHorizontal > 0 ? Math.max(perMeterHorizontal - perSecond / speedHorizontal, 0) : perMeterHorizontal;
+        coef[1] = speedUp > 0 ? Math.max(perMeterUp - perSecond / speedUp, 0) : perMeterUp;
+        coef[2] = speedDown > 0 ? Math.max(perMeterDown - perSecond / speedDown, 0) : perMeterDown;
+        coef[3] = perSecond;
+        perMeter[0] = perMeterHorizontal;
+        perMeter[1] = perMeterUp;
+        perMeter[2] = perMeterDown;
+        for (int i = 0; i < N; i++) {
+            //prior: standard deviation of half of the value
+            double std = Math.max(0.5 * coef[i], 0.01);
+            covPrior[i] = std * std;
+            cov[i][i] = covPrior[i];
+        }
+    }
+
+    /**
+     * Updates the estimator with a sample of telemetry.
+     * @param time time of the sample in seconds
+     * @param vx speed in x (m/s)
+     * @param vy speed in y (m/s)
+     * @param alt altitude relative (m)
+     * @param level level of the battery (%)
+     * @param flying {@code true} if the aircraft is flying (armed)
+     * @since version 4.0.0
+     */
+    public void update(double time, double vx, double vy, double alt, double level, boolean flying) {
+        if (Double.isNaN(lastTime) || !flying) {
+            restart(time, alt, level);
+            return;
+        }
+        double dt = time - lastTime;
+        if (dt <= 0) {
+            return;
+        }
+        double vh = Math.sqrt(vx * vx + vy * vy);
+        double dz = 0;
+        if (alt > lastAlt + BAND_ALTITUDE) {
+            dz = alt - BAND_ALTITUDE - lastAlt;
+        } else if (alt < lastAlt - BAND_ALTITUDE) {
+            dz = alt + BAND_ALTITUDE - lastAlt;
+        }
+        lastAlt += dz;
+        acc[0] += vh * dt;
+        if (dz > 0) {
+            acc[1] += dz;
+        } else {
+            acc[2] -= dz;
+        }
+        acc[3] += dt;
+        if (vh > MIN_SPEED) {
+            speedHorizontal += WEIGHT_SPEED * (Math.min(vh, speedMaxHorizontal) - speedHorizontal);
+        }
+        updateSpeedVertical(dz, dt);
+        lastTime = time;
+        if (level < lastLevel) {
+            //the first step only synchronizes (the previous level began before)
+            if (synced) {
+                learn(lastLevel - level);
+            }
+            synced = true;
+            clearAccumulated();
+            lastLevel = level;
+        } else if (level > lastLevel) {
+            restart(time, alt, level);
+        }
+    }
+
+    /**
+     * Predicts the consumption of the battery.
+     * @param horizontal distance horizontal (m)
+     * @param up distance going up (m)
+     * @param down distance going down (m)
+     * @param time time of flight (s)
+     * @return the consumption in % of battery
+     * @since version 4.0.0
+     */
+    public double getConsumption(double horizontal, double up, double down, double time) {
+        double c[] = getCoefficients();
+        double value = c[0] * horizontal + c[1] * up + c[2] * down + c[3] * time;
+        return Math.max(value, 0);
+    }
+
+    /**
+     * Gets the standard deviation of the predicted consumption of the battery.
+     * @param horizontal distance horizontal (m)
+     * @param up distance going up (m)
+     * @param down distance going down (m)
+     * @param time time of flight (s)
+     * @return the standard deviation in % of battery
+     * @since version 4.0.0
+     */
+    public double getStdDevConsumption(double horizontal, double up, double down, double time) {
+        double z[] = {horizontal, up, down, time};
+        double var = variance;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                var += z[i] * cov[i][j] * z[j];
+            }
+        }
+        return Math.sqrt(Math.max(var, 0));
+    }
+
+    /**
+     * Gets the maximum distance that the aircraft flies in horizontal.
+     * @param level level of the battery (%)
+     * @return the distance in meters
+     * @since version 4.0.0
+     */
+    public double getMaxDistance(double level) {
+        double c[] = getCoefficients();
+        double perMeterH = c[0] + c[3] / speedHorizontal;
+        return perMeterH > 0 ? Math.max(level, 0) / perMeterH : Double.MAX_VALUE;
+    }
+
+    /**
+     * Gets the maximum time that the aircraft flies in horizontal.
+     * @param level level of the battery (%)
+     * @return the time in seconds
+     * @since version 4.0.0
+     */
+    public double getMaxTime(double level) {
+        double c[] = getCoefficients();
+        double perSecond = c[3] + c[0] * speedHorizontal;
+        return perSecond > 0 ? Math.max(level, 0) / perSecond : Double.MAX_VALUE;
+    }
+
+    /**
+     * Gets the coefficients of the model used in the predictions (while some
+     * coefficient of distance has not enough data, the efficiencies per meter
+     * of the constants and no consumption per second).
+     * @return consumption per meter horizontal, per meter up, per meter down
+     *         and per second (in % of battery)
+     * @since version 4.0.0
+     */
+    public double[] getCoefficients() {
+        if (!isIdentified()) {
+            return new double[]{perMeter[0], perMeter[1], perMeter[2], 0};
+        }
+        return coef.clone();
+    }
+
+    /**
+     * Verifies if all the coefficients of distance have seen enough data to
+     * be used in the predictions.
+     * @return {@code true} if the learned model is used
+     *         {@code false} if the model of the constants is used
+     * @since version 4.0.0
+     */
+    public boolean isIdentified() {
+        for (int i = 0; i < N - 1; i++) {
+            if (seen[i] < MIN_SEEN[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double getSpeedHorizontal() {
+        return speedHorizontal;
+    }
+
+    public double getSpeedUp() {
+        return speedUp;
+    }
+
+    public double getSpeedDown() {
+        return speedDown;
+    }
+
+    public int getCountSteps() {
+        return countSteps;
+    }
+
+    /**
+     * Recursive least squares with forgetting factor (covariance limited
+     * to the prior in the directions not excited by the flight).
+     */
+    private void learn(double consumption) {
+        double s = variance;
+        double error = consumption;
+        for (int i = 0; i < N; i++) {
+            px[i] = 0;
+            for (int j = 0; j < N; j++) {
+                px[i] += cov[i][j] * acc[j];
+            }
+            s += acc[i] * px[i];
+            error -= coef[i] * acc[i];
+        }
+        for (int i = 0; i < N; i++) {
+            coef[i] += px[i] / s * error;
+            seen[i] += acc[i];
+        }
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                cov[i][j] = (cov[i][j] - px[i] * px[j] / s) / forgetting;
+            }
+        }
+        for (int i = 0; i < N; i++) {
+            if (cov[i][i] > covPrior[i]) {
+                double f = Math.sqrt(covPrior[i] / cov[i][i]);
+                for (int j = 0; j < N; j++) {
+                    cov[i][j] *= f;
+                    cov[j][i] *= f;
+                }
+            }
+        }
+        variance = forgetting * variance + (1 - forgetting) * error * error;
+        countSteps++;
+    }
+
+    /**
+     * The speed vertical is the mean of each climb (or descent) sustained,
+     * because the band of altitude cuts the begin of the movement and a
+     * single sample is too noisy.
+     */
+    private void updateSpeedVertical(double dz, double dt) {
+        if (dz != 0 && Math.signum(dz) == Math.signum(lastDz)) {
+            distVertical += dz;
+            timeVertical += dt;
+        } else {
+            double speed = timeVertical > 0 ? Math.abs(distVertical) / timeVertical : 0;
+            if (timeVertical >= MIN_TIME_VERTICAL && speed > MIN_SPEED) {
+                if (distVertical > 0) {
+                    speedUp += WEIGHT_SPEED_VERTICAL * (Math.min(speed, speedMaxUp) - speedUp);
+                } else {
+                    speedDown += WEIGHT_SPEED_VERTICAL * (Math.min(speed, speedMaxDown) - speedDown);
+                }
+            }
+            distVertical = 0;
+            timeVertical = 0;
+        }
+        lastDz = dz;
+    }
+
+    private void restart(double time, double alt, double level) {
+        lastTime = time;
+        lastAlt = alt;
+        lastLevel = level;
+        lastDz = 0;
+        distVertical = 0;
+        timeVertical = 0;
+        synced = false;
+        clearAccumulated();
+    }
+
+    private void clearAccumulated() {
+        for (int i = 0; i < N; i++) {
+            acc[i] = 0;
+        }
+    }
+
+}
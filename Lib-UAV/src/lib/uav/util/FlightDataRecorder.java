@@ -0,0 +1,216 @@
+package lib.uav.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import lib.color.StandardPrints;
+import lib.uav.struct.constants.Constants;
+
+/**
+ * The class models the flight data recorder (logs in CSV). The records are
+ * put in a bounded ring buffer without locks and a background thread writes
+ * them in the file, with one flush per batch. So the monitoring threads don't
+ * wait for the disk (SD card of the Edison and Raspberry Pi).
+ * Policy of the full buffer: the new record is discarded (never blocks the
+ * caller) and counted in getCountDropped().
+ * Note: several threads can record at the same time; the records of the same
+ * thread are written in the same order.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class FlightDataRecorder {
+
+    private final PrintStream out;
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<String> records;
+    private final AtomicLongArray sequences;
+    private final long times[];
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong countDropped = new AtomicLong();
+    private volatile long countWritten;
+    private volatile long countBatches;
+    private volatile long maxLag;
+    private volatile boolean running;
+    private final Thread writer;
+
+    /**
+     * Class constructor (capacity and period of flush of Constants).
+     * @param out the file of the log
+     * @since version 4.0.0
+     */
+    public FlightDataRecorder(PrintStream out) {
+        this(out, Constants.CAPACITY_FLIGHT_DATA_RECORDER, Constants.TIME_TO_FLUSH_FLIGHT_DATA_RECORDER);
+    }
+
+    /**
+     * Class constructor.
+     * @param out the file of the log
+     * @param capacity maximum number of records waiting (rounded to a power of 2)
+     * @param timeFlush maximum time between two writes in the file (in milliseconds)
+     * @since version 4.0.0
+     */
+    public FlightDataRecorder(PrintStream out, int capacity, final int timeFlush) {
+        this.out = out;
+        int size = 2;
+        while (size < capacity) {
+            size *= 2;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.records = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.times = new long[size];
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.running = true;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    LockSupport.parkNanos(timeFlush * 1000000L);
+                    drain();
+                }
+                drain();
+            }
+        }, "flight-data-recorder");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Puts a record (one line) in the buffer, without waiting for the disk.
+     * @param line the line to be written
+     * @return {@code true} if recorded {@code false} if the buffer is full
+     * @since version 4.0.0
+     */
+    public boolean record(String line) {
+        long time = System.nanoTime();
+        while (true) {
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long seq = sequences.get(index);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    times[index] = time;
+                    records.lazySet(index, line);
+                    sequences.set(index, pos + 1);
+                    if (pos - head >= capacity / 2) {
+                        LockSupport.unpark(writer);
+                    }
+                    return true;
+                }
+            } else if (seq < pos) {
+                countDropped.incrementAndGet();
+                LockSupport.unpark(writer);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records (called by the thread of the writer).
+     */
+    private synchronized void drain() {
+        int count = 0;
+        long now = System.nanoTime();
+        long lag = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            String line = records.get(index);
+            lag = Math.max(lag, now - times[index]);
+            records.lazySet(index, null);
+            sequences.set(index, head + capacity);
+            head++;
+            out.println(line);
+            count++;
+        }
+        if (count > 0) {
+            out.flush();
+            countWritten += count;
+            countBatches++;
+            if (lag > maxLag) {
+                maxLag = lag;
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records and closes the file.
+     * @since version 4.0.0
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(Constants.TIME_OUT_CONNECTION_S2DK);
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: close()");
+        }
+        drain();
+        out.close();
+    }
+
+    /**
+     * Gets the number of records discarded because the buffer was full.
+     * @return the number of records discarded
+     * @since version 4.0.0
+     */
+    public long getCountDropped() {
+        return countDropped.get();
+    }
+
+    /**
+     * Gets the number of records written in the file.
+     * @return the number of records written
+     * @since version 4.0.0
+     */
+    public long getCountWritten() {
+        return countWritten;
+    }
+
+    /**
+     * Gets the number of writes (flushes) in the file.
+     * @return the number of writes in the file
+     * @since version 4.0.0
+     */
+    public long getCountBatches() {
+        return countBatches;
+    }
+
+    /**
+     * Gets the number of records waiting in the buffer (writer lag in records).
+     * @return the number of records waiting
+     * @since version 4.0.0
+     */
+    public long getCountPending() {
+        return tail.get() - countWritten;
+    }
+
+    /**
+     * Gets the largest time between the record and the write in the file
+     * (writer lag in time).
+     * @return the largest lag (in milliseconds)
+     * @since version 4.0.0
+     */
+    public double getMaxLag() {
+        return maxLag / 1e6;
+    }
+
+}
@@ -0,0 +1,127 @@
+package lib.uav.util;
+
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.RegionIndex;
+
+/**
+ * The class verifies on each telemetry sample if the aircraft is inside a
+ * no-fly zone or if it will enter one soon. The trajectory of short term is
+ * predicted keeping the current velocity during the horizon of time, and it
+ * is checked as a corridor: the segment of the center and two segments
+ * parallel at the margin distance (width of the aircraft plus the error of
+ * the GPS), all extended by the margin. When the distance to the current
+ * waypoint is known the corridor stops there, since the aircraft turns at the
+ * waypoint and doesn't keep the velocity beyond it.
+ * The queries use the grid hash of the RegionIndex, so the cost of a sample
+ * depends on the cells visited by the corridor (speed * horizon) and not on
+ * the number of polygons of the map.
+ * Note: the coordinates are in meters relative to the geo base (as in the
+ * files map*.sgl).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see RegionIndex
+ */
+public class GeofenceMonitor {
+
+    private static final double MIN_SPEED = 0.2;//in m/s (below it only the position is checked)
+
+    private final RegionIndex index;
+    private final double horizon;
+    private final double margin;
+    private boolean inside;
+    private boolean imminent;
+
+    /**
+     * Class constructor.
+     * @param index the regions of the map (only the no-fly zones are used)
+     * @param horizon time of the prediction of the trajectory (in seconds)
+     * @param margin distance kept from the no-fly zones (in meters)
+     * @since version 4.0.0
+     */
+    public GeofenceMonitor(RegionIndex index, double horizon, double margin) {
+        this.index = index;
+        this.horizon = horizon;
+        this.margin = margin;
+    }
+
+    /**
+     * Verifies the sample of telemetry against the no-fly zones.
+     * @param x coordinate x of the aircraft (east in meters)
+     * @param y coordinate y of the aircraft (north in meters)
+     * @param vx velocity in x (east in m/s)
+     * @param vy velocity in y (north in m/s)
+     * @return {@code true} if the aircraft is inside a no-fly zone or if the
+     *         trajectory predicted crosses one (breach imminent)
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean check(double x, double y, double vx, double vy) {
+        return check(x, y, vx, vy, Double.MAX_VALUE);
+    }
+
+    /**
+     * Verifies the sample of telemetry against the no-fly zones, predicting
+     * the trajectory only up to the current waypoint.
+     * @param x coordinate x of the aircraft (east in meters)
+     * @param y coordinate y of the aircraft (north in meters)
+     * @param vx velocity in x (east in m/s)
+     * @param vy velocity in y (north in m/s)
+     * @param distWaypoint distance to the current waypoint (in meters)
+     * @return {@code true} if the aircraft is inside a no-fly zone or if the
+     *         trajectory predicted crosses one (breach imminent)
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean check(double x, double y, double vx, double vy, double distWaypoint) {
+        inside = index.isInside(TypeRegion.NFZ, x, y);
+        imminent = false;
+        if (inside) {
+            return true;
+        }
+        double speed = Math.sqrt(vx * vx + vy * vy);
+        if (speed < MIN_SPEED) {
+            return false;
+        }
+        double ux = vx / speed;
+        double uy = vy / speed;
+        double length = Math.min(speed * horizon, Math.max(distWaypoint, 0)) + margin;
+        double ex = x + ux * length;
+        double ey = y + uy * length;
+        //normal to the direction of the movement
+        double nx = -uy * margin;
+        double ny = ux * margin;
+        imminent = index.crossesNFZ(x, y, ex, ey)
+                || index.crossesNFZ(x + nx, y + ny, ex + nx, ey + ny)
+                || index.crossesNFZ(x - nx, y - ny, ex - nx, ey - ny);
+        return imminent;
+    }
+
+    /**
+     * Check if the last sample was inside a no-fly zone.
+     * @return {@code true} if the aircraft was inside a no-fly zone
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isInside() {
+        return inside;
+    }
+
+    /**
+     * Check if the trajectory predicted in the last sample crosses a no-fly zone.
+     * @return {@code true} if the breach was imminent
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isImminent() {
+        return imminent;
+    }
+
+    public double getHorizon() {
+        return horizon;
+    }
+
+    public double getMargin() {
+        return margin;
+    }
+
+}
@@ -0,0 +1,361 @@
+package lib.uav.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+
+/**
+ * The class plans routes with the algorithm A* in an occupancy grid of the
+ * no-fly zones of the map, inside the JVM (without files and process).
+ * The grid is made once: a cell is blocked if it touches a no-fly zone. The
+ * search is 8-connected (diagonal moves do not cut the corners of blocked
+ * cells) with the octile distance as heuristic. The route found is
+ * shortened by line of sight in the grid (a point is skipped when the
+ * segment from the last point kept does not cross blocked cells, visited
+ * exactly by a traversal of the grid), so it is not limited to the 8
+ * directions of the grid.
+ * The structures of the search are arrays indexed by the cell (costs,
+ * parents and the binary heap of the open list) and are reused by all the
+ * searches: the marks of the cells visited and closed are the number of the
+ * search, so nothing is cleared between two searches.
+ * Note: the coordinates are in meters (as in the files map*.sgl); the start
+ * may be in a blocked cell (aircraft near a no-fly zone), the goal may not.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see RegionIndex
+ */
+public class GridAStar {
+
+    private static final double SQRT2 = Math.sqrt(2.0);
+    private static final int MASK_CHECK_TIME = 1023;
+
+    private final double sizeCell;
+    private final double minX;
+    private final double minY;
+    private final int nx;
+    private final int ny;
+    private final boolean blocked[];
+    private final double g[];
+    private final int parent[];
+    private final int markOpen[];
+    private final int markClosed[];
+    private int search;
+    private int heapNode[] = new int[1024];
+    private double heapKey[] = new double[1024];
+    private int heapSize;
+    private boolean timeout;
+    private int countExpanded;
+
+    /**
+     * Class constructor.
+     * @param index the regions of the map (only the no-fly zones are used)
+     * @param sizeCell side of the cells of the grid (in meters)
+     * @param minX minimum coordinate x of the grid (in meters)
+     * @param maxX maximum coordinate x of the grid (in meters)
+     * @param minY minimum coordinate y of the grid (in meters)
+     * @param maxY maximum coordinate y of the grid (in meters)
+     * @since version 4.0.0
+     */
+    public GridAStar(RegionIndex index, double sizeCell, double minX, double maxX,
+            double minY, double maxY) {
+        this.sizeCell = sizeCell;
+        this.minX = minX;
+        this.minY = minY;
+        this.nx = Math.max(1, (int) Math.ceil((maxX - minX) / sizeCell));
+        this.ny = Math.max(1, (int) Math.ceil((maxY - minY) / sizeCell));
+        this.blocked = new boolean[nx * ny];
+        this.g = new double[nx * ny];
+        this.parent = new int[nx * ny];
+        this.markOpen = new int[nx * ny];
+        this.markClosed = new int[nx * ny];
+        for (Poly p : index.getRegions(TypeRegion.NFZ)) {
+            fill(((Poly3D) p).getVetx(), ((Poly3D) p).getVety());
+        }
+    }
+
+    /**
+     * Plans the route between two points.
+     * @param x1 coordinate x of the start
+     * @param y1 coordinate y of the start
+     * @param x2 coordinate x of the goal
+     * @param y2 coordinate y of the goal
+     * @param maxTime maximum time of search (in milliseconds, 0 is unbounded)
+     * @return the points (x, y) of the route from the start to the goal or
+     *         null if there is no route (or the time is over, see isTimeout)
+     * @since version 4.0.0
+     */
+    public List<double[]> plan(double x1, double y1, double x2, double y2, long maxTime) {
+        timeout = false;
+        countExpanded = 0;
+        int start = getCell(x1, y1);
+        int goal = getCell(x2, y2);
+        if (start < 0 || goal < 0 || blocked[goal]) {
+            return null;
+        }
+        long timeLimit = maxTime > 0 ? System.nanoTime() + maxTime * 1000000L : Long.MAX_VALUE;
+        search++;
+        heapSize = 0;
+        int gx = goal % nx;
+        int gy = goal / nx;
+        markOpen[start] = search;
+        g[start] = 0.0;
+        parent[start] = -1;
+        push(start, heuristic(start, gx, gy));
+        while (heapSize > 0) {
+            int current = pop();
+            if (markClosed[current] == search) {
+                continue;
+            }
+            markClosed[current] = search;
+            if (current == goal) {
+                return createRoute(start, goal, x1, y1, x2, y2);
+            }
+            if ((++countExpanded & MASK_CHECK_TIME) == 0 && System.nanoTime() > timeLimit) {
+                timeout = true;
+                return null;
+            }
+            int cx = current % nx;
+            int cy = current / nx;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if ((dx == 0 && dy == 0) || cx + dx < 0 || cx + dx >= nx
+                            || cy + dy < 0 || cy + dy >= ny) {
+                        continue;
+                    }
+                    int next = current + dy * nx + dx;
+                    if (blocked[next] || markClosed[next] == search) {
+                        continue;
+                    }
+                    if (dx != 0 && dy != 0 && (blocked[current + dx] || blocked[current + dy * nx])) {
+                        continue;
+                    }
+                    double cost = g[current] + (dx != 0 && dy != 0 ? SQRT2 : 1.0);
+                    if (markOpen[next] != search || cost < g[next]) {
+                        markOpen[next] = search;
+                        g[next] = cost;
+                        parent[next] = current;
+                        push(next, cost + heuristic(next, gx, gy));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies if the point is in a blocked cell (or out of the grid).
+     * @param x coordinate x of the point
+     * @param y coordinate y of the point
+     * @return {@code true} if the point is blocked
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isBlocked(double x, double y) {
+        int cell = getCell(x, y);
+        return cell < 0 || blocked[cell];
+    }
+
+    /**
+     * Check if the last search stopped by the maximum time.
+     * @return {@code true} if the time is over
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the number of cells expanded in the last search.
+     * @return the number of cells
+     * @since version 4.0.0
+     */
+    public int getCountExpanded() {
+        return countExpanded;
+    }
+
+    private int getCell(double x, double y) {
+        int cx = (int) Math.floor((x - minX) / sizeCell);
+        int cy = (int) Math.floor((y - minY) / sizeCell);
+        if (cx < 0 || cx >= nx || cy < 0 || cy >= ny) {
+            return -1;
+        }
+        return cy * nx + cx;
+    }
+
+    private double heuristic(int cell, int gx, int gy) {
+        int dx = Math.abs(cell % nx - gx);
+        int dy = Math.abs(cell / nx - gy);
+        return dx + dy + (SQRT2 - 2.0) * Math.min(dx, dy);
+    }
+
+    /**
+     * Blocks the cells that touch the polygon: a side of the cell crosses the
+     * polygon (or a corner is inside it) or a vertex of the polygon is inside
+     * the cell.
+     */
+    private void fill(double vx[], double vy[]) {
+        double x1 = Double.MAX_VALUE;
+        double x2 = -Double.MAX_VALUE;
+        double y1 = Double.MAX_VALUE;
+        double y2 = -Double.MAX_VALUE;
+        for (int i = 0; i < vx.length; i++) {
+            x1 = Math.min(x1, vx[i]);
+            x2 = Math.max(x2, vx[i]);
+            y1 = Math.min(y1, vy[i]);
+            y2 = Math.max(y2, vy[i]);
+        }
+        int cx1 = Math.max(0, (int) Math.floor((x1 - minX) / sizeCell));
+        int cx2 = Math.min(nx - 1, (int) Math.floor((x2 - minX) / sizeCell));
+        int cy1 = Math.max(0, (int) Math.floor((y1 - minY) / sizeCell));
+        int cy2 = Math.min(ny - 1, (int) Math.floor((y2 - minY) / sizeCell));
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                int cell = cy * nx + cx;
+                if (blocked[cell]) {
+                    continue;
+                }
+                double ax = minX + cx * sizeCell;
+                double ay = minY + cy * sizeCell;
+                double bx = ax + sizeCell;
+                double by = ay + sizeCell;
+                boolean touch = UtilGeom.intersectsSegmentPoly(vx, vy, ax, ay, bx, ay)
+                        || UtilGeom.intersectsSegmentPoly(vx, vy, bx, ay, bx, by)
+                        || UtilGeom.intersectsSegmentPoly(vx, vy, bx, by, ax, by)
+                        || UtilGeom.intersectsSegmentPoly(vx, vy, ax, by, ax, ay);
+                for (int i = 0; i < vx.length && !touch; i++) {
+                    touch = vx[i] >= ax && vx[i] <= bx && vy[i] >= ay && vy[i] <= by;
+                }
+                blocked[cell] = touch;
+            }
+        }
+    }
+
+    /**
+     * Creates the route from the parents of the cells (centers of the cells,
+     * with the start and the goal in their exact points) shortened by line
+     * of sight.
+     */
+    private List<double[]> createRoute(int start, int goal, double x1, double y1, double x2, double y2) {
+        List<double[]> cells = new ArrayList<>();
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            cells.add(new double[]{minX + (cell % nx + 0.5) * sizeCell, minY + (cell / nx + 0.5) * sizeCell});
+        }
+        cells.add(new double[]{x1, y1});
+        Collections.reverse(cells);
+        if (cells.size() == 1) {
+            cells.add(new double[]{x2, y2});
+        } else {
+            cells.set(cells.size() - 1, new double[]{x2, y2});
+        }
+        List<double[]> route = new ArrayList<>();
+        route.add(cells.get(0));
+        int i = 0;
+        while (i < cells.size() - 1) {
+            int j = i + 1;
+            while (j + 1 < cells.size() && isLineOfSight(cells.get(i), cells.get(j + 1))) {
+                j++;
+            }
+            route.add(cells.get(j));
+            i = j;
+        }
+        return route;
+    }
+
+    /**
+     * Verifies that the segment does not cross blocked cells: the cells
+     * crossed by the segment are visited in order (traversal of Amanatides
+     * and Woo) and, when the segment passes exactly by a corner of the grid,
+     * the two cells beside the corner are checked too (supercover).
+     */
+    private boolean isLineOfSight(double a[], double b[]) {
+        double px = (a[0] - minX) / sizeCell;
+        double py = (a[1] - minY) / sizeCell;
+        double qx = (b[0] - minX) / sizeCell;
+        double qy = (b[1] - minY) / sizeCell;
+        int cx = (int) Math.floor(px);
+        int cy = (int) Math.floor(py);
+        int gx = (int) Math.floor(qx);
+        int gy = (int) Math.floor(qy);
+        int stepX = gx > cx ? 1 : -1;
+        int stepY = gy > cy ? 1 : -1;
+        double dx = Math.abs(qx - px);
+        double dy = Math.abs(qy - py);
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : 1.0 / dx;
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : 1.0 / dy;
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY : (stepX > 0 ? cx + 1 - px : px - cx) / dx;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY : (stepY > 0 ? cy + 1 - py : py - cy) / dy;
+        if (isBlockedCell(cx, cy)) {
+            return false;
+        }
+        while (cx != gx || cy != gy) {
+            if (cx != gx && cy != gy && tMaxX == tMaxY) {
+                if (isBlockedCell(cx + stepX, cy) || isBlockedCell(cx, cy + stepY)) {
+                    return false;
+                }
+                cx += stepX;
+                cy += stepY;
+                tMaxX += tDeltaX;
+                tMaxY += tDeltaY;
+            } else if (cy == gy || (cx != gx && tMaxX < tMaxY)) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (isBlockedCell(cx, cy)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlockedCell(int cx, int cy) {
+        return cx < 0 || cx >= nx || cy < 0 || cy >= ny || blocked[cy * nx + cx];
+    }
+
+    private void push(int node, double key) {
+        if (heapSize == heapNode.length) {
+            heapNode = Arrays.copyOf(heapNode, 2 * heapSize);
+            heapKey = Arrays.copyOf(heapKey, 2 * heapSize);
+        }
+        int i = heapSize++;
+        while (i > 0 && heapKey[(i - 1) / 2] > key) {
+            heapNode[i] = heapNode[(i - 1) / 2];
+            heapKey[i] = heapKey[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heapNode[i] = node;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int node = heapNode[0];
+        heapSize--;
+        int lastNode = heapNode[heapSize];
+        double lastKey = heapKey[heapSize];
+        int i = 0;
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) {
+                child++;
+            }
+            if (heapKey[child] >= lastKey) {
+                break;
+            }
+            heapNode[i] = heapNode[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heapNode[i] = lastNode;
+        heapKey[i] = lastKey;
+        return node;
+    }
+
+}
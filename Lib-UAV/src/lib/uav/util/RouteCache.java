@@ -0,0 +1,228 @@
+package lib.uav.util;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import lib.color.StandardPrints;
+
+/**
+ * The class models a cache (in disk) of the routes planned by the path
+ * planners (HGA4m, CCQSP4m and A_STAR4m), used by MOSA and GCS.
+ * The key of a route is the hash SHA-256 of the name of the planner, of its
+ * parameters and of the contents of the files read by the planner (start and
+ * goal of the route, map and configuration). So the same route asked again,
+ * in this or in other mission, is read from the cache instead of running the
+ * planner, and a change in any input gives other key (there is no
+ * invalidation). Each route is the file [key].route in the directory of the
+ * cache, with the output of the planner as it was written (the formats of
+ * the planners are different).
+ * The cache has a maximum number of routes and a maximum size: when a route
+ * is stored the routes used less recently (date of modification of the file,
+ * updated when the route is read) are removed.
+ * Note: the routes are written in a temporary file and renamed, so
+ * several processes can use the same directory.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class RouteCache {
+
+    private static final String EXTENSION = ".route";
+
+    private final File dir;
+    private final int maxEntries;
+    private final long maxSize;
+    private int countHits;
+    private int countMisses;
+
+    /**
+     * Class constructor.
+     * @param dir directory of the cache (created in the first route stored)
+     * @param maxEntries maximum number of routes in the cache
+     * @param maxSize maximum size of the routes in the cache (in bytes)
+     * @since version 4.0.0
+     */
+    public RouteCache(String dir, int maxEntries, long maxSize) {
+        this.dir = new File(dir);
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the key of a route.
+     * @param planner name of the planner
+     * @param params parameters of the planner that are not in the files
+     * @param files files read by the planner to plan the route
+     * @return the key (hash SHA-256 in hexadecimal) or null if a file
+     *         can not be read (the route is not cached)
+     * @since version 4.0.0
+     */
+    public static String createKey(String planner, String params, File... files) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((planner + "\n" + params + "\n").getBytes(StandardCharsets.UTF_8));
+            for (File file : files) {
+                byte data[] = Files.readAllBytes(file.toPath());
+                md.update((file.getName() + "\n" + data.length + "\n").getBytes(StandardCharsets.UTF_8));
+                md.update(data);
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : md.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: createKey()");
+            return null;
+        } catch (NoSuchAlgorithmException ex) {
+            StandardPrints.printMsgWarning("Warning [NoSuchAlgorithmException]: createKey()");
+            return null;
+        }
+    }
+
+    /**
+     * Reads the route of the cache.
+     * @param key key of the route (see createKey)
+     * @param route file where the route is written
+     * @return {@code true} if the route was in the cache
+     *         {@code false} otherwise (the route must be planned)
+     * @since version 4.0.0
+     */
+    public synchronized boolean load(String key, File route) {
+        if (key == null) {
+            return false;
+        }
+        File entry = new File(dir, key + EXTENSION);
+        if (!entry.isFile()) {
+            countMisses++;
+            return false;
+        }
+        try {
+            Files.copy(entry.toPath(), route.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            entry.setLastModified(System.currentTimeMillis());
+            countHits++;
+            return true;
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: load()");
+            countMisses++;
+            return false;
+        }
+    }
+
+    /**
+     * Stores the route planned in the cache and removes the routes used less
+     * recently if the cache is over its limits. Empty routes are not stored.
+     * @param key key of the route (see createKey)
+     * @param route file with the route planned
+     * @since version 4.0.0
+     */
+    public synchronized void store(String key, File route) {
+        if (key == null || !route.isFile() || route.length() == 0) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir.toPath());
+            File temp = File.createTempFile(key, ".tmp", dir);
+            Files.copy(route.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp.toPath(), new File(dir, key + EXTENSION).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: store()");
+        }
+    }
+
+    /**
+     * Reads the route of the cache or, if it is not in the cache, plans the
+     * route and stores it. The old output is removed before planning (the
+     * output of other route can not be stored with this key).
+     * @param key key of the route (see createKey)
+     * @param route file where the route is written (output of the planner)
+     * @param planner plans the route and writes it in the file route
+     * @return {@code true} if the route was read or planned
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean loadOrPlan(String key, File route, Callable<Boolean> planner) {
+        if (load(key, route)) {
+            StandardPrints.printMsgEmph("route read of the route cache: " + route.getName());
+            return true;
+        }
+        if (key != null) {
+            route.delete();
+        }
+        try {
+            if (!planner.call()) {
+                return false;
+            }
+        } catch (Exception ex) {
+            StandardPrints.printMsgWarning("Warning [Exception]: loadOrPlan()");
+            return false;
+        }
+        store(key, route);
+        return true;
+    }
+
+    /**
+     * Gets the number of routes read of the cache.
+     * @return the number of hits
+     * @since version 4.0.0
+     */
+    public synchronized int getCountHits() {
+        return countHits;
+    }
+
+    /**
+     * Gets the number of routes not found in the cache.
+     * @return the number of misses
+     * @since version 4.0.0
+     */
+    public synchronized int getCountMisses() {
+        return countMisses;
+    }
+
+    /**
+     * Removes the routes used less recently until the cache is inside of
+     * the maximum number of routes and of the maximum size.
+     */
+    private void evict() {
+        File entries[] = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File d, String name) {
+                return name.endsWith(EXTENSION);
+            }
+        });
+        if (entries == null) {
+            return;
+        }
+        final long lastModified[] = new long[entries.length];
+        Integer order[] = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            lastModified[i] = entries[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastModified[b], lastModified[a]);
+            }
+        });
+        int count = 0;
+        long size = 0;
+        for (int i : order) {
+            count++;
+            size += entries[i].length();
+            if (count > maxEntries || size > maxSize) {
+                entries[i].delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package lib.uav.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeBehavior;
+import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.geom.Position3D;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.Route3D;
+
+/**
+ * Class with the generators of the routes of behavior (routes with standard
+ * formats: circle, triangle and rectangle) flown from the current position
+ * of the drone.
+ * Note: the routes are the same of the old program RouteStandard4m, without
+ * process (the file route-behavior.txt is written only to plot the route in
+ * the GCS).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ */
+public class UtilBehavior {
+
+    /**
+     * Creates the route of behavior in cartesian coordinates (in meters) with
+     * origin in the current position (x to east and y to north).
+     * @param type type of behavior (CIRCLE, TRIANGLE, RECTANGLE)
+     * @param dist radius of circle or base of triangle and rectangle (in meters)
+     * @param discretization level of discretization of route (number of points)
+     * @param alt altitude of the route (in meters)
+     * @return the route (empty if the type of behavior is not valid)
+     * @since version 4.0.0
+     */
+    public static Route3D createRoute(String type, double dist, int discretization, double alt) {
+        Route3D route = new Route3D();
+        if (type.equals(TypeBehavior.CIRCLE)) {
+            double stepAngle = 2 * Math.PI / discretization;
+            for (int i = 0; i < discretization + 1; i++) {
+                double angle = Math.PI - stepAngle * i;
+                route.addPosition(new Position3D(dist + dist * Math.cos(angle),
+                        dist * Math.sin(angle), alt));
+            }
+        } else if (type.equals(TypeBehavior.TRIANGLE)) {
+            double inc = 3.0 * dist / discretization;
+            double dx[] = {0.0, Math.sqrt(3.0) * inc * Math.cos(Math.PI / 3.0),
+                -Math.sqrt(3.0) * inc * Math.cos(Math.PI / 3.0)};
+            double dy[] = {inc, -inc * Math.sin(Math.PI / 6.0), -inc * Math.sin(Math.PI / 6.0)};
+            addPolygon(route, dx, dy, discretization / 3, alt);
+        } else if (type.equals(TypeBehavior.RECTANGLE)) {
+            double inc = 4.0 * dist / discretization;
+            double dx[] = {0.0, inc, 0.0, -inc};
+            double dy[] = {inc, 0.0, -inc, 0.0};
+            addPolygon(route, dx, dy, discretization / 4, alt);
+        }
+        return route;
+    }
+
+    /**
+     * Creates the mission of behavior in geographic coordinates: takeoff, the
+     * route of behavior from the current position and land in the last point.
+     * @param type type of behavior (CIRCLE, TRIANGLE, RECTANGLE)
+     * @param lat latitude of the current position (in degrees)
+     * @param lng longitude of the current position (in degrees)
+     * @param alt altitude of the route (in meters)
+     * @param dist radius of circle or base of triangle and rectangle (in meters)
+     * @param discretization level of discretization of route (number of points)
+     * @return the mission (empty if the type of behavior is not valid)
+     * @since version 4.0.0
+     */
+    public static Mission createMission(String type, double lat, double lng, double alt,
+            double dist, int discretization) {
+        Mission mission = new Mission();
+        Route3D route = createRoute(type, dist, discretization, alt);
+        if (route.size() == 0) {
+            return mission;
+        }
+        mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, alt));
+        double latWpt = lat;
+        double lngWpt = lng;
+        for (Position3D pos : route.getRoute()) {
+            latWpt = UtilGeo.convertYtoLatitude(lat, pos.getY());
+            lngWpt = UtilGeo.convertXtoLongitude(lng, lat, pos.getX());
+            mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, latWpt, lngWpt, pos.getZ()));
+        }
+        mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, latWpt, lngWpt, 0.0));
+        return mission;
+    }
+
+    /**
+     * Writes the route of the mission of behavior (the waypoints GOTO) in the 
+     * file, in the format of RouteStandard4m (latitude;longitude;altitude). 
+     * The file is read by the GCS to plot the route.
+     * @param mission the mission of behavior (see createMission)
+     * @param file the file of route (route-behavior.txt)
+     * @return {@code true} if success {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean writeRoute(Mission mission, File file) {
+        try (PrintWriter pw = new PrintWriter(file)) {
+            for (Waypoint wpt : mission.getMission()) {
+                if (wpt.getAction().equals(TypeWaypoint.GOTO)) {
+                    pw.println(String.format("%.8f;%.8f;%.2f", wpt.getLat(), wpt.getLng(), wpt.getAlt()));
+                }
+            }
+            return true;
+        } catch (FileNotFoundException ex) {
+            System.out.println("Warning [FileNotFoundException]: writeRoute()");
+            return false;
+        }
+    }
+
+    /**
+     * Adds the sides of the polygon (n points per side) and closes it in the
+     * origin.
+     */
+    private static void addPolygon(Route3D route, double dx[], double dy[], int n, double alt) {
+        double x = 0.0;
+        double y = 0.0;
+        for (int i = 0; i < dx.length; i++) {
+            for (int j = 0; j < n; j++) {
+                route.addPosition(new Position3D(x, y, alt));
+                x += dx[i];
+                y += dy[i];
+            }
+        }
+        route.addPosition(new Position3D(0.0, 0.0, alt));
+    }
+
+}
@@ -93,4 +93,125 @@ public class UtilGeom {
         return Math.sqrt((x1 - x2)*(x1 - x2) + (y1 - y2) * (y1 - y2));
     }
     
+    /**
+     * Verifies if the point (x, y) is inside the polygon (even-odd rule).
+     * @param vx coordinates x of the vertices
+     * @param vy coordinates y of the vertices
+     * @param x the position x.
+     * @param y the position y.
+     * @return {@code true} if the point is inside the polygon
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean isInsidePoly(double vx[], double vy[], double x, double y){
+        boolean inside = false;
+        for (int i = 0, j = vx.length - 1; i < vx.length; j = i++) {
+            if ((vy[i] > y) != (vy[j] > y) && 
+                    x < (vx[j] - vx[i]) * (y - vy[i]) / (vy[j] - vy[i]) + vx[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+    
+    /**
+     * Calc the euclidian distance of the point (x, y) to the polygon
+     * (zero if the point is inside).
+     * @param vx coordinates x of the vertices
+     * @param vy coordinates y of the vertices
+     * @param x the position x.
+     * @param y the position y.
+     * @return the euclidian distance.
+     * @since version 4.0.0
+     */
+    public static double distPointToPoly(double vx[], double vy[], double x, double y){
+        if (isInsidePoly(vx, vy, x, y)) {
+            return 0;
+        }
+        double min = Double.MAX_VALUE;
+        for (int i = 0, j = vx.length - 1; i < vx.length; j = i++) {
+            min = Math.min(min, distPointToSegment(x, y, vx[j], vy[j], vx[i], vy[i]));
+        }
+        return min;
+    }
+    
+    /**
+     * Calc the euclidian distance of the point (x, y) to the segment (x1, y1)-(x2, y2).
+     * @param x the position x.
+     * @param y the position y.
+     * @param x1 coordinate x of first point of the segment.
+     * @param y1 coordinate y of first point of the segment.
+     * @param x2 coordinate x of second point of the segment.
+     * @param y2 coordinate y of second point of the segment.
+     * @return the euclidian distance.
+     * @since version 4.0.0
+     */
+    public static double distPointToSegment(double x, double y, 
+            double x1, double y1, double x2, double y2){
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / len2;
+        t = Math.max(0, Math.min(1, t));
+        return distanceEuclidian(x, y, x1 + t * dx, y1 + t * dy);
+    }
+    
+    /**
+     * Verifies if the segment (x1, y1)-(x2, y2) touches the polygon (crosses an
+     * edge or has a point inside).
+     * @param vx coordinates x of the vertices
+     * @param vy coordinates y of the vertices
+     * @param x1 coordinate x of first point of the segment.
+     * @param y1 coordinate y of first point of the segment.
+     * @param x2 coordinate x of second point of the segment.
+     * @param y2 coordinate y of second point of the segment.
+     * @return {@code true} if the segment touches the polygon
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean intersectsSegmentPoly(double vx[], double vy[], 
+            double x1, double y1, double x2, double y2){
+        if (isInsidePoly(vx, vy, x1, y1) || isInsidePoly(vx, vy, x2, y2)) {
+            return true;
+        }
+        for (int i = 0, j = vx.length - 1; i < vx.length; j = i++) {
+            if (intersectsSegments(x1, y1, x2, y2, vx[j], vy[j], vx[i], vy[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Verifies if the segments (x1, y1)-(x2, y2) and (x3, y3)-(x4, y4) 
+     * intersect (touching included).
+     * @return {@code true} if the segments intersect
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean intersectsSegments(double x1, double y1, double x2, double y2,
+            double x3, double y3, double x4, double y4){
+        double d1 = cross(x3, y3, x4, y4, x1, y1);
+        double d2 = cross(x3, y3, x4, y4, x2, y2);
+        double d3 = cross(x1, y1, x2, y2, x3, y3);
+        double d4 = cross(x1, y1, x2, y2, x4, y4);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && 
+                ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(x3, y3, x4, y4, x1, y1))
+                || (d2 == 0 && onSegment(x3, y3, x4, y4, x2, y2))
+                || (d3 == 0 && onSegment(x1, y1, x2, y2, x3, y3))
+                || (d4 == 0 && onSegment(x1, y1, x2, y2, x4, y4));
+    }
+    
+    private static double cross(double xa, double ya, double xb, double yb, double x, double y){
+        return (xb - xa) * (y - ya) - (yb - ya) * (x - xa);
+    }
+    
+    private static boolean onSegment(double xa, double ya, double xb, double yb, double x, double y){
+        return Math.min(xa, xb) <= x && x <= Math.max(xa, xb) 
+                && Math.min(ya, yb) <= y && y <= Math.max(ya, yb);
+    }
+    
 }
@@ -9,6 +9,8 @@ import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Scanner;
 
 /**
@@ -68,7 +70,32 @@ public class UtilIO {
        fWork.close();
        return size;
     }
-    
+
+    /**
+     * Method that copy the directory source (and its subdirectories) to
+     * destiny, keeping the permissions of the files (executables).
+     * @param source - Directory of source (directory to be copied).
+     * @param destiny - Directory of destiny (created if it doesn't exist).
+     * @throws IOException
+     * @since version 4.0.0
+     */
+    public static void copyDirectory(File source, File destiny) throws IOException {
+        Files.createDirectories(destiny.toPath());
+        File[] files = source.listFiles();
+        if (files == null) {
+            throw new IOException("directory not found: " + source);
+        }
+        for (File file : files) {
+            File copy = new File(destiny, file.getName());
+            if (file.isDirectory()) {
+                copyDirectory(file, copy);
+            } else {
+                Files.copy(file.toPath(), copy.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
     /**
      * Method that copy the file source to destiny modified the line (line) for 
      * the content (content).
@@ -5,6 +5,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 import lib.uav.struct.Waypoint;
 import lib.uav.struct.constants.TypeWaypoint;
 import lib.uav.struct.mission.Mission;
@@ -25,36 +28,37 @@ public class UtilRoute {
      * @since version 4.0.0
      */
     public static boolean readFileRouteMOSA(Mission mission, String path){
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(path));
-            String sCurrentLine;
-            boolean firstTime = true;
-            double lat = 0.0;
-            double lng = 0.0;
-            double alt = 0.0;
-            while ((sCurrentLine = br.readLine()) != null) {
-                sCurrentLine = UtilString.changeValueSeparator(sCurrentLine);
-                String s[] = sCurrentLine.split(";");
-                lat = Double.parseDouble(s[0]);
-                lng = Double.parseDouble(s[1]);
-                alt = Double.parseDouble(s[2]);
-                if (firstTime){
-                    mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, alt));
-                    firstTime = false;
-                }
-                mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, lat, lng, alt));
-            }
-            if (mission.getMission().size() > 0){
-                mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, lat, lng, 0.0));
-            }
-            return true;
-        } catch (FileNotFoundException ex) {
-            System.out.println("Warning [FileNotFoundException]: readFileRoute()");
-            return false;
-        } catch (IOException ex) {
-            System.out.println("Warning [IOException]: readFileRoute()");
+        return readFileRouteMOSA(mission, path, false, null);
+    }
+    
+    /**
+     * Read the file route, simplifies it in memory (see simplifyRoute) if
+     * simplify is true and put in a object Mission.
+     * Note: used by CCQSP4m and GPathPlanner4m
+     * @param mission object that stores mission waypoints
+     * @param path path the file with route
+     * @param simplify {@code true} if the route must be simplified
+     * @param factor compression factor of the route simplifier
+     * @return {@code true} if success {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean readFileRouteMOSA(Mission mission, String path, 
+            boolean simplify, String factor){
+        double route[][] = readRoute(path, simplify, factor);
+        if (route == null){
             return false;
         }
+        for (int i = 0; i < route.length; i++){
+            if (i == 0){
+                mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, route[i][2]));
+            }
+            mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, route[i][0], route[i][1], route[i][2]));
+        }
+        if (mission.getMission().size() > 0){
+            double last[] = route.length > 0 ? route[route.length - 1] : new double[3];
+            mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, last[0], last[1], 0.0));
+        }
+        return true;
     }
     
     /**
@@ -68,38 +72,79 @@ public class UtilRoute {
      * @since version 4.0.0
      */
     public static boolean readFileRouteMOSA(Mission mission, String path, int nRoute, int size) {
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(path));
+        return readFileRouteMOSA(mission, path, nRoute, size, false, null);
+    }
+    
+    /**
+     * Read the file route, simplifies it in memory (see simplifyRoute) if
+     * simplify is true and put in a object Mission.
+     * Note: used by HGa4m and AStar4m
+     * @param mission object that stores mission waypoints
+     * @param path path the file with route
+     * @param nRoute the number of route
+     * @param size the size of mission
+     * @param simplify {@code true} if the route must be simplified
+     * @param factor compression factor of the route simplifier
+     * @return {@code true} if success {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public static boolean readFileRouteMOSA(Mission mission, String path, int nRoute, int size, 
+            boolean simplify, String factor) {
+        double route[][] = readRoute(path, simplify, factor);
+        if (route == null){
+            return false;
+        }
+        for (int i = 0; i < route.length; i++){
+            if (i == 0 && (nRoute == 0 || nRoute == -2)) {
+                mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, route[i][2]));
+            }
+            mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, route[i][0], route[i][1], route[i][2]));
+        }
+        if (mission.getMission().size() > 0) {
+            if (nRoute == size - 2) {
+                double last[] = route.length > 0 ? route[route.length - 1] : new double[3];
+                mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, last[0], last[1], 0.0));
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Read the file route (latitude, longitude and altitude in each line) and 
+     * simplifies it in memory (see simplifyRoute) if simplify is true.
+     * @param path path the file with route
+     * @param simplify {@code true} if the route must be simplified
+     * @param factor compression factor of the route simplifier
+     * @return the waypoints of the route or null if the file can not be read
+     * @since version 4.0.0
+     */
+    public static double[][] readRoute(String path, boolean simplify, String factor) {
+        List<double[]> route = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
             String sCurrentLine;
-            boolean firstTime = true;
-            double lat = 0.0;
-            double lng = 0.0;
-            double alt = 0.0;
             while ((sCurrentLine = br.readLine()) != null) {
                 sCurrentLine = UtilString.changeValueSeparator(sCurrentLine);
                 String s[] = sCurrentLine.split(";");
-                lat = Double.parseDouble(s[0]);
-                lng = Double.parseDouble(s[1]);
-                alt = Double.parseDouble(s[2]);
-                if (firstTime && (nRoute == 0 || nRoute == -2)) {
-                    mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, alt));
-                    firstTime = false;
-                }
-                mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, lat, lng, alt));
+                route.add(new double[]{Double.parseDouble(s[0]), 
+                    Double.parseDouble(s[1]), Double.parseDouble(s[2])});
             }
-            if (mission.getMission().size() > 0) {
-                if (nRoute == size - 2) {
-                    mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, lat, lng, 0.0));
-                }
-            }
-            return true;
         } catch (FileNotFoundException ex) {
-            System.out.println("Warning [FileNotFoundException]: readFileRoute()");
-            return false;
+            System.out.println("Warning [FileNotFoundException]: readRoute()");
+            return null;
         } catch (IOException ex) {
-            System.out.println("Warning [IOException]: readFileRoute()");
-            return false;
+            System.out.println("Warning [IOException]: readRoute()");
+            return null;
+        }
+        double initRoute[][] = route.toArray(new double[route.size()][]);
+        if (!simplify || initRoute.length == 0){
+            return initRoute;
         }
+        double finalRoute[][] = simplifyRoute(initRoute, Double.parseDouble(factor));
+        System.out.println("Route-Simplifier -> initial size: " + initRoute.length + " lines");
+        System.out.println("Route-Simplifier -> final size: " + finalRoute.length + " lines");
+        System.out.println(String.format("Route-Simplifier -> optimization factor: %.2f times", 
+                (double)initRoute.length / finalRoute.length));
+        return finalRoute;
     }
     
     /**
@@ -112,8 +157,7 @@ public class UtilRoute {
      * @since version 4.0.0
      */
     public static boolean readFileRouteIFA(Mission mission, String path, int numberWptJumps) {
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(path));
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
             String sCurrentLine;
             double lat = 0.0;
             double lng = 0.0;
@@ -145,6 +189,11 @@ public class UtilRoute {
     
     /**
      * Execute the route simplifier and compresses the number of route waypoints.
+     * The route is simplified in memory (see simplifyRoute) and written in the
+     * file output-simplifier.txt of the directory of the route simplifier
+     * (same output of the old script Route-Simplifier.py). MOSA and GCS 
+     * simplify the routes in memory (see readFileRouteMOSA), this method is
+     * kept to compare with the old script.
      * @param pathRoute the path of route to be simplifer
      * @param dirRouteSimplifier the directory containing the route simplifier
      * @param factor compression factor
@@ -153,16 +202,78 @@ public class UtilRoute {
      */
     public static void execRouteSimplifier(String pathRoute, String dirRouteSimplifier,
             String factor, String separator){
-        try {
-            boolean print = true;
-            String cmd = "python Route-Simplifier.py " + factor + 
-                    " " + "../" + pathRoute + " '" + separator + "'";
-            UtilRunThread.dualSingleThreadWaitFor(cmd, new File(dirRouteSimplifier), print, print);
+        List<double[]> route = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(pathRoute))) {
+            String sCurrentLine;
+            while ((sCurrentLine = br.readLine()) != null) {
+                String s[] = sCurrentLine.trim().split(separator);
+                double coord[] = new double[s.length];
+                for (int i = 0; i < s.length; i++) {
+                    coord[i] = Double.parseDouble(s[i]);
+                }
+                route.add(coord);
+            }
+        } catch (FileNotFoundException ex) {
+            System.out.println("Warning [FileNotFoundException] execRouteSimplifier()");
+            return;
         } catch (IOException ex) {
             System.out.println("Warning [IOException] execRouteSimplifier()");
-        } catch (InterruptedException ex) {
-            System.out.println("Warning [InterruptedException] execRouteSimplifier()");
-        } 
+            return;
+        } catch (NumberFormatException ex) {
+            System.out.println("Warning [NumberFormatException] execRouteSimplifier()");
+            return;
+        }
+        double finalRoute[][] = simplifyRoute(route.toArray(new double[route.size()][]), 
+                Double.parseDouble(factor));
+        try (PrintWriter pw = new PrintWriter(new File(dirRouteSimplifier, "output-simplifier.txt"))) {
+            for (double coord[] : finalRoute) {
+                pw.print(coord[0] + separator + coord[1]);
+                if (coord.length == 3) {
+                    pw.print(separator + coord[2]);
+                }
+                pw.println();
+            }
+        } catch (FileNotFoundException ex) {
+            System.out.println("Warning [FileNotFoundException] execRouteSimplifier()");
+            return;
+        }
+        System.out.println("Route-Simplifier -> initial size: " + route.size() + " lines");
+        System.out.println("Route-Simplifier -> final size: " + finalRoute.length + " lines");
+        System.out.println(String.format("Route-Simplifier -> optimization factor: %.2f times", 
+                (double)route.size() / finalRoute.length));
+    }
+    
+    /**
+     * Simplifies the route keeping only the waypoints where the heading
+     * changes: a waypoint is kept when the angle of the direction of the
+     * previous segment and the direction of the last segment kept differ by
+     * more than factor (in radians). The first and the last waypoints are
+     * always kept.
+     * @param route the waypoints of the route (x, y and optionally z)
+     * @param factor compression factor (bigger factor, fewer waypoints)
+     * @return the waypoints of the simplified route
+     * @since version 4.0.0
+     */
+    public static double[][] simplifyRoute(double route[][], double factor) {
+        List<double[]> path = new ArrayList<>();
+        double anglePrev = 0.0;
+        for (int i = 0; i < route.length; i++) {
+            if (i == 0) {
+                path.add(route[i]);
+            } else if (i == 1) {
+                anglePrev = Math.atan2(route[i-1][1] - route[i][1], route[i-1][0] - route[i][0]);
+            } else {
+                double angleNext = Math.atan2(route[i-1][1] - route[i][1], route[i-1][0] - route[i][0]);
+                if (Math.abs(angleNext - anglePrev) > factor) {
+                    path.add(route[i-1]);
+                    anglePrev = angleNext;
+                }
+            }
+            if (i == route.length - 1) {
+                path.add(route[i]);
+            }
+        }
+        return path.toArray(new double[path.size()][]);
     }
     
 }
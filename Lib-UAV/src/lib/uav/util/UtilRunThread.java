@@ -142,7 +142,12 @@ public class UtilRunThread {
                 sc.close();
             }
         });
-        comp.waitFor();
+        try {
+            comp.waitFor();
+        } catch (InterruptedException ex) {
+            comp.destroy();//the caller gave up (example: deadline of the portfolio)
+            throw ex;
+        }
     }
 
 }
@@ -0,0 +1,9 @@
+#!/bin/bash
+#Author: Jesimar da Silva Arantes
+#Date: 18/10/2026
+#Last Update: 18/10/2026
+#Description: Script that run UAV-Benchmarks system to measure the code of Lib-UAV.
+#Descrição: Script que executa sistema UAV-Benchmarks para medir o código da Lib-UAV.
+
+cd ../UAV-Benchmarks/
+java -jar dist/UAV-Benchmarks.jar "$@"
@@ -0,0 +1,55 @@
+package uav.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import lib.color.StandardPrints;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs (with the JMH) the benchmarks of the code of Lib-UAV (and of the GCS)
+ * executed in each cycle of the IFA, MOSA and GCS: parsers of the sensors
+ * (SensorsBenchmark), parser of the get-all-sensors and telemetry text
+ * (TelemetryBenchmark), conversions of coordinates (GeoBenchmark), files of
+ * route (RouteBenchmark) and access to the Mission (MissionBenchmark).
+ * Arguments: [file of results = results-benchmarks.json] [filter = .*]
+ * [warmup iterations = 5] [iterations = 10] [time of the iteration in ms = 500]
+ * [forks = 1]
+ * @author Jesimar S. Arantes
+ */
+public class BenchmarksLibUAV {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        String output = args.length > 0 ? args[0] : "results-benchmarks.json";
+        String filter = args.length > 1 ? args[1] : ".*";
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int time = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+        int forks = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        StandardPrints.printMsgEmph2("UAV-Benchmarks: Lib-UAV");
+
+        Options options = new OptionsBuilder()
+                .include(filter)
+                .warmupIterations(warmup)
+                .warmupTime(TimeValue.milliseconds(time))
+                .measurementIterations(iterations)
+                .measurementTime(TimeValue.milliseconds(time))
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .forks(forks)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        try {
+            new Runner(options).run();
+            System.out.println("results: " + output);
+        } catch (RunnerException ex) {
+            StandardPrints.printMsgWarning("Warning [RunnerException]: run()");
+        }
+    }
+
+}
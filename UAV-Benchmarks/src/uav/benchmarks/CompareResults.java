@@ -0,0 +1,111 @@
+package uav.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import lib.color.StandardPrints;
+
+/**
+ * Compares two files of results (of BenchmarksLibUAV, format JSON of the JMH,
+ * mode avgt) and shows the change of each benchmark (and of each value of its
+ * parameters).
+ * A benchmark is a regression when it is slower than the threshold and the
+ * confidence intervals of both runs don't overlap.
+ * Arguments: baseline.json current.json [threshold in % = 10]
+ * Exit code: 0 without regressions, 1 with regressions, 2 in case of error.
+ * @author Jesimar S. Arantes
+ */
+public class CompareResults {
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        if (args.length < 2) {
+            System.out.println("Usage: CompareResults baseline.json current.json [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, double[]> baseline = read(args[0]);
+        Map<String, double[]> current = read(args[1]);
+        if (baseline == null || current == null) {
+            System.exit(2);
+        }
+        int regressions = 0;
+        System.out.println(String.format("%-60s %14s %14s %9s", "benchmark",
+                "baseline", "current", "change"));
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            double cur[] = entry.getValue();
+            double base[] = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.println(String.format("%-60s %14s %14.3f %9s", entry.getKey(),
+                        "-", cur[0], "new"));
+                continue;
+            }
+            double change = 100.0 * (cur[0] - base[0]) / base[0];
+            boolean overlap = cur[0] - cur[1] <= base[0] + base[1];
+            String status = "";
+            if (change > threshold && !overlap) {
+                status = " REGRESSION";
+                regressions++;
+            } else if (change < -threshold && base[0] - base[1] > cur[0] + cur[1]) {
+                status = " improvement";
+            }
+            System.out.println(String.format("%-60s %14.3f %14.3f %+8.1f%%%s", entry.getKey(),
+                    base[0], cur[0], change, status));
+        }
+        if (regressions > 0) {
+            StandardPrints.printMsgError("regressions: " + regressions);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a file of results.
+     * @return the score and the error of each benchmark (null in case of error)
+     */
+    private static Map<String, double[]> read(String path) {
+        try (Reader reader = new InputStreamReader(new FileInputStream(path),
+                StandardCharsets.UTF_8)) {
+            JsonArray array = new JsonParser().parse(reader).getAsJsonArray();
+            Map<String, double[]> results = new LinkedHashMap<>();
+            for (JsonElement element : array) {
+                JsonObject result = element.getAsJsonObject();
+                JsonObject metric = result.getAsJsonObject("primaryMetric");
+                double error = metric.get("scoreError").isJsonPrimitive()
+                        && metric.get("scoreError").getAsJsonPrimitive().isNumber() ?
+                        metric.get("scoreError").getAsDouble() : 0.0;
+                results.put(key(result), new double[]{metric.get("score").getAsDouble(), error});
+            }
+            return results;
+        } catch (IOException | RuntimeException ex) {
+            StandardPrints.printMsgWarning("Warning [Exception]: read() " + path);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the key of a result: name of the benchmark (without the package)
+     * and the values of its parameters, e.g. MissionBenchmark.getWaypoint:n=10.
+     */
+    private static String key(JsonObject result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").getAsString()
+                .replace("uav.benchmarks.", ""));
+        JsonObject params = result.getAsJsonObject("params");
+        if (params != null) {
+            for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                key.append(":").append(param.getKey()).append("=")
+                        .append(param.getValue().getAsString());
+            }
+        }
+        return key.toString();
+    }
+
+}
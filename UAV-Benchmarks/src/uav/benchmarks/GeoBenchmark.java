@@ -0,0 +1,57 @@
+package uav.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lib.uav.struct.geom.Point3D;
+import lib.uav.struct.geom.PointGeo;
+import lib.uav.util.UtilGeo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the conversions of coordinates (geographic and cartesian)
+ * of UtilGeo.
+ * @author Jesimar S. Arantes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class GeoBenchmark {
+
+    PointGeo base;
+    PointGeo point;
+    Point3D point3D;
+
+    @Setup
+    public void setup() {
+        base = new PointGeo(-47.8987, -22.0059, 870.0);
+        point = new PointGeo(-47.8972, -22.0071, 882.5);
+        point3D = UtilGeo.convertGeoTo3D(base, point);
+    }
+
+    @Benchmark
+    public Point3D convertGeoTo3D() {
+        return UtilGeo.convertGeoTo3D(base, point);
+    }
+
+    @Benchmark
+    public PointGeo parseToGeoPoint() {
+        return UtilGeo.parseToGeo(base, point3D);
+    }
+
+    @Benchmark
+    public String parseToGeoString() {
+        return UtilGeo.parseToGeo(base, point3D.getX(), point3D.getY(), point3D.getZ(), ";");
+    }
+
+}
@@ -0,0 +1,53 @@
+package uav.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.mission.Mission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the access to the Mission: one operation visits all the
+ * waypoints by index (as the MissionManager).
+ * @author Jesimar S. Arantes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class MissionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int n;
+
+    Mission mission;
+
+    @Setup
+    public void setup() {
+        mission = new Mission();
+        for (int i = 0; i < n; i++) {
+            mission.addWaypoint(new Waypoint(-22.0059 + i * 1e-5, -47.8987, 10.0));
+        }
+    }
+
+    @Benchmark
+    public double getWaypoint() {
+        double sum = 0;
+        for (int i = 0; i < mission.size(); i++) {
+            sum += mission.getWaypoint(i).getLat();
+        }
+        return sum;
+    }
+
+}
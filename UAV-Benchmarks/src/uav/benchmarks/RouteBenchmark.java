@@ -0,0 +1,78 @@
+package uav.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import lib.uav.struct.geom.PointGeo;
+import lib.uav.struct.mission.Mission;
+import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilRoute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the files of route: round trip of the MOSA (the route is
+ * written as by the planners and read) and reading of the route by the IFA.
+ * @author Jesimar S. Arantes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RouteBenchmark {
+
+    @Param({"10", "100"})
+    int n;
+
+    PointGeo base;
+    File file;
+
+    @Setup
+    public void setup() throws IOException {
+        base = new PointGeo(-47.8987, -22.0059, 870.0);
+        file = File.createTempFile("benchmark-route-", ".txt");
+        writeRoute();
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int roundTripMOSA() throws IOException {
+        writeRoute();
+        Mission mission = new Mission();
+        UtilRoute.readFileRouteMOSA(mission, file.getPath());
+        return mission.size();
+    }
+
+    @Benchmark
+    public int readFileRouteIFA() {
+        Mission mission = new Mission();
+        UtilRoute.readFileRouteIFA(mission, file.getPath(), 0);
+        return mission.size();
+    }
+
+    private void writeRoute() throws IOException {
+        try (PrintStream out = new PrintStream(file)) {
+            for (int i = 0; i < n; i++) {
+                out.println(UtilGeo.parseToGeo(base, i * 5.0, i * 3.0, 10.0, ";"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package uav.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lib.uav.hardware.sensors.Attitude;
+import lib.uav.hardware.sensors.Barometer;
+import lib.uav.hardware.sensors.Battery;
+import lib.uav.hardware.sensors.GPS;
+import lib.uav.hardware.sensors.GPSInfo;
+import lib.uav.hardware.sensors.SensorUAV;
+import lib.uav.hardware.sensors.StatusUAV;
+import lib.uav.hardware.sensors.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the parsers of each sensor (answers of the UAV-S2DK).
+ * Note: the answers are fields (not constants) so that the JIT can't fold
+ * the parsers, and the values parsed are returned to the JMH.
+ * @author Jesimar S. Arantes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SensorsBenchmark {
+
+    String answerGPS = "{\"gps\": [-22.0059726, -47.8986881]}";
+    String answerGPSInfo = "{\"gpsinfo\": [3, 10, 121, 65535]}";
+    String answerBarometer = "{\"barometer\": [12.35, 882.3]}";
+    String answerBattery = "{\"bat\": [12.587, 4.57, 87]}";
+    String answerAttitude = "{\"att\": [-0.0018487547, 1.9062933921, -0.001687332987]}";
+    String answerVelocity = "{\"vel\": [-0.02, -0.05, 0.0]}";
+    String answerHeading = "{\"heading\": 110}";
+    String answerMode = "{\"mode\": \"STABILIZE\"}";
+    String answerArmed = "{\"armed\": false}";
+
+    final GPS gps = new GPS();
+    final GPSInfo gpsInfo = new GPSInfo();
+    final Barometer barometer = new Barometer();
+    final Battery battery = new Battery();
+    final Attitude attitude = new Attitude();
+    final Velocity velocity = new Velocity();
+    final SensorUAV sensorUAV = new SensorUAV();
+    final StatusUAV statusUAV = new StatusUAV();
+
+    @Benchmark
+    public double parserInfoGPS() {
+        gps.parserInfoGPS(answerGPS);
+        return gps.lat;
+    }
+
+    @Benchmark
+    public double parserInfoGPSInfo() {
+        gpsInfo.parserInfoGPSInfo(answerGPSInfo);
+        return gpsInfo.eph;
+    }
+
+    @Benchmark
+    public double parserInfoBarometer() {
+        barometer.parserInfoBarometer(answerBarometer);
+        return barometer.alt_rel;
+    }
+
+    @Benchmark
+    public double parserInfoBattery() {
+        battery.parserInfoBattery(answerBattery);
+        return battery.voltage;
+    }
+
+    @Benchmark
+    public double parserInfoAttitude() {
+        attitude.parserInfoAttitude(answerAttitude);
+        return attitude.yaw;
+    }
+
+    @Benchmark
+    public double parserInfoVelocity() {
+        velocity.parserInfoVelocity(answerVelocity);
+        return velocity.vx;
+    }
+
+    @Benchmark
+    public double parserInfoHeading() {
+        sensorUAV.parserInfoHeading(answerHeading);
+        return sensorUAV.heading;
+    }
+
+    @Benchmark
+    public String parserInfoMode() {
+        statusUAV.parserInfoMode(answerMode);
+        return statusUAV.mode;
+    }
+
+    @Benchmark
+    public boolean parserInfoArmed() {
+        statusUAV.parserInfoArmed(answerArmed);
+        return statusUAV.armed;
+    }
+
+}
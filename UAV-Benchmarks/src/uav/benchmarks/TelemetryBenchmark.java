@@ -0,0 +1,68 @@
+package uav.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.ParserAllSensors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the telemetry: parser of the answer of the get-all-sensors
+ * (DataAcquisitionS2DK.getAllInfoSensors), text of the telemetry sent to the
+ * GCS (Drone.toString) and parser of this text in the GCS.
+ * @author Jesimar S. Arantes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class TelemetryBenchmark {
+
+    String answerAllSensors = "{\"all-sensors\": [-22.0059333, -47.8987082, "
+            + "12.35, 882.3, 0.009657, 2.025, 0.004823, 116, 4.57, 4.61, 3, 10, 121, 65535, "
+            + "[0.91, -0.31, 0.01], 5, 9, 85.16173128321728691, 13.42, \"AUTO\", \"ACTIVE\", "
+            + "true, true, true]}";
+
+    Drone drone;
+    ParserAllSensors parser;
+    String line;
+    uav.gcs.struct.Drone droneGCS;
+
+    @Setup
+    public void setup() {
+        drone = new DroneRotaryWing("iDroneAlpha");
+        parser = new ParserAllSensors();
+        parser.parse(answerAllSensors, drone);
+        line = drone.toString();
+        droneGCS = new uav.gcs.struct.Drone("");
+    }
+
+    @Benchmark
+    public double parseAllSensors() {
+        parser.parse(answerAllSensors, drone);
+        return drone.getSensors().getGPS().lat;
+    }
+
+    @Benchmark
+    public String droneToString() {
+        return drone.toString();
+    }
+
+    @Benchmark
+    public double parserAllDataToDroneGCS() {
+        droneGCS.parserAllDataToDrone(line);
+        return droneGCS.gps.lat;
+    }
+
+}
@@ -9,6 +9,7 @@ import java.net.Socket;
 import java.util.concurrent.Executors;
 import lib.uav.module.comm.Client;
 import lib.uav.module.comm.Communication;
+import lib.uav.module.comm.TelemetryFrame;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.struct.constants.Constants;
 import lib.uav.struct.constants.TypeMsgCommunication;
@@ -67,6 +68,7 @@ public class CommunicationIFA extends Communication implements Client{
                         output = new PrintWriter(socket.getOutputStream(), true);
                         input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
                         System.out.println("UAV-GCS connected in IFA");
+                        sendData(TypeMsgCommunication.GCS_IFA_TELEMETRY_BINARY);
                         break;
                     } catch (IOException ex) {
                         stateCommunication = StateCommunication.DISABLED;
@@ -89,12 +91,20 @@ public class CommunicationIFA extends Communication implements Client{
         Executors.newSingleThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
+                TelemetryFrame frame = new TelemetryFrame();
                 try {
                     while (true) {
                         if (input != null) {
                             String answer = input.readLine();
                             if (answer != null) {
-                                if (answer.contains(TypeMsgCommunication.IFA_GCS_INFO)) {
+                                if (answer.startsWith(TypeMsgCommunication.IFA_GCS_INFO_BIN)) {
+                                    answer = answer.substring(TypeMsgCommunication.IFA_GCS_INFO_BIN.length());
+                                    if (frame.decode(answer)) {
+                                        drone.parserBinaryDataToDrone(frame);
+                                    } else {
+                                        System.out.println("Warning: invalid telemetry frame");
+                                    }
+                                } else if (answer.contains(TypeMsgCommunication.IFA_GCS_INFO)) {
                                     answer = answer.substring(14);
                                     drone.parserAllDataToDrone(answer);
                                 } else if (answer.contains(TypeMsgCommunication.IFA_GCS_REPLANNER)) {
@@ -128,12 +138,15 @@ public class CommunicationIFA extends Communication implements Client{
 
     /**
      * Execute the path replanner in GCS.
+     * Note: the route (or the failure) is sent with the id of the request,
+     * when the IFA sends it, so that the IFA discards the late routes.
      * @param answer a string with the parameters to exec replanner.
      * @since version 4.0.0
      */
     private void execReplannerInGCS(String answer) {
         isRunningReplanner = true;
         String v[] = answer.split(";");
+        String id = v.length > 9 ? TypeMsgCommunication.GCS_IFA_ROUTE_ID + v[9] + ";" : "";
         Replanner replanner = null;
         
         if (v[0].equals(TypeReplanner.GH4S)) {
@@ -157,7 +170,7 @@ public class CommunicationIFA extends Communication implements Client{
         replanner.clearLogs();
         boolean itIsOkExec = replanner.exec();
         if (!itIsOkExec) {
-            sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
+            sendData(id + TypeMsgCommunication.UAV_ROUTE_FAILURE);
             isRunningReplanner = false;
             return;
         } 
@@ -165,12 +178,12 @@ public class CommunicationIFA extends Communication implements Client{
         String path = v[3] + "routeGeo.txt";
         boolean resp = UtilRoute.readFileRouteIFA(mission, path, 2);
         if (!resp) {
-            sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
+            sendData(id + TypeMsgCommunication.UAV_ROUTE_FAILURE);
             isRunningReplanner = false;
             return;
         }
         mission.printMission();
-        sendData(new Gson().toJson(mission));
+        sendData(id + new Gson().toJson(mission));
         isRunningReplanner = false;
     }
         
@@ -206,12 +206,8 @@ public class CommunicationMOSA extends Communication implements Client{
             nRoute = 0;
             while (nRoute < size - 1) {
                 String path = v[5] + "routeGeo" + nRoute + ".txt";
-                if (config.hasRouteSimplifier()){
-                    UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                    path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-                }
-                boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, nRoute, size);
+                boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, nRoute, size, 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
                 if (!respFile) {
                     sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
                     isRunningPlanner = false;
@@ -236,14 +232,8 @@ public class CommunicationMOSA extends Communication implements Client{
             }
             Mission mission = new Mission();
             String path = v[3] + "routeGeo.txt";
-            
-            if (config.hasRouteSimplifier()){
-                UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-            }
-            
-            boolean respFile = UtilRoute.readFileRouteMOSA(mission, path);
+            boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, 
+                    config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
             if (!respFile) {
                 sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
                 isRunningPlanner = false;
@@ -274,12 +264,8 @@ public class CommunicationMOSA extends Communication implements Client{
             nRoute = 0;
             while (nRoute < size - 1) {
                 String path = v[5] + "routeGeo" + nRoute + ".txt";
-                if (config.hasRouteSimplifier()){
-                    UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                    path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-                }
-                boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, nRoute, size);
+                boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, nRoute, size, 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
                 if (!respFile) {
                     sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
                     isRunningPlanner = false;
@@ -304,14 +290,8 @@ public class CommunicationMOSA extends Communication implements Client{
             }
             Mission mission = new Mission();
             String path = v[3] + "routeGeo.txt";
-            
-            if (config.hasRouteSimplifier()){
-                UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-            }
-            
-            boolean respFile = UtilRoute.readFileRouteMOSA(mission, path);
+            boolean respFile = UtilRoute.readFileRouteMOSA(mission, path, 
+                    config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
             if (!respFile) {
                 sendData(TypeMsgCommunication.UAV_ROUTE_FAILURE);
                 isRunningPlanner = false;
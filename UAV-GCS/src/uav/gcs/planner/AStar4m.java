@@ -4,11 +4,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 import lib.color.StandardPrints;
 import lib.uav.reader.ReaderFileMission;
 import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.geom.PointGeo;
 import lib.uav.struct.geom.Position3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilIO;
 import uav.gcs.struct.Drone;
@@ -63,12 +66,35 @@ public class AStar4m extends Planner{
      */
     public boolean execMission(int i) {
         boolean itIsOkpathAB = definePathAB(i); 
-        boolean itIsOkExec   = execMethod();
+        boolean itIsOkExec   = execProgram(i, itIsOkpathAB);
         boolean itIsOkCopy   = copyRoute3D(i);
         boolean itIsOkParse  = parseRoute3DtoGeo(i);
         return itIsOkpathAB && itIsOkExec && itIsOkCopy && itIsOkParse;
     }
     
+    /**
+     * Runs the program A-Start (output.txt) or reads its output of the route 
+     * cache if the route was planned before with the same files.
+     * @param i the i-th index of the route
+     * @param isOkPathAB the files of the route were written
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean execProgram(int i, boolean isOkPathAB) {
+        if (cache == null || !isOkPathAB){
+            return execMethod();
+        }
+        String key = RouteCache.createKey(TypePlanner.A_STAR4M, cmdExecPlanner, 
+                new File(dir + "goals.txt"), new File(dir + "map-nfz-astar.sgl"));
+        return cache.loadOrPlan(key, new File(dir + "output.txt"), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return execMethod();
+            }
+        });
+    }
+    
     /**
      * Define the path between two points (i.e. A and B).
      * @param i the i-th index of the route
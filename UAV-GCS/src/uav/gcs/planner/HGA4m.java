@@ -5,10 +5,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 import lib.uav.reader.ReaderFileMission;
 import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.geom.PointGeo;
 import lib.uav.struct.geom.Position3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilIO;
 import uav.gcs.struct.Drone;
@@ -73,10 +76,39 @@ public class HGA4m extends Planner{
     public boolean execMission(int i) {
         boolean itIsOkUpdate = updateFileConfig(i);
         boolean itIsOkpathAB = definePathAB(i);        
-        boolean itIsOkExec   = execMethod();
-        boolean itIsOkRoute  = createFileFinalRoute(i);
+        boolean itIsOkRoute  = planRoute(i, itIsOkUpdate && itIsOkpathAB);
         boolean itIsOkParse  = parseRoute3DtoGeo(i);
-        return itIsOkUpdate && itIsOkpathAB && itIsOkExec && itIsOkRoute && itIsOkParse;
+        return itIsOkUpdate && itIsOkpathAB && itIsOkRoute && itIsOkParse;
+    }
+    
+    /**
+     * Runs the method and creates the route file or reads the route of the 
+     * route cache if it was planned before with the same files.
+     * @param i the i-th index of the route
+     * @param isOkFiles the files of the route were written
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean planRoute(final int i, boolean isOkFiles) {
+        if (cache == null || !isOkFiles){
+            boolean itIsOkExec   = execMethod();
+            boolean itIsOkRoute  = createFileFinalRoute(i);
+            return itIsOkExec && itIsOkRoute;
+        }
+        String key = RouteCache.createKey(TypePlanner.HGA4M, cmdExecPlanner, 
+                new File(dir + "ga-config"), new File(dir + "mission-config.sgl"), 
+                new File(dir + "map-nfz.sgl"));
+        return cache.loadOrPlan(key, new File(dir + "route3D" + i + ".txt"), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                //the log of other route can not be read as this route
+                new File(dir + "output-simulation.log").delete();
+                boolean itIsOkExec   = execMethod();
+                boolean itIsOkRoute  = createFileFinalRoute(i);
+                return itIsOkExec && itIsOkRoute;
+            }
+        });
     }
     
     /**
@@ -2,8 +2,10 @@ package uav.gcs.planner;
 
 import java.io.File;
 import java.io.IOException;
+import lib.uav.reader.ReaderFileConfig;
 import lib.uav.struct.mission.Mission;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilRunThread;
 import uav.gcs.struct.Drone;
 
@@ -19,6 +21,7 @@ public abstract class Planner {
     final Mission3D waypointsMission;
     final Mission3D mission3D;
     final Mission missionGeo;
+    final RouteCache cache = createRouteCache();
     
     String fileWaypointsMission;   //used in planner hga4m and astar4m
     String sizeWpt;                //used in planner hga4m
@@ -187,6 +190,20 @@ public abstract class Planner {
         return missionGeo;
     }
     
+    /**
+     * Creates the route cache (shared with the path planners of MOSA).
+     * @return the route cache or null if it is disabled
+     * @since version 4.0.0
+     */
+    private static RouteCache createRouteCache(){
+        ReaderFileConfig config = ReaderFileConfig.getInstance();
+        if (!config.hasRouteCache()){
+            return null;
+        }
+        return new RouteCache(config.getDirRouteCache(), config.getMaxEntriesRouteCache(), 
+                config.getMaxSizeRouteCache());
+    }
+    
     /**
      * Method that runs the path planner.
      * @return {@code true} if the execution was successful
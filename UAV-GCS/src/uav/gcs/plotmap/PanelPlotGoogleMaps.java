@@ -149,6 +149,7 @@ public class PanelPlotGoogleMaps extends JPanel {
      * @since version 3.0.0
      */
     public void waitingForRoutes() {
+        final long timeStart = System.currentTimeMillis();
         if (config.getSystemExecMOSA().equals(TypeSystemExecMOSA.PLANNER)
                 && config.getTypePlanner().equals(TypePlanner.HGA4M)) {
             Executors.newSingleThreadExecutor().execute(new Runnable() {
@@ -305,17 +306,22 @@ public class PanelPlotGoogleMaps extends JPanel {
                 }
             });
         }
-        if (config.hasRouteSimplifier()) {
+        if (config.getSystemExecMOSA().equals(TypeSystemExecMOSA.PLANNER) && config.hasRouteSimplifier()) {
             Executors.newSingleThreadExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
+                    int i = 0;
                     while (true) {
                         try {
                             Thread.sleep(500);
-                            String pathSimplifier = config.getDirRouteSimplifier() + "output-simplifier.txt";
-                            File fileSimplifier = new File(pathSimplifier);
-                            if (fileSimplifier.exists()) {
-                                routeMOSASimplifier.read(fileSimplifier);
+                            File fileRoute = new File(config.getDirPlanner() + "routeGeo" + i + ".txt");
+                            File fileMission = new File(config.getDirPlanner() + "routeGeo.txt");
+                            if (fileRoute.exists()) {
+                                routeMOSASimplifier.readSimplified(fileRoute, config.getFactorRouteSimplifier());
+                                addRouteInAPIlatlng(routeMOSASimplifier, "#000000", 0.8, 2);
+                                i++;
+                            } else if (i == 0 && fileMission.exists()) {
+                                routeMOSASimplifier.readSimplified(fileMission, config.getFactorRouteSimplifier());
                                 addRouteInAPIlatlng(routeMOSASimplifier, "#000000", 0.8, 2);
                                 break;
                             }
@@ -332,10 +338,10 @@ public class PanelPlotGoogleMaps extends JPanel {
                 while (true) {
                     try {
                         Thread.sleep(500);
-                        String pathSimplifier = config.getDirRouteSimplifier() + "route-behavior.txt";
-                        File fileSimplifier = new File(pathSimplifier);
-                        if (fileSimplifier.exists()) {
-                            routeMOSABehavior.readGeo(fileSimplifier);
+                        String pathBehavior = config.getDirBehavior() + "route-behavior.txt";
+                        File fileBehavior = new File(pathBehavior);
+                        if (fileBehavior.exists() && fileBehavior.lastModified() >= timeStart) {
+                            routeMOSABehavior.read(fileBehavior);
                             addRouteInAPIlatlng(routeMOSABehavior, "#000000", 0.8, 2);
                             break;
                         }
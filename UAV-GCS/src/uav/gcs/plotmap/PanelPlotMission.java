@@ -376,6 +376,7 @@ public class PanelPlotMission extends sPanelDraw {
      * @since version 3.0.0
      */
     public void waitingForRoutes() {
+        final long timeStart = System.currentTimeMillis();
         if (config.getSystemExecMOSA().equals(TypeSystemExecMOSA.PLANNER)
                 && config.getTypePlanner().equals(TypePlanner.HGA4M)) {
             Executors.newSingleThreadExecutor().execute(new Runnable() {
@@ -534,17 +535,22 @@ public class PanelPlotMission extends sPanelDraw {
                 }
             });
         }
-        if (config.hasRouteSimplifier()) {
+        if (config.getSystemExecMOSA().equals(TypeSystemExecMOSA.PLANNER) && config.hasRouteSimplifier()) {
             Executors.newSingleThreadExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
+                    int i = 0;
                     while (true) {
                         try {
                             Thread.sleep(500);
-                            String pathSimplifier = config.getDirRouteSimplifier() + "output-simplifier.txt";
-                            File fileSimplifier = new File(pathSimplifier);
-                            if (fileSimplifier.exists()) {
-                                routeMOSASimplifier.readGeo(fileSimplifier);
+                            File fileRoute = new File(config.getDirPlanner() + "routeGeo" + i + ".txt");
+                            File fileMission = new File(config.getDirPlanner() + "routeGeo.txt");
+                            if (fileRoute.exists()) {
+                                routeMOSASimplifier.readGeoSimplified(fileRoute, config.getFactorRouteSimplifier());
+                                repaint();
+                                i++;
+                            } else if (i == 0 && fileMission.exists()) {
+                                routeMOSASimplifier.readGeoSimplified(fileMission, config.getFactorRouteSimplifier());
                                 repaint();
                                 break;
                             }
@@ -563,7 +569,7 @@ public class PanelPlotMission extends sPanelDraw {
                         Thread.sleep(500);
                         String pathBehavior = config.getDirBehavior()+ "route-behavior.txt";
                         File file = new File(pathBehavior);
-                        if (file.exists()) {
+                        if (file.exists() && file.lastModified() >= timeStart) {
                             routeMOSABehavior.readGeo(file);
                             repaint();
                             break;
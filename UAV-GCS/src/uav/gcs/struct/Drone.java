@@ -1,5 +1,7 @@
 package uav.gcs.struct;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import lib.uav.hardware.sensors.Attitude;
 import lib.uav.hardware.sensors.Barometer;
 import lib.uav.hardware.sensors.Battery;
@@ -10,6 +12,7 @@ import lib.uav.hardware.sensors.Sonar;
 import lib.uav.hardware.sensors.StatusUAV;
 import lib.uav.hardware.sensors.Temperature;
 import lib.uav.hardware.sensors.Velocity;
+import lib.uav.module.comm.TelemetryFrame;
 
 
 /**
@@ -43,6 +46,10 @@ public class Drone {
     public StatusUAV statusUAV;
     public Sonar sonar;                                //in meters
     public Temperature temperature;                    //in degree celsius
+    
+    private SimpleDateFormat formatDate;
+    private SimpleDateFormat formatHour;
+    private long lastSecond = -1;
 
     /**
      * Class constructor.
@@ -146,4 +153,61 @@ public class Drone {
         sonar.distance = v[37].equals("NONE") ? -1.0 : Double.parseDouble(v[37]);
         temperature.temperature = v[38].equals("NONE") ? -1.0 : Double.parseDouble(v[38]);
     }
+    
+    /**
+     * Update the data of drone with a binary frame of telemetry.
+     * @param frame the frame already decoded
+     * @since version 4.0.0
+     * @see TelemetryFrame
+     */
+    public void parserBinaryDataToDrone(TelemetryFrame frame) {
+        long second = frame.timestamp / 1000;
+        if (second != lastSecond) {
+            if (formatDate == null) {
+                formatDate = new SimpleDateFormat("yyyy/MM/dd");
+                formatHour = new SimpleDateFormat("HH:mm:ss");
+            }
+            Date dateHour = new Date(frame.timestamp);
+            date = formatDate.format(dateHour);
+            hour = formatHour.format(dateHour);
+            lastSecond = second;
+        }
+        time = frame.time;
+        gps.lat = frame.lat;
+        gps.lng = frame.lng;
+        barometer.alt_rel = frame.altRel;
+        barometer.alt_abs = frame.altAbs;
+        battery.voltage = frame.voltage;
+        battery.current = frame.current;
+        battery.level = frame.level;
+        attitude.pitch = frame.pitch;
+        attitude.yaw = frame.yaw;
+        attitude.roll = frame.roll;
+        velocity.vx = frame.vx;
+        velocity.vy = frame.vy;
+        velocity.vz = frame.vz;
+        gpsinfo.fixType = frame.fixType;
+        gpsinfo.satellitesVisible = frame.satellitesVisible;
+        gpsinfo.eph = frame.eph;
+        gpsinfo.epv = frame.epv;
+        sensorUAV.heading = frame.heading;
+        sensorUAV.groundspeed = frame.groundspeed;
+        sensorUAV.airspeed = frame.airspeed;
+        nextWaypoint = frame.nextWaypoint;
+        countWaypoint = frame.countWaypoint;
+        distanceToHome = frame.distanceToHome;
+        distanceToCurrentWaypoint = frame.distanceToCurrentWaypoint;
+        statusUAV.mode = frame.mode;
+        statusUAV.systemStatus = frame.systemStatus;
+        statusUAV.armed = frame.armed;
+        statusUAV.isArmable = frame.isArmable;
+        statusUAV.ekfOk = frame.ekfOk;
+        typeFailure = frame.typeFailure;
+        estimatedTimeToDoRTL = frame.estimatedTimeToDoRTL;
+        estimatedConsumptionBatForRTL = frame.estimatedConsumptionBatForRTL;
+        estimatedMaxDistReached = frame.estimatedMaxDistReached;
+        estimatedMaxTimeFlight = frame.estimatedMaxTimeFlight;
+        sonar.distance = frame.distanceSonar;
+        temperature.temperature = frame.temperature;
+    }
 }
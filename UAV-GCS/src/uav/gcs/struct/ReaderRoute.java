@@ -6,6 +6,7 @@ import java.util.Scanner;
 import lib.uav.struct.geom.Position3D;
 import lib.uav.struct.mission.Route3D;
 import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilRoute;
 import lib.uav.util.UtilString;
 import uav.gcs.GCS;
 
@@ -85,6 +86,42 @@ public class ReaderRoute {
         }
     }
     
+    /**
+     * Method that reads the route file (latitude, longitude and altitude) 
+     * planned by MOSA and simplifies it in memory as MOSA does
+     * @param file the file of route
+     * @param factor compression factor of the route simplifier
+     * @since version 4.0.0
+     */
+    public void readSimplified(File file, String factor){
+        double path[][] = UtilRoute.readRoute(file.getPath(), true, factor);
+        if (path != null){
+            for (double pos[] : path) {
+                route.addPosition(new Position3D(pos[0], pos[1], pos[2]));
+            }
+            isReady = true;
+        }
+    }
+    
+    /**
+     * Method that reads the route file (latitude, longitude and altitude) 
+     * planned by MOSA, simplifies it in memory as MOSA does and converts the
+     * positions to x and y
+     * @param file the file of route
+     * @param factor compression factor of the route simplifier
+     * @since version 4.0.0
+     */
+    public void readGeoSimplified(File file, String factor){
+        double path[][] = UtilRoute.readRoute(file.getPath(), true, factor);
+        if (path != null){
+            for (double pos[] : path) {
+                route.addPosition(new Position3D(UtilGeo.convertGeoToX(GCS.pointGeo, pos[1]), 
+                        UtilGeo.convertGeoToY(GCS.pointGeo, pos[0]), pos[2]));
+            }
+            isReady = true;
+        }
+    }
+    
     /**
      * Method that reads the route file
      * @param file the file of route
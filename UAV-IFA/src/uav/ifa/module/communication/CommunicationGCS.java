@@ -14,6 +14,7 @@ import lib.uav.module.actuators.ParachuteControl;
 import lib.uav.module.actuators.SprayingControl;
 import lib.uav.module.comm.Communication;
 import lib.uav.module.comm.Server;
+import lib.uav.module.comm.TelemetryFrame;
 import lib.uav.module.sensors.CameraControl;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.struct.constants.Constants;
@@ -37,9 +38,12 @@ public class CommunicationGCS extends Communication implements Server{
     private final Controller controller;
     private boolean hasFailure;
     private boolean hasFailureBadWeather;
+    private final Object lockRouteGCS = new Object();
     private boolean hasReceiveRouteGCS;
     private String routeReplannerGCS;
+    private long idRouteGCS;
     private String typeAction;
+    private volatile boolean telemetryBinary;
     
 
     /**
@@ -57,6 +61,7 @@ public class CommunicationGCS extends Communication implements Server{
         this.hasFailureBadWeather = false;
         this.hasReceiveRouteGCS = false;
         this.typeAction = "";
+        this.telemetryBinary = false;
     }
 
     /**
@@ -102,7 +107,9 @@ public class CommunicationGCS extends Communication implements Server{
                             if (answer != null) {
                                 StandardPrints.printMsgYellow("Data: " + answer);
                                 answer = answer.toLowerCase();
-                                if (answer.equals(TypeInputCommand.CMD_BAD_WEATHER)){
+                                if (answer.equals(TypeMsgCommunication.GCS_IFA_TELEMETRY_BINARY)){
+                                    telemetryBinary = true;
+                                } else if (answer.equals(TypeInputCommand.CMD_BAD_WEATHER)){
                                     hasFailureBadWeather = true;
                                     typeAction = TypeInputCommand.CMD_BAD_WEATHER;
                                 } else if (answer.equals(TypeInputCommand.CMD_EMERGENCY_LANDING)){
@@ -141,9 +148,10 @@ public class CommunicationGCS extends Communication implements Server{
                                 } else if (answer.equals(TypeInputCommand.CMD_OPEN_PARACHUTE)){
                                     ParachuteControl parachute = new ParachuteControl();
                                     parachute.open();
-                                } else if (answer.contains(TypeInputCommand.CMD_MISSION)){
-                                    hasReceiveRouteGCS = true;
-                                    routeReplannerGCS = answer;
+                                } else if (answer.startsWith(TypeMsgCommunication.GCS_IFA_ROUTE_ID) ||
+                                        answer.contains(TypeInputCommand.CMD_MISSION) ||
+                                        answer.equals(TypeMsgCommunication.UAV_ROUTE_FAILURE)){
+                                    receiveRouteGCS(answer);
                                 } else if (answer.contains("cmd: ")){
                                     controller.interpretCommand(answer);
                                 }
@@ -183,17 +191,25 @@ public class CommunicationGCS extends Communication implements Server{
     
     /**
      * Sends data from sensors and aircraft to GCS.
+     * Note: the data are sent in the binary frame if the GCS asked for it,
+     * otherwise in text (old versions of GCS).
      * @since version 3.0.0
+     * @see TelemetryFrame
      */
     public void sendDataDrone() {
         StandardPrints.printMsgEmph("IFA sending data drone to UAV-GCS ...");
         Executors.newSingleThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
+                TelemetryFrame frame = new TelemetryFrame();
                 try {
                     while (true) {
                         if (output != null){
-                            output.println(TypeMsgCommunication.IFA_GCS_INFO + drone.toString());
+                            if (telemetryBinary){
+                                output.println(TypeMsgCommunication.IFA_GCS_INFO_BIN + frame.encode(drone));
+                            } else {
+                                output.println(TypeMsgCommunication.IFA_GCS_INFO + drone.toString());
+                            }
                         }
                         Thread.sleep(Constants.TIME_TO_SLEEP_BETWEEN_MSG);
                     }
@@ -215,11 +231,88 @@ public class CommunicationGCS extends Communication implements Server{
     }
 
     public boolean hasReceiveRouteGCS() {
-        return hasReceiveRouteGCS;
+        synchronized (lockRouteGCS) {
+            return hasReceiveRouteGCS;
+        }
     }
     
     public String getRouteReplannerGCS(){
-        return routeReplannerGCS;
+        synchronized (lockRouteGCS) {
+            return routeReplannerGCS;
+        }
+    }
+    
+    /**
+     * Asks the GCS to calculate the emergency route (the route of a previous
+     * request not used is discarded).
+     * Note: the request carries an id that the GCS sends back with the route,
+     * so a route of a previous request that arrives late is discarded. The 
+     * GCS is not cancelled: it finishes the previous replanning before it 
+     * starts this one.
+     * @param attributes the parameters of the replanner separated by ;
+     * @since version 4.0.0
+     */
+    public void requestRouteGCS(String attributes) {
+        long id;
+        synchronized (lockRouteGCS) {
+            idRouteGCS++;
+            id = idRouteGCS;
+            hasReceiveRouteGCS = false;
+            routeReplannerGCS = null;
+        }
+        sendData(TypeMsgCommunication.IFA_GCS_REPLANNER + attributes + ";" + id);
+    }
+    
+    /**
+     * Waits for the route of the GCS, without polling.
+     * @param timeout maximum time to wait in milliseconds
+     * @return the route in JSON, UAV_ROUTE_FAILURE if the GCS didn't find a 
+     *         route or null if the time ended
+     * @throws InterruptedException if the thread is interrupted
+     * @since version 4.0.0
+     */
+    public String awaitRouteGCS(long timeout) throws InterruptedException {
+        long timeEnd = System.currentTimeMillis() + timeout;
+        synchronized (lockRouteGCS) {
+            while (!hasReceiveRouteGCS) {
+                long remaining = timeEnd - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                lockRouteGCS.wait(remaining);
+            }
+            return routeReplannerGCS;
+        }
+    }
+    
+    /**
+     * Stores the route received and signals the thread waiting for it (the
+     * route of other request is discarded; the route without id comes from
+     * an old version of GCS and is accepted).
+     */
+    private void receiveRouteGCS(String route) {
+        synchronized (lockRouteGCS) {
+            if (route.startsWith(TypeMsgCommunication.GCS_IFA_ROUTE_ID)) {
+                int sep = route.indexOf(';');
+                long id;
+                try {
+                    id = Long.parseLong(route.substring(
+                            TypeMsgCommunication.GCS_IFA_ROUTE_ID.length(), sep));
+                } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
+                    StandardPrints.printMsgWarning("Warning [NumberFormatException]: receiveRouteGCS()");
+                    return;
+                }
+                if (id != idRouteGCS) {
+                    StandardPrints.printMsgWarning("route GCS -> discarded (request " + id 
+                            + ", waiting " + idRouteGCS + ")");
+                    return;
+                }
+                route = route.substring(sep + 1);
+            }
+            routeReplannerGCS = route;
+            hasReceiveRouteGCS = true;
+            lockRouteGCS.notifyAll();
+        }
     }
     
     public String getTypeAction(){
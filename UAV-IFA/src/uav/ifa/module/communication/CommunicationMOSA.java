@@ -9,6 +9,7 @@ import java.util.concurrent.Executors;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.module.comm.Communication;
+import lib.uav.module.comm.HeartbeatWatchdog;
 import lib.uav.module.comm.Server;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.struct.constants.Constants;
@@ -29,6 +30,7 @@ public class CommunicationMOSA extends Communication implements Server{
     private final Drone drone;    
     private final ReaderFileConfig config;
     private boolean mosaDisabled;
+    private HeartbeatWatchdog heartbeat;
 
     /**
      * Class constructor
@@ -62,6 +64,21 @@ public class CommunicationMOSA extends Communication implements Server{
         }
     }
 
+    /**
+     * Starts the watchdog of the heartbeat of MOSA (dedicated channel).
+     * @param listener action executed when the beats of MOSA stop
+     * @since version 4.0.0
+     */
+    public void startHeartbeat(Runnable listener) {
+        if (config.getPeriodHeartbeat() <= 0) {
+            return;
+        }
+        heartbeat = new HeartbeatWatchdog(config.getPortNetworkHeartbeatIFAandMOSA(),
+                config.getPeriodHeartbeat(), config.getMissedHeartbeat());
+        heartbeat.setListener(listener);
+        heartbeat.start();
+    }
+
     /**
      * Treats the data to be received
      * @since version 2.0.0
@@ -114,6 +131,9 @@ public class CommunicationMOSA extends Communication implements Server{
     @Override
     public void close() {
         super.close();
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
         try {
             server.close();
             stateCommunication = StateCommunication.DISABLED;
@@ -138,4 +158,23 @@ public class CommunicationMOSA extends Communication implements Server{
         return mosaDisabled;
     }
 
+    /**
+     * Check if the heartbeat of MOSA stopped.
+     * @return {@code true} if the beats stopped
+     *         {@code false} otherwise (or if the heartbeat is not used)
+     * @since version 4.0.0
+     */
+    public boolean isHeartbeatExpired() {
+        return heartbeat != null && heartbeat.isExpired();
+    }
+
+    /**
+     * Gets the time between the last beat of MOSA and the detection of the timeout.
+     * @return the time in milliseconds
+     * @since version 4.0.0
+     */
+    public double getTimeToDetectionHeartbeat() {
+        return heartbeat != null ? heartbeat.getTimeToDetection() : 0;
+    }
+
 }
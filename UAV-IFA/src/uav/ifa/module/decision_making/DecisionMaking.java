@@ -1,11 +1,29 @@
 package uav.ifa.module.decision_making;
 
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.module.actuators.ParachuteControl;
+import lib.uav.module.comm.AutopilotCommandPipeline;
 import lib.uav.module.comm.DataAcquisition;
+import lib.uav.module.replanner.ReplannerProvider;
+import lib.uav.module.replanner.ReplannerProviders;
 import lib.uav.reader.ReaderFileConfig;
+import lib.uav.reader.ReaderFileMap;
 import lib.uav.struct.Waypoint;
+import lib.uav.struct.WaypointJSON;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.constants.LocalExecPlanner;
 import lib.uav.struct.constants.TypeAircraft;
 import lib.uav.struct.constants.TypeInputCommand;
 import lib.uav.struct.constants.TypeMsgCommunication;
@@ -13,8 +31,11 @@ import lib.uav.struct.constants.TypeOperationMode;
 import lib.uav.struct.constants.TypeReplanner;
 import lib.uav.struct.constants.TypeSystemExecIFA;
 import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.geom.RegionIndex;
 import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.StagedMission;
 import lib.uav.struct.states.StateReplanning;
+import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilRoute;
 import uav.ifa.module.communication.CommunicationGCS;
 import uav.ifa.module.path_replanner.DE4s;
@@ -26,7 +47,11 @@ import uav.ifa.module.path_replanner.GH4s;
 import uav.ifa.module.path_replanner.GPathReplanner4s;
 import uav.ifa.module.path_replanner.MPGA4s;
 import uav.ifa.module.path_replanner.MS4s;
+import uav.ifa.module.path_replanner.InProcessReplanner;
+import uav.ifa.module.path_replanner.PortfolioReplanner;
 import uav.ifa.module.path_replanner.Replanner;
+import uav.ifa.module.path_replanner.SpeculativeReplanner;
+import uav.ifa.module.security_manager.SecurityManager;
 import uav.ifa.struct.Failure;
 
 /**
@@ -38,22 +63,80 @@ public class DecisionMaking {
 
     private final Drone drone;
     private final DataAcquisition dataAcquisition;
+    private final AutopilotCommandPipeline commands;
     private final ReaderFileConfig config;
     private Replanner replanner;
-    private StateReplanning stateReplanning;
+    private SpeculativeReplanner speculative;
+    private StagedMission fixedRoute;
+    private RegionIndex regions;
+    private final String jsonLandVertical;
+    private final String jsonRTL;
+    private long timeRefresh;
+    private volatile StateReplanning stateReplanning;
     private String typeAction = "";
 
     /**
      * Class constructor.
      * @param drone instance of the aircraft
      * @param dataAcquisition object to send commands to drone
+     * @param commands ordered queue of commands (non-blocking) to the drone
      * @since version 1.0.0
      */
-    public DecisionMaking(Drone drone, DataAcquisition dataAcquisition) {
+    public DecisionMaking(Drone drone, DataAcquisition dataAcquisition, 
+            AutopilotCommandPipeline commands) {
         this.drone = drone;
         this.dataAcquisition = dataAcquisition;
+        this.commands = commands;
         this.stateReplanning = StateReplanning.WAITING;
         this.config = ReaderFileConfig.getInstance();
+        //emergency missions ready to be sent (read, validated and in JSON)
+        Gson gson = new Gson();
+        this.jsonLandVertical = gson.toJson(new WaypointJSON(
+                new Waypoint(TypeWaypoint.LAND_VERTICAL, 0.0, 0.0, 0.0)));
+        this.jsonRTL = gson.toJson(new WaypointJSON(
+                new Waypoint(TypeWaypoint.RTL, 0.0, 0.0, 0.0)));
+        if (config.getSystemExecIFA().equals(TypeSystemExecIFA.FIXED_ROUTE)) {
+            fixedRoute = new StagedMission(
+                    config.getDirFixedRouteIFA() + config.getFileFixedRouteIFA(), 0);
+        }
+        loadRegions();
+        if (config.getSystemExecIFA().equals(TypeSystemExecIFA.REPLANNER) && 
+                (config.getLocalExecReplanner().equals(LocalExecPlanner.ONBOARD) ||
+                 config.isHedgedReplanner())) {
+            //loads the replanner in process (if there is) before any failure
+            ReplannerProviders.get(config.getTypeReplanner(), config.getDirReplanner());
+            for (String method : config.getPortfolioReplanner()) {
+                ReplannerProviders.get(method, config.getDirReplanner(method));
+            }
+            if (config.getLocalExecReplanner().equals(LocalExecPlanner.ONBOARD) &&
+                    config.getCpuSpeculativeReplanner() > 0) {
+                speculative = new SpeculativeReplanner(drone);
+            }
+        }
+    }
+    
+    /**
+     * Reads again the files of the emergency missions that changed (called
+     * on each sample, reads at most once per second).
+     * @since version 4.0.0
+     */
+    public void refreshEmergencyMissions() {
+        long time = System.currentTimeMillis();
+        if (fixedRoute != null && time - timeRefresh >= Constants.TIME_TO_REFRESH_STAGED_MISSION) {
+            timeRefresh = time;
+            fixedRoute.refresh();
+        }
+    }
+    
+    /**
+     * Starts the calculation of the emergency route in background (if the
+     * speculative replanner is used).
+     * @since version 4.0.0
+     */
+    public void startSpeculativeReplanner() {
+        if (speculative != null) {
+            speculative.start();
+        }
     }
 
     /**
@@ -63,6 +146,9 @@ public class DecisionMaking {
      */
     public void actionForSafetyOnboard(Failure failure) {
         stateReplanning = StateReplanning.REPLANNING;
+        if (speculative != null) {
+            speculative.stop();
+        }
         boolean resp;
         if (config.getSystemExecIFA().equals(TypeSystemExecIFA.FIXED_ROUTE)) {
             resp = sendMissionEmergencyBasedFixedRoute();
@@ -183,6 +269,14 @@ public class DecisionMaking {
                             stateReplanning = StateReplanning.DISABLED;
                         }
                         return;
+                    case FAIL_GEOFENCE:
+                        resp = execEmergencyLandingOnboard();
+                        if (resp){
+                            stateReplanning = StateReplanning.READY;
+                        }else{
+                            stateReplanning = StateReplanning.DISABLED;
+                        }
+                        return;
                     case FAIL_SYSTEM_MOSA:
                         resp = execEmergencyLandingOnboard();
                         if (resp){
@@ -363,6 +457,14 @@ public class DecisionMaking {
                             stateReplanning = StateReplanning.DISABLED;
                         }
                         return;
+                    case FAIL_GEOFENCE:
+                        resp = execEmergencyLandingOffboard(communicationGCS);
+                        if (resp){
+                            stateReplanning = StateReplanning.READY;
+                        }else{
+                            stateReplanning = StateReplanning.DISABLED;
+                        }
+                        return;
                     case FAIL_SYSTEM_MOSA:
                         resp = execEmergencyLandingOffboard(communicationGCS);
                         if (resp){
@@ -460,7 +562,8 @@ public class DecisionMaking {
     
     /**
      * Run the emergency landing algorithm in case something goes wrong, 
-     * then the parachute is opened [Onboard].
+     * then the aircraft lands in the nearest bonus region or the parachute
+     * is opened [Onboard].
      * @return {@code true} if success,
      *         {@code false} otherwise
      * @since version 4.0.0
@@ -468,6 +571,9 @@ public class DecisionMaking {
     private boolean execEmergencyLandingOnboard() {
         boolean resp = sendMissionEmergencyBasedReplannerOnboard();
         if (!resp) {
+            if (sendLandBonus()) {
+                return true;
+            }
             if (config.hasParachute()) {
                 openParachute();
             } else {
@@ -486,9 +592,48 @@ public class DecisionMaking {
      */
     private boolean sendMissionEmergencyBasedReplannerOnboard() {
         double navSpeed = drone.getInfo().getListParameters().getValue("WPNAV_SPEED");
-        dataAcquisition.setNavigationSpeed(navSpeed / 10);
+        commands.setNavigationSpeed(navSpeed / 10);//sent while the replanner runs
 
         StandardPrints.printMsgEmph("decison making -> emergeny landing: " + typeAction);
+        Mission mission = replanOnboard();
+        if (mission == null) {
+            commands.setNavigationSpeed(navSpeed);//restored for the fallback landing
+            return false;
+        }
+        commands.setNavigationSpeed(navSpeed);
+        if (mission.getMission().size() > 0) {
+            mission.printMission();
+            return AutopilotCommandPipeline.waitResult(commands.setMission(mission));
+        }
+        return true;
+    }
+    
+    /**
+     * Calculates the emergency landing route onboard: uses the route of the
+     * speculative replanner, the portfolio, the replanner in process or the
+     * external replanner, in this order.
+     * @return the mission or null if the replanner failed
+     */
+    private Mission replanOnboard() {
+        if (speculative != null) {
+            Mission mission = speculative.getMission();
+            if (mission != null) {
+                return mission;
+            }
+        }
+        if (config.getPortfolioReplanner().length > 0) {
+            return new PortfolioReplanner(drone).exec();
+        }
+        ReplannerProvider provider = ReplannerProviders.get(config.getTypeReplanner(), 
+                config.getDirReplanner());
+        if (provider != null) {
+            InProcessReplanner inProcess = new InProcessReplanner(drone, provider);
+            replanner = inProcess;
+            if (inProcess.exec() && inProcess.getMission().size() > 0) {
+                return inProcess.getMission();
+            }
+            StandardPrints.printMsgWarning("replanner in process failed -> external replanner");
+        }
         if (config.getTypeReplanner().equals(TypeReplanner.GH4S)) {
             replanner = new GH4s(drone);
         } else if (config.getTypeReplanner().equals(TypeReplanner.GA4S)) {
@@ -511,11 +656,9 @@ public class DecisionMaking {
         replanner.clearLogs();
         boolean itIsOkExec = replanner.exec();
         if (!itIsOkExec) {
-            return false;
+            return null;
         }
 
-        dataAcquisition.setNavigationSpeed(navSpeed);
-
         Mission mission = new Mission();
         String path = config.getDirReplanner() + "routeGeo.txt";
 
@@ -529,24 +672,21 @@ public class DecisionMaking {
             } else if (best.equals("GH")) {
                 path = "../Modules-IFA/GH4s/" + "routeGeo.txt";
             } else {
-                return false;
+                return null;
             }
         }
 
         boolean resp = UtilRoute.readFileRouteIFA(mission, path, 2);
         if (!resp) {
-            return false;
+            return null;
         }
-        if (mission.getMission().size() > 0) {
-            mission.printMission();
-            return dataAcquisition.setMission(mission);
-        }
-        return true;
+        return mission;
     }
     
     /**
      * Run the emergency landing algorithm in case something goes wrong, 
-     * then the parachute is opened [Offboard]
+     * then the aircraft lands in the nearest bonus region or the parachute
+     * is opened [Offboard]
      * @return {@code true} if success,
      *         {@code false} otherwise
      * @since version 4.0.0
@@ -554,6 +694,9 @@ public class DecisionMaking {
     private boolean execEmergencyLandingOffboard(CommunicationGCS communicationGCS) {
         boolean resp = sendMissionEmergencyBasedReplannerOffboard(communicationGCS);
         if (!resp) {
+            if (sendLandBonus()) {
+                return true;
+            }
             if (config.hasParachute()) {
                 openParachute();
             } else {
@@ -573,7 +716,7 @@ public class DecisionMaking {
      */
     private boolean sendMissionEmergencyBasedReplannerOffboard(CommunicationGCS communicationGCS) {
         double navSpeed = drone.getInfo().getListParameters().getValue("WPNAV_SPEED");
-        dataAcquisition.setNavigationSpeed(navSpeed/10);
+        commands.setNavigationSpeed(navSpeed/10);//sent while the GCS replans
 
         String attributes = config.getTypeReplanner() 
                 + ";" + config.getDirFiles() 
@@ -584,24 +727,119 @@ public class DecisionMaking {
                 + ";" + config.getTimeExecReplanner()
                 + ";" + config.getNumberWaypointsReplanner() 
                 + ";" + config.getDeltaReplanner();
-        communicationGCS.sendData(TypeMsgCommunication.IFA_GCS_REPLANNER + attributes);
-        do {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ex) {
-
+        long deadline = (long)(config.getDeadlineOffboardReplanner() * 1000);
+        if (config.isHedgedReplanner()) {
+            String route = replanHedged(communicationGCS, attributes, deadline);
+            if (route == null) {
+                commands.setNavigationSpeed(navSpeed);//restored for the fallback landing
+                return false;
             }
-        } while (!communicationGCS.hasReceiveRouteGCS());
-
-        String msgRoute = communicationGCS.getRouteReplannerGCS();
-
-        dataAcquisition.setNavigationSpeed(navSpeed);
-
-        if (msgRoute.equals(TypeMsgCommunication.UAV_ROUTE_FAILURE)) {
-            System.out.println("Route GCS [Failure]: " + msgRoute);
+            commands.setNavigationSpeed(navSpeed);
+            return AutopilotCommandPipeline.waitResult(commands.setMission(route));
+        }
+        communicationGCS.requestRouteGCS(attributes);
+        String msgRoute;
+        try {
+            msgRoute = communicationGCS.awaitRouteGCS(deadline);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            commands.setNavigationSpeed(navSpeed);//restored for the fallback landing
             return false;
-        } else {
-            return dataAcquisition.setMission(msgRoute);
+        }
+        if (msgRoute == null || msgRoute.equals(TypeMsgCommunication.UAV_ROUTE_FAILURE)) {
+            if (msgRoute == null) {
+                StandardPrints.printMsgWarning("route GCS -> timeout (" + deadline + " ms) -> replanner onboard");
+            } else {
+                StandardPrints.printMsgWarning("route GCS -> failure -> replanner onboard");
+            }
+            Mission mission = replanOnboard();
+            if (mission == null) {
+                commands.setNavigationSpeed(navSpeed);//restored for the fallback landing
+                return false;
+            }
+            commands.setNavigationSpeed(navSpeed);
+            if (mission.getMission().size() > 0) {
+                mission.printMission();
+                return AutopilotCommandPipeline.waitResult(commands.setMission(mission));
+            }
+            return true;
+        }
+
+        commands.setNavigationSpeed(navSpeed);
+        return AutopilotCommandPipeline.waitResult(commands.setMission(msgRoute));
+    }
+    
+    /**
+     * Calculates the emergency landing route in the GCS and onboard at the same
+     * time and uses the first valid route. The external replanner onboard is
+     * destroyed when it loses; the GCS is not cancelled (it finishes its 
+     * replanning), but its late route carries the id of the request and is
+     * discarded by CommunicationGCS.
+     * @param communicationGCS the communication with the GCS
+     * @param attributes the parameters of the replanner sent to the GCS
+     * @param deadline maximum time to wait for a valid route in milliseconds
+     * @return the route in JSON or null if there was no valid route before the deadline
+     */
+    private String replanHedged(final CommunicationGCS communicationGCS, String attributes, final long deadline) {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        final long timeInit = System.currentTimeMillis();
+        communicationGCS.requestRouteGCS(attributes);
+        completion.submit(new Callable<String>() {
+            @Override
+            public String call() throws InterruptedException {
+                String route = communicationGCS.awaitRouteGCS(deadline);
+                if (route == null || route.equals(TypeMsgCommunication.UAV_ROUTE_FAILURE)) {
+                    StandardPrints.printMsgWarning("hedged -> GCS: no route (" 
+                            + (System.currentTimeMillis() - timeInit) + " ms)");
+                    return null;
+                }
+                StandardPrints.printMsgEmph("hedged -> GCS: valid route (" 
+                        + (System.currentTimeMillis() - timeInit) + " ms)");
+                return route;
+            }
+        });
+        completion.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                Mission mission = replanOnboard();
+                if (mission == null || mission.getMission().size() == 0) {
+                    StandardPrints.printMsgWarning("hedged -> onboard: no route (" 
+                            + (System.currentTimeMillis() - timeInit) + " ms)");
+                    return null;
+                }
+                StandardPrints.printMsgEmph("hedged -> onboard: valid route (" 
+                        + (System.currentTimeMillis() - timeInit) + " ms)");
+                mission.printMission();
+                return new Gson().toJson(mission);
+            }
+        });
+        try {
+            for (int i = 0; i < 2; i++) {
+                long remaining = deadline - (System.currentTimeMillis() - timeInit);
+                Future<String> future = remaining > 0 ? 
+                        completion.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (future == null) {
+                    break;
+                }
+                try {
+                    String route = future.get();
+                    if (route != null) {
+                        return route;
+                    }
+                } catch (ExecutionException ex) {
+                    //a branch that failed is the same as no route: waits for the other
+                    StandardPrints.printMsgWarning("Warning [ExecutionException]: replanHedged() " + ex.getCause());
+                }
+            }
+            StandardPrints.printMsgWarning("hedged -> no valid route in " + deadline + " ms");
+            return null;
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: replanHedged()");
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            executor.shutdownNow();//destroys the replanner onboard (the GCS keeps replanning)
         }
     }
     
@@ -614,17 +852,17 @@ public class DecisionMaking {
      */
     private boolean sendMissionEmergencyBasedFixedRoute() {
         StandardPrints.printMsgEmph("decison making -> fixed route");
-        String path = config.getDirFixedRouteIFA()+ config.getFileFixedRouteIFA();
-        Mission mission = new Mission();
-        boolean resp = UtilRoute.readFileRouteIFA(mission, path, 0);
-        if (!resp) {
+        String json = fixedRoute.getJson();
+        Mission mission = fixedRoute.getMission();
+        if (json == null) {
             return false;
         }
-        mission.printMission();
+        boolean resp = true;
         if (mission.getMission().size() > 0) {
-            return dataAcquisition.setMission(mission);
+            resp = AutopilotCommandPipeline.waitResult(commands.setMission(json));
         }
-        return true;
+        mission.printMission();
+        return resp;
     }
 
     /**
@@ -639,7 +877,46 @@ public class DecisionMaking {
     private boolean sendLand(double lat, double lng) {
         StandardPrints.printMsgEmph("decison making -> land");
         Waypoint wpt = new Waypoint(TypeWaypoint.LAND, lat, lng, 0.0);
-        return dataAcquisition.setWaypoint(wpt);
+        return AutopilotCommandPipeline.waitResult(commands.setWaypoint(wpt));
+    }
+
+    /**
+     * Loads the regions of the map (no-fly zones and bonus regions) used to
+     * choose the place of landing when there is no emergency route.
+     */
+    private void loadRegions() {
+        try {
+            RegionIndex index = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+            ReaderFileMap.map(new File(config.getDirFiles() + "map-full.sgl"), index);
+            regions = index;
+        } catch (FileNotFoundException ex) {
+            StandardPrints.printMsgWarning("Warning [FileNotFoundException]: loadRegions()");
+        }
+    }
+
+    /**
+     * This command lands the aircraft in the center of the nearest bonus region
+     * reachable in a straight line without crossing a no-fly zone (used when
+     * the replanner gives no route).
+     * @return {@code true} if there is a bonus region and the command was sent,
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean sendLandBonus() {
+        if (regions == null || SecurityManager.pointGeo == null) {
+            return false;
+        }
+        double x = UtilGeo.convertGeoToX(SecurityManager.pointGeo, drone.getSensors().getGPS().lng);
+        double y = UtilGeo.convertGeoToY(SecurityManager.pointGeo, drone.getSensors().getGPS().lat);
+        double[] center = regions.nearestBonusCenter(x, y, Constants.MAX_DISTANCE_LAND_BONUS);
+        if (center == null) {
+            StandardPrints.printMsgWarning("land bonus -> no bonus region reachable");
+            return false;
+        }
+        double lat = UtilGeo.convertYtoLatitude(SecurityManager.pointGeo.getLat(), center[1]);
+        double lng = UtilGeo.convertXtoLongitude(SecurityManager.pointGeo.getLng(),
+                SecurityManager.pointGeo.getLat(), center[0]);
+        return sendLand(lat, lng);
     }
 
     /**
@@ -650,8 +927,7 @@ public class DecisionMaking {
      */
     private boolean sendLandVertical() {
         StandardPrints.printMsgEmph("decison making -> land vertical");
-        Waypoint wpt = new Waypoint(TypeWaypoint.LAND_VERTICAL, 0.0, 0.0, 0.0);
-        return dataAcquisition.setWaypoint(wpt);
+        return AutopilotCommandPipeline.waitResult(commands.setWaypoint(jsonLandVertical));
     }
 
     /**
@@ -667,8 +943,7 @@ public class DecisionMaking {
                 || !config.getOperationMode().equals(TypeOperationMode.REAL_FLIGHT)) {
             if (drone.getSensors().getBattery().level > drone.getInfo().getEstimatedConsumptionBatForRTL()){
                 StandardPrints.printMsgEmph("decison making -> RTL");
-                Waypoint wpt = new Waypoint(TypeWaypoint.RTL, 0.0, 0.0, 0.0);
-                return dataAcquisition.setWaypoint(wpt);
+                return AutopilotCommandPipeline.waitResult(commands.setWaypoint(jsonRTL));
             }else{
                 StandardPrints.printMsgEmph("battery is not enough to do RTL.");
                 StandardPrints.printMsgEmph("decison making -> RTL -> changed to -> land vertical");
@@ -677,8 +952,7 @@ public class DecisionMaking {
             }
         }else{
             StandardPrints.printMsgEmph("decison making -> RTL");
-            Waypoint wpt = new Waypoint(TypeWaypoint.RTL, 0.0, 0.0, 0.0);
-            return dataAcquisition.setWaypoint(wpt);
+            return AutopilotCommandPipeline.waitResult(commands.setWaypoint(jsonRTL));
         }
     }
 
@@ -28,6 +28,16 @@ public class GPathReplanner4s extends Replanner{
         super(drone);
     }
 
+    /**
+     * Class constructor
+     * @param drone instance of the aircraft
+     * @param dir directory of the method
+     * @since version 4.0.0
+     */
+    public GPathReplanner4s(Drone drone, String dir) {
+        super(drone, dir);
+    }
+
     /**
      * Execute the replanner
      * @return {@code true} if the execution was successful
@@ -0,0 +1,155 @@
+package uav.ifa.module.path_replanner;
+
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.module.replanner.ReplannerProvider;
+import lib.uav.module.replanner.ReplanningRequest;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeAltitudeDecay;
+import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.geom.Position3D;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.UtilGeo;
+
+/**
+ * Class that runs a path replanner inside the IFA (ReplannerProvider), with
+ * the input and the route in memory.
+ * The route is the same that the external replanners give through route.txt,
+ * routeGeo.txt and UtilRoute.readFileRouteIFA.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see Replanner
+ * @see ReplannerProvider
+ */
+public class InProcessReplanner extends Replanner{
+
+    private static final int NUMBER_WPT_JUMPS = 2;
+
+    private final ReplannerProvider provider;
+    private ReplanningRequest request;
+    private Mission3D route;
+    private final Mission mission = new Mission();
+
+    /**
+     * Class constructor
+     * @param drone instance of the aircraft
+     * @param provider the replanner loaded in the IFA
+     * @since version 4.0.0
+     */
+    public InProcessReplanner(Drone drone, ReplannerProvider provider) {
+        super(drone);
+        this.provider = provider;
+    }
+
+    /**
+     * Execute the replanner
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    @Override
+    public boolean exec() {
+        boolean itIsOkUpdate = updateFileConfig();
+        boolean itIsOkExec   = itIsOkUpdate && execProvider();
+        boolean itIsOkParse  = itIsOkExec && parseRoute3DtoGeo();
+        return itIsOkUpdate && itIsOkExec && itIsOkParse;
+    }
+
+    /**
+     * Creates the request of the replanner (no file is written).
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    @Override
+    public boolean updateFileConfig() {
+        try {
+            double px = UtilGeo.convertGeoToX(pointGeo, drone.getSensors().getGPS().lng);
+            double py = UtilGeo.convertGeoToY(pointGeo, drone.getSensors().getGPS().lat);
+            double vel = 1.5;//drone.getSensorUAV().groundspeed;
+            int head = (int)drone.getSensors().getSensorUAV().heading;
+            int heading = UtilGeo.convertAngleAviationToAngleMath(head);
+            double angle = Math.toRadians(heading);
+            request = new ReplanningRequest(px, py, vel, angle,
+                    drone.getSensors().getBarometer().alt_rel,
+                    Integer.parseInt(config.getNumberWaypointsReplanner().trim()),
+                    Double.parseDouble(config.getDeltaReplanner().trim()),
+                    Double.parseDouble(config.getTimeExecReplanner().trim()));
+            return true;
+        } catch (NumberFormatException ex) {
+            StandardPrints.printMsgWarning("Warning [NumberFormatException]: updateFileConfig()");
+            return false;
+        }
+    }
+
+    /**
+     * Calls the replanner.
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     */
+    private boolean execProvider() {
+        try {
+            route = provider.replan(request);
+            return route != null;
+        } catch (RuntimeException ex) {
+            StandardPrints.printMsgWarning("Warning [RuntimeException]: execProvider() " + ex);
+            return false;
+        }
+    }
+
+    /**
+     * Converts the route in Cartesian coordinates to the mission in
+     * geographic coordinates (in memory).
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    @Override
+    public boolean parseRoute3DtoGeo() {
+        mission.getMission().clear();
+        double h = drone.getSensors().getBarometer().alt_rel;
+        int qtdWpt = route.size();
+        double frac = h/qtdWpt;
+        double lat = 0.0;
+        double lng = 0.0;
+        int count = 0;
+        for (Position3D p : route.getMission()) {
+            if (config.getTypeAltitudeDecayReplanner().equals(TypeAltitudeDecay.LINEAR)){
+                h = h - frac;
+            }
+            lat = UtilGeo.convertYtoLatitude(pointGeo.getLat(), p.getY());
+            lng = UtilGeo.convertXtoLongitude(pointGeo.getLng(), pointGeo.getLat(), p.getX());
+            if (count >= NUMBER_WPT_JUMPS) {
+                mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, lat, lng, pointGeo.getAlt() + h));
+            }
+            count++;
+        }
+        if (count == 0){
+            StandardPrints.printMsgWarning("Route-Empty");
+        }
+        if (mission.size() > 0) {
+            mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, lat, lng, 0.0));
+        }
+        return true;
+    }
+
+    /**
+     * Gets the emergency mission calculated by the last exec().
+     * @return the mission in geographic coordinates
+     * @since version 4.0.0
+     */
+    public Mission getMission() {
+        return mission;
+    }
+
+    /**
+     * Clears log files generated by method (there are no files)
+     * @since version 4.0.0
+     */
+    @Override
+    public void clearLogs() {
+
+    }
+
+}
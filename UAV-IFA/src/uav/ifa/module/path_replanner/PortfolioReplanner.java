@@ -0,0 +1,142 @@
+package uav.ifa.module.path_replanner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.reader.ReaderFileConfig;
+import lib.uav.struct.mission.Mission;
+
+/**
+ * Class that runs a portfolio of path replanners at the same time (each one in
+ * its own directory) with a deadline.
+ * The methods are in order of preference: the mission used is the valid route
+ * of the first method of the list available when the deadline ends. If the
+ * preferred methods finish before the deadline the portfolio doesn't wait for
+ * the others.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see Replanner
+ */
+public class PortfolioReplanner {
+
+    private final Drone drone;
+    private final ReaderFileConfig config;
+    private final String methods[];
+    private final long deadline;
+    private String winner;
+
+    /**
+     * Class constructor
+     * @param drone instance of the aircraft
+     * @since version 4.0.0
+     */
+    public PortfolioReplanner(Drone drone) {
+        this.drone = drone;
+        this.config = ReaderFileConfig.getInstance();
+        this.methods = config.getPortfolioReplanner();
+        this.deadline = (long)(config.getDeadlinePortfolioReplanner() * 1000);
+    }
+
+    /**
+     * Execute the methods of the portfolio until the deadline.
+     * @return the emergency mission or null if no method found a valid route
+     * @since version 4.0.0
+     */
+    public Mission exec() {
+        final int n = methods.length;
+        final Mission missions[] = new Mission[n];
+        final long times[] = new long[n];
+        boolean finished[] = new boolean[n];
+        ExecutorService executor = Executors.newFixedThreadPool(n);
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        final long timeInit = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            completion.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    try {
+                        missions[index] = Replanner.execMission(drone, methods[index], 
+                                config.getDirReplanner(methods[index]));
+                    } catch (RuntimeException ex) {
+                        StandardPrints.printMsgWarning("Warning [RuntimeException]: exec() "
+                                + methods[index] + " " + ex);
+                    }
+                    times[index] = System.currentTimeMillis() - timeInit;
+                    return index;
+                }
+            });
+        }
+        int best = -1;
+        int countFinished = 0;
+        try {
+            while (countFinished < n && !isDecided(best, finished)) {
+                long remaining = deadline - (System.currentTimeMillis() - timeInit);
+                Future<Integer> future = remaining > 0 ?
+                        completion.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (future == null) {
+                    break;
+                }
+                int index = future.get();
+                finished[index] = true;
+                countFinished++;
+                if (missions[index] != null && (best == -1 || index < best)) {
+                    best = index;
+                }
+            }
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: exec()");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            StandardPrints.printMsgWarning("Warning [ExecutionException]: exec()");
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < n; i++) {
+            String status = !finished[i] ? "timeout" : missions[i] != null ? "valid route" : "no route";
+            String time = finished[i] ? times[i] + " ms" : "> " + deadline + " ms";
+            StandardPrints.printMsgEmph("portfolio -> " + methods[i] + ": " + time + " [" + status + "]");
+        }
+        if (best == -1) {
+            winner = null;
+            StandardPrints.printMsgWarning("portfolio -> no valid route in " + deadline + " ms");
+            return null;
+        }
+        winner = methods[best];
+        StandardPrints.printMsgEmph("portfolio -> winner: " + winner + " (" + times[best] + " ms)");
+        return missions[best];
+    }
+
+    /**
+     * Gets the method that gave the mission in the last exec().
+     * @return the method or null if there was no valid route
+     * @since version 4.0.0
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     * Verifies if the result is known: there is a valid route and all the
+     * methods preferred to it have already finished.
+     */
+    private boolean isDecided(int best, boolean finished[]) {
+        if (best == -1) {
+            return false;
+        }
+        for (int i = 0; i < best; i++) {
+            if (!finished[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
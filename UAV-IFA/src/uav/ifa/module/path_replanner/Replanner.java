@@ -3,8 +3,13 @@ package uav.ifa.module.path_replanner;
 import java.io.File;
 import java.io.IOException;
 import lib.uav.hardware.aircraft.Drone;
+import lib.uav.module.replanner.ReplannerProvider;
+import lib.uav.module.replanner.ReplannerProviders;
 import lib.uav.reader.ReaderFileConfig;
+import lib.uav.struct.constants.TypeReplanner;
 import lib.uav.struct.geom.PointGeo;
+import lib.uav.struct.mission.Mission;
+import lib.uav.util.UtilRoute;
 import lib.uav.util.UtilRunThread;
 import uav.ifa.module.security_manager.SecurityManager;
 
@@ -26,12 +31,84 @@ public abstract class Replanner {
      * @since version 1.0.0
      */
     public Replanner(Drone drone) {
+        this(drone, ReaderFileConfig.getInstance().getDirReplanner());
+    }
+    
+    /**
+     * Class constructor
+     * @param drone instance of the aircraft
+     * @param dir directory of the method (used by the portfolio of replanners)
+     * @since version 4.0.0
+     */
+    public Replanner(Drone drone, String dir) {
         this.config = ReaderFileConfig.getInstance();
-        this.dir = config.getDirReplanner();
+        this.dir = dir;
         this.drone = drone;
         this.pointGeo = SecurityManager.pointGeo;
     }
     
+    /**
+     * Creates a replanner of a single method that runs in the directory.
+     * @param drone instance of the aircraft
+     * @param method the path replanner method
+     * @param dir directory of the method
+     * @return the replanner or null if the method runs other methods (GA-GA-4s, GA-GH-4s)
+     * @since version 4.0.0
+     */
+    static Replanner create(Drone drone, String method, String dir) {
+        if (method.equals(TypeReplanner.GH4S)) {
+            return new GH4s(drone, dir);
+        } else if (method.equals(TypeReplanner.GA4S)) {
+            return new GA4s(drone, dir);
+        } else if (method.equals(TypeReplanner.MPGA4S)) {
+            return new MPGA4s(drone, dir);
+        } else if (method.equals(TypeReplanner.MS4S)) {
+            return new MS4s(drone, dir);
+        } else if (method.equals(TypeReplanner.DE4S)) {
+            return new DE4s(drone, dir);
+        } else if (method.equals(TypeReplanner.PRE_PLANNED4s)) {
+            return new PrePlanned4s(drone, dir);
+        } else if (method.equals(TypeReplanner.G_PATH_REPLANNER4s)) {
+            return new GPathReplanner4s(drone, dir);
+        }
+        return null;
+    }
+    
+    /**
+     * Runs a method in its directory and gives the emergency mission: in
+     * process if it has a ReplannerProvider, otherwise the external replanner.
+     * @param drone instance of the aircraft
+     * @param method the path replanner method (single method)
+     * @param dir directory of the method
+     * @return the mission or null if there is no valid route
+     * @since version 4.0.0
+     */
+    static Mission execMission(Drone drone, String method, String dir) {
+        ReplannerProvider provider = ReplannerProviders.get(method, dir);
+        if (provider != null) {
+            InProcessReplanner inProcess = new InProcessReplanner(drone, provider);
+            if (inProcess.exec() && inProcess.getMission().size() > 0) {
+                return inProcess.getMission();
+            }
+            return null;
+        }
+        Replanner replanner = create(drone, method, dir);
+        if (replanner == null) {
+            return null;
+        }
+        replanner.clearLogs();
+        boolean itIsOkExec = replanner.exec();
+        if (!itIsOkExec || Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        Mission mission = new Mission();
+        boolean resp = UtilRoute.readFileRouteIFA(mission, dir + "routeGeo.txt", 2);
+        if (!resp || mission.size() == 0) {
+            return null;
+        }
+        return mission;
+    }
+    
     /**
      * Execute the replanner
      * @return {@code true} if the execution was successful
@@ -81,7 +158,7 @@ public abstract class Replanner {
             return false;
         } catch (InterruptedException ex) {
             System.err.println("Error [InterruptedException] execMethod()");
-            ex.printStackTrace();
+            Thread.currentThread().interrupt();
             return false;
         }
     }   
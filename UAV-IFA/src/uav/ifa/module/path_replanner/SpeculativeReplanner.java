@@ -0,0 +1,182 @@
+package uav.ifa.module.path_replanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.reader.ReaderFileConfig;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.mission.Mission;
+import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilIO;
+import uav.ifa.module.security_manager.SecurityManager;
+
+/**
+ * Class that calculates the emergency route in background while the aircraft
+ * flies, from the current position, so that the IFA can send a route as soon
+ * as a failure happens.
+ * The replanner uses only a fraction of the time (CPU budget) and the route
+ * is used only if it is recent and was calculated near the current position.
+ * The replanner runs in a copy of the directory of the method (suffix
+ * -speculative), so a speculative run never writes the files of the
+ * replanning of the failure, even while it is being stopped.
+ * Note: the replanners don't receive the type of failure, so the same route
+ * serves all failures that end in an emergency landing (low battery, battery
+ * overheating, AP critical, MOSA failure); GPS and engine failures land
+ * vertically or open the parachute and don't use a route.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see Replanner
+ */
+public class SpeculativeReplanner {
+
+    private final Drone drone;
+    private final ReaderFileConfig config;
+    private final String method;
+    private final String dir;
+    private final String dirSpeculative;
+    private final double budget;
+    private final long maxAge;
+    private final double maxDistance;
+    private ExecutorService executor;
+    private volatile Route route;
+
+    /**
+     * Class constructor
+     * @param drone instance of the aircraft
+     * @since version 4.0.0
+     */
+    public SpeculativeReplanner(Drone drone) {
+        this.drone = drone;
+        this.config = ReaderFileConfig.getInstance();
+        this.method = config.getTypeReplanner();
+        this.dir = config.getDirReplanner();
+        this.dirSpeculative = dir.substring(0, dir.length() - 1) + "-speculative/";
+        this.budget = config.getCpuSpeculativeReplanner();
+        this.maxAge = (long)(config.getMaxAgeSpeculativeReplanner() * 1000);
+        this.maxDistance = config.getMaxDistanceSpeculativeReplanner();
+    }
+
+    /**
+     * Starts the thread that refreshes the emergency route while the aircraft
+     * is armed and has GPS.
+     * @since version 4.0.0
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        if (Replanner.create(drone, method, dir) == null) {
+            StandardPrints.printMsgWarning("speculative replanner not supported by " + method);
+            return;
+        }
+        try {
+            UtilIO.copyDirectory(new File(dir), new File(dirSpeculative));
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: start()");
+            return;
+        }
+        StandardPrints.printMsgEmph("speculative replanner: " + method);
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        if (!drone.getSensors().getStatusUAV().armed
+                                || drone.getSensors().getGPSInfo().fixType != 3) {
+                            Thread.sleep(Constants.TIME_TO_SLEEP_SPECULATIVE_REPLANNER);
+                            continue;
+                        }
+                        double lat = drone.getSensors().getGPS().lat;
+                        double lng = drone.getSensors().getGPS().lng;
+                        long timeInit = System.currentTimeMillis();
+                        Mission mission = null;
+                        try {
+                            mission = Replanner.execMission(drone, method, dirSpeculative);
+                        } catch (RuntimeException ex) {
+                            StandardPrints.printMsgWarning("Warning [RuntimeException]: speculative replanner " + ex);
+                        }
+                        long timeExec = System.currentTimeMillis() - timeInit;
+                        if (mission != null && !Thread.currentThread().isInterrupted()) {
+                            route = new Route(mission, timeInit, lat, lng);
+                        }
+                        //uses only the fraction budget of the time
+                        long timeIdle = (long)(timeExec * (1 - budget) / budget);
+                        Thread.sleep(Math.max(timeIdle, Constants.TIME_TO_SLEEP_SPECULATIVE_REPLANNER));
+                    }
+                } catch (InterruptedException ex) {
+
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the thread (and the external replanner in execution). The
+     * replanning of the failure doesn't wait for it, since it runs in the
+     * directory of the method and not in the copy.
+     * @since version 4.0.0
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(Constants.TIME_TO_SLEEP_SPECULATIVE_REPLANNER, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the precomputed emergency route if it is still valid.
+     * @return the mission or null if there is no route, it is old or it was
+     *         calculated far from the current position
+     * @since version 4.0.0
+     */
+    public Mission getMission() {
+        Route r = route;
+        if (r == null) {
+            StandardPrints.printMsgWarning("speculative replanner -> no route");
+            return null;
+        }
+        long age = System.currentTimeMillis() - r.time;
+        double dx = UtilGeo.convertGeoToX(SecurityManager.pointGeo, drone.getSensors().getGPS().lng)
+                - UtilGeo.convertGeoToX(SecurityManager.pointGeo, r.lng);
+        double dy = UtilGeo.convertGeoToY(SecurityManager.pointGeo, drone.getSensors().getGPS().lat)
+                - UtilGeo.convertGeoToY(SecurityManager.pointGeo, r.lat);
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (age > maxAge || distance > maxDistance) {
+            StandardPrints.printMsgWarning(String.format(
+                    "speculative replanner -> stale route (%d ms, %.1f m)", age, distance));
+            return null;
+        }
+        StandardPrints.printMsgEmph(String.format(
+                "speculative replanner -> route of %d ms ago, %.1f m away", age, distance));
+        return r.mission;
+    }
+
+    /**
+     * Route calculated in background and the state used to calculate it.
+     */
+    private static class Route {
+
+        private final Mission mission;
+        private final long time;
+        private final double lat;
+        private final double lng;
+
+        private Route(Mission mission, long time, double lat, double lng) {
+            this.mission = mission;
+            this.time = time;
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+
+}
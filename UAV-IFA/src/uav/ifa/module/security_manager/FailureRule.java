@@ -0,0 +1,63 @@
+package uav.ifa.module.security_manager;
+
+import lib.uav.struct.constants.TypeFailure;
+
+/**
+ * The class models the condition that detects a failure. The rule is evaluated
+ * on each telemetry sample while its failure is not active.
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see FailureRuleEngine
+ */
+public abstract class FailureRule {
+
+    private final TypeFailure typeFailure;
+    private final String name;
+
+    /**
+     * Class constructor.
+     * @param typeFailure type of failure detected by the rule
+     * @param name name printed when the failure is detected (example: FAIL GPS)
+     * @since version 4.0.0
+     */
+    public FailureRule(TypeFailure typeFailure, String name) {
+        this.typeFailure = typeFailure;
+        this.name = name;
+    }
+
+    /**
+     * Verifies the condition of the failure with the last sample.
+     * @return {@code true} if the failure happened
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public abstract boolean isActive();
+
+    /**
+     * Action executed once, when the failure is detected (before the
+     * emergency action is signaled).
+     * @since version 4.0.0
+     */
+    public void onActivate() {
+
+    }
+
+    /**
+     * Gets the type of failure detected by the rule.
+     * @return the type of failure
+     * @since version 4.0.0
+     */
+    public TypeFailure getTypeFailure() {
+        return typeFailure;
+    }
+
+    /**
+     * Gets the name printed when the failure is detected.
+     * @return the name of the failure
+     * @since version 4.0.0
+     */
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,133 @@
+package uav.ifa.module.security_manager;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.struct.constants.TypeFailure;
+import uav.ifa.struct.Failure;
+
+/**
+ * The class evaluates the failure rules on each telemetry sample and signals
+ * the thread of the emergency action, without polling.
+ * The active failures are kept in an EnumSet and in the order of detection
+ * (the first failure defines the emergency action).
+ * @author Jesimar S. Arantes
+ * @since version 4.0.0
+ * @see FailureRule
+ */
+public class FailureRuleEngine {
+
+    private final Drone drone;
+    private final List<FailureRule> rules = new ArrayList<>();
+    private final EnumSet<TypeFailure> active = EnumSet.noneOf(TypeFailure.class);
+    private final List<Failure> failures = new ArrayList<>();
+    private boolean signaled;
+
+    /**
+     * Class constructor.
+     * @param drone instance of the aircraft
+     * @since version 4.0.0
+     */
+    public FailureRuleEngine(Drone drone) {
+        this.drone = drone;
+    }
+
+    /**
+     * Adds a rule (the rules are evaluated in the order they were added).
+     * @param rule the rule of a failure
+     * @since version 4.0.0
+     */
+    public synchronized void addRule(FailureRule rule) {
+        rules.add(rule);
+    }
+
+    /**
+     * Evaluates the rules whose failures are not active with the last sample.
+     * If there is an active failure the thread waiting in awaitFailure is
+     * signaled (also when the failure was detected in a previous sample, so
+     * that the waiting thread verifies its own conditions again).
+     * @since version 4.0.0
+     */
+    public synchronized void evaluate() {
+        evaluate(null);
+    }
+
+    /**
+     * Evaluates only the rules of a type of failure, out of the telemetry
+     * samples (example: the watchdog of the heartbeat of MOSA).
+     * @param typeFailure type of failure (null -> all the rules)
+     * @since version 4.0.0
+     */
+    public synchronized void evaluate(TypeFailure typeFailure) {
+        for (FailureRule rule : rules) {
+            TypeFailure type = rule.getTypeFailure();
+            if (typeFailure != null && type != typeFailure) {
+                continue;
+            }
+            if (!active.contains(type) && rule.isActive()) {
+                active.add(type);
+                failures.add(new Failure(drone, type));
+                drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(type));
+                rule.onActivate();
+                StandardPrints.printMsgError(rule.getName() + " -> Time: " + drone.getInfo().getTime());
+            }
+        }
+        if (!failures.isEmpty()) {
+            signaled = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits for an evaluation with an active failure.
+     * @param timeout maximum time to wait in milliseconds
+     * @return the first failure detected or null if the time ended
+     * @throws InterruptedException if the thread is interrupted
+     * @since version 4.0.0
+     */
+    public synchronized Failure awaitFailure(long timeout) throws InterruptedException {
+        long timeEnd = System.currentTimeMillis() + timeout;
+        while (!signaled) {
+            long remaining = timeEnd - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+        signaled = false;
+        return failures.get(0);
+    }
+
+    /**
+     * Check if has a specific failure.
+     * @param typeFailure type of failure
+     * @return {@code true} if has failure
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public synchronized boolean hasFailure(TypeFailure typeFailure) {
+        return active.contains(typeFailure);
+    }
+
+    /**
+     * Check if has a failure.
+     * @return {@code true} if has failure
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public synchronized boolean hasFailure() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * Gets the first failure detected.
+     * @return the first failure or null if there is no failure
+     * @since version 4.0.0
+     */
+    public synchronized Failure getFirstFailure() {
+        return failures.isEmpty() ? null : failures.get(0);
+    }
+
+}
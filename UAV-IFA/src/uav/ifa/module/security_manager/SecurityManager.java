@@ -1,38 +1,44 @@
 package uav.ifa.module.security_manager;
 
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.PrintStream;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.Executors;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.hardware.aircraft.DroneFixedWing;
 import lib.uav.hardware.aircraft.DroneRotaryWing;
 import lib.uav.module.actuators.BuzzerControl;
+import lib.uav.module.comm.AutopilotCommandPipeline;
 import lib.uav.module.comm.DataAcquisition;
 import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.module.comm.TelemetryStreamS2DK;
 import lib.uav.module.sensors.SonarControl;
 import lib.uav.module.sensors.TemperatureSensorControl;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.reader.ReaderFileConfigParam;
+import lib.uav.reader.ReaderFileMap;
 import lib.uav.struct.Parameter;
 import lib.uav.struct.constants.Constants;
 import lib.uav.struct.constants.LocalExecPlanner;
 import lib.uav.struct.constants.TypeAircraft;
 import lib.uav.struct.constants.TypeDataAcquisitionUAV;
 import lib.uav.struct.constants.TypeFailure;
+import lib.uav.struct.constants.TypeMode;
 import lib.uav.struct.constants.TypeMsgCommunication;
 import lib.uav.struct.constants.TypeOperationMode;
 import lib.uav.struct.constants.TypeSystemExecIFA;
+import lib.uav.struct.constants.TypeTelemetryUAV;
 import lib.uav.struct.geom.PointGeo;
+import lib.uav.struct.geom.RegionIndex;
 import lib.uav.struct.states.StateCommunication;
 import lib.uav.struct.states.StateMonitoring;
 import lib.uav.struct.states.StateReplanning;
 import lib.uav.struct.states.StateSystem;
+import lib.uav.util.EnduranceEstimator;
+import lib.uav.util.FlightDataRecorder;
+import lib.uav.util.GeofenceMonitor;
 import lib.uav.util.UtilFile;
 import lib.uav.util.UtilGeo;
-import lib.uav.util.UtilGeom;
 import lib.uav.util.UtilRunScript;
 import uav.ifa.module.decision_making.DecisionMaking;
 import uav.ifa.module.communication.CommunicationMOSA;
@@ -50,6 +56,8 @@ public class SecurityManager {
     public static PointGeo pointGeo;
     private final Drone drone;
     private final DataAcquisition dataAcquisition;
+    private final AutopilotCommandPipeline commands;
+    private TelemetryStreamS2DK telemetry;
     private final CommunicationMOSA communicationMOSA;
     private final CommunicationGCS communicationGCS;
     private final DecisionMaking decisonMaking;
@@ -58,10 +66,11 @@ public class SecurityManager {
     private final ReaderFileConfig config;
     private final ReaderFileConfigParam configParam;
 
-    private PrintStream printLogAircraft;
-    private PrintStream printLogOverhead;
+    private FlightDataRecorder printLogAircraft;
+    private FlightDataRecorder printLogOverhead;
 
-    private StateSystem stateSystem;
+    private volatile StateSystem stateSystem;
+    private final Object lockStateSystem = new Object();
     private StateMonitoring stateMonitoring;
 
     private SonarControl sonar;
@@ -70,11 +79,12 @@ public class SecurityManager {
     private long timeInit;
     private long timeActual;
 
-    private final List<Failure> listOfFailure = new LinkedList<>();
+    private final FailureRuleEngine failureRules;
     
-    private double latHome;
-    private double lngHome;
+    private PointGeo home;
     private double altHome;
+    private EnduranceEstimator endurance;
+    private GeofenceMonitor geofence;
     private double altRTL;
     private double speedUP;
     private double speedHorizontal;
@@ -109,6 +119,10 @@ public class SecurityManager {
             System.exit(1);
         }
         
+        if (config.getHorizonGeofence() > 0) {
+            loadGeofence();
+        }
+        
         if (config.getTypeAircraft().equals(TypeAircraft.FIXED_WING)) {
             drone = new DroneFixedWing(config.getUavName(),
                     config.getUavSpeedCruize(), config.getUavSpeedMax(),
@@ -123,23 +137,32 @@ public class SecurityManager {
             drone = new DroneRotaryWing("iDroneAlpha");
         }
         
-        printLogOverhead = UtilFile.createFileLog("log-overhead-ifa", ".csv");
-        printLogAircraft = UtilFile.createFileLog("log-aircraft", ".csv");
+        printLogOverhead = new FlightDataRecorder(UtilFile.createFileLog("log-overhead-ifa", ".csv"));
+        printLogAircraft = new FlightDataRecorder(UtilFile.createFileLog("log-aircraft", ".csv"));
    
         if (config.getTypeDataAcquisition().equals(TypeDataAcquisitionUAV.DRONEKIT)){
             this.dataAcquisition = new DataAcquisitionS2DK(
                     drone, "IFA", config.getHostS2DK(),
                     config.getPortNetworkS2DK(), printLogOverhead);
+            this.commands = new AutopilotCommandPipeline(
+                    (DataAcquisitionS2DK) dataAcquisition);
+            if (config.getTypeTelemetry().equals(TypeTelemetryUAV.STREAMING)) {
+                this.telemetry = new TelemetryStreamS2DK(drone, "IFA", 
+                        config.getHostS2DK(), config.getPortNetworkS2DK());
+            }
         }else{
             dataAcquisition = null;
+            commands = null;
             System.out.println("Type data acquisition not supported");
             System.exit(1);
         }
 
-        this.decisonMaking = new DecisionMaking(drone, dataAcquisition);
+        this.decisonMaking = new DecisionMaking(drone, dataAcquisition, commands);
         this.controller = new Controller(drone, dataAcquisition);
         this.communicationMOSA = new CommunicationMOSA(drone);
         this.communicationGCS = new CommunicationGCS(drone, controller);
+        this.failureRules = new FailureRuleEngine(drone);
+        createFailureRules();
 
         if (config.hasSonar()) {
             StandardPrints.printMsgEmph("turn on the sonar sensor");
@@ -157,6 +180,21 @@ public class SecurityManager {
         stateMonitoring = StateMonitoring.WAITING;
     }
 
+    /**
+     * Loads the no-fly zones of the map used by the geofence. Without the map
+     * the geofence is not used.
+     * @since version 4.0.0
+     */
+    private void loadGeofence() {
+        try {
+            RegionIndex index = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+            ReaderFileMap.map(new File(config.getDirFiles() + "map-nfz.sgl"), index);
+            geofence = new GeofenceMonitor(index, config.getHorizonGeofence(), config.getMarginGeofence());
+        } catch (FileNotFoundException ex) {
+            StandardPrints.printMsgWarning("Warning [FileNotFoundException]: loadGeofence()");
+        }
+    }
+
     /**
      * Initializes the system
      * @since version 1.0.0
@@ -172,6 +210,17 @@ public class SecurityManager {
         speedUP = drone.getInfo().getListParameters().getValue("WPNAV_SPEED_UP")/100.0;
         speedHorizontal = drone.getInfo().getListParameters().getValue("WPNAV_SPEED")/100.0;
         speedDN = drone.getInfo().getListParameters().getValue("WPNAV_SPEED_DN")/100.0;
+        if (config.getOperationMode().equals(TypeOperationMode.REAL_FLIGHT)){
+            endurance = new EnduranceEstimator(Constants.EFFICIENCY_HORIZONTAL_NAV_REAL,
+                    Constants.EFFICIENCY_VERTICAL_UP_REAL, Constants.EFFICIENCY_VERTICAL_DOWN_REAL,
+                    Constants.EFFICIENCY_FLIGHT_TIME_REAL, speedHorizontal, speedUP, speedDN,
+                    Constants.FORGETTING_FACTOR_ENDURANCE);
+        }else{
+            endurance = new EnduranceEstimator(Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED,
+                    Constants.EFFICIENCY_VERTICAL_UP_SIMULATED, Constants.EFFICIENCY_VERTICAL_DOWN_SIMULATED,
+                    Constants.EFFICIENCY_FLIGHT_TIME_SIMULATED, speedHorizontal, speedUP, speedDN,
+                    Constants.FORGETTING_FACTOR_ENDURANCE);
+        }
         
 //        dataAcquisition.getHomeLocation();
 
@@ -179,8 +228,15 @@ public class SecurityManager {
         communicationGCS.receiveData();         //Thread
         monitoringAircraft();                   //Thread
         communicationGCS.sendDataDrone();       //Thread
+        decisonMaking.startSpeculativeReplanner();//Thread
         
         if (!config.getSystemExecIFA().equals(TypeSystemExecIFA.CONTROLLER)) {
+            communicationMOSA.startHeartbeat(new Runnable() {
+                @Override
+                public void run() {
+                    failureRules.evaluate(TypeFailure.FAIL_SYSTEM_MOSA);
+                }
+            });                                 //Thread
             communicationMOSA.startServer();    //blocked
             communicationMOSA.receiveData();    //Thread        
         }       
@@ -247,26 +303,39 @@ public class SecurityManager {
      * Thread that monitors all the sensors and data of the aircraft and makes the 
      * activation of the safety devices (emergency route, RLT, open parachute, alarm).
      * @since version 1.0.0
+     * Note: in telemetry STREAMING the thread runs when a new frame arrives
+     * (at least at freq_update_data_ap), in POLLING it runs at freq_update_data_ap.
+     * If no frame arrives in the period (stream reconnecting) the sensors are
+     * polled in that cycle, so the rules never run on an old frame.
      * @see DataAcquisition#getAllInfoSensors()
+     * @see TelemetryStreamS2DK
      */
     private void monitoringAircraft() {
         StandardPrints.printMsgEmph("monitoring aircraft");
         int time = (int) (1000.0 / config.getFreqUpdateDataAP());
         stateMonitoring = StateMonitoring.MONITORING;
-        printLogAircraft.println(drone.title());
+        printLogAircraft.record(drone.title());
         dataAcquisition.getAllInfoSensors();
-        latHome = drone.getSensors().getGPS().lat;
-        lngHome = drone.getSensors().getGPS().lng;
+        home = new PointGeo(drone.getSensors().getGPS().lng, drone.getSensors().getGPS().lat, 0.0);
         altHome = drone.getSensors().getBarometer().alt_rel;
+        if (telemetry != null) {
+            telemetry.start();
+        }
         Executors.newSingleThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
                 try {
+                    long timeBattery = 0;
                     while (stateSystem != StateSystem.DISABLED) {
+                        boolean streaming = telemetry != null && telemetry.isRunning();
+                        //without a new frame in the period (stream reconnecting) the sensors are polled
+                        boolean newFrame = streaming && telemetry.waitNextFrame(time);
                         timeActual = System.currentTimeMillis();
                         double timeDiff = (timeActual - timeInit) / 1000.0;
                         drone.getInfo().setTime(timeDiff);
-                        dataAcquisition.getAllInfoSensors();
+                        if (!newFrame) {
+                            dataAcquisition.getAllInfoSensors();
+                        }
                         if (config.hasSonar()) {
                             drone.getSensors().getSonar().distance = sonar.getDistance();
                         }
@@ -276,15 +345,20 @@ public class SecurityManager {
                         if (config.hasPowerModule()
                                 || !config.getOperationMode()
                                         .equals(TypeOperationMode.REAL_FLIGHT)) {
-                            dataAcquisition.getBattery();
+                            if (!newFrame || timeActual - timeBattery >= time) {
+                                dataAcquisition.getBattery();
+                                timeBattery = timeActual;
+                            }
                             checkPossibilityOfRTL();
                         }                        
 
                         checkSystemStatus();
+                        decisonMaking.refreshEmergencyMissions();
 
-                        printLogAircraft.println(drone.toString());
-                        printLogAircraft.flush();
-                        Thread.sleep(time);
+                        printLogAircraft.record(drone.toString());
+                        if (!streaming) {
+                            Thread.sleep(time);
+                        }
                     }
                 } catch (InterruptedException ex) {
                     StandardPrints.printMsgError2("Error [InterruptedException] monitoringAircraft()");
@@ -303,97 +377,167 @@ public class SecurityManager {
     }
 
     /**
-     * Check the system status (if the system is working).
+     * Creates the rules of the failures detected by the IFA, in the order of
+     * evaluation.
      * TO DO: Adicionar as falhas somente se o drone estiver voando, caso 
      * contrário, isso não faz sentido.
-     * @since version 1.0.0
+     * @since version 4.0.0
      */
-    private void checkSystemStatus() {
-        if (communicationGCS.hasFailure()
-                && !hasFailure(TypeFailure.FAIL_BASED_INSERT_FAILURE)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_BASED_INSERT_FAILURE));
-            decisonMaking.setTypeAction(communicationGCS.getTypeAction());
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_BASED_INSERT_FAILURE));
-            StandardPrints.printMsgError("FAIL BASED INSERT FAILURE -> Time: " + drone.getInfo().getTime());
-        }
-        if (communicationGCS.hasFailureBadWeather()
-                && !hasFailure(TypeFailure.FAIL_BAD_WEATHER)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_BAD_WEATHER));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_BAD_WEATHER));
-            StandardPrints.printMsgError("FAIL BAD WEATHER -> Time: " + drone.getInfo().getTime());
-        }
-        if (config.hasPowerModule()
-                && drone.getSensors().getBattery().level < config.getLevelMinimumBattery()
-                && !hasFailure(TypeFailure.FAIL_LOW_BATTERY)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_LOW_BATTERY));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_LOW_BATTERY));
-            StandardPrints.printMsgError("FAIL LOW BATTERY -> Time: " + drone.getInfo().getTime());
-        }
-        if (config.hasTemperatureSensor()
-                && drone.getSensors().getTemperature().temperature > config.getLevelMaximumTemperature()
-                && !hasFailure(TypeFailure.FAIL_BATTERY_OVERHEATING)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_BATTERY_OVERHEATING));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_BATTERY_OVERHEATING));
-            StandardPrints.printMsgError("FAIL BATTERY OVERHEATING -> Time: " + drone.getInfo().getTime());
-        }
-        if (drone.getSensors().getGPSInfo().fixType != 3
-                && !hasFailure(TypeFailure.FAIL_GPS)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_GPS));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_GPS));
-            StandardPrints.printMsgError("FAIL GPS -> Time: " + drone.getInfo().getTime());
-        }
-
+    private void createFailureRules() {
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_BASED_INSERT_FAILURE, "FAIL BASED INSERT FAILURE") {
+            @Override
+            public boolean isActive() {
+                return communicationGCS.hasFailure();
+            }
+            @Override
+            public void onActivate() {
+                decisonMaking.setTypeAction(communicationGCS.getTypeAction());
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_BAD_WEATHER, "FAIL BAD WEATHER") {
+            @Override
+            public boolean isActive() {
+                return communicationGCS.hasFailureBadWeather();
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_LOW_BATTERY, "FAIL LOW BATTERY") {
+            @Override
+            public boolean isActive() {
+                return config.hasPowerModule()
+                        && drone.getSensors().getBattery().level < config.getLevelMinimumBattery();
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_BATTERY_OVERHEATING, "FAIL BATTERY OVERHEATING") {
+            @Override
+            public boolean isActive() {
+                return config.hasTemperatureSensor()
+                        && drone.getSensors().getTemperature().temperature > config.getLevelMaximumTemperature();
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_GPS, "FAIL GPS") {
+            @Override
+            public boolean isActive() {
+                return drone.getSensors().getGPSInfo().fixType != 3;
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_GEOFENCE, "FAIL GEOFENCE") {
+            @Override
+            public boolean isActive() {
+                return geofence != null && drone.getSensors().getStatusUAV().armed
+                        && checkGeofence();
+            }
+            @Override
+            public void onActivate() {
+                if (geofence.isInside()) {
+                    StandardPrints.printMsgWarning("aircraft inside a no-fly zone");
+                } else {
+                    StandardPrints.printMsgWarning("trajectory of the aircraft crosses a no-fly zone");
+                }
+            }
+        });
         //insercao de falha no IFA para testes em artigo ICAS 2018
-//        if (drone.getInfo().getTime() >= 103){//remover isso apos artigo ICAS
-//            stateSystem = StateSystem.DISABLED;
-//        }
-        if (stateSystem == StateSystem.DISABLED
-                && !hasFailure(TypeFailure.FAIL_SYSTEM_IFA)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_SYSTEM_IFA));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_SYSTEM_IFA));
-            StandardPrints.printMsgError("FAIL IFA -> Time: " + drone.getInfo().getTime());
-        }
-        if ((communicationMOSA.getStateCommunication() == StateCommunication.DISABLED
-                || communicationMOSA.isMosaDisabled())
-                && !hasFailure(TypeFailure.FAIL_SYSTEM_MOSA)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_SYSTEM_MOSA));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_SYSTEM_MOSA));
-            StandardPrints.printMsgError("FAIL MOSA -> Time: " + drone.getInfo().getTime());
-        }
-//        if (config.hasMotorRotationSensor()
-//                && drone.getMotorFailure()
-//                && !hasFailure(TypeFailure.FAIL_ENGINE)) {
-//            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_ENGINE));
-//            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_ENGINE));
-//            StandardPrints.printMsgError("FAIL ENGINE -> Time: " + drone.getInfo().getTime());
-//        }
+        //(drone.getInfo().getTime() >= 103 -> stateSystem = StateSystem.DISABLED)
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_SYSTEM_IFA, "FAIL IFA") {
+            @Override
+            public boolean isActive() {
+                return stateSystem == StateSystem.DISABLED;
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_SYSTEM_MOSA, "FAIL MOSA") {
+            @Override
+            public boolean isActive() {
+                return communicationMOSA.getStateCommunication() == StateCommunication.DISABLED
+                        || communicationMOSA.isMosaDisabled()
+                        || communicationMOSA.isHeartbeatExpired();
+            }
+            @Override
+            public void onActivate() {
+                if (communicationMOSA.isHeartbeatExpired()) {
+                    StandardPrints.printMsgWarning(String.format("heartbeat of MOSA stopped (detected in %.1f ms)",
+                            communicationMOSA.getTimeToDetectionHeartbeat()));
+                }
+            }
+        });
+//        failureRules.addRule(new FailureRule(TypeFailure.FAIL_ENGINE, "FAIL ENGINE") {
+//            @Override
+//            public boolean isActive() {
+//                return config.hasMotorRotationSensor() && drone.getMotorFailure();
+//            }
+//        });
         //Descomentar quando for virar produto
-//        if (drone.getSensors().getStatusUAV().systemStatus.equals("CRITICAL")
-//                && !hasFailure(TypeFailure.FAIL_AP_CRITICAL)) {
-//            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_AP_CRITICAL));
-//            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_AP_CRITICAL));
-//            StandardPrints.printMsgError("FAIL AP CRITICAL -> Time: " + drone.getInfo().getTime());
-//        }
-        if (drone.getSensors().getStatusUAV().systemStatus.equals("EMERGENCY")
-                && !hasFailure(TypeFailure.FAIL_AP_EMERGENCY)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_AP_EMERGENCY));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_AP_EMERGENCY));
-            StandardPrints.printMsgError("FAIL AP EMERGENCY -> Time: " + drone.getInfo().getTime());
+//        failureRules.addRule(new FailureRule(TypeFailure.FAIL_AP_CRITICAL, "FAIL AP CRITICAL") {
+//            @Override
+//            public boolean isActive() {
+//                return drone.getSensors().getStatusUAV().systemStatus.equals("CRITICAL");
+//            }
+//        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_AP_EMERGENCY, "FAIL AP EMERGENCY") {
+            @Override
+            public boolean isActive() {
+                return drone.getSensors().getStatusUAV().systemStatus.equals("EMERGENCY");
+            }
+        });
+        failureRules.addRule(new FailureRule(TypeFailure.FAIL_AP_POWEROFF, "FAIL AP POWEROFF") {
+            @Override
+            public boolean isActive() {
+                return drone.getSensors().getStatusUAV().systemStatus.equals("POWEROFF");
+            }
+        });
+    }
+
+    /**
+     * Verifies the position and the velocity of the last sample against the
+     * no-fly zones.
+     * @return {@code true} if the aircraft is in (or will enter) a no-fly zone
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean checkGeofence() {
+        double x = UtilGeo.convertGeoToX(pointGeo, drone.getSensors().getGPS().lng);
+        double y = UtilGeo.convertGeoToY(pointGeo, drone.getSensors().getGPS().lat);
+        //in a mission the prediction stops at the current waypoint (the aircraft turns there)
+        double distWaypoint = drone.getInfo().getDistanceToCurrentWaypoint();
+        if (!TypeMode.AUTO.equals(drone.getSensors().getStatusUAV().mode) || distWaypoint < 0) {
+            distWaypoint = Double.MAX_VALUE;
         }
-        if (drone.getSensors().getStatusUAV().systemStatus.equals("POWEROFF")
-                && !hasFailure(TypeFailure.FAIL_AP_POWEROFF)) {
-            listOfFailure.add(new Failure(drone, TypeFailure.FAIL_AP_POWEROFF));
-            drone.getInfo().setTypeFailure(TypeFailure.getTypeFailure(TypeFailure.FAIL_AP_POWEROFF));
-            StandardPrints.printMsgError("FAIL AP POWEROFF -> Time: " + drone.getInfo().getTime());
+        //velocity of the autopilot in NED (vx to north and vy to east)
+        return geofence.check(x, y, drone.getSensors().getVelocity().vy,
+                drone.getSensors().getVelocity().vx, distWaypoint);
+    }
+
+    /**
+     * Check the system status (if the system is working): updates the state of
+     * the system and evaluates the failure rules with the last sample.
+     * @since version 1.0.0
+     */
+    private void checkSystemStatus() {
+        updateStateSystem();
+        failureRules.evaluate();
+    }
+
+    /**
+     * Disables the system if the decision making or the monitoring is disabled
+     * and signals the thread of the state machine.
+     * @since version 4.0.0
+     */
+    private void updateStateSystem() {
+        if (decisonMaking.getStateReplanning() == StateReplanning.DISABLED
+                || stateMonitoring == StateMonitoring.DISABLED) {
+            synchronized (lockStateSystem) {
+                stateSystem = StateSystem.DISABLED;
+                lockStateSystem.notifyAll();
+            }
         }
     }
 
     /**
-     * Thread waiting for an emergency action.
+     * Thread waiting for an emergency action. It is signaled by the failure
+     * rules on the sample where the failure is detected.
      * TO DO: O sistema trata apenas a primeira falha, fazer o tratamento de falhas consecutivas.
      * TO DO: Melhorar verificação para ver se a aeronave esta voando.
      * @since version 4.0.0
      * @see DecisionMaking
+     * @see FailureRuleEngine
      */
     private void waitingForAnActionOfEmergency() {
         StandardPrints.printMsgEmph("waiting for an action of emergency");
@@ -402,8 +546,11 @@ public class SecurityManager {
             public void run() {
                 while (stateSystem != StateSystem.DISABLED) {
                     try {
-                        if (drone.getSensors().getStatusUAV().armed && hasFailure()) {
-                            long timeInit = System.currentTimeMillis();        
+                        Failure failure = failureRules.awaitFailure(Constants.TIME_TO_SLEEP_WAITING_FOR_AN_ACTION);
+                        if (failure != null && drone.getSensors().getStatusUAV().armed) {
+                            long timeInit = System.currentTimeMillis();
+                            StandardPrints.printMsgBlue(String.format("Time from Failure to Action (ms): %.3f", 
+                                    (System.nanoTime() - failure.getTimeDetection()) / 1e6));
                             communicationMOSA.sendData(TypeMsgCommunication.IFA_MOSA_STOP);
                             if (config.hasBuzzer()) {
                                 StandardPrints.printMsgEmph("turn on the alarm");
@@ -411,22 +558,21 @@ public class SecurityManager {
                                 buzzer.turnOnAlarm();
                             }
                             if (config.getLocalExecReplanner().equals(LocalExecPlanner.ONBOARD)) {
-                                decisonMaking.actionForSafetyOnboard(listOfFailure.get(0));
+                                decisonMaking.actionForSafetyOnboard(failure);
                             } else {
-                                decisonMaking.actionForSafetyOffboard(listOfFailure.get(0), communicationGCS);
+                                decisonMaking.actionForSafetyOffboard(failure, communicationGCS);
                             }
                             long timeFinal = System.currentTimeMillis();
                             long time = timeFinal - timeInit;
                             StandardPrints.printMsgBlue("Time for Action Emergency (ms): " + time);
                             break;
                         }
-                        Thread.sleep(Constants.TIME_TO_SLEEP_WAITING_FOR_AN_ACTION);
                     } catch (InterruptedException ex) {
 
                     }
                 }
                 if (stateSystem == StateSystem.DISABLED) {
-                    if (drone.getSensors().getStatusUAV().armed && hasFailure()) {
+                    if (drone.getSensors().getStatusUAV().armed && failureRules.hasFailure()) {
                         if (config.hasParachute()) {
                             decisonMaking.openParachute();
                         }
@@ -437,7 +583,8 @@ public class SecurityManager {
     }
 
     /**
-     * Thread that monitors state machines.
+     * Thread that waits the system be disabled (signaled by the monitoring of
+     * the aircraft) and closes the communications.
      * @since version 1.0.0
      */
     private void monitoringStateMachine() {
@@ -446,14 +593,10 @@ public class SecurityManager {
             @Override
             public void run() {
                 try {
-                    while (stateSystem != StateSystem.DISABLED) {
-                        if (decisonMaking.getStateReplanning() == StateReplanning.DISABLED) {
-                            stateSystem = StateSystem.DISABLED;
+                    synchronized (lockStateSystem) {
+                        while (stateSystem != StateSystem.DISABLED) {
+                            lockStateSystem.wait();
                         }
-                        if (stateMonitoring == StateMonitoring.DISABLED) {
-                            stateSystem = StateSystem.DISABLED;
-                        }
-                        Thread.sleep(Constants.TIME_TO_SLEEP_MONITORING_STATE_MACHINE);
                     }
                 } catch (InterruptedException ex) {
 
@@ -468,31 +611,6 @@ public class SecurityManager {
         });
     }
 
-    /**
-     * Check if has a specific failure.
-     * @return {@code true} if has failure
-     *         {@code false} otherwise
-     * @since version 1.0.0
-     */
-    private boolean hasFailure(TypeFailure failure) {
-        for (Failure fail : listOfFailure) {
-            if (fail.getTypeFailure() == failure) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Check if has a failure.
-     * @return {@code true} if has failure
-     *         {@code false} otherwise
-     * @since version 1.0.0
-     */
-    private boolean hasFailure() {
-        return listOfFailure.size() > 0;
-    }
-    
     /**
      * Check the possibility of doing RTL.
      * Calculate also: Estimated Time For RTL
@@ -503,62 +621,42 @@ public class SecurityManager {
      *     speed: v = d/t    ->    t = d/v
      *         t_h = d_h/v_h    (horizontal)
      *         t_v = d_v/v_v    (vertical)
+     * The speeds and the consumption of the battery (per meter and per second)
+     * are learned during the flight by the EnduranceEstimator (the constants
+     * are used until the flight identifies all of them); the consumption 
+     * of RTL has a margin of NUMBER_STD_DEV_RTL standard deviations.
      * @since version 4.0.0
      */
     private void checkPossibilityOfRTL(){
         double lat = drone.getSensors().getGPS().lat;
         double lng = drone.getSensors().getGPS().lng;
-        double alt = drone.getSensors().getBarometer().alt_rel;      
-        
-        double distVerticalUP = Math.abs(alt - altRTL);
-        double distHorizontal = UtilGeom.distanceEuclidian(lat, lng, latHome, lngHome)/Constants.ONE_METER;
-        double distVerticalDN = Math.abs(altRTL - altHome);
+        double alt = drone.getSensors().getBarometer().alt_rel;
+        double level = drone.getSensors().getBattery().level;
         
-        double estimatedTimeForRTLverticalUp = distVerticalUP/speedUP;
-        double estimatedTimeForRTLhorizontal = distHorizontal/speedHorizontal;
-        double estimatedTimeForRTLverticalDn = distVerticalDN/speedDN;
+        endurance.update(timeActual / 1000.0, drone.getSensors().getVelocity().vx, 
+                drone.getSensors().getVelocity().vy, alt, level, 
+                drone.getSensors().getStatusUAV().armed);
         
-        double estimatedTimeForRTL = estimatedTimeForRTLverticalUp + estimatedTimeForRTLhorizontal +
-                estimatedTimeForRTLverticalDn;
+        double distVerticalUP = Math.max(altRTL - alt, 0);
+        double distX = UtilGeo.convertGeoToX(home, lng);
+        double distY = UtilGeo.convertGeoToY(home, lat);
+        double distHorizontal = Math.sqrt(distX * distX + distY * distY);
+        double distVerticalDN = Math.max(Math.max(alt, altRTL) - altHome, 0);
         
-        //5: representa (5 segundos) que em meus testes o tempo que leva para o drone 
-        //   desarmar completamente.
-        //3: representa (3 segundos) que em meus testes o tempo que leva para o drone 
-        //   trocar de waypoint.
-        //1.18: representa (18% a mais de tempo) que em meus testes foi a margem que tive 
-        //   que adicionar a estimativa de tempo, pois as mesmas foram baseadas na 
-        //   velocidade máxima e o drone, as vezes, voa em uma velocidade inferior a esta.
-        //OBS: Estes dados foram obtidos em experimentos SITL
-        estimatedTimeForRTL = estimatedTimeForRTL * 1.18 + 5 + 3;
+        double estimatedTimeForRTL = distVerticalUP/endurance.getSpeedUp() 
+                + distHorizontal/endurance.getSpeedHorizontal()
+                + distVerticalDN/endurance.getSpeedDown()
+                + Constants.TIME_TO_DISARM + Constants.TIME_TO_CHANGE_WAYPOINT;
         drone.getInfo().setEstimatedTimeToDoRTL(estimatedTimeForRTL);
         
-        double consumptionBatteryUP;
-        double consumptionBatteryDN;
-        double consumptionBatteryHorizontal;
-        
-        double estMaxDist;
-        double estMaxTime;
-        double level = drone.getSensors().getBattery().level;
-        // 0.7: Este fator representa de fato a eficiência da velocidade de fato 
-        //percorrida pelo drone em relação a velocidade média.
-        if (config.getOperationMode().equals(TypeOperationMode.REAL_FLIGHT)){
-            consumptionBatteryUP         = distVerticalUP * Constants.EFFICIENCY_VERTICAL_UP_REAL;
-            consumptionBatteryDN         = distVerticalDN * Constants.EFFICIENCY_VERTICAL_DOWN_REAL;
-            consumptionBatteryHorizontal = distHorizontal * Constants.EFFICIENCY_HORIZONTAL_NAV_REAL;
-            estMaxDist = 0.7 * speedHorizontal * level/Constants.EFFICIENCY_HORIZONTAL_NAV_REAL;
-            estMaxTime = level/Constants.EFFICIENCY_FLIGHT_TIME_REAL;
-        }else{
-            consumptionBatteryUP         = distVerticalUP * Constants.EFFICIENCY_VERTICAL_UP_SIMULATED;
-            consumptionBatteryDN         = distVerticalDN * Constants.EFFICIENCY_VERTICAL_DOWN_SIMULATED;
-            consumptionBatteryHorizontal = distHorizontal * Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED;
-            estMaxDist = 0.7 * speedHorizontal * level/Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED;
-            estMaxTime = level/Constants.EFFICIENCY_FLIGHT_TIME_SIMULATED;
-        }
-        double estimatedConsumptionBat   = 
-                consumptionBatteryUP + consumptionBatteryDN +consumptionBatteryHorizontal;
+        double estimatedConsumptionBat = endurance.getConsumption(
+                distHorizontal, distVerticalUP, distVerticalDN, estimatedTimeForRTL)
+                + Constants.NUMBER_STD_DEV_RTL * endurance.getStdDevConsumption(
+                distHorizontal, distVerticalUP, distVerticalDN, estimatedTimeForRTL);
         
         drone.getInfo().setEstimatedConsumptionBatForRTL(estimatedConsumptionBat);
-        drone.getInfo().setEstimatedMaxDistReached(estMaxDist);
-        drone.getInfo().setEstimatedMaxTimeFlight(estMaxTime);
+        drone.getInfo().setEstimatedMaxDistReached(endurance.getMaxDistance(level));
+        drone.getInfo().setEstimatedMaxTimeFlight(endurance.getMaxTime(level));
     }
+    
 }
@@ -19,6 +19,7 @@ public class Failure {
     private final double levelBattery;
     private final int satellitesVisible;
     private final TypeFailure typeFailure;
+    private final long timeDetection;
     
     /**
      * Class constructor.
@@ -34,6 +35,7 @@ public class Failure {
         this.levelBattery = drone.getSensors().getBattery().level;
         this.satellitesVisible = drone.getSensors().getGPSInfo().satellitesVisible;
         this.typeFailure = typeFailure;
+        this.timeDetection = System.nanoTime();
     }
     
     /**
@@ -67,4 +69,14 @@ public class Failure {
         return typeFailure;
     }
     
+    /**
+     * Gets the instant the failure was detected (used to measure the time
+     * until the emergency action).
+     * @return the value of System.nanoTime() in the detection
+     * @since version 4.0.0
+     */
+    public long getTimeDetection() {
+        return timeDetection;
+    }
+    
 }
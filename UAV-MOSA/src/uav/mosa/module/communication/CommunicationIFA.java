@@ -10,6 +10,7 @@ import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.module.comm.Client;
 import lib.uav.module.comm.Communication;
+import lib.uav.module.comm.HeartbeatSender;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.struct.constants.Constants;
 import lib.uav.struct.constants.TypeMsgCommunication;
@@ -27,6 +28,7 @@ public class CommunicationIFA extends Communication implements Client{
     private final Drone drone;
     private final ReaderFileConfig config;
     private boolean startMission;
+    private HeartbeatSender heartbeat;
     
     /**
      * Class constructor
@@ -59,6 +61,19 @@ public class CommunicationIFA extends Communication implements Client{
         }
     }
     
+    /**
+     * Starts the heartbeat of MOSA to IFA (dedicated channel).
+     * @since version 4.0.0
+     */
+    public void startHeartbeat(){
+        if (config.getPeriodHeartbeat() <= 0){
+            return;
+        }
+        heartbeat = new HeartbeatSender(config.getHostIFA(), 
+                config.getPortNetworkHeartbeatIFAandMOSA(), config.getPeriodHeartbeat());
+        heartbeat.start();
+    }
+    
     /**
      * Treats the data to be received
      * @since version 2.0.0
@@ -90,6 +105,7 @@ public class CommunicationIFA extends Communication implements Client{
                                 } else if (answer.equals(TypeMsgCommunication.IFA_MOSA_STOP)){
                                     sendData(TypeMsgCommunication.MOSA_IFA_STOPPED);
                                     Thread.sleep(100);
+                                    close();
                                     System.exit(1);
                                 }
                             } 
@@ -109,6 +125,19 @@ public class CommunicationIFA extends Communication implements Client{
         });
     }     
 
+    /**
+     * Close the communication (the heartbeat stops before the socket).
+     * @since version 4.0.0
+     */
+    @Override
+    public void close(){
+        if (heartbeat != null){
+            heartbeat.setAlive(false);
+            heartbeat.stop();
+        }
+        super.close();
+    }
+
     public boolean isStartMission() {
         return startMission;
     }
@@ -1,7 +1,6 @@
 package uav.mosa.module.decision_making;
 
 import java.io.File;
-import java.io.IOException;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.hardware.aircraft.DroneFixedWing;
@@ -15,9 +14,10 @@ import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.constants.TypeSystemExecMOSA;
 import lib.uav.struct.mission.Mission;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.struct.mission.MissionPipeline;
 import lib.uav.struct.states.StatePlanning;
+import lib.uav.util.UtilBehavior;
 import lib.uav.util.UtilRoute;
-import lib.uav.util.UtilRunThread;
 import uav.mosa.module.communication.CommunicationGCS;
 import uav.mosa.module.path_planner.AStar4m;
 import uav.mosa.module.path_planner.CCQSP4m;
@@ -79,6 +79,8 @@ public class DecisionMaking {
                     resp = sendMissionBasedPlannerHGA4mCalcGroundAndAirOnboard();
                 }else if (config.getLocalExecProcessingPlannerHGA4m().equals(LocalExecMission.AIR)) {
                     resp = sendMissionBasedPlannerHGA4mCalcAirOnboard();
+                }else if (config.getLocalExecProcessingPlannerHGA4m().equals(LocalExecMission.PIPELINE)) {
+                    resp = sendMissionBasedPlannerHGA4mPipelineOnboard();
                 }
             }else if (config.getTypePlanner().equals(TypePlanner.CCQSP4M)){
                 resp = sendMissionBasedPlannerCCQSP4mOnboard();
@@ -122,6 +124,8 @@ public class DecisionMaking {
                     resp = sendMissionBasedPlannerHGA4mCalcGroundAndAirOnboard();
                 }else if (config.getLocalExecProcessingPlannerHGA4m().equals(LocalExecMission.AIR)) {
                     resp = sendMissionBasedPlannerHGA4mCalcAirOnboard();
+                }else if (config.getLocalExecProcessingPlannerHGA4m().equals(LocalExecMission.PIPELINE)) {
+                    resp = sendMissionBasedPlannerHGA4mPipelineOnboard();
                 }
             } else if (config.getTypePlanner().equals(TypePlanner.CCQSP4M)){
                 resp = sendMissionBasedPlannerCCQSP4mOffboard(communicationGSC);                
@@ -146,45 +150,28 @@ public class DecisionMaking {
      * @since version 4.0.0
      */
     public void actionChangeBehavior(String type){    
-        String disc = config.getDiscretizationBehavior();
-        String cmd = "";
+        String dist = "";
         if (type.equals(TypeBehavior.CIRCLE)){
-            String dist = config.getRadiusCircleBehavior();
-            cmd = "./RouteStandard4m " + drone.getSensors().getGPS().lat + " " + 
-                    drone.getSensors().getGPS().lng + " " + 
-                    drone.getSensors().getBarometer().alt_rel + " CIRCLE " + 
-                    dist + " " + disc;
+            dist = config.getRadiusCircleBehavior();
         }else if (type.equals(TypeBehavior.TRIANGLE)){
-            String dist = config.getBaseTriangleBehavior();
-            cmd = "./RouteStandard4m " + drone.getSensors().getGPS().lat + " " + 
-                    drone.getSensors().getGPS().lng + " " + 
-                    drone.getSensors().getBarometer().alt_rel + " TRIANGLE " + 
-                    dist + " " + disc;
+            dist = config.getBaseTriangleBehavior();
         }else if (type.equals(TypeBehavior.RECTANGLE)){
-            String dist = config.getBaseRectangleBehavior();
-            cmd = "./RouteStandard4m " + drone.getSensors().getGPS().lat + " " + 
-                    drone.getSensors().getGPS().lng + " " + 
-                    drone.getSensors().getBarometer().alt_rel + " RECTANGLE " + 
-                    dist + " " + disc;
+            dist = config.getBaseRectangleBehavior();
         }
-        String dir = config.getDirBehavior();
         try {
-            boolean isPrint = true;
-            UtilRunThread.runCmdSingleThreadWaitFor(cmd, new File(dir), isPrint);
-            Mission mission = new Mission();
-            String path = dir + "route-behavior.txt";
-            boolean respFile = UtilRoute.readFileRouteMOSA(mission, path);
-            if (!respFile){
-                return;
-            }
+            Mission mission = UtilBehavior.createMission(type, 
+                    drone.getSensors().getGPS().lat, 
+                    drone.getSensors().getGPS().lng, 
+                    drone.getSensors().getBarometer().alt_rel, 
+                    Double.parseDouble(dist), 
+                    Integer.parseInt(config.getDiscretizationBehavior()));
 //            mission.printMission();
             if (mission.getMission().size() > 0){
                 dataAcquisition.setMission(mission);
+                UtilBehavior.writeRoute(mission, new File(config.getDirBehavior(), "route-behavior.txt"));
             }
-        } catch (IOException ex) {
-            StandardPrints.printMsgWarning("Warning [IOException] actionChangeBehavior()");
-        } catch (InterruptedException ex) {
-            StandardPrints.printMsgWarning("Warning [InterruptedException] actionChangeBehavior()");
+        } catch (NumberFormatException ex) {
+            StandardPrints.printMsgWarning("Warning [NumberFormatException] actionChangeBehavior()");
         } 
     }
     
@@ -210,37 +197,19 @@ public class DecisionMaking {
         planner = new HGA4m(drone, wptsMission3D);
         planner.clearLogs();  
         
-        boolean resp = false;
-        statePlanning = StatePlanning.WAITING;//Para entar a primeira vez
-        int nRoute = 0;
-        while (nRoute < wptsMission3D.size() - 1 && statePlanning == StatePlanning.WAITING){
-            long timeInit2 = System.currentTimeMillis();
-            StandardPrints.printMsgEmph("route: " + nRoute);
-            statePlanning = StatePlanning.PLANNING;
-            resp = ((HGA4m)(planner)).execMission(nRoute);
-            if (!resp){
-                return false;
-            }
-            statePlanning = StatePlanning.READY;
-            nRoute++;
-            if (nRoute < wptsMission3D.size() - 1){
-                statePlanning = StatePlanning.WAITING;
-            }
-            long timeFinal2 = System.currentTimeMillis();
-            long time1 = timeFinal2 - timeInit2;
-            StandardPrints.printMsgEmph("Time in Route (ms): " + time1);
+        statePlanning = StatePlanning.PLANNING;
+        boolean resp = ((HGA4m)(planner)).execMissions();
+        if (!resp){
+            return false;
         }
+        statePlanning = StatePlanning.READY;
         
         Mission mission = new Mission();
-        nRoute = 0;
+        int nRoute = 0;
         while (nRoute < wptsMission3D.size() - 1){
             String path = config.getDirPlanner() + "routeGeo" + nRoute + ".txt";
-            if (config.hasRouteSimplifier()){
-                UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-            }
-            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size());
+            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size(), 
+                    config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
             if (!resp){
                 return false;
             }
@@ -281,13 +250,9 @@ public class DecisionMaking {
                 return false;
             }
             String path = config.getDirPlanner() + "routeGeo" + nRoute + ".txt";
-            if (config.hasRouteSimplifier()){
-                UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-            }
             Mission mission = new Mission();
-            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size());
+            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size(), 
+                    config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
             if (!resp){
                 return false;
             }
@@ -317,6 +282,69 @@ public class DecisionMaking {
         return true;
     }
     
+    /**
+     * Send mission based planner (HGA4m) to autopilot calculated onboard in
+     * pipeline: the first route is sent as soon as it is planned and the next
+     * routes are planned in air (up to lookahead routes ahead of the route
+     * flown) and appended before the aircraft ends the current route.
+     * @return {@code true} if success, 
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     * @see MissionPipeline
+     */
+    private boolean sendMissionBasedPlannerHGA4mPipelineOnboard() {
+        long timeInit = System.currentTimeMillis();
+        StandardPrints.printMsgEmph("send missions to drone calc in pipeline");
+        planner = new HGA4m(drone, wptsMission3D);
+        planner.clearLogs();
+        
+        statePlanning = StatePlanning.PLANNING;
+        MissionPipeline pipeline = new MissionPipeline(wptsMission3D.size() - 1, 
+                config.getParallelLegsPlannerHGA4m(), config.getLookaheadPlannerHGA4m());
+        boolean resp = pipeline.exec(new MissionPipeline.RoutePlanner() {
+            @Override
+            public boolean plan(int i) {
+                long timeInit = System.currentTimeMillis();
+                StandardPrints.printMsgEmph("route: " + i);
+                boolean resp = ((HGA4m)(planner)).planLeg(i);
+                StandardPrints.printMsgEmph("Time in Route " + i + " (ms): " + 
+                        (System.currentTimeMillis() - timeInit));
+                return resp;
+            }
+            @Override
+            public Mission read(int i) {
+                if (!((HGA4m)(planner)).parseRoute3DtoGeo(i)){
+                    return null;
+                }
+                String path = config.getDirPlanner() + "routeGeo" + i + ".txt";
+                Mission mission = new Mission();
+                if (!UtilRoute.readFileRouteMOSA(mission, path, i, wptsMission3D.size(), 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier())){
+                    return null;
+                }
+                mission.printMission();
+                return mission;
+            }
+        }, new MissionPipeline.Vehicle() {
+            @Override
+            public boolean send(Mission mission, boolean first) {
+                return first ? dataAcquisition.setMission(mission) : dataAcquisition.appendMission(mission);
+            }
+            @Override
+            public int getNextWaypoint() {
+                //index 0 of the autopilot is the home
+                return drone.getInfo().getNextWaypoint() - 1;
+            }
+        }, Constants.TIME_TO_SLEEP_WAITING_FOR_AN_ACTION);
+        
+        StandardPrints.printMsgEmph("Time to First Route (ms): " + pipeline.getTimeFirstRoute());
+        StandardPrints.printMsgEmph("Routes sent late: " + pipeline.getCountLate());
+        long timeFinal = System.currentTimeMillis();
+        long time = timeFinal - timeInit;
+        StandardPrints.printMsgEmph("Time in Missions (ms): " + time);
+        return resp;
+    }
+    
     /**
      * Send mission based planner (HGA4m) to autopilot calculated onboard and 
      * calculated in ground and air.
@@ -344,22 +372,14 @@ public class DecisionMaking {
             if (nRoute == 1){
                 Mission mission = new Mission();
                 String path1 = config.getDirPlanner() + "routeGeo0.txt";
-                if (config.hasRouteSimplifier()){
-                    UtilRoute.execRouteSimplifier(path1, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                    path1 = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-                }
-                resp = UtilRoute.readFileRouteMOSA(mission, path1, 0, wptsMission3D.size());
+                resp = UtilRoute.readFileRouteMOSA(mission, path1, 0, wptsMission3D.size(), 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
                 if (!resp){
                     return false;
                 }
                 String path2 = config.getDirPlanner() + "routeGeo1.txt";
-                if (config.hasRouteSimplifier()){
-                    UtilRoute.execRouteSimplifier(path2, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                    path2 = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-                }
-                resp = UtilRoute.readFileRouteMOSA(mission, path2, 1, wptsMission3D.size());
+                resp = UtilRoute.readFileRouteMOSA(mission, path2, 1, wptsMission3D.size(), 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
                 if (!resp){
                     return false;
                 }
@@ -369,13 +389,9 @@ public class DecisionMaking {
                 }
             }else if (nRoute > 1){
                 String path = config.getDirPlanner() + "routeGeo" + nRoute + ".txt";
-                if (config.hasRouteSimplifier()){
-                    UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                    path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-                }
                 Mission mission = new Mission();
-                resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size());
+                resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size(), 
+                        config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
                 if (!resp){
                     return false;
                 }
@@ -425,12 +441,8 @@ public class DecisionMaking {
         
         Mission mission = new Mission();
         String path = config.getDirPlanner() + "routeGeo.txt";
-        if (config.hasRouteSimplifier()){
-            UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-            path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-        }
-        resp = UtilRoute.readFileRouteMOSA(mission, path);
+        resp = UtilRoute.readFileRouteMOSA(mission, path, 
+                config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
         if (!resp){
             return false;
         }
@@ -466,12 +478,8 @@ public class DecisionMaking {
         
         Mission mission = new Mission();
         String path = config.getDirPlanner() + "routeGeo.txt";
-        if (config.hasRouteSimplifier()){
-            UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-            path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-        }
-        resp = UtilRoute.readFileRouteMOSA(mission, path);
+        resp = UtilRoute.readFileRouteMOSA(mission, path, 
+                config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
         if (!resp){
             return false;
         }
@@ -522,12 +530,8 @@ public class DecisionMaking {
         nRoute = 0;
         while (nRoute < wptsMission3D.size() - 1){
             String path = config.getDirPlanner() + "routeGeo" + nRoute + ".txt";
-            if (config.hasRouteSimplifier()){
-                UtilRoute.execRouteSimplifier(path, config.getDirRouteSimplifier(), 
-                            config.getFactorRouteSimplifier(), ";");
-                path = config.getDirRouteSimplifier() + "output-simplifier.txt";               
-            }
-            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size());
+            resp = UtilRoute.readFileRouteMOSA(mission, path, nRoute, wptsMission3D.size(), 
+                    config.hasRouteSimplifier(), config.getFactorRouteSimplifier());
             if (!resp){
                 return false;
             }
@@ -2,7 +2,6 @@ package uav.mosa.module.mission_manager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.PrintStream;
 import java.util.concurrent.Executors;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
@@ -11,6 +10,7 @@ import lib.uav.hardware.aircraft.DroneRotaryWing;
 import lib.uav.module.actuators.BuzzerControl;
 import lib.uav.module.comm.DataAcquisition;
 import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.module.comm.TelemetryStreamS2DK;
 import lib.uav.module.sensors.CameraControl;
 import lib.uav.reader.ReaderFileConfig;
 import lib.uav.reader.ReaderFileMission;
@@ -22,13 +22,16 @@ import lib.uav.struct.constants.TypeMsgCommunication;
 import lib.uav.struct.constants.TypeOperationMode;
 import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.constants.TypeSystemExecMOSA;
+import lib.uav.struct.constants.TypeTelemetryUAV;
 import lib.uav.struct.geom.PointGeo;
 import lib.uav.struct.mission.Mission;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.struct.mission.WaypointTrigger;
 import lib.uav.struct.states.StateCommunication;
 import lib.uav.struct.states.StateMonitoring;
 import lib.uav.struct.states.StatePlanning;
 import lib.uav.struct.states.StateSystem;
+import lib.uav.util.FlightDataRecorder;
 import lib.uav.util.UtilFile;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilGeom;
@@ -46,6 +49,7 @@ public class MissionManager {
     public static PointGeo pointGeo;
     private final Drone drone;
     private final DataAcquisition dataAcquisition;
+    private TelemetryStreamS2DK telemetry;
     private final CommunicationIFA communicationIFA;
     private final CommunicationGCS communicationGCS;
     private final DecisionMaking decisonMaking;
@@ -58,7 +62,8 @@ public class MissionManager {
     private Mission wptsCameraVideo;
     private Mission wptsCameraPhotoInSeq;
     private Mission wptsSpraying;
-    private PrintStream printLogOverhead;     
+    private WaypointTrigger triggers;
+    private FlightDataRecorder printLogOverhead;     
     private StateSystem stateMOSA;
     private StateMonitoring stateMonitoring;    
         
@@ -110,11 +115,15 @@ public class MissionManager {
             drone = new DroneRotaryWing("iDroneAlpha");
         }
         
-        printLogOverhead = UtilFile.createFileLog("log-overhead-ifa", ".csv");
+        printLogOverhead = new FlightDataRecorder(UtilFile.createFileLog("log-overhead-ifa", ".csv"));
         
         if (config.getTypeDataAcquisition().equals(TypeDataAcquisitionUAV.DRONEKIT)){
             this.dataAcquisition = new DataAcquisitionS2DK(drone, "MOSA", 
                     config.getHostS2DK(), config.getPortNetworkS2DK(), printLogOverhead);
+            if (config.getTypeTelemetry().equals(TypeTelemetryUAV.STREAMING)){
+                this.telemetry = new TelemetryStreamS2DK(drone, "MOSA", 
+                        config.getHostS2DK(), config.getPortNetworkS2DK());
+            }
         }else{
             dataAcquisition = null;
             System.out.println("Type data acquisition not supported");
@@ -143,6 +152,7 @@ public class MissionManager {
             this.wptsSpraying = new Mission(); 
             readerFileSpraying();
         }
+        createTriggers();
         stateMOSA = StateSystem.INITIALIZING;
         stateMonitoring = StateMonitoring.WAITING;
     }
@@ -157,6 +167,7 @@ public class MissionManager {
         dataAcquisition.getParameters();
         
         communicationIFA.connectServer();       //blocked        
+        communicationIFA.startHeartbeat();      //Thread
         communicationIFA.receiveData();         //Thread 
         
         communicationGCS.startServer();         //Thread        
@@ -183,35 +194,47 @@ public class MissionManager {
      * Thread that monitors all sensors and aircraft data and triggers the mission 
      * devices (camera, buzzer, spraying).
      * @since version 1.0.0
+     * Note: in telemetry STREAMING the thread runs when a new frame arrives
+     * (at least at freq_update_data_ap), in POLLING it runs at freq_update_data_ap.
+     * If no frame arrives in the period (stream reconnecting) the sensors are
+     * polled in that cycle, so the rules never run on an old frame.
      * @see DataAcquisition#getAllInfoSensors()
+     * @see TelemetryStreamS2DK
      */
     private void monitoringAircraft() {
         StandardPrints.printMsgEmph("monitoring aircraft");
         int time = (int)(1000.0/config.getFreqUpdateDataAP());      
         stateMonitoring = StateMonitoring.MONITORING;
+        if (telemetry != null){
+            telemetry.start();
+        }
         
         Executors.newSingleThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
                 try { 
+                    long timeBattery = 0;
                     while(stateMOSA != StateSystem.DISABLED){
+                        boolean streaming = telemetry != null && telemetry.isRunning();
+                        //without a new frame in the period (stream reconnecting) the sensors are polled
+                        boolean newFrame = streaming && telemetry.waitNextFrame(time);
                         timeActual = System.currentTimeMillis();
                         double timeDiff = (timeActual - timeInit)/1000.0;
                         drone.getInfo().setTime(timeDiff);
-                        dataAcquisition.getAllInfoSensors();
+                        if (!newFrame){
+                            dataAcquisition.getAllInfoSensors();
+                        }
                         if (config.hasPowerModule() || 
                                 !config.getOperationMode()
                                 .equals(TypeOperationMode.REAL_FLIGHT)){
-                            dataAcquisition.getBattery();
-                        }
-                        if (config.hasBuzzer()){
-                            actionTurnOnTheBuzzer();
-                        }
-                        if (config.hasCamera()){
-                            actionTakeAPicture();
-                            actionMakeAVideo();
-                            actionPhotoInSequence();
+                            if (!newFrame || timeActual - timeBattery >= time){
+                                dataAcquisition.getBattery();
+                                timeBattery = timeActual;
+                            }
                         }
+                        triggers.check(drone.getSensors().getGPS().lat, 
+                                drone.getSensors().getGPS().lng, 
+                                drone.getSensors().getBarometer().alt_rel);
                         
                         if (communicationGCS.isBehaviorChanged()){
                             decisonMaking.actionChangeBehavior(config.getTypeBehavior());
@@ -238,7 +261,9 @@ public class MissionManager {
 //                            Thread.sleep(100);
 //                            System.exit(0);
 //                        }
-                        Thread.sleep(time);                    
+                        if (!streaming){
+                            Thread.sleep(time);
+                        }
                     }
                 } catch (InterruptedException ex) {
                     StandardPrints.printMsgError2("Error [InterruptedException] monitoringAircraft()");
@@ -298,22 +323,13 @@ public class MissionManager {
                 try {
                     while(stateMOSA != StateSystem.DISABLED){                    
                         if (communicationIFA.getStateCommunication() == StateCommunication.DISABLED){
-                            communicationIFA.sendData(TypeMsgCommunication.MOSA_IFA_DISABLED);
-                            stateMOSA = StateSystem.DISABLED;
-                            Thread.sleep(100);
-                            System.exit(1);
+                            disable();
                         }
                         if (decisonMaking.getStatePlanning()== StatePlanning.DISABLED){
-                            communicationIFA.sendData(TypeMsgCommunication.MOSA_IFA_DISABLED);
-                            stateMOSA = StateSystem.DISABLED;
-                            Thread.sleep(100);
-                            System.exit(1);
+                            disable();
                         }
                         if (stateMonitoring == StateMonitoring.DISABLED){
-                            communicationIFA.sendData(TypeMsgCommunication.MOSA_IFA_DISABLED);
-                            stateMOSA = StateSystem.DISABLED;
-                            Thread.sleep(100);
-                            System.exit(1);
+                            disable();
                         }
                         Thread.sleep(Constants.TIME_TO_SLEEP_MONITORING_STATE_MACHINE);                     
                     }
@@ -329,134 +345,64 @@ public class MissionManager {
     }
     
     /**
-     * Command that triggers the buzzer if the drone arrives at the specified location.
-     * Note: Devido a forma como foi feito se tiver dois waypoints no mesmo lugar, 
-     * esse codigo nao funciona muito bem, acionando um após o outro não olhando 
-     * questões relacionados a ordem dos fatos. Por exemplo, Case-III do artigo IROS.
-     * @since version 1.1.0
-     */
-    private void actionTurnOnTheBuzzer(){   
-        double lat = drone.getSensors().getGPS().lat;
-        double lng = drone.getSensors().getGPS().lng;
-        double alt = drone.getSensors().getBarometer().alt_rel;
-        double distH = Integer.MAX_VALUE;
-        double distV = Integer.MAX_VALUE;
-        int index = 0;
-        for (int i = 0; i < wptsBuzzer.size(); i++){
-            double latDestiny = wptsBuzzer.getWaypoint(i).getLat();
-            double lngDestiny = wptsBuzzer.getWaypoint(i).getLng();
-            double altDestiny = config.getAltRelMission();            
-            double distHActual = UtilGeom.distanceEuclidian(lat, lng, latDestiny, lngDestiny);
-            double distVActual = Math.abs(alt - altDestiny); 
-            if (distHActual < distH && distVActual < verticalErrorBarometer){
-                distH = distHActual;
-                distV = distVActual;
-                index = i;
-            }
-        }        
-        if (distH < horizontalErrorGPS*Constants.ONE_METER && distV < verticalErrorBarometer){   
-            if (wptsBuzzer.size() > 0){
-                wptsBuzzer.removeWaypoint(index);
-            }
-            StandardPrints.printMsgEmph("turn on the buzzer");
-            BuzzerControl buzzer = new BuzzerControl();
-            buzzer.turnOnBuzzer();
-        }
-    }
-    
-    /**
-     * Take the action of take a picture
-     * @since version 3.0.0
-     */
-    private void actionTakeAPicture(){
-        double lat = drone.getSensors().getGPS().lat;
-        double lng = drone.getSensors().getGPS().lng;
-        double alt = drone.getSensors().getBarometer().alt_rel;        
-        double distH = Integer.MAX_VALUE;
-        double distV = Integer.MAX_VALUE;
-        int index = 0;
-        for (int i = 0; i < wptsCameraPicture.size(); i++){
-            double latDestiny = wptsCameraPicture.getWaypoint(i).getLat();
-            double lngDestiny = wptsCameraPicture.getWaypoint(i).getLng();
-            double altDestiny = config.getAltRelMission();            
-            double distHActual = UtilGeom.distanceEuclidian(lat, lng, latDestiny, lngDestiny);
-            double distVActual = Math.abs(alt - altDestiny); 
-            if (distHActual < distH && distVActual < verticalErrorBarometer){
-                distH = distHActual;
-                distV = distVActual;
-                index = i;
-            }
-        }        
-        if (distH < horizontalErrorGPS*Constants.ONE_METER && distV < verticalErrorBarometer){   
-            if (wptsCameraPicture.size() > 0){
-                wptsCameraPicture.removeWaypoint(index);
-            }
-            StandardPrints.printMsgEmph("turn on the camera picture");
-            camera.takeAPicture();
-        }
-    }
-    
-    /**
-     * Take the action of make a video
+     * Disables the MOSA: warns the IFA, stops the heartbeat and closes the
+     * communication before the exit.
+     * @throws InterruptedException
      * @since version 4.0.0
      */
-    private void actionMakeAVideo(){
-        double lat = drone.getSensors().getGPS().lat;
-        double lng = drone.getSensors().getGPS().lng;
-        double alt = drone.getSensors().getBarometer().alt_rel;        
-        double distH = Integer.MAX_VALUE;
-        double distV = Integer.MAX_VALUE;
-        int index = 0;
-        for (int i = 0; i < wptsCameraVideo.size(); i++){
-            double latDestiny = wptsCameraVideo.getWaypoint(i).getLat();
-            double lngDestiny = wptsCameraVideo.getWaypoint(i).getLng();
-            double altDestiny = config.getAltRelMission();            
-            double distHActual = UtilGeom.distanceEuclidian(lat, lng, latDestiny, lngDestiny);
-            double distVActual = Math.abs(alt - altDestiny); 
-            if (distHActual < distH && distVActual < verticalErrorBarometer){
-                distH = distHActual;
-                distV = distVActual;
-                index = i;
-            }
-        }        
-        if (distH < horizontalErrorGPS*Constants.ONE_METER && distV < verticalErrorBarometer){   
-            if (wptsCameraVideo.size() > 0){
-                wptsCameraVideo.removeWaypoint(index);
-            }
-            StandardPrints.printMsgEmph("turn on the camera video");
-            camera.makeAVideo();
-        }
+    private void disable() throws InterruptedException {
+        communicationIFA.sendData(TypeMsgCommunication.MOSA_IFA_DISABLED);
+        stateMOSA = StateSystem.DISABLED;
+        Thread.sleep(100);
+        communicationIFA.close();
+        System.exit(1);
     }
     
     /**
-     * Take the action of taking photos in sequence
+     * Creates the triggers of the actions of the mission (buzzer and camera)
+     * with the waypoints of the feature mission file.
+     * Note: Se tiver dois waypoints da mesma acao no mesmo lugar, eles sao 
+     * acionados um apos o outro (um por ciclo de monitoramento), na ordem do 
+     * arquivo. Por exemplo, Case-III do artigo IROS.
      * @since version 4.0.0
+     * @see WaypointTrigger
      */
-    private void actionPhotoInSequence(){
-        double lat = drone.getSensors().getGPS().lat;
-        double lng = drone.getSensors().getGPS().lng;
-        double alt = drone.getSensors().getBarometer().alt_rel;        
-        double distH = Integer.MAX_VALUE;
-        double distV = Integer.MAX_VALUE;
-        int index = 0;
-        for (int i = 0; i < wptsCameraPhotoInSeq.size(); i++){
-            double latDestiny = wptsCameraPhotoInSeq.getWaypoint(i).getLat();
-            double lngDestiny = wptsCameraPhotoInSeq.getWaypoint(i).getLng();
-            double altDestiny = config.getAltRelMission();            
-            double distHActual = UtilGeom.distanceEuclidian(lat, lng, latDestiny, lngDestiny);
-            double distVActual = Math.abs(alt - altDestiny); 
-            if (distHActual < distH && distVActual < verticalErrorBarometer){
-                distH = distHActual;
-                distV = distVActual;
-                index = i;
-            }
+    private void createTriggers(){
+        triggers = new WaypointTrigger(horizontalErrorGPS*Constants.ONE_METER, 
+                verticalErrorBarometer);
+        double altDestiny = config.getAltRelMission();
+        if (config.hasBuzzer()){
+            triggers.addAction(wptsBuzzer, altDestiny, new Runnable() {
+                @Override
+                public void run() {
+                    StandardPrints.printMsgEmph("turn on the buzzer");
+                    BuzzerControl buzzer = new BuzzerControl();
+                    buzzer.turnOnBuzzer();
+                }
+            });
         }
-        if (distH < horizontalErrorGPS*Constants.ONE_METER && distV < verticalErrorBarometer){   
-            if (wptsCameraPhotoInSeq.size() > 0){
-                wptsCameraPhotoInSeq.removeWaypoint(index);
-            }
-            StandardPrints.printMsgEmph("turn on the camera photo in sequence");
-            camera.photoInSequence();
+        if (config.hasCamera()){
+            triggers.addAction(wptsCameraPicture, altDestiny, new Runnable() {
+                @Override
+                public void run() {
+                    StandardPrints.printMsgEmph("turn on the camera picture");
+                    camera.takeAPicture();
+                }
+            });
+            triggers.addAction(wptsCameraVideo, altDestiny, new Runnable() {
+                @Override
+                public void run() {
+                    StandardPrints.printMsgEmph("turn on the camera video");
+                    camera.makeAVideo();
+                }
+            });
+            triggers.addAction(wptsCameraPhotoInSeq, altDestiny, new Runnable() {
+                @Override
+                public void run() {
+                    StandardPrints.printMsgEmph("turn on the camera photo in sequence");
+                    camera.photoInSequence();
+                }
+            });
         }
     }
     
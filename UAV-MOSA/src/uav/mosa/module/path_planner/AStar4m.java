@@ -3,23 +3,39 @@ package uav.mosa.module.path_planner;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
+import lib.uav.reader.ReaderFileMap;
 import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
 import lib.uav.struct.geom.Position3D;
+import lib.uav.struct.geom.RegionIndex;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.GridAStar;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilIO;
 
 /**
  * The class models the path planner AStar4m.
+ * Note: the routes are planned in the JVM (GridAStar) or by the program
+ * A-Start (property prop.mosa.planner.astar4m.in_jvm); only the routes of 
+ * the program use the route cache (the search in the JVM takes less time 
+ * than the key of the cache).
  * @author Jesimar S. Arantes
  * @since version 4.0.0
  * @see Planner
  */
 public class AStar4m extends Planner{
     
+    private GridAStar grid;
+    
     /**
      * Class constructor
      * @param drone instance of the aircraft
@@ -38,13 +54,111 @@ public class AStar4m extends Planner{
      * @since version 4.0.0
      */
     public boolean execMission(int i) {
+        if (config.isInJvmPlannerAStar4m()){
+            return planRoute3D(i) && parseRoute3DtoGeo(i);
+        }
         boolean itIsOkpathAB = definePathAB(i); 
-        boolean itIsOkExec   = execMethod();
+        boolean itIsOkExec   = execProgram(i, itIsOkpathAB);
         boolean itIsOkCopy   = copyRoute3D(i);
         boolean itIsOkParse  = parseRoute3DtoGeo(i);
         return itIsOkpathAB && itIsOkExec && itIsOkCopy && itIsOkParse;
     }
     
+    /**
+     * Runs the program A-Start (output.txt) or reads its output of the route 
+     * cache if the route was planned before with the same files.
+     * @param i the i-th index of the route
+     * @param isOkPathAB the files of the route were written
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean execProgram(int i, boolean isOkPathAB) {
+        if (cache == null || !isOkPathAB){
+            return execMethod();
+        }
+        String key = RouteCache.createKey(config.getTypePlanner(), config.getCmdExecPlanner(), 
+                new File(dir + "goals.txt"), new File(dir + "map-nfz-astar.sgl"));
+        return cache.loadOrPlan(key, new File(dir + "output.txt"), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return execMethod();
+            }
+        });
+    }
+    
+    /**
+     * Plans the route between two points (i.e. A and B) in the JVM and writes
+     * it in the route file (the grid is made in the first route and reused).
+     * @param i the i-th index of the route
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean planRoute3D(int i) {
+        if (grid == null){
+            createGrid();
+        }
+        Position3D p1 = waypointsMission.getPosition(i);
+        Position3D p2 = waypointsMission.getPosition(i+1);
+        List<double[]> route = grid.plan(p1.getX(), p1.getY(), p2.getX(), p2.getY(), 
+                config.getMaxTimePlannerAStar4m());
+        if (route == null){
+            StandardPrints.printMsgWarning(grid.isTimeout() ? 
+                    "route " + i + " not found in the max time" : "route " + i + " not found");
+            return false;
+        }
+        try {
+            PrintStream print3D = new PrintStream(new File(dir + "route3D" + i + ".txt"));
+            double h = config.getAltRelMission();
+            for (double p[] : route){
+                print3D.println(p[0] + ";" + p[1] + ";" + h);
+            }
+            print3D.close();
+            return true;
+        } catch (FileNotFoundException ex) {
+            StandardPrints.printMsgWarning("Warning [FileNotFoundException]: planRoute3D()");
+            return false;
+        }
+    }
+    
+    /**
+     * Creates the grid of the planner with the no-fly zones of the file
+     * map-nfz.sgl, around the no-fly zones and the waypoints of the mission.
+     * @since version 4.0.0
+     */
+    private void createGrid() {
+        RegionIndex index = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+        try {
+            ReaderFileMap.map(new File(config.getDirFiles() + "map-nfz.sgl"), index);
+        } catch (FileNotFoundException ex) {
+            StandardPrints.printMsgWarning("Warning [FileNotFoundException]: createGrid()");
+        }
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (Poly p : index.getRegions(TypeRegion.NFZ)){
+            for (double x : ((Poly3D)p).getVetx()){
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+            }
+            for (double y : ((Poly3D)p).getVety()){
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        for (Position3D p : waypointsMission.getMission()){
+            minX = Math.min(minX, p.getX());
+            maxX = Math.max(maxX, p.getX());
+            minY = Math.min(minY, p.getY());
+            maxY = Math.max(maxY, p.getY());
+        }
+        grid = new GridAStar(index, config.getSizeCellPlannerAStar4m(), 
+                minX - Constants.BORDER_GRID_ASTAR, maxX + Constants.BORDER_GRID_ASTAR, 
+                minY - Constants.BORDER_GRID_ASTAR, maxY + Constants.BORDER_GRID_ASTAR);
+    }
+    
     /**
      * Define the path between two points (i.e. A and B).
      * @param i the i-th index of the route
@@ -4,11 +4,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.struct.Waypoint;
 import lib.uav.struct.geom.Position3D;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilIO;
 
@@ -38,7 +40,7 @@ public class CCQSP4m extends Planner{
      */
     public boolean execMission() {
         boolean itIsOkUpdate = updateFileConfig();     
-        boolean itIsOkExec   = execMethod();
+        boolean itIsOkExec   = execProgram(itIsOkUpdate);
         boolean itIsOkCopy   = copyRoute3D();
         boolean itIsOkParse  = parseRoute3DtoGeo();
         return itIsOkUpdate && itIsOkExec && itIsOkCopy && itIsOkParse;
@@ -73,6 +75,28 @@ public class CCQSP4m extends Planner{
         }
     }
     
+    /**
+     * Runs the planner (output.txt) or reads its output of the route cache if 
+     * the mission was planned before with the same files.
+     * @param isOkUpdate the files of the mission were written
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    private boolean execProgram(boolean isOkUpdate) {
+        if (cache == null || !isOkUpdate){
+            return execMethod();
+        }
+        String key = RouteCache.createKey(config.getTypePlanner(), config.getCmdExecPlanner(), 
+                new File(dir + "instance"), new File(dir + "mission.sgl"));
+        return cache.loadOrPlan(key, new File(dir + "output.txt"), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return execMethod();
+            }
+        });
+    }
+    
     /**
      * Copy the route file
      * @return {@code true} if the execution was successful
@@ -4,18 +4,31 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import lib.color.StandardPrints;
 import lib.uav.hardware.aircraft.Drone;
 import lib.uav.hardware.aircraft.DroneFixedWing;
 import lib.uav.struct.Waypoint;
 import lib.uav.struct.geom.Position3D;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilGeo;
 import lib.uav.util.UtilIO;
 
 /**
  * The class models the path planner HGA4m. 
+ * The routes (legs between two waypoints of the mission) don't depend on each
+ * other, so execMissions() can plan several of them at the same time, each in
+ * its own directory (legN), and joins them in the order of the mission.
  * @author Jesimar S. Arantes
  * @since version 1.0.0
  * @see Planner
@@ -40,22 +53,179 @@ public class HGA4m extends Planner{
      * @since version 1.0.0
      */
     public boolean execMission(int i) {
-        boolean itIsOkUpdate = updateFileConfig(i);
-        boolean itIsOkpathAB = definePathAB(i);        
-        boolean itIsOkExec   = execMethod();
-        boolean itIsOkRoute  = createFileFinalRoute(i);
+        boolean itIsOkPlan   = planRoute(i, dir);
         boolean itIsOkParse  = parseRoute3DtoGeo(i);
-        return itIsOkUpdate && itIsOkpathAB && itIsOkExec && itIsOkRoute && itIsOkParse;
+        return itIsOkPlan && itIsOkParse;
+    }
+    
+    /**
+     * Execute all the routes of the mission, planning up to 
+     * prop.mosa.planner.hga4m.parallel_legs routes at the same time. The routes
+     * are added to the mission in order, so the result is the same of calling
+     * execMission(i) for each route.
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean execMissions() {
+        int nRoutes = waypointsMission.size() - 1;
+        int nThreads = Math.min(config.getParallelLegsPlannerHGA4m(), nRoutes);
+        if (nThreads <= 1) {
+            for (int i = 0; i < nRoutes; i++) {
+                long timeInit = System.currentTimeMillis();
+                StandardPrints.printMsgEmph("route: " + i);
+                if (!execMission(i)) {
+                    return false;
+                }
+                StandardPrints.printMsgEmph("Time in Route (ms): " + 
+                        (System.currentTimeMillis() - timeInit));
+            }
+            return true;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        List<Future<Boolean>> routes = new ArrayList<>();
+        for (int i = 0; i < nRoutes; i++) {
+            final int nRoute = i;
+            routes.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    long timeInit = System.currentTimeMillis();
+                    StandardPrints.printMsgEmph("route: " + nRoute);
+                    boolean resp = planLeg(nRoute);
+                    StandardPrints.printMsgEmph("Time in Route " + nRoute + " (ms): " + 
+                            (System.currentTimeMillis() - timeInit));
+                    return resp;
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (int i = 0; i < nRoutes; i++) {
+                if (!routes.get(i).get() || !parseRoute3DtoGeo(i)) {
+                    executor.shutdownNow();
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            StandardPrints.printMsgWarning("Warning [InterruptedException]: execMissions()");
+            executor.shutdownNow();
+            return false;
+        } catch (ExecutionException ex) {
+            StandardPrints.printMsgWarning("Warning [ExecutionException]: execMissions()");
+            executor.shutdownNow();
+            return false;
+        }
+    }
+    
+    /**
+     * Plans a route in its own directory (legN), so that it can run at the
+     * same time as other routes. The route is added to the mission by
+     * parseRoute3DtoGeo(i), in the order of the mission.
+     * @param i the i-th index of the route
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    public boolean planLeg(int i) {
+        String dirLeg = createDirLeg(i);
+        return dirLeg != null && planRoute(i, dirLeg);
+    }
+    
+    /**
+     * Plans a route (without adding it to the mission). The route is read of
+     * the route cache if it was planned before with the same files.
+     * @param i the i-th index of the route
+     * @param dirExec directory where the method is executed
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     */
+    private boolean planRoute(final int i, final String dirExec) {
+        boolean itIsOkUpdate = updateFileConfig(i, dirExec);
+        boolean itIsOkpathAB = definePathAB(i, dirExec);        
+        if (cache == null || !itIsOkUpdate || !itIsOkpathAB){
+            boolean itIsOkExec   = execMethod(new File(dirExec));
+            boolean itIsOkRoute  = createFileFinalRoute(i, dirExec);
+            return itIsOkUpdate && itIsOkpathAB && itIsOkExec && itIsOkRoute;
+        }
+        String key = RouteCache.createKey(config.getTypePlanner(), config.getCmdExecPlanner(), 
+                new File(dirExec + "ga-config"), new File(dirExec + "mission-config.sgl"), 
+                new File(dirExec + "map-nfz.sgl"));
+        return cache.loadOrPlan(key, new File(dir + "route3D" + i + ".txt"), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                //the log of other route can not be read as this route
+                new File(dirExec + "output-simulation.log").delete();
+                boolean itIsOkExec   = execMethod(new File(dirExec));
+                boolean itIsOkRoute  = createFileFinalRoute(i, dirExec);
+                return itIsOkExec && itIsOkRoute;
+            }
+        });
+    }
+    
+    /**
+     * Creates the directory of the route with links to the files of the method.
+     * The files written by the method (ga-config, mission-config.sgl and the
+     * logs) are created inside of this directory.
+     * @param i the i-th index of the route
+     * @return the directory of the route or null if it fails
+     */
+    private String createDirLeg(int i) {
+        try {
+            File dirLeg = new File(dir + "leg" + i);
+            deleteDir(dirLeg);
+            Files.createDirectories(dirLeg.toPath());
+            File files[] = new File(dir).listFiles();
+            for (File file : files) {
+                String name = file.getName();
+                if (name.matches("leg[0-9]+") || name.endsWith(".log") || 
+                        name.startsWith("route3D") || name.startsWith("routeGeo") ||
+                        name.equals("ga-config") || name.equals("mission-config.sgl")) {
+                    continue;
+                }
+                Path link = new File(dirLeg, name).toPath();
+                try {
+                    Files.createSymbolicLink(link, file.toPath().toAbsolutePath());
+                } catch (IOException | UnsupportedOperationException ex) {
+                    copy(file, link.toFile());
+                }
+            }
+            return dirLeg.getPath() + "/";
+        } catch (IOException ex) {
+            StandardPrints.printMsgWarning("Warning [IOException]: createDirLeg()");
+            return null;
+        }
+    }
+    
+    private static void copy(File src, File dst) throws IOException {
+        if (src.isDirectory()) {
+            Files.createDirectories(dst.toPath());
+            for (File file : src.listFiles()) {
+                copy(file, new File(dst, file.getName()));
+            }
+        } else {
+            Files.copy(src.toPath(), dst.toPath());
+        }
+    }
+    
+    private static void deleteDir(File file) {
+        if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
+            for (File f : file.listFiles()) {
+                deleteDir(f);
+            }
+        }
+        file.delete();
     }
     
     /**
      * Updates the configuration file used by the method.
      * @param i the i-th index of the route
+     * @param dirExec directory where the method is executed
      * @return {@code true} if the execution was successful
      *         {@code false} otherwise
      * @since version 1.0.0
      */
-    public boolean updateFileConfig(int i) {
+    public boolean updateFileConfig(int i, String dirExec) {
         try {
             double px1 = waypointsMission.getPosition(i).getX();
             double py1 = waypointsMission.getPosition(i).getY();
@@ -67,7 +237,7 @@ public class HGA4m extends Planner{
             double dist = Math.sqrt(dx*dx+dy*dy)*2;
             
             File src_ga = new File(dir + "ga-config-base");
-            File dst_ga = new File(dir + "ga-config");
+            File dst_ga = new File(dirExec + "ga-config");
             String time = config.getTimeExecPlannerHGA4m(i);
             String timeH = String.format("%d", (int)(dist));
             //usando metade dos waypoints DeltaT=2
@@ -84,36 +254,28 @@ public class HGA4m extends Planner{
         }
     }
     
-    private double vx1 = 0.0;
-    private double vy1 = 0.0;
-    
     /**
      * Define the path between two points (i.e. A and B).
      * @param i the i-th index of the route
+     * @param dirExec directory where the method is executed
      * @return {@code true} if the execution was successful
      *         {@code false} otherwise
      * @since version 1.0.0
      */
-    private boolean definePathAB(int i) {
+    private boolean definePathAB(int i, String dirExec) {
         try {
             double px1 = waypointsMission.getPosition(i).getX();
             double py1 = waypointsMission.getPosition(i).getY();
             double px2 = waypointsMission.getPosition(i+1).getX();
             double py2 = waypointsMission.getPosition(i+1).getY();
-            double vx2 = 0;
-            double vy2 = 0;
-            if (i < waypointsMission.size() - 2){
-                double px3 = waypointsMission.getPosition(i+2).getX();
-                double py3 = waypointsMission.getPosition(i+2).getY();
-                double dx = px3 - px1;
-                double dy = py3 - py1;
-                double norm = Math.sqrt(dx*dx+dy*dy);
-                double vc = drone.getAttributes().getSpeedCruize();
-                vx2 = dx * vc/norm;
-                vy2 = dy * vc/norm;
-            }   
+            double v1[] = velocityAtWaypoint(i);
+            double v2[] = velocityAtWaypoint(i+1);
+            double vx1 = v1[0];
+            double vy1 = v1[1];
+            double vx2 = v2[0];
+            double vy2 = v2[1];
             
-            PrintStream print = new PrintStream(new File(dir + "mission-config.sgl"));
+            PrintStream print = new PrintStream(new File(dirExec + "mission-config.sgl"));
             print.println("----------- start state (px py vx vy) -----------");
             if (drone instanceof DroneFixedWing){
                 print.println(px1 + "," + py1 + "," + vx1 + "," + vy1);
@@ -130,8 +292,6 @@ public class HGA4m extends Planner{
             print.println("<TrueName>");
             print.println("Config2D-2.sgl");
             print.close();
-            vx1 = vx2;
-            vy1 = vy2;
             return true;
         } catch (FileNotFoundException ex) {
             StandardPrints.printMsgWarning("Warning [FileNotFoundException]: definePathAB()");
@@ -139,16 +299,36 @@ public class HGA4m extends Planner{
         } 
     }  
     
+    /**
+     * Velocity of the aircraft when it passes by the waypoint: cruise speed in
+     * the direction from the previous to the next waypoint (zero in the first
+     * and in the last waypoint). It depends only on the waypoints, so the
+     * routes can be planned in any order.
+     * @param i the i-th index of the waypoint
+     * @return the velocity {vx, vy}
+     */
+    private double[] velocityAtWaypoint(int i) {
+        if (i == 0 || i >= waypointsMission.size() - 1) {
+            return new double[]{0.0, 0.0};
+        }
+        double dx = waypointsMission.getPosition(i+1).getX() - waypointsMission.getPosition(i-1).getX();
+        double dy = waypointsMission.getPosition(i+1).getY() - waypointsMission.getPosition(i-1).getY();
+        double norm = Math.sqrt(dx*dx+dy*dy);
+        double vc = drone.getAttributes().getSpeedCruize();
+        return new double[]{dx * vc/norm, dy * vc/norm};
+    }
+    
     /**
      * Creates a final route file
      * @param i the i-th index of the route
+     * @param dirExec directory where the method was executed
      * @return {@code true} if the execution was successful
      *         {@code false} otherwise
      * @since version 1.0.0
      */
-    private boolean createFileFinalRoute(int i) {
+    private boolean createFileFinalRoute(int i, String dirExec) {
         try {
-            File src = new File(dir + "output-simulation.log");
+            File src = new File(dirExec + "output-simulation.log");
             File dst = new File(dir + "out-sim"+i+".log");
             UtilIO.copyFile(src, dst);
             File route = new File(dir + "route3D"+i+".txt");
@@ -230,6 +410,14 @@ public class HGA4m extends Planner{
         UtilIO.deleteFile(new File(dir), ".log");
         UtilIO.deleteFile(new File(dir), ".png");
         new File(dir + "log_error.txt").delete(); 
+        File files[] = new File(dir).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory() && file.getName().matches("leg[0-9]+")) {
+                    deleteDir(file);
+                }
+            }
+        }
     }
 
 }
@@ -10,6 +10,7 @@ import lib.uav.struct.constants.TypePlanner;
 import lib.uav.struct.geom.PointGeo;
 import lib.uav.struct.mission.Mission;
 import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.RouteCache;
 import lib.uav.util.UtilRunThread;
 import uav.mosa.module.mission_manager.MissionManager;
 
@@ -27,6 +28,7 @@ public abstract class Planner {
     final Mission3D mission3D;
     final Mission missionGeo;
     final PointGeo pointGeo;
+    final RouteCache cache;
 
     /**
      * Class constructor
@@ -42,6 +44,8 @@ public abstract class Planner {
         this.mission3D = new Mission3D();
         this.missionGeo = new Mission();
         this.pointGeo = MissionManager.pointGeo;
+        this.cache = config.hasRouteCache() ? new RouteCache(config.getDirRouteCache(), 
+                config.getMaxEntriesRouteCache(), config.getMaxSizeRouteCache()) : null;
     }
     
     /**
@@ -76,6 +80,17 @@ public abstract class Planner {
      * @since version 1.0.0
      */
     boolean execMethod(){
+        return execMethod(new File(dir));
+    }
+    
+    /**
+     * Method that runs the path planner in a directory.
+     * @param dirExec directory where the path planner is executed
+     * @return {@code true} if the execution was successful
+     *         {@code false} otherwise
+     * @since version 4.0.0
+     */
+    boolean execMethod(File dirExec){
         try {
             boolean isPrint = false;
             boolean isPrintError = false;
@@ -95,7 +110,7 @@ public abstract class Planner {
             }else if (config.getTypePlanner().equals(TypePlanner.G_PATH_PLANNER4M)){
                 cmd = config.getCmdExecPlanner();
             }
-            UtilRunThread.dualSingleThreadWaitFor(cmd, new File(dir), isPrint, isPrintError);
+            UtilRunThread.dualSingleThreadWaitFor(cmd, dirExec, isPrint, isPrintError);
             return true;
         } catch (IOException ex) {
             System.err.println("Error [IOException] execMethod()");
@@ -1,6 +1,6 @@
 #Authors: Jesimar da Silva Arantes and Andre Missaglia
 #Date: 01/06/2017
-#Last Update: 15/03/2018
+#Last Update: 18/10/2026
 #Description: Code that defines the possible request headers.
 #Descricao: Codigo que define os cabecalhos das requisicoes possiveis.
 
@@ -30,6 +30,11 @@ GET_URLS = {
     '/get-all-sensors/': views.getAllInfoSensors
 }
 
+#urls that keep the connection open and send a frame (one line) when the data change
+STREAM_URLS = {
+    '/stream-all-sensors/': views.streamAllInfoSensors
+}
+
 POST_URLS = {
     '/set-waypoint/': views.setWaypoint,
     '/append-waypoint/': views.appendWaypoint,
@@ -1,6 +1,6 @@
 #Authors: Jesimar da Silva Arantes and Andre Missaglia
 #Date: 01/06/2017
-#Last Update: 15/03/2018
+#Last Update: 18/10/2026
 #Description: Code that initializes the HTTP server that responds to GET and POST requests.
 #Descricao: Codigo que inicia o servidor HTTP que responde a requisicoes GET e POST.
 
@@ -8,13 +8,72 @@ import BaseHTTPServer
 import json
 import traceback
 import time
-from requisitions import GET_URLS, POST_URLS
+import socket
+import threading
+from SocketServer import ThreadingMixIn
+from requisitions import GET_URLS, POST_URLS, STREAM_URLS
+
+#minimum time between two frames of the stream (maximum of 20 frames per second)
+STREAM_MIN_PERIOD = 0.05
+#a frame is sent at least each second, even if the data do not change (keep-alive)
+STREAM_KEEP_ALIVE = 1.0
 
 vehicle = None
+#the commands of concurrent connections (IFA and MOSA) are sent to the vehicle one at a time
+command_lock = threading.Lock()
 
 class Handler(BaseHTTPServer.BaseHTTPRequestHandler):
+    #HTTP/1.1 keeps the connection open (keep-alive) between requests of IFA and MOSA
+    protocol_version = "HTTP/1.1"
+    #without Nagle the small responses are not delayed in the persistent connections
+    disable_nagle_algorithm = True
+
+    def sendJSON(self, code, response):
+        body = json.dumps(response)
+        self.send_response(code)
+        self.send_header("Content-type", "application/json")
+        self.send_header("Content-Length", str(len(body)))
+        self.end_headers()
+        self.wfile.write(body)
+
+    def sendStream(self, view):
+        global vehicle
+        changed = threading.Event()
+        def listener(self_vehicle, name, value):
+            changed.set()
+        vehicle.add_attribute_listener('*', listener)
+        self.close_connection = 1
+        try:
+            self.send_response(200)
+            self.send_header("Content-type", "application/x-ndjson")
+            self.send_header("Transfer-Encoding", "chunked")
+            self.end_headers()
+            last = None
+            time_last = 0
+            while True:
+                changed.wait(STREAM_KEEP_ALIVE)
+                changed.clear()
+                body = json.dumps(view({'vehicle': vehicle}))
+                now = time.time()
+                if body != last or now - time_last >= STREAM_KEEP_ALIVE:
+                    frame = body + "\n"
+                    self.wfile.write("%x\r\n%s\r\n" % (len(frame), frame))
+                    self.wfile.flush()
+                    last = body
+                    time_last = now
+                time.sleep(STREAM_MIN_PERIOD)
+        except socket.error:
+            pass
+        except:
+            traceback.print_exc()
+        finally:
+            vehicle.remove_attribute_listener('*', listener)
+
     def do_GET(self):
         global vehicle
+        if self.path in STREAM_URLS:
+            self.sendStream(STREAM_URLS[self.path])
+            return
         if self.path not in GET_URLS:
             self.send_error(404, "File not found")
             return
@@ -23,16 +82,9 @@ class Handler(BaseHTTPServer.BaseHTTPRequestHandler):
         }
         try:
             response = GET_URLS[self.path](request)
-            self.send_response(200)
-            self.send_header("Content-type", "application/json")
-            self.end_headers()
-            self.wfile.write(json.dumps(response))
+            self.sendJSON(200, response)
         except:
-            response = {}
-            self.send_response(500)
-            self.send_header("Content-type", "application/json")
-            self.end_headers()
-            self.wfile.write(json.dumps(response))
+            self.sendJSON(500, {})
             traceback.print_exc()
 
     def do_POST(self):
@@ -46,25 +98,23 @@ class Handler(BaseHTTPServer.BaseHTTPRequestHandler):
             'vehicle': vehicle
         }
         try:
-            response = POST_URLS[self.path](request)
-            self.send_response(200)
-            self.send_header("Content-type", "application/json")
-            self.end_headers()
-            self.wfile.write(json.dumps(response))
+            with command_lock:
+                response = POST_URLS[self.path](request)
+            self.sendJSON(200, response)
         except:
-            response = {}
-            self.send_response(500)
-            self.send_header("Content-type", "application/json")
-            self.end_headers()
-            self.wfile.write(json.dumps(response))
+            self.sendJSON(500, {})
             traceback.print_exc()
 
+class ThreadedHTTPServer(ThreadingMixIn, BaseHTTPServer.HTTPServer):
+    #one thread per connection, the persistent connections of IFA and MOSA are served at the same time
+    daemon_threads = True
+
 def runServer(con, host, port):
     global vehicle
     vehicle = con
     print "Server Starts - %s:%s" % (host, port)
     print time.asctime()
-    httpd = BaseHTTPServer.HTTPServer((host, port), Handler)
+    httpd = ThreadedHTTPServer((host, port), Handler)
     print "serving at port", port
     try:
         httpd.serve_forever()
@@ -1,6 +1,6 @@
 #Authors: Jesimar da Silva Arantes and Andre Missaglia
 #Date: 01/06/2017
-#Last Update: 15/03/2018
+#Last Update: 18/10/2026
 #Description: Code that defines the commands that can be requested to the drone through the GET and POST methods.
 #Descricao: Codigo que define os comandos que podem ser requisitados ao drone atraves dos metodos GET e POST.
 
@@ -222,17 +222,28 @@ Comando que obtem todas as informacoes dos sensores do drone em um unico comando
 '''
 def getAllInfoSensors(request):
     vehicle = request['vehicle']
+    next_waypoint = vehicle.commands.next
+    count_waypoint = vehicle.commands.count
+    response = allInfoSensors(vehicle)
+    print 'next-waypoint = %s    count-waypoint = %s' % (next_waypoint, count_waypoint)
+    print 'dist-to-home: ', response['all-sensors'][17]
+    print 'dist-to-current-wpt (%s): %s' % (next_waypoint, response['all-sensors'][18])
+    return response
+
+'''
+Comando que obtem todas as informacoes dos sensores do drone (frames do stream-all-sensors).
+'''
+def streamAllInfoSensors(request):
+    return allInfoSensors(request['vehicle'])
+
+def allInfoSensors(vehicle):
     gps = vehicle.location.global_relative_frame
     alt_abs = vehicle.location.global_frame.alt
-    bat = vehicle.battery
     att = vehicle.attitude
     dist_to_home = commands.getDistanceMeters(gps, vehicle.home_location)
     dist_to_current_waypoint = commands.getDistanceToCurrentWaypoint(vehicle)
     next_waypoint = vehicle.commands.next
     count_waypoint = vehicle.commands.count
-    print 'next-waypoint = %s    count-waypoint = %s' % (next_waypoint, count_waypoint)
-    print 'dist-to-home: ', dist_to_home
-    print 'dist-to-current-wpt (%s): %s' % (next_waypoint, dist_to_current_waypoint)
     return {
         'all-sensors': [float('%.10g' % gps.lat), float('%.10g' % gps.lon), 
         float('%.2g' % gps.alt), float('%.2g' % alt_abs), float('%.4g' % att.pitch), 
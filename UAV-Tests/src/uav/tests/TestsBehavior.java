@@ -0,0 +1,107 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import lib.color.StandardPrints;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeBehavior;
+import lib.uav.struct.geom.PointGeo;
+import lib.uav.struct.mission.Mission;
+import lib.uav.util.UtilBehavior;
+import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilRoute;
+import lib.uav.util.UtilRunThread;
+
+/**
+ * Compares the routes of behavior made in Java (UtilBehavior) with the old
+ * program RouteStandard4m executed in a new process (as MOSA did in each
+ * change of behavior in flight) and read from its file route-behavior.txt.
+ * For each type of behavior (circle, triangle and rectangle) and some
+ * discretizations the test measures the time of the two generators and the
+ * biggest distance between the waypoints of the two missions (the program
+ * writes the coordinates with 8 decimals, about 1 mm).
+ * The test receives the directory of the program (if the program does not
+ * run the test measures only the Java).
+ * @author Jesimar S. Arantes
+ */
+public class TestsBehavior {
+
+    private static final double LAT = -22.00593264981567;
+    private static final double LNG = -47.89870966454083;
+    private static final double ALT = 10.0;
+    private static final int DISCRETIZATIONS[] = {8, 16, 32, 64, 256};
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: routes of behavior (RouteStandard4m process x Java)");
+        String dirProgram = args.length > 0 ? args[0] : "../Modules-MOSA/Route-Standard4m/";
+        File dir = Files.createTempDirectory("behavior").toFile();
+        File program = new File(dir, "RouteStandard4m");
+        Files.copy(new File(dirProgram, "RouteStandard4m").toPath(), program.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        program.setExecutable(true);
+        //warm up
+        for (int i = 0; i < 10000; i++) {
+            UtilBehavior.createMission(TypeBehavior.CIRCLE, LAT, LNG, ALT, 8.0, 16);
+            UtilBehavior.createMission(TypeBehavior.TRIANGLE, LAT, LNG, ALT, 16.0, 16);
+            UtilBehavior.createMission(TypeBehavior.RECTANGLE, LAT, LNG, ALT, 16.0, 16);
+        }
+        for (String type : new String[]{TypeBehavior.CIRCLE, TypeBehavior.TRIANGLE, TypeBehavior.RECTANGLE}) {
+            double dist = type.equals(TypeBehavior.CIRCLE) ? 8.0 : 16.0;
+            for (int disc : DISCRETIZATIONS) {
+                long t0 = System.nanoTime();
+                Mission java = null;
+                for (int r = 0; r < ROUNDS; r++) {
+                    java = UtilBehavior.createMission(type, LAT, LNG, ALT, dist, disc);
+                }
+                long t1 = System.nanoTime();
+                Mission process = null;
+                for (int r = 0; r < ROUNDS; r++) {
+                    new File(dir, "route-behavior.txt").delete();
+                    UtilRunThread.runCmdSingleThreadWaitFor("./RouteStandard4m " + LAT + " " + LNG + " "
+                            + ALT + " " + type + " " + dist + " " + disc, dir, false);
+                    process = new Mission();
+                    if (!new File(dir, "route-behavior.txt").exists()
+                            || !UtilRoute.readFileRouteMOSA(process, dir + "/route-behavior.txt")) {
+                        process = null;
+                        break;
+                    }
+                }
+                long t2 = System.nanoTime();
+                String line = String.format("%-9s disc: %3d | waypoints: %3d | Java: %8.2f us", type, disc,
+                        java.size(), (t1 - t0) / 1e3 / ROUNDS);
+                if (process != null) {
+                    line += String.format(" | process: %8.2f us | max distance: %s", (t2 - t1) / 1e3 / ROUNDS,
+                            process.size() == java.size() ? String.format("%.4f m", maxDistance(java, process))
+                                    : "different sizes");
+                } else {
+                    line += " | process: not run";
+                }
+                System.out.println(line);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static double maxDistance(Mission a, Mission b) {
+        PointGeo base = new PointGeo(LNG, LAT, 0.0);
+        double max = 0.0;
+        for (int i = 0; i < a.size(); i++) {
+            Waypoint wa = a.getWaypoint(i);
+            Waypoint wb = b.getWaypoint(i);
+            if (!wa.getAction().equals(wb.getAction())) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double dx = UtilGeo.convertGeoToX(base, wa.getLng()) - UtilGeo.convertGeoToX(base, wb.getLng());
+            double dy = UtilGeo.convertGeoToY(base, wa.getLat()) - UtilGeo.convertGeoToY(base, wb.getLat());
+            double dz = wa.getAlt() - wb.getAlt();
+            max = Math.max(max, Math.sqrt(dx * dx + dy * dy + dz * dz));
+        }
+        return max;
+    }
+
+}
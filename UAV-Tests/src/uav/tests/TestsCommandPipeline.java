@@ -0,0 +1,210 @@
+package uav.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.AutopilotCommandPipeline;
+import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.mission.Mission;
+
+/**
+ * Compares the time of the sequence of commands of an emergency landing of
+ * IFA (reduce speed, restore speed, send mission, change mode) sent one by one
+ * with the blocking methods of DataAcquisitionS2DK (before) and with the
+ * AutopilotCommandPipeline (after). A local HTTP server simulates the
+ * UAV-S2DK behind a proxy that delays each direction of the connection, as a
+ * network between the companion computer and the autopilot would.
+ * It also checks that the commands arrive in order and that repeated speed
+ * changes are coalesced.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsCommandPipeline {
+
+    private static final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: autopilot command pipeline");
+        int delay = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        HttpHandler handler = new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = readAll(exchange.getRequestBody());
+                received.add(exchange.getRequestURI().getPath() + " " + body);
+                byte[] resp = "{}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, resp.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(resp);
+                out.close();
+            }
+        };
+        for (String url : new String[]{"/set-parameter/", "/set-mission/",
+            "/set-mode/", "/set-waypoint/"}) {
+            server.createContext(url, handler);
+        }
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        int port = startDelayProxy(server.getAddress().getPort(), delay);
+
+        DataAcquisitionS2DK dataAcquisition = new DataAcquisitionS2DK(
+                new DroneRotaryWing("iDroneAlpha"), "IFA", "localhost", port, null);
+        AutopilotCommandPipeline commands = new AutopilotCommandPipeline(dataAcquisition);
+        Mission mission = new Mission();
+        mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, -22.0059, -47.8987, 5.0));
+        mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, -22.0060, -47.8988, 0.0));
+        double navSpeed = 500;
+
+        double before[] = new double[repetitions];
+        double after[] = new double[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            long timeInit = System.nanoTime();
+            dataAcquisition.setNavigationSpeed(navSpeed / 10);
+            dataAcquisition.setNavigationSpeed(navSpeed);
+            dataAcquisition.setMission(mission);
+            dataAcquisition.setMode("AUTO");
+            before[i] = (System.nanoTime() - timeInit) / 1e6;
+
+            timeInit = System.nanoTime();
+            commands.setNavigationSpeed(navSpeed / 10);
+            commands.setNavigationSpeed(navSpeed);
+            commands.setMission(mission);
+            AutopilotCommandPipeline.waitResult(commands.setMode("AUTO"));
+            after[i] = (System.nanoTime() - timeInit) / 1e6;
+        }
+        print("blocking, one by one     ", before);
+        print("pipeline (futures)       ", after);
+        System.out.println("commands submitted: " + commands.getCountSubmitted()
+                + " sent: " + commands.getCountSent()
+                + " coalesced: " + commands.getCountCoalesced()
+                + " groups: " + commands.getCountBatches());
+
+        //order and coalescing
+        received.clear();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        futures.add(commands.setWaypoint(new Waypoint(TypeWaypoint.LAND_VERTICAL, 0, 0, 0)));
+        for (int i = 1; i <= 10; i++) {
+            futures.add(commands.setNavigationSpeed(i * 100));
+        }
+        futures.add(commands.setMission(mission));
+        futures.add(commands.setMode("GUIDED"));
+        futures.add(commands.setMode("AUTO"));
+        boolean ok = true;
+        for (CompletableFuture<Boolean> future : futures) {
+            ok &= AutopilotCommandPipeline.waitResult(future);
+        }
+        System.out.println("all futures with success: " + ok);
+        System.out.println("commands received by the server (in order):");
+        for (String cmd : received) {
+            System.out.println("    " + cmd);
+        }
+
+        commands.shutdown();
+        dataAcquisition.close();
+        server.stop(0);
+        System.exit(0);
+    }
+
+    /**
+     * Starts a TCP proxy that delays each block of bytes by delay ms in each
+     * direction (the order of the bytes is kept).
+     * @return the port of the proxy
+     */
+    private static int startDelayProxy(final int portServer, final int delay) throws IOException {
+        final ServerSocket proxy = new ServerSocket(0);
+        Executors.newSingleThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket client = proxy.accept();
+                        Socket server = new Socket("localhost", portServer);
+                        client.setTcpNoDelay(true);
+                        server.setTcpNoDelay(true);
+                        pump(client.getInputStream(), server.getOutputStream(), delay);
+                        pump(server.getInputStream(), client.getOutputStream(), delay);
+                    }
+                } catch (IOException ex) {
+
+                }
+            }
+        });
+        return proxy.getLocalPort();
+    }
+
+    private static void pump(final InputStream in, final OutputStream out, final int delay) {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        Executors.newSingleThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[8192];
+                int n;
+                try {
+                    while ((n = in.read(buffer)) >= 0) {
+                        final byte[] data = Arrays.copyOf(buffer, n);
+                        scheduler.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    out.write(data);
+                                    out.flush();
+                                } catch (IOException ex) {
+
+                                }
+                            }
+                        }, delay, TimeUnit.MILLISECONDS);
+                    }
+                } catch (IOException ex) {
+
+                }
+            }
+        });
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void print(String title, double time[]) {
+        double sorted[] = time.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (double t : sorted) {
+            sum += t;
+        }
+        System.out.println(String.format("%s -> mean: %7.2f ms; p50: %7.2f ms; max: %7.2f ms",
+                title, sum / sorted.length, sorted[sorted.length / 2], sorted[sorted.length - 1]));
+    }
+
+}
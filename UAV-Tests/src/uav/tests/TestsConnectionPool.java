@@ -0,0 +1,152 @@
+package uav.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.DataAcquisitionS2DK;
+
+/**
+ * Compares the latency per request of DataAcquisitionS2DK opening a new
+ * connection in each request (before) and using the pool of persistent
+ * connections (after) against a local HTTP server that simulates the UAV-S2DK.
+ * It also checks that a command answered with the status 500 (as UAV-S2DK
+ * does when the command fails) is a failure, alone and pipelined.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsConnectionPool {
+
+    private static final String ALL_SENSORS = "{\"all-sensors\": [-22.0059333, "
+            + "-47.8987082, 0.07, 870.0, 0.009657, 2.025, 0.004823, 116, 0.0, 0.0, "
+            + "3, 10, 121, 65535, [0.0, -0.31, 0.01], 0, 0, 0.16173128321728691, "
+            + "null, \"STABILIZE\", \"STANDBY\", false, true, true]}";
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: connection pool S2DK");
+        int numberRequests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/get-all-sensors/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                reply(exchange, 200, ALL_SENSORS);
+            }
+        });
+        server.createContext("/set-mode/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                reply(exchange, 200, "{}");
+            }
+        });
+        server.createContext("/set-mission/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                reply(exchange, 500, "{}");
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        int port = server.getAddress().getPort();
+
+        DataAcquisitionS2DK dataAcquisition = new DataAcquisitionS2DK(
+                new DroneRotaryWing("iDroneAlpha"), "IFA", "localhost", port, null);
+
+        dataAcquisition.setKeepAlive(false);
+        measure(dataAcquisition, numberRequests / 10);//warm-up
+        double before[] = measure(dataAcquisition, numberRequests);
+
+        dataAcquisition.setKeepAlive(true);
+        measure(dataAcquisition, numberRequests / 10);//warm-up
+        double after[] = measure(dataAcquisition, numberRequests);
+
+        print("new connection per request", before);
+        print("persistent connections    ", after);
+        System.out.println("connections opened by the pool: "
+                + dataAcquisition.getConnectionPool().getCountConnectionsOpened()
+                + " for " + dataAcquisition.getConnectionPool().getCountRequests() + " requests");
+
+        boolean ok = checkStatus(dataAcquisition, false) & checkStatus(dataAcquisition, true);
+
+        dataAcquisition.close();
+        server.stop(0);
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void reply(HttpExchange exchange, int code, String msg) throws IOException {
+        exchange.getRequestBody().close();
+        byte[] body = msg.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    /**
+     * Checks the result of a command accepted (200) and of a command rejected
+     * (500) by the server, alone and pipelined with others.
+     * @return {@code true} if the rejected commands are failures
+     */
+    private static boolean checkStatus(DataAcquisitionS2DK dataAcquisition, boolean keepAlive) {
+        dataAcquisition.setKeepAlive(keepAlive);
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        System.setErr(new PrintStream(new ByteArrayOutputStream()));
+        boolean accepted = dataAcquisition.POST("/set-mode/", "{}");
+        boolean rejected = dataAcquisition.POST("/set-mission/", "{}");
+        boolean batch[] = dataAcquisition.POST(new String[]{"/set-mode/", "/set-mission/", "/set-mode/"},
+                new String[]{"{}", "{}", "{}"});
+        System.setOut(out);
+        System.setErr(err);
+        boolean ok = accepted && !rejected && Arrays.equals(batch, new boolean[]{true, false, true});
+        String msg = String.format("status 500 (%s) -> POST 200: %s | POST 500: %s | pipelined 200, 500, 200: %s",
+                keepAlive ? "persistent connections" : "new connection per request",
+                accepted, rejected, Arrays.toString(batch));
+        if (ok) {
+            System.out.println(msg);
+        } else {
+            StandardPrints.printMsgWarning(msg + " (the command rejected must be false)");
+        }
+        return ok;
+    }
+
+    /**
+     * Measures the latency of each GET get-all-sensors.
+     * @return the latencies in microseconds (sorted)
+     */
+    private static double[] measure(DataAcquisitionS2DK dataAcquisition, int numberRequests) {
+        double latency[] = new double[numberRequests];
+        for (int i = 0; i < numberRequests; i++) {
+            long timeInit = System.nanoTime();
+            dataAcquisition.getAllInfoSensors();
+            latency[i] = (System.nanoTime() - timeInit) / 1000.0;
+        }
+        Arrays.sort(latency);
+        return latency;
+    }
+
+    private static void print(String title, double latency[]) {
+        double sum = 0;
+        for (double l : latency) {
+            sum += l;
+        }
+        System.out.println(String.format("%s -> mean: %8.1f us; p50: %8.1f us; p99: %8.1f us; max: %8.1f us",
+                title, sum / latency.length, latency[latency.length / 2],
+                latency[(int) (latency.length * 0.99)], latency[latency.length - 1]));
+    }
+
+}
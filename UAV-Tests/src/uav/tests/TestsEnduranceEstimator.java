@@ -0,0 +1,157 @@
+package uav.tests;
+
+import java.util.Locale;
+import java.util.Random;
+import lib.color.StandardPrints;
+import lib.uav.struct.constants.Constants;
+import lib.uav.util.EnduranceEstimator;
+
+/**
+ * Compares the prediction of the consumption of the battery for the RTL with
+ * the constant efficiencies (previous code of SecurityManager) and with the
+ * EnduranceEstimator learned during the flight. A simulated aircraft, with a
+ * consumption different from the constants, flies between random waypoints
+ * (hovering in each one) and reports the battery level in integer %; each
+ * second the test compares the predictions with the true consumption of the
+ * RTL from the current position. It also shows the coefficients learned, the
+ * fraction of RTLs whose consumption is below the prediction plus the margin
+ * and the time per sample; at the end of the flights of each aircraft it shows
+ * the mean of these results and in how many flights the learned model was
+ * worse than the constants (the test fails if there is some flight).
+ * @author Jesimar S. Arantes
+ */
+public class TestsEnduranceEstimator {
+
+    private static final double DT = 0.1;//10 Hz
+    private static final double ALT_RTL = 15.0;
+    //parameters of the autopilot (WPNAV_SPEED, WPNAV_SPEED_UP, WPNAV_SPEED_DN)
+    private static final double SPEED_H = 5.0;
+    private static final double SPEED_UP = 2.5;
+    private static final double SPEED_DN = 1.5;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: endurance estimator (constants x learned)");
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        //true aircraft: {per meter horizontal, up, down, per second} and cruise speed
+        double aircrafts[][] = {
+            {0.060, 0.350, 0.150, 0.180, 4.0},
+            {0.020, 0.250, 0.100, 0.300, 3.0},
+            {0.090, 0.500, 0.200, 0.120, 5.0}
+        };
+        boolean ok = true;
+        for (int a = 0; a < aircrafts.length; a++) {
+            double sumOld = 0;
+            double sumNew = 0;
+            double sumCovered = 0;
+            int worse = 0;
+            for (int f = 0; f < flights; f++) {
+                double result[] = run(aircrafts[a], new Random(f));
+                sumOld += result[0];
+                sumNew += result[1];
+                sumCovered += result[2];
+                if (result[1] > result[0]) {
+                    worse++;
+                }
+            }
+            StandardPrints.printMsgEmph(String.format("aircraft %d: error RTL: constants %5.2f%% -> learned %5.2f%%"
+                    + " | covered by margin: %5.1f%% | learned worse than constants: %d of %d flights",
+                    a + 1, sumOld / flights, sumNew / flights, sumCovered / flights, worse, flights));
+            if (worse > 0) {
+                StandardPrints.printMsgWarning(String.format("aircraft %d: learned model worse than the constants", a + 1));
+                ok = false;
+            }
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Flies the aircraft until 30% of battery.
+     * @return the mean error of the RTL with the constants and learned (in %
+     *         of battery) and the percentage of RTLs covered by the margin
+     */
+    private static double[] run(double real[], Random rnd) {
+        EnduranceEstimator estimator = new EnduranceEstimator(
+                Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED, Constants.EFFICIENCY_VERTICAL_UP_SIMULATED,
+                Constants.EFFICIENCY_VERTICAL_DOWN_SIMULATED, Constants.EFFICIENCY_FLIGHT_TIME_SIMULATED,
+                SPEED_H, SPEED_UP, SPEED_DN, Constants.FORGETTING_FACTOR_ENDURANCE);
+        double battery = 100.0;
+        double x = 0, y = 0, z = 0;
+        double tx = 0, ty = 0, tz = 20;
+        double hover = 0;
+        double time = 0;
+        double errorOld = 0;
+        double errorNew = 0;
+        int covered = 0;
+        int count = 0;
+        long timeUpdate = 0;
+        int samples = 0;
+        while (battery > 30) {
+            //moves to the target (first vertical, then horizontal) or hovers
+            double vx = 0, vy = 0, dz = 0;
+            double dh = Math.hypot(tx - x, ty - y);
+            if (Math.abs(tz - z) > 0.05) {
+                double v = tz > z ? SPEED_UP : SPEED_DN;
+                dz = Math.signum(tz - z) * Math.min(v * DT, Math.abs(tz - z));
+            } else if (dh > 0.2) {
+                double step = Math.min(real[4] * DT, dh);
+                vx = (tx - x) / dh * step / DT;
+                vy = (ty - y) / dh * step / DT;
+            } else if (hover <= 0) {
+                hover = 5 + rnd.nextDouble() * 10;
+            } else {
+                hover -= DT;
+                if (hover <= 0) {
+                    double angle = rnd.nextDouble() * 2 * Math.PI;
+                    double radius = rnd.nextDouble() * 300;
+                    tx = radius * Math.cos(angle);
+                    ty = radius * Math.sin(angle);
+                    tz = 10 + rnd.nextDouble() * 20;
+                }
+            }
+            x += vx * DT;
+            y += vy * DT;
+            z += dz;
+            time += DT;
+            battery -= real[0] * Math.hypot(vx, vy) * DT + (dz > 0 ? real[1] * dz : -real[2] * dz)
+                    + real[3] * DT;
+            long t0 = System.nanoTime();
+            estimator.update(time, vx + rnd.nextGaussian() * 0.1, vy + rnd.nextGaussian() * 0.1,
+                    z + rnd.nextGaussian() * 0.05, Math.floor(battery), true);
+            timeUpdate += System.nanoTime() - t0;
+            samples++;
+            //each second after the first 2 minutes: prediction of the RTL from here
+            if (time > 120 && samples % 10 == 0) {
+                double distH = Math.hypot(x, y);
+                double up = Math.max(ALT_RTL - z, 0);
+                double down = Math.max(z, ALT_RTL);
+                double trueTime = up / SPEED_UP + distH / real[4] + down / SPEED_DN;
+                double trueRTL = real[0] * distH + real[1] * up + real[2] * down + real[3] * trueTime;
+                double oldRTL = up * Constants.EFFICIENCY_VERTICAL_UP_SIMULATED
+                        + down * Constants.EFFICIENCY_VERTICAL_DOWN_SIMULATED
+                        + distH * Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED;
+                double newTime = up / estimator.getSpeedUp() + distH / estimator.getSpeedHorizontal()
+                        + down / estimator.getSpeedDown();
+                double newRTL = estimator.getConsumption(distH, up, down, newTime);
+                double margin = Constants.NUMBER_STD_DEV_RTL
+                        * estimator.getStdDevConsumption(distH, up, down, newTime);
+                errorOld += Math.abs(oldRTL - trueRTL);
+                errorNew += Math.abs(newRTL - trueRTL);
+                if (trueRTL <= newRTL + margin) {
+                    covered++;
+                }
+                count++;
+            }
+        }
+        double c[] = estimator.getCoefficients();
+        System.out.println(String.format("real [%.3f %.3f %.3f %.3f, %.1f m/s] learned [%.3f %.3f %.3f %.3f, %.1f %.1f %.1f m/s]"
+                + " | flight: %4.0f s, steps: %2d | error RTL: constants %5.2f%% -> learned %5.2f%%"
+                + " | covered by margin: %5.1f%% | update: %4.0f ns",
+                real[0], real[1], real[2], real[3], real[4], c[0], c[1], c[2], c[3],
+                estimator.getSpeedHorizontal(), estimator.getSpeedUp(), estimator.getSpeedDown(), time, estimator.getCountSteps(),
+                errorOld / count, errorNew / count, 100.0 * covered / count,
+                (double) timeUpdate / samples));
+        return new double[]{errorOld / count, errorNew / count, 100.0 * covered / count};
+    }
+
+}
@@ -0,0 +1,134 @@
+package uav.tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.util.FlightDataRecorder;
+
+/**
+ * Compares the time that the monitoring loop spends in the log of the aircraft
+ * writing with println and flush in each cycle (before) and with the
+ * FlightDataRecorder (after). The file is simulated by a stream with stalls in
+ * the flush, as the SD card of the companion computer.
+ * It also shows the policy of the full buffer with a small recorder.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsFlightDataRecorder {
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: flight data recorder");
+        int cycles = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int period = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Drone drone = new DroneRotaryWing("iDroneAlpha");
+
+        //before: println and flush in each cycle
+        SlowCard card = new SlowCard();
+        PrintStream log = new PrintStream(card);
+        double before[] = new double[cycles];
+        for (int i = 0; i < cycles; i++) {
+            String line = drone.toString();
+            long timeInit = System.nanoTime();
+            log.println(line);
+            log.flush();
+            before[i] = (System.nanoTime() - timeInit) / 1e6;
+            Thread.sleep(period);
+        }
+        log.close();
+        print("println + flush   ", before, card);
+
+        //after: flight data recorder
+        card = new SlowCard();
+        FlightDataRecorder recorder = new FlightDataRecorder(new PrintStream(card));
+        double after[] = new double[cycles];
+        for (int i = 0; i < cycles; i++) {
+            String line = drone.toString();
+            long timeInit = System.nanoTime();
+            recorder.record(line);
+            after[i] = (System.nanoTime() - timeInit) / 1e6;
+            Thread.sleep(period);
+        }
+        recorder.close();
+        print("FlightDataRecorder", after, card);
+        System.out.println(String.format("    written: %d; dropped: %d; batches: %d; max lag: %.1f ms",
+                recorder.getCountWritten(), recorder.getCountDropped(),
+                recorder.getCountBatches(), recorder.getMaxLag()));
+
+        //full buffer: 4 threads recording without pause in a recorder of 256 records
+        card = new SlowCard();
+        final FlightDataRecorder small = new FlightDataRecorder(new PrintStream(card), 256, 100);
+        Thread threads[] = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        small.record(id + ";" + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        small.close();
+        System.out.println(String.format("full buffer (4 x 20000 records, capacity 256) -> "
+                + "written: %d; dropped: %d; total: %d; lines in the file: %d",
+                small.getCountWritten(), small.getCountDropped(),
+                small.getCountWritten() + small.getCountDropped(), card.lines));
+    }
+
+    private static void print(String title, double time[], SlowCard card) {
+        double sorted[] = time.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (double t : sorted) {
+            sum += t;
+        }
+        System.out.println(String.format("%s -> time in the log per cycle: mean: %7.3f ms; "
+                + "p99: %7.3f ms; max: %7.3f ms; flushes: %d", title, sum / sorted.length,
+                sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1], card.flushes));
+    }
+
+    /**
+     * Stream that simulates the SD card: 1 ms per flush and 100 ms each 50 flushes.
+     */
+    private static class SlowCard extends OutputStream {
+
+        int flushes;
+        int lines;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+            try {
+                Thread.sleep(flushes % 50 == 0 ? 100 : 1);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+}
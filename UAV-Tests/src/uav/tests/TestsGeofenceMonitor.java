@@ -0,0 +1,151 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import lib.color.StandardPrints;
+import lib.uav.reader.ReaderFileMap;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+import lib.uav.util.GeofenceMonitor;
+import lib.uav.util.UtilGeom;
+
+/**
+ * Measures the cost per telemetry sample of the geofence of the IFA
+ * (GeofenceMonitor over the grid hash) and compares it with the same check
+ * made by linear scan of all the no-fly zones: position inside a no-fly zone
+ * and corridor of the trajectory predicted crossing a no-fly zone. The
+ * samples are the positions of aircrafts flying in straight lines over the
+ * map (bouncing on its borders), at the 10 Hz of the telemetry. Uses the maps
+ * of Instances/Real and bigger maps made by repeating the map of GECCO-2017
+ * side by side. The test checks that both give the same answers.
+ * @author Jesimar S. Arantes
+ */
+public class TestsGeofenceMonitor {
+
+    private static final double HORIZON = 3.0;
+    private static final double MARGIN = 2.0;
+    private static final double MAX_SPEED = 10.0;
+    private static final double DT = 0.1;//10 Hz
+    private static final int AIRCRAFTS = 20;
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: geofence monitor (linear x grid hash)");
+        String dir = args.length > 0 ? args[0] : "../Instances/Real/";
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        List<File> maps = new ArrayList<>();
+        UtilMaps.listMaps(new File(dir), maps);
+        for (File file : maps) {
+            RegionIndex index = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+            ReaderFileMap.map(file, index);
+            run(file.getParentFile().getName() + "/" + file.getName(), index, samples);
+        }
+        File gecco = new File(dir, "Path-Replanning/GECCO-2017/map.sgl");
+        if (gecco.exists()) {
+            for (int side : new int[]{4, 16, 32}) {
+                RegionIndex base = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+                ReaderFileMap.map(gecco, base);
+                run("GECCO-2017 x " + side * side, UtilMaps.tile(base, side, Constants.SIZE_CELL_GEOFENCE), samples);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, RegionIndex index, int samples) {
+        List<Poly> nfz = index.getRegions(TypeRegion.NFZ);
+        if (nfz.isEmpty()) {
+            return;
+        }
+        double box[] = UtilMaps.bounds(index);
+        Random rnd = new Random(samples);
+        double s[][] = new double[samples][4];
+        double a[][] = new double[AIRCRAFTS][4];
+        for (int k = 0; k < AIRCRAFTS; k++) {
+            double angle = rnd.nextDouble() * 2 * Math.PI;
+            double speed = rnd.nextDouble() * MAX_SPEED;
+            a[k][0] = box[0] + rnd.nextDouble() * (box[1] - box[0]);
+            a[k][1] = box[2] + rnd.nextDouble() * (box[3] - box[2]);
+            a[k][2] = speed * Math.cos(angle);
+            a[k][3] = speed * Math.sin(angle);
+        }
+        for (int i = 0; i < samples; i++) {
+            double p[] = a[i % AIRCRAFTS];
+            p[0] += p[2] * DT;
+            p[1] += p[3] * DT;
+            if (p[0] < box[0] || p[0] > box[1]) {
+                p[2] = -p[2];
+            }
+            if (p[1] < box[2] || p[1] > box[3]) {
+                p[3] = -p[3];
+            }
+            s[i] = p.clone();
+        }
+        GeofenceMonitor geofence = new GeofenceMonitor(index, HORIZON, MARGIN);
+        boolean linear[] = new boolean[samples];
+        boolean grid[] = new boolean[samples];
+        //warm up
+        for (int i = 0; i < Math.min(samples, 2000); i++) {
+            linearCheck(nfz, s[i][0], s[i][1], s[i][2], s[i][3]);
+            geofence.check(s[i][0], s[i][1], s[i][2], s[i][3]);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            linear[i] = linearCheck(nfz, s[i][0], s[i][1], s[i][2], s[i][3]);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            grid[i] = geofence.check(s[i][0], s[i][1], s[i][2], s[i][3]);
+        }
+        long t2 = System.nanoTime();
+        int diff = 0;
+        int breaches = 0;
+        for (int i = 0; i < samples; i++) {
+            if (linear[i] != grid[i]) {
+                diff++;
+            }
+            if (grid[i]) {
+                breaches++;
+            }
+        }
+        System.out.println(String.format("%-32s no-fly zones: %5d | per sample: %8.2f -> %5.2f us"
+                + " | breaches: %5.1f%% | different answers: %d",
+                name, nfz.size(), (t1 - t0) / 1e3 / samples, (t2 - t1) / 1e3 / samples,
+                100.0 * breaches / samples, diff));
+    }
+
+    private static boolean linearCheck(List<Poly> nfz, double x, double y, double vx, double vy) {
+        for (Poly p : nfz) {
+            if (UtilGeom.isInsidePoly(((Poly3D) p).getVetx(), ((Poly3D) p).getVety(), x, y)) {
+                return true;
+            }
+        }
+        double speed = Math.sqrt(vx * vx + vy * vy);
+        if (speed < 0.2) {
+            return false;
+        }
+        double ux = vx / speed;
+        double uy = vy / speed;
+        double length = speed * HORIZON + MARGIN;
+        double nx = -uy * MARGIN;
+        double ny = ux * MARGIN;
+        for (int side = -1; side <= 1; side++) {
+            double x1 = x + side * nx;
+            double y1 = y + side * ny;
+            for (Poly p : nfz) {
+                if (UtilGeom.intersectsSegmentPoly(((Poly3D) p).getVetx(), ((Poly3D) p).getVety(),
+                        x1, y1, x1 + ux * length, y1 + uy * length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
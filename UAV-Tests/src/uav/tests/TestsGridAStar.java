@@ -0,0 +1,167 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+import lib.color.StandardPrints;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+import lib.uav.util.GridAStar;
+import lib.uav.util.UtilGeom;
+
+/**
+ * Compares the planner A* made in Java (GridAStar, used by AStar4m of MOSA
+ * with in_jvm) with the program A-Start (files goals.txt, map-nfz-astar.sgl
+ * and output.txt, a new process per route) on the maps of path planning of
+ * Instances/Artificial and Instances/Real. As the program has a fixed grid
+ * of 1 meter in [-100, 100], each map is scaled to this area and the Java
+ * uses the same grid. For some random pairs of points (start and goal out of
+ * the no-fly zones) the test measures the time per route, the routes found,
+ * the length of the routes, the routes that cross a no-fly zone and the
+ * distance between the ends of the route and the start and the goal asked.
+ * The test receives the directory of the program (if the program does not
+ * run the test measures only the Java).
+ * @author Jesimar S. Arantes
+ */
+public class TestsGridAStar {
+
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: planner A* (A-Start process x GridAStar)");
+        String dirInstances = args.length > 0 ? args[0] : "../Instances/";
+        String dirProgram = args.length > 1 ? args[1] : "../Modules-MOSA/A-Star4m/";
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        File dir = Files.createTempDirectory("astar").toFile();
+        File program = new File(dir, "A-Start");
+        Files.copy(new File(dirProgram, "A-Start").toPath(), program.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        program.setExecutable(true);
+        for (String set : new String[]{"Artificial/Path-Planning/GECCO-2017", "Artificial/Path-Planning/IJCAI-2018",
+            "Real/Path-Planning"}) {
+            List<File> maps = new ArrayList<>();
+            UtilMaps.listMaps(new File(dirInstances, set), maps);
+            Result java = new Result();
+            Result process = new Result();
+            Random rnd = new Random(maps.size());
+            for (File file : maps) {
+                RegionIndex index = UtilMaps.scale(file);
+                List<Poly> nfz = index.getRegions(TypeRegion.NFZ);
+                GridAStar grid = new GridAStar(index, 1.0, -100, 100, -100, 100);
+                UtilMaps.writeMap(new File(dir, "map-nfz-astar.sgl"), nfz);
+                for (int k = 0; k < pairs; k++) {
+                    double p[] = UtilMaps.randomPoint(rnd, grid);
+                    double q[] = UtilMaps.randomPoint(rnd, grid);
+                    long t0 = System.nanoTime();
+                    List<double[]> route = null;
+                    for (int r = 0; r < ROUNDS; r++) {
+                        route = grid.plan(p[0], p[1], q[0], q[1], 0);
+                    }
+                    java.add(route, (System.nanoTime() - t0) / ROUNDS, nfz, p, q);
+                    if (process.run) {
+                        t0 = System.nanoTime();
+                        route = runProgram(dir, p, q);
+                        process.add(route, System.nanoTime() - t0, nfz, p, q);
+                    }
+                }
+            }
+            System.out.println(String.format("%-36s maps: %3d | routes asked: %3d", set, maps.size(),
+                    maps.size() * pairs));
+            java.print("  GridAStar");
+            if (process.count > 0) {
+                process.print("  A-Start  ");
+            } else {
+                StandardPrints.printMsgWarning("  the program A-Start did not run (only Java measured)");
+            }
+        }
+        System.exit(0);
+    }
+
+    private static List<double[]> runProgram(File dir, double p[], double q[])
+            throws IOException, InterruptedException {
+        try (PrintStream print = new PrintStream(new File(dir, "goals.txt"))) {
+            print.println("#position start");
+            print.println(p[0] + ";" + p[1]);
+            print.println("#position goal");
+            print.println(q[0] + ";" + q[1]);
+        }
+        File output = new File(dir, "output.txt");
+        output.delete();
+        Process proc = new ProcessBuilder("./A-Start").directory(dir)
+                .redirectOutput(new File(dir, "output-simulation.log")).redirectErrorStream(true).start();
+        proc.waitFor();
+        if (!output.exists()) {
+            return null;
+        }
+        List<double[]> route = new ArrayList<>();
+        try (Scanner sc = new Scanner(output)) {
+            while (sc.hasNext()) {
+                String v[] = sc.next().split(";");
+                //the program writes the cells of the grid (origin in -100, -100)
+                route.add(new double[]{Double.parseDouble(v[0]) - 100, Double.parseDouble(v[1]) - 100});
+            }
+        }
+        return route.isEmpty() ? null : route;
+    }
+
+    private static class Result {
+
+        boolean run = true;
+        int count;
+        int found;
+        int crossing;
+        int wrongEnds;
+        double length;
+        double maxErrorEnds;
+        long time;
+
+        void add(List<double[]> route, long time, List<Poly> nfz, double p[], double q[]) {
+            count++;
+            this.time += time;
+            if (route == null) {
+                return;
+            }
+            found++;
+            double first[] = route.get(0);
+            double last[] = route.get(route.size() - 1);
+            double error = Math.max(UtilGeom.distanceEuclidian(first[0], first[1], p[0], p[1]),
+                    UtilGeom.distanceEuclidian(last[0], last[1], q[0], q[1]));
+            maxErrorEnds = Math.max(maxErrorEnds, error);
+            if (error > 1.5) {
+                wrongEnds++;
+            }
+            boolean cross = false;
+            for (int i = 0; i + 1 < route.size(); i++) {
+                double a[] = route.get(i);
+                double b[] = route.get(i + 1);
+                length += UtilGeom.distanceEuclidian(a[0], a[1], b[0], b[1]);
+                for (Poly poly : nfz) {
+                    if (!cross && UtilGeom.intersectsSegmentPoly(((Poly3D) poly).getVetx(),
+                            ((Poly3D) poly).getVety(), a[0], a[1], b[0], b[1])) {
+                        cross = true;
+                    }
+                }
+            }
+            if (cross) {
+                crossing++;
+            }
+        }
+
+        void print(String name) {
+            System.out.println(String.format("%s per route: %9.3f ms | found: %3d/%3d | mean length: %7.2f m"
+                    + " | crossing a no-fly zone: %3d | ends off by more than 1.5 m: %3d (max %.1f m)",
+                    name, time / 1e6 / count, found, count, found > 0 ? length / found : 0, crossing,
+                    wrongEnds, maxErrorEnds));
+        }
+    }
+
+}
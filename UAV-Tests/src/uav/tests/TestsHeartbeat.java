@@ -0,0 +1,93 @@
+package uav.tests;
+
+import java.util.Locale;
+import lib.color.StandardPrints;
+import lib.uav.module.comm.HeartbeatSender;
+import lib.uav.module.comm.HeartbeatWatchdog;
+
+/**
+ * Measures the time that the IFA takes to detect that MOSA died, with the
+ * heartbeat (HeartbeatSender of MOSA and HeartbeatWatchdog of IFA) in the
+ * local machine. In each round the sender beats for a while and then stops
+ * (as a crash of MOSA, or a stall when it only stops beating); the time from
+ * the failure to the call of the listener of the watchdog is measured and
+ * compared with the bound (missed + 1) * period. Before the failures the test
+ * also counts the false alarms in some seconds of beats.
+ * @author Jesimar S. Arantes
+ */
+public class TestsHeartbeat {
+
+    private static final int PORT = 5590;
+
+    public static void main(String[] args) throws InterruptedException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: heartbeat MOSA -> IFA");
+        int period = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int missed = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        falseAlarms(period, missed, 10000);
+        run("crash", period, missed, rounds, true);
+        run("stall", period, missed, rounds, false);
+        System.exit(0);
+    }
+
+    private static void falseAlarms(int period, int missed, long duration) throws InterruptedException {
+        HeartbeatWatchdog watchdog = new HeartbeatWatchdog(PORT, period, missed);
+        HeartbeatSender sender = new HeartbeatSender("localhost", PORT, period);
+        watchdog.start();
+        sender.start();
+        Thread.sleep(duration);
+        System.out.println(String.format("beats in %d s: %5d | biggest interval: %6.2f ms | false alarms: %d",
+                duration / 1000, watchdog.getCountBeats(), watchdog.getMaxInterval(),
+                watchdog.isExpired() ? 1 : 0));
+        sender.stop();
+        watchdog.stop();
+    }
+
+    private static void run(String name, int period, int missed, int rounds, boolean crash)
+            throws InterruptedException {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double sum = 0;
+        int count = 0;
+        for (int r = 0; r < rounds; r++) {
+            HeartbeatWatchdog watchdog = new HeartbeatWatchdog(PORT + 1 + r, period, missed);
+            HeartbeatSender sender = new HeartbeatSender("localhost", PORT + 1 + r, period);
+            Object lock = new Object();
+            watchdog.setListener(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (lock) {
+                        lock.notifyAll();
+                    }
+                }
+            });
+            watchdog.start();
+            sender.start();
+            Thread.sleep(200 + r * 7 % period);
+            long timeFailure;
+            synchronized (lock) {
+                timeFailure = System.nanoTime();
+                if (crash) {
+                    sender.stop();
+                } else {
+                    sender.setAlive(false);
+                }
+                lock.wait(10L * missed * period);
+            }
+            if (watchdog.getTimeDetection() > 0) {
+                double time = (watchdog.getTimeDetection() - timeFailure) / 1e6;
+                min = Math.min(min, time);
+                max = Math.max(max, time);
+                sum += time;
+                count++;
+            }
+            sender.stop();
+            watchdog.stop();
+        }
+        System.out.println(String.format("%s: detected %2d/%2d | time from failure to detection: min %6.2f"
+                + " | mean %6.2f | max %6.2f ms | bound (missed + 1) * period: %d ms",
+                name, count, rounds, min, count > 0 ? sum / count : 0, max, (missed + 1) * period));
+    }
+
+}
@@ -0,0 +1,193 @@
+package uav.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lib.color.StandardPrints;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.MissionPipeline;
+
+/**
+ * Measures the time until the aircraft starts to move and the time of the
+ * whole mission when the routes are planned before the flight (as GROUND:
+ * all the routes planned and then sent) and while flying (MissionPipeline as
+ * PIPELINE of MOSA), with some numbers of threads and routes of lookahead.
+ * The planner sleeps the time of planning of each route (times of the HGA4m
+ * in the mission of the GECCO-2017, scaled down) and the aircraft is
+ * simulated: it flies a waypoint in a fixed time and waits in the last
+ * waypoint sent until the next route arrives (the time waiting is the stall).
+ * The test also reports the routes sent late (aircraft already going to the
+ * last waypoint).
+ * @author Jesimar S. Arantes
+ */
+public class TestsMissionPipeline {
+
+    private static final long TIME_PLAN[] = {400, 400, 400, 400, 400, 600};
+    private static final int WAYPOINTS_ROUTE = 10;
+    private static final long TIME_CHECK = 20;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: mission pipeline (plan before x plan while flying)");
+        long timeWaypoint = args.length > 0 ? Long.parseLong(args[0]) : 50;
+        System.out.println(String.format("routes: %d | planning per route (ms): %s | flight per route: %d ms",
+                TIME_PLAN.length, Arrays.toString(TIME_PLAN), timeWaypoint * WAYPOINTS_ROUTE));
+        for (int threads : new int[]{1, 3}) {
+            ground(threads, timeWaypoint);
+        }
+        for (int threads : new int[]{1, 2, 3}) {
+            for (int lookahead : new int[]{1, 2, TIME_PLAN.length}) {
+                pipeline(threads, lookahead, timeWaypoint);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void ground(int threads, long timeWaypoint) {
+        Aircraft aircraft = new Aircraft(timeWaypoint);
+        long timeInit = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> routes = new ArrayList<>();
+        for (int i = 0; i < TIME_PLAN.length; i++) {
+            final int nRoute = i;
+            routes.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return new Planner().plan(nRoute);
+                }
+            }));
+        }
+        boolean resp = true;
+        for (int i = 0; i < TIME_PLAN.length; i++) {
+            try {
+                resp &= routes.get(i).get();
+            } catch (InterruptedException | ExecutionException ex) {
+                resp = false;
+            }
+        }
+        executor.shutdown();
+        for (int i = 0; i < TIME_PLAN.length; i++) {
+            aircraft.send(new Planner().read(i), i == 0);
+        }
+        long timeFirst = System.currentTimeMillis() - timeInit;
+        aircraft.waitEnd();
+        print(String.format("GROUND   threads: %d", threads), resp, timeFirst,
+                System.currentTimeMillis() - timeInit, aircraft.getTimeStall(), 0);
+    }
+
+    private static void pipeline(int threads, int lookahead, long timeWaypoint) {
+        Aircraft aircraft = new Aircraft(timeWaypoint);
+        long timeInit = System.currentTimeMillis();
+        MissionPipeline pipeline = new MissionPipeline(TIME_PLAN.length, threads, lookahead);
+        boolean resp = pipeline.exec(new Planner(), aircraft, TIME_CHECK);
+        aircraft.waitEnd();
+        print(String.format("PIPELINE threads: %d lookahead: %d", threads, lookahead), resp,
+                pipeline.getTimeFirstRoute(), System.currentTimeMillis() - timeInit,
+                aircraft.getTimeStall(), pipeline.getCountLate());
+    }
+
+    private static void print(String name, boolean resp, long timeFirst, long timeMission,
+            long timeStall, int late) {
+        System.out.println(String.format("%-32s ok: %-5b | first motion: %5d ms | mission: %5d ms"
+                + " | stall: %5d ms | routes late: %d", name, resp, timeFirst, timeMission, timeStall, late));
+    }
+
+    private static class Planner implements MissionPipeline.RoutePlanner {
+
+        @Override
+        public boolean plan(int i) {
+            try {
+                Thread.sleep(TIME_PLAN[i]);
+                return true;
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public Mission read(int i) {
+            Mission mission = new Mission();
+            for (int k = 0; k < WAYPOINTS_ROUTE; k++) {
+                mission.addWaypoint(new Waypoint(i, k, 10));
+            }
+            return mission;
+        }
+    }
+
+    /**
+     * Aircraft that flies a waypoint in a fixed time and waits in the last
+     * waypoint sent (its progress is updated when it is read).
+     */
+    private static class Aircraft implements MissionPipeline.Vehicle {
+
+        private final long timeWaypoint;
+        private int size;
+        private double progress;
+        private long timeLast;
+        private long timeStall;
+
+        public Aircraft(long timeWaypoint) {
+            this.timeWaypoint = timeWaypoint;
+        }
+
+        @Override
+        public synchronized boolean send(Mission mission, boolean first) {
+            update();
+            if (first) {
+                size = 0;
+                progress = 0;
+                timeLast = System.currentTimeMillis();
+            }
+            size += mission.size();
+            return true;
+        }
+
+        @Override
+        public synchronized int getNextWaypoint() {
+            update();
+            return Math.min((int) progress + 1, Math.max(size - 1, 0));
+        }
+
+        public synchronized long getTimeStall() {
+            return timeStall;
+        }
+
+        public void waitEnd() {
+            while (true) {
+                synchronized (this) {
+                    update();
+                    if (progress >= size - 1) {
+                        return;
+                    }
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        private void update() {
+            if (size == 0) {
+                return;
+            }
+            long time = System.currentTimeMillis();
+            double end = progress + (double) (time - timeLast) / timeWaypoint;
+            if (end > size - 1) {
+                timeStall += (long) ((end - (size - 1)) * timeWaypoint);
+                end = size - 1;
+            }
+            progress = end;
+            timeLast = time;
+        }
+    }
+
+}
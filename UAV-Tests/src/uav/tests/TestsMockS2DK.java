@@ -0,0 +1,144 @@
+package uav.tests;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.mission.Mission;
+import uav.tests.mock.MockS2DK;
+import uav.tests.mock.MockVehicle;
+
+/**
+ * Uses the MockS2DK (in-process UAV-S2DK) to:
+ * (1) check all the GET and POST of DataAcquisitionS2DK and fly a short
+ *     mission (takeoff, goto, land vertical) until the vehicle disarms;
+ * (2) load test: N clients (as N modules IFA/MOSA) reading get-all-sensors
+ *     without pause, with latency and jitter added by the mock.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsMockS2DK {
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: MockS2DK (functional and load)");
+        int duration = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int jitter = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        MockS2DK mock = new MockS2DK(new MockVehicle(-22.00593264, -47.89870828, 870.0), 0, 0, 0);
+        mock.start();
+        int port = mock.getPort();
+
+        //functional
+        Drone drone = new DroneRotaryWing("iDroneAlpha");
+        DataAcquisitionS2DK dataAcquisition = new DataAcquisitionS2DK(drone, "IFA", "localhost", port, null);
+        System.out.println("server is running: " + dataAcquisition.serverIsRunning());
+        dataAcquisition.setParameter("WPNAV_SPEED", 1000);
+        dataAcquisition.setParameter("LAND_SPEED", 250);
+        dataAcquisition.getParameters();
+        dataAcquisition.getHomeLocation();
+        dataAcquisition.getBattery();
+        dataAcquisition.getGPSInfo();
+        System.out.println("WPNAV_SPEED: " + drone.getInfo().getListParameters().getValue("WPNAV_SPEED")
+                + " home: " + drone.getInfo().getHomeLocation()
+                + " battery: " + drone.getSensors().getBattery());
+        Mission mission = new Mission();
+        mission.addWaypoint(new Waypoint(TypeWaypoint.TAKEOFF, 0.0, 0.0, 3.0));
+        mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, -22.00583264, -47.89870828, 3.0));
+        mission.addWaypoint(new Waypoint(TypeWaypoint.LAND_VERTICAL, 0.0, 0.0, 0.0));
+        long timeInit = System.currentTimeMillis();
+        System.out.println("set-mission: " + dataAcquisition.setMission(mission));
+        do {
+            Thread.sleep(500);
+            dataAcquisition.getAllInfoSensors();
+            System.out.println(String.format("    t: %4.1f s; next: %d/%d; alt: %5.2f; mode: %s; armed: %s",
+                    (System.currentTimeMillis() - timeInit) / 1000.0,
+                    drone.getInfo().getNextWaypoint(), drone.getInfo().getCountWaypoint(),
+                    drone.getSensors().getBarometer().alt_rel,
+                    drone.getSensors().getStatusUAV().mode,
+                    drone.getSensors().getStatusUAV().armed));
+        } while (drone.getSensors().getStatusUAV().armed
+                && System.currentTimeMillis() - timeInit < 30000);
+        dataAcquisition.getBattery();
+        System.out.println("mission finished, battery: " + drone.getSensors().getBattery());
+        dataAcquisition.close();
+        mock.printCounters();
+
+        //load
+        mock.setLatency(latency, jitter);
+        for (int clients : new int[]{1, 4, 16}) {
+            mock.resetCounters();
+            double time[] = load(port, clients, duration);
+            Arrays.sort(time);
+            double sum = 0;
+            for (double t : time) {
+                sum += t;
+            }
+            System.out.println(String.format("clients: %2d (latency %d+[0,%d] ms) -> requests/s: %7.1f; "
+                    + "mean: %6.2f ms; p50: %6.2f ms; p99: %6.2f ms", clients, latency, jitter,
+                    mock.getCountRequests() * 1000.0 / duration, sum / time.length,
+                    time[time.length / 2], time[(int) (time.length * 0.99)]));
+        }
+        mock.stop();
+        System.exit(0);
+    }
+
+    /**
+     * Each client reads get-all-sensors without pause during the duration.
+     * @return the time of all the requests (in ms)
+     */
+    private static double[] load(final int port, int clients, final int duration)
+            throws InterruptedException {
+        final double time[][] = new double[clients][];
+        final int count[] = new int[clients];
+        final CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            final int id = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    DataAcquisitionS2DK data = new DataAcquisitionS2DK(
+                            new DroneRotaryWing("iDroneAlpha"), "IFA", "localhost", port, null);
+                    double t[] = new double[1024];
+                    int n = 0;
+                    long timeEnd = System.currentTimeMillis() + duration;
+                    while (System.currentTimeMillis() < timeEnd) {
+                        long timeInit = System.nanoTime();
+                        data.getAllInfoSensors();
+                        if (n == t.length) {
+                            t = Arrays.copyOf(t, n * 2);
+                        }
+                        t[n++] = (System.nanoTime() - timeInit) / 1e6;
+                    }
+                    data.close();
+                    time[id] = t;
+                    count[id] = n;
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+        int total = 0;
+        for (int n : count) {
+            total += n;
+        }
+        double all[] = new double[total];
+        int k = 0;
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(time[i], 0, all, k, count[i]);
+            k += count[i];
+        }
+        return all;
+    }
+
+}
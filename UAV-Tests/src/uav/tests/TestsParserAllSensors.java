@@ -0,0 +1,198 @@
+package uav.tests;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.ParserAllSensors;
+
+/**
+ * Checks that ParserAllSensors produces the same values of the old parser of
+ * get-all-sensors (replace, substring and split) and compares the throughput
+ * and the memory allocated per line of both.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsParserAllSensors {
+
+    private static final String ALL_SENSORS = "{\"all-sensors\": [-22.0059333, "
+            + "-47.8987082, 0.07, 870.0, 0.009657, 2.025, 0.004823, 116, 0.0, 0.0, "
+            + "3, 10, 121, 65535, [0.0, -0.31, 0.01], 0, 0, 16.17312832, "
+            + "null, \"STABILIZE\", \"STANDBY\", false, true, true]}";
+
+    private static final String MODES[] = {"STABILIZE", "GUIDED", "AUTO", "RTL", "LAND"};
+    private static final String STATUS[] = {"STANDBY", "ACTIVE", "CRITICAL", "EMERGENCY"};
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: parser all-sensors");
+        int numberLines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        String lines[] = createLines(numberLines, new Random(1));
+        Drone droneOld = new DroneRotaryWing("iDroneAlpha");
+        Drone droneNew = new DroneRotaryWing("iDroneAlpha");
+        ParserAllSensors parser = new ParserAllSensors();
+        int diff = 0;
+        for (String line : lines) {
+            parseOld(line, droneOld);
+            parser.parse(line, droneNew);
+            if (!droneOld.toString().substring(20).equals(droneNew.toString().substring(20))) {
+                diff++;
+                System.out.println("different values: " + line);
+            }
+        }
+        System.out.println("lines compared: " + lines.length + " different: " + diff);
+
+        for (int i = 0; i < 5; i++) {//warm-up
+            benchmarkOld(lines, droneOld);
+            benchmarkNew(lines, droneNew, parser);
+        }
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        long bytesInit = bean.getThreadAllocatedBytes(id);
+        long timeInit = System.nanoTime();
+        benchmarkOld(lines, droneOld);
+        long timeOld = System.nanoTime() - timeInit;
+        long bytesOld = bean.getThreadAllocatedBytes(id) - bytesInit;
+
+        bytesInit = bean.getThreadAllocatedBytes(id);
+        timeInit = System.nanoTime();
+        benchmarkNew(lines, droneNew, parser);
+        long timeNew = System.nanoTime() - timeInit;
+        long bytesNew = bean.getThreadAllocatedBytes(id) - bytesInit;
+
+        print("replace/substring/split", lines.length, timeOld, bytesOld);
+        print("ParserAllSensors       ", lines.length, timeNew, bytesNew);
+
+        //typical flight: same mode and system status, short decimals
+        String typical[] = new String[lines.length];
+        Arrays.fill(typical, ALL_SENSORS);
+        bytesInit = bean.getThreadAllocatedBytes(id);
+        timeInit = System.nanoTime();
+        benchmarkOld(typical, droneOld);
+        timeOld = System.nanoTime() - timeInit;
+        bytesOld = bean.getThreadAllocatedBytes(id) - bytesInit;
+
+        bytesInit = bean.getThreadAllocatedBytes(id);
+        timeInit = System.nanoTime();
+        benchmarkNew(typical, droneNew, parser);
+        timeNew = System.nanoTime() - timeInit;
+        bytesNew = bean.getThreadAllocatedBytes(id) - bytesInit;
+
+        System.out.println("typical line:");
+        print("replace/substring/split", typical.length, timeOld, bytesOld);
+        print("ParserAllSensors       ", typical.length, timeNew, bytesNew);
+    }
+
+    private static void benchmarkOld(String lines[], Drone drone) {
+        for (String line : lines) {
+            parseOld(line, drone);
+        }
+    }
+
+    private static void benchmarkNew(String lines[], Drone drone, ParserAllSensors parser) {
+        for (String line : lines) {
+            parser.parse(line, drone);
+        }
+    }
+
+    private static void print(String title, int n, long time, long bytes) {
+        System.out.println(String.format("%s -> %10.0f lines/s; %8.1f ns/line; %8.1f bytes/line",
+                title, n / (time / 1e9), time / (double) n, bytes / (double) n));
+    }
+
+    /**
+     * Old parser of DataAcquisitionS2DK.getAllInfoSensors() (reference).
+     */
+    private static void parseOld(String allinfo, Drone drone) {
+        allinfo = allinfo.replace("[", "");
+        allinfo = allinfo.replace("]", "");
+        allinfo = allinfo.replace("\"", "");
+        allinfo = allinfo.substring(14, allinfo.length() - 1);
+        String v[] = allinfo.split(", ");
+        drone.getSensors().getGPS().updateGPS(v[0], v[1]);
+        drone.getSensors().getBarometer().updateBarometer(v[2], v[3]);
+        drone.getSensors().getAttitude().updateAttitude(v[4], v[5], v[6]);
+        drone.getSensors().getSensorUAV().setHeading(v[7]);
+        drone.getSensors().getSensorUAV().setGroundspeed(v[8]);
+        drone.getSensors().getSensorUAV().setAirspeed(v[9]);
+        drone.getSensors().getGPSInfo().setFixType(v[10]);
+        drone.getSensors().getGPSInfo().setSatellitesVisible(v[11]);
+        drone.getSensors().getGPSInfo().setEPH(v[12]);
+        drone.getSensors().getGPSInfo().setEPV(v[13]);
+        drone.getSensors().getVelocity().updateVelocity(v[14], v[15], v[16]);
+        drone.getInfo().setNextWaypoint(v[17]);
+        drone.getInfo().setCountWaypoint(v[18]);
+        drone.getInfo().setDistanceToHome(v[19]);
+        drone.getInfo().setDistanceToCurrentWaypoint(v[20]);
+        drone.getSensors().getStatusUAV().setMode(v[21]);
+        drone.getSensors().getStatusUAV().setSystemStatus(v[22]);
+        drone.getSensors().getStatusUAV().setArmed(v[23]);
+        drone.getSensors().getStatusUAV().setIsArmable(v[24]);
+        drone.getSensors().getStatusUAV().setEkfOk(v[25]);
+    }
+
+    /**
+     * Creates lines in the format of get-all-sensors with values as the ones
+     * generated by json.dumps of UAV-S2DK (short and long decimals, exponent
+     * notation and null).
+     */
+    private static String[] createLines(int n, Random rnd) {
+        String lines[] = new String[n];
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder("{\"all-sensors\": [");
+            sb.append(real(rnd, -22.0, 0.01)).append(", ");
+            sb.append(real(rnd, -47.9, 0.01)).append(", ");
+            sb.append(real(rnd, 10, 10)).append(", ");
+            sb.append(real(rnd, 870, 10)).append(", ");
+            sb.append(real(rnd, 0, 0.1)).append(", ");
+            sb.append(real(rnd, 0, 3.14)).append(", ");
+            sb.append(real(rnd, 0, 0.1)).append(", ");
+            sb.append(integer(rnd, 360)).append(", ");
+            sb.append(real(rnd, 2, 2)).append(", ");
+            sb.append(real(rnd, 2, 2)).append(", ");
+            sb.append(integer(rnd, 4)).append(", ");
+            sb.append(integer(rnd, 12)).append(", ");
+            sb.append(integer(rnd, 200)).append(", ");
+            sb.append(integer(rnd, 65536)).append(", ");
+            sb.append("[").append(real(rnd, 0, 2)).append(", ").append(real(rnd, 0, 2))
+                    .append(", ").append(real(rnd, 0, 2)).append("], ");
+            sb.append(rnd.nextInt(30)).append(", ");
+            sb.append(rnd.nextInt(30)).append(", ");
+            sb.append(real(rnd, 50, 50)).append(", ");
+            sb.append(real(rnd, 20, 20)).append(", ");
+            sb.append("\"").append(MODES[rnd.nextInt(MODES.length)]).append("\", ");
+            sb.append("\"").append(STATUS[rnd.nextInt(STATUS.length)]).append("\", ");
+            sb.append(rnd.nextBoolean()).append(", ");
+            sb.append(rnd.nextBoolean()).append(", ");
+            sb.append(rnd.nextBoolean()).append("]}");
+            lines[i] = sb.toString();
+        }
+        return lines;
+    }
+
+    private static String real(Random rnd, double center, double range) {
+        int type = rnd.nextInt(20);
+        if (type == 0) {
+            return "null";
+        } else if (type == 1) {
+            return String.valueOf(center + (rnd.nextDouble() - 0.5) * range * 1e-6);
+        } else if (type == 2) {
+            return String.format("%.3e", center + (rnd.nextDouble() - 0.5) * range);
+        } else if (type < 10) {
+            return String.valueOf(center + (rnd.nextDouble() - 0.5) * range);
+        } else {
+            return String.format("%.7f", center + (rnd.nextDouble() - 0.5) * range);
+        }
+    }
+
+    private static String integer(Random rnd, int max) {
+        return rnd.nextInt(20) == 0 ? "null" : String.valueOf(rnd.nextInt(max));
+    }
+
+}
@@ -0,0 +1,158 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import lib.color.StandardPrints;
+import lib.uav.reader.ReaderFileMap;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+import lib.uav.util.UtilGeom;
+
+/**
+ * Compares the queries of the emergency landing over the regions of the map
+ * by linear scan of all the polygons and by the RegionIndex (grid hash):
+ * point inside a no-fly zone, segment crossing a no-fly zone and nearest
+ * bonus region reachable. Uses the maps of Instances/Real and bigger maps
+ * made by repeating the map of GECCO-2017 (Path-Replanning) side by side.
+ * The test checks that both give the same answers and measures the time per query.
+ * @author Jesimar S. Arantes
+ */
+public class TestsRegionIndex {
+
+    private static final double SIZE_CELL = 25.0;
+    private static final double MAX_LENGTH_SEGMENT = 100.0;
+    private static final double MAX_DISTANCE_BONUS = 300.0;
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: region index (linear x grid hash)");
+        String dir = args.length > 0 ? args[0] : "../Instances/Real/";
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        List<File> maps = new ArrayList<>();
+        UtilMaps.listMaps(new File(dir), maps);
+        for (File file : maps) {
+            RegionIndex index = new RegionIndex(SIZE_CELL);
+            ReaderFileMap.map(file, index);
+            run(file.getParentFile().getName() + "/" + file.getName(), index, queries);
+        }
+        File gecco = new File(dir, "Path-Replanning/GECCO-2017/map.sgl");
+        if (gecco.exists()) {
+            for (int side : new int[]{4, 16, 32}) {
+                RegionIndex base = new RegionIndex(SIZE_CELL);
+                ReaderFileMap.map(gecco, base);
+                run("GECCO-2017 x " + side * side, UtilMaps.tile(base, side, SIZE_CELL), queries);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, RegionIndex index, int queries) {
+        List<Poly> nfz = index.getRegions(TypeRegion.NFZ);
+        List<Poly> bonus = index.getRegions(TypeRegion.BONUS);
+        double box[] = UtilMaps.bounds(index);
+        Random rnd = new Random(queries);
+        double q[][] = new double[queries][4];
+        for (int i = 0; i < queries; i++) {
+            q[i][0] = box[0] + rnd.nextDouble() * (box[1] - box[0]);
+            q[i][1] = box[2] + rnd.nextDouble() * (box[3] - box[2]);
+            double angle = rnd.nextDouble() * 2 * Math.PI;
+            double length = rnd.nextDouble() * MAX_LENGTH_SEGMENT;
+            q[i][2] = q[i][0] + length * Math.cos(angle);
+            q[i][3] = q[i][1] + length * Math.sin(angle);
+        }
+        boolean insideLinear[] = new boolean[queries];
+        boolean crossLinear[] = new boolean[queries];
+        Poly nearestLinear[] = new Poly[queries];
+        boolean insideIndex[] = new boolean[queries];
+        boolean crossIndex[] = new boolean[queries];
+        Poly nearestIndex[] = new Poly[queries];
+        //warm up
+        for (int i = 0; i < Math.min(queries, 2000); i++) {
+            linearInside(nfz, q[i][0], q[i][1]);
+            linearCrosses(nfz, q[i][0], q[i][1], q[i][2], q[i][3]);
+            linearNearest(nfz, bonus, q[i][0], q[i][1]);
+            index.isInside(TypeRegion.NFZ, q[i][0], q[i][1]);
+            index.crossesNFZ(q[i][0], q[i][1], q[i][2], q[i][3]);
+            index.nearestBonus(q[i][0], q[i][1], MAX_DISTANCE_BONUS);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            insideLinear[i] = linearInside(nfz, q[i][0], q[i][1]);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            crossLinear[i] = linearCrosses(nfz, q[i][0], q[i][1], q[i][2], q[i][3]);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            nearestLinear[i] = linearNearest(nfz, bonus, q[i][0], q[i][1]);
+        }
+        long t3 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            insideIndex[i] = index.isInside(TypeRegion.NFZ, q[i][0], q[i][1]);
+        }
+        long t4 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            crossIndex[i] = index.crossesNFZ(q[i][0], q[i][1], q[i][2], q[i][3]);
+        }
+        long t5 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            nearestIndex[i] = index.nearestBonus(q[i][0], q[i][1], MAX_DISTANCE_BONUS);
+        }
+        long t6 = System.nanoTime();
+        int diff = 0;
+        for (int i = 0; i < queries; i++) {
+            if (insideLinear[i] != insideIndex[i] || crossLinear[i] != crossIndex[i]
+                    || nearestLinear[i] != nearestIndex[i]) {
+                diff++;
+            }
+        }
+        System.out.println(String.format("%-32s polygons: %5d | inside: %7.2f -> %5.2f us"
+                + " | crosses: %7.2f -> %5.2f us | nearest bonus: %8.2f -> %6.2f us | different answers: %d",
+                name, nfz.size() + bonus.size() + index.getRegions(TypeRegion.PENALTY).size(),
+                (t1 - t0) / 1e3 / queries, (t4 - t3) / 1e3 / queries,
+                (t2 - t1) / 1e3 / queries, (t5 - t4) / 1e3 / queries,
+                (t3 - t2) / 1e3 / queries, (t6 - t5) / 1e3 / queries, diff));
+    }
+
+    private static boolean linearInside(List<Poly> nfz, double x, double y) {
+        for (Poly p : nfz) {
+            if (UtilGeom.isInsidePoly(((Poly3D) p).getVetx(), ((Poly3D) p).getVety(), x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean linearCrosses(List<Poly> nfz, double x1, double y1, double x2, double y2) {
+        for (Poly p : nfz) {
+            if (UtilGeom.intersectsSegmentPoly(((Poly3D) p).getVetx(), ((Poly3D) p).getVety(),
+                    x1, y1, x2, y2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Poly linearNearest(List<Poly> nfz, List<Poly> bonus, double x, double y) {
+        Poly best = null;
+        double bestDist = Double.MAX_VALUE;
+        for (Poly p : bonus) {
+            Poly3D b = (Poly3D) p;
+            double dist = UtilGeom.distPointToPoly(b.getVetx(), b.getVety(), x, y);
+            if (dist <= MAX_DISTANCE_BONUS && dist < bestDist
+                    && !linearCrosses(nfz, x, y, b.getCenterX(), b.getCenterY())) {
+                best = p;
+                bestDist = dist;
+            }
+        }
+        return best;
+    }
+
+}
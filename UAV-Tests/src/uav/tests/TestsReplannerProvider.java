@@ -0,0 +1,162 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import lib.color.StandardPrints;
+import lib.uav.module.replanner.ReplannerProvider;
+import lib.uav.module.replanner.ReplannerProviders;
+import lib.uav.module.replanner.ReplanningRequest;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.TypeWaypoint;
+import lib.uav.struct.geom.PointGeo;
+import lib.uav.struct.geom.Position3D;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.Mission3D;
+import lib.uav.util.UtilGeo;
+import lib.uav.util.UtilRoute;
+import lib.uav.util.UtilRunThread;
+import uav.tests.mock.MockReplannerProvider;
+
+/**
+ * Compares the emergency replanning of the IFA executed by an external
+ * replanner (new JVM, config.sgl, route.txt, routeGeo.txt) and executed in
+ * process (ReplannerProvider). The provider is found by ServiceLoader in a jar
+ * of the directory of the replanner, as in the IFA.
+ * The two missions must be equal.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsReplannerProvider {
+
+    private static final int NUMBER_WPT_JUMPS = 2;
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: replanner in process");
+        int times = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        File dir = new File(System.getProperty("java.io.tmpdir"), "replanner-mock4s");
+        dir.mkdirs();
+        createJarService(new File(dir, "mock4s.jar"));
+        String dirReplanner = dir.getAbsolutePath() + "/";
+        PointGeo base = new PointGeo(-47.9323, -22.0025, 870.0);
+        ReplanningRequest request = new ReplanningRequest(35.0, -12.0, 1.5,
+                Math.toRadians(30), 40.0, 12, 0.01, 1.0);
+
+        //before: external replanner
+        Mission external = null;
+        long timeInit = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            external = execExternal(request, base, dir);
+        }
+        double timeExternal = (System.nanoTime() - timeInit) / 1e6 / times;
+
+        //after: replanner in process (the first call finds and loads the provider)
+        timeInit = System.nanoTime();
+        ReplannerProvider provider = ReplannerProviders.get(MockReplannerProvider.NAME, dirReplanner);
+        double timeLoad = (System.nanoTime() - timeInit) / 1e6;
+        if (provider == null) {
+            StandardPrints.printMsgError2("provider not found in " + dirReplanner);
+            System.exit(1);
+        }
+        Mission inProcess = null;
+        timeInit = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            inProcess = parse(provider.replan(request), base, request.altitude);
+        }
+        double timeInProcess = (System.nanoTime() - timeInit) / 1e6 / times;
+
+        boolean equal = external.size() == inProcess.size();
+        for (int i = 0; equal && i < external.size(); i++) {
+            equal = external.getWaypoint(i).toString().equals(inProcess.getWaypoint(i).toString());
+        }
+        System.out.println(String.format("external replanner : %9.3f ms", timeExternal));
+        System.out.println(String.format("in process         : %9.3f ms (load: %.1f ms)",
+                timeInProcess, timeLoad));
+        System.out.println("waypoints: " + inProcess.size() + "; equal missions: " + equal);
+        if (!equal) {
+            StandardPrints.printMsgError2("the missions are different");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Executes the replanner as the IFA does with the jars of Modules-IFA.
+     */
+    private static Mission execExternal(ReplanningRequest request, PointGeo base, File dir)
+            throws IOException, InterruptedException {
+        try (PrintStream config = new PrintStream(new File(dir, "config.sgl"))) {
+            config.println(request.px + " " + request.py + " " + request.speed + " "
+                    + request.angle + " " + request.altitude + " " + request.numberWaypoints
+                    + " " + request.delta + " " + request.timeExec);
+        }
+        String cmd = "java -cp " + System.getProperty("java.class.path") + " "
+                + MockReplannerProvider.class.getName() + " " + dir.getAbsolutePath();
+        UtilRunThread.dualSingleThreadWaitFor(cmd, dir);
+        File route = new File(dir, "route.txt");
+        File routeGeo = new File(dir, "routeGeo.txt");
+        int qtdWpt = 0;
+        try (Scanner sc = new Scanner(route)) {
+            while (sc.hasNextLine()) {
+                sc.nextLine();
+                qtdWpt++;
+            }
+        }
+        double h = request.altitude;
+        double frac = h / qtdWpt;
+        try (Scanner sc = new Scanner(route); PrintStream printGeo = new PrintStream(routeGeo)) {
+            while (sc.hasNext()) {
+                double x = sc.nextDouble();
+                double y = sc.nextDouble();
+                h = h - frac;
+                printGeo.println(UtilGeo.parseToGeo(base, x, y, h, ";"));
+            }
+        }
+        Mission mission = new Mission();
+        UtilRoute.readFileRouteIFA(mission, routeGeo.getAbsolutePath(), NUMBER_WPT_JUMPS);
+        return mission;
+    }
+
+    /**
+     * Converts the route in memory as the InProcessReplanner of the IFA.
+     */
+    private static Mission parse(Mission3D route, PointGeo base, double h) {
+        Mission mission = new Mission();
+        double frac = h / route.size();
+        double lat = 0.0;
+        double lng = 0.0;
+        int count = 0;
+        for (Position3D p : route.getMission()) {
+            h = h - frac;
+            lat = UtilGeo.convertYtoLatitude(base.getLat(), p.getY());
+            lng = UtilGeo.convertXtoLongitude(base.getLng(), base.getLat(), p.getX());
+            if (count >= NUMBER_WPT_JUMPS) {
+                mission.addWaypoint(new Waypoint(TypeWaypoint.GOTO, lat, lng, base.getAlt() + h));
+            }
+            count++;
+        }
+        if (mission.size() > 0) {
+            mission.addWaypoint(new Waypoint(TypeWaypoint.LAND, lat, lng, 0.0));
+        }
+        return mission;
+    }
+
+    /**
+     * Creates a jar that only declares the provider (the class is in the
+     * classpath of UAV-Tests).
+     */
+    private static void createJarService(File jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("META-INF/services/" + ReplannerProvider.class.getName()));
+            out.write((MockReplannerProvider.class.getName() + "\n").getBytes("UTF-8"));
+            out.closeEntry();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package uav.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import lib.color.StandardPrints;
+import lib.uav.struct.constants.TypePlanner;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.RegionIndex;
+import lib.uav.util.GridAStar;
+import lib.uav.util.RouteCache;
+
+/**
+ * Measures the route cache (RouteCache, used by the planners of MOSA and GCS)
+ * with the program A-Start (files goals.txt, map-nfz-astar.sgl and
+ * output.txt, as AStar4m with in_jvm=FALSE) on the maps of path planning of
+ * Instances/Artificial. The routes of some random pairs of points are asked
+ * two times (RouteCache.loadOrPlan, as the planners): in the first time they
+ * are planned by the program and stored in the cache (miss), in the second
+ * time they are read of the cache (hit). The
+ * test measures the time per route in the two cases and checks that the
+ * routes read are the same planned. At the end it checks the removal of the
+ * routes used less recently with a maximum number of routes and with a
+ * maximum size.
+ * The test receives the directory of the program.
+ * @author Jesimar S. Arantes
+ */
+public class TestsRouteCache {
+
+    private static final String CMD = "./A-Start";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: route cache (A-Start process x RouteCache)");
+        String dirInstances = args.length > 0 ? args[0] : "../Instances/";
+        String dirProgram = args.length > 1 ? args[1] : "../Modules-MOSA/A-Star4m/";
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        final File dir = Files.createTempDirectory("cache").toFile();
+        File program = new File(dir, "A-Start");
+        Files.copy(new File(dirProgram, "A-Start").toPath(), program.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        program.setExecutable(true);
+        RouteCache cache = new RouteCache(new File(dir, "cache").getPath(), 1000, 16 * 1024 * 1024);
+        File output = new File(dir, "output.txt");
+        List<File> maps = new ArrayList<>();
+        UtilMaps.listMaps(new File(dirInstances, "Artificial/Path-Planning"), maps);
+        List<byte[]> planned = new ArrayList<>();
+        PrintStream out = System.out;
+        PrintStream silent = new PrintStream(new ByteArrayOutputStream());
+        long timeMiss = 0;
+        long timeHit = 0;
+        long timeKey = 0;
+        int diff = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            Random rnd = new Random(maps.size());
+            int count = 0;
+            for (File file : maps) {
+                RegionIndex index = UtilMaps.scale(file);
+                GridAStar grid = new GridAStar(index, 1.0, -100, 100, -100, 100);
+                UtilMaps.writeMap(new File(dir, "map-nfz-astar.sgl"), index.getRegions(TypeRegion.NFZ));
+                for (int k = 0; k < pairs; k++) {
+                    double p[] = UtilMaps.randomPoint(rnd, grid);
+                    double q[] = UtilMaps.randomPoint(rnd, grid);
+                    writeGoals(new File(dir, "goals.txt"), p, q);
+                    long t0 = System.nanoTime();
+                    String key = RouteCache.createKey(TypePlanner.A_STAR4M, CMD, new File(dir, "goals.txt"),
+                            new File(dir, "map-nfz-astar.sgl"));
+                    long t1 = System.nanoTime();
+                    System.setOut(silent);
+                    cache.loadOrPlan(key, output, new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws IOException, InterruptedException {
+                            new ProcessBuilder(CMD).directory(dir).redirectOutput(new File(dir, "output-simulation.log"))
+                                    .redirectErrorStream(true).start().waitFor();
+                            return true;
+                        }
+                    });
+                    System.setOut(out);
+                    long t2 = System.nanoTime();
+                    byte route[] = output.exists() ? Files.readAllBytes(output.toPath()) : new byte[0];
+                    if (pass == 0) {
+                        timeMiss += t2 - t0;
+                        planned.add(route);
+                    } else {
+                        timeHit += t2 - t0;
+                        timeKey += t1 - t0;
+                        if (route.length > 0 && !Arrays.equals(route, planned.get(count))) {
+                            diff++;
+                        }
+                    }
+                    count++;
+                }
+            }
+        }
+        int routes = planned.size();
+        System.out.println(String.format("maps: %d | routes asked: %d (two times) | hits: %d | misses: %d"
+                + " (routes not found are not stored)", maps.size(), routes, cache.getCountHits(),
+                cache.getCountMisses()));
+        System.out.println(String.format("per route: miss (program + store): %9.3f ms | hit: %7.3f ms"
+                + " (key: %.3f ms) | speedup: %.0f times | different routes: %d", timeMiss / 1e6 / routes,
+                timeHit / 1e6 / routes, timeKey / 1e6 / routes, (double) timeMiss / timeHit, diff));
+        checkEviction(dir);
+        System.exit(0);
+    }
+
+    /**
+     * Stores routes in caches with a maximum number of routes and with a
+     * maximum size, reading the first route after each store (it must stay
+     * in the cache).
+     */
+    private static void checkEviction(File dir) throws IOException, InterruptedException {
+        File route = new File(dir, "route.txt");
+        try (PrintStream print = new PrintStream(route)) {
+            for (int i = 0; i < 10; i++) {
+                print.println(i + ";" + i + ";10.0");
+            }
+        }
+        File dirEntries = new File(dir, "cache-entries");
+        File dirSize = new File(dir, "cache-size");
+        RouteCache entries = new RouteCache(dirEntries.getPath(), 10, Long.MAX_VALUE);
+        RouteCache size = new RouteCache(dirSize.getPath(), 1000, 5 * route.length());
+        File read = new File(dir, "read.txt");
+        boolean firstKept = true;
+        for (int i = 0; i < 30; i++) {
+            String key = RouteCache.createKey("TEST", String.valueOf(i));
+            entries.store(key, route);
+            size.store(key, route);
+            Thread.sleep(5);
+            String first = RouteCache.createKey("TEST", "0");
+            firstKept &= entries.load(first, read) && size.load(first, read);
+            Thread.sleep(5);
+        }
+        System.out.println(String.format("eviction: max 10 routes -> %d routes | max size of 5 routes -> %d routes"
+                + " | route used recently kept: %s", dirEntries.list().length, dirSize.list().length, firstKept));
+    }
+
+    private static void writeGoals(File file, double p[], double q[]) throws IOException {
+        try (PrintStream print = new PrintStream(file)) {
+            print.println("#position start");
+            print.println(p[0] + ";" + p[1]);
+            print.println("#position goal");
+            print.println(q[0] + ";" + q[1]);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package uav.tests;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import lib.color.StandardPrints;
+import lib.uav.util.UtilRoute;
+import lib.uav.util.UtilRunThread;
+
+/**
+ * Compares the route simplifier made in Java (UtilRoute.execRouteSimplifier)
+ * with the old script Route-Simplifier.py executed in a new process of Python
+ * for each route, as MOSA and GCS did for each leg planned. Uses the routes
+ * (files of waypoints separated by ';') of Missions and Modules-MOSA with
+ * some factors of simplification; for each route the test measures the time
+ * of the two simplifiers and checks that both give the same waypoints.
+ * The test receives the command of Python and the directory of the script
+ * (if the script does not run the test measures only the Java).
+ * @author Jesimar S. Arantes
+ */
+public class TestsRouteSimplifier {
+
+    private static final double FACTORS[] = {0.064, 0.20, 0.30, 1.00};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: route simplifier (Python process x Java)");
+        String python = args.length > 0 ? args[0] : "python";
+        String dirScript = args.length > 1 ? args[1] : "../Modules-Global/Route-Simplifier/";
+        List<File> routes = new ArrayList<>();
+        listRoutes(new File("../Missions/"), routes);
+        listRoutes(new File("../Modules-MOSA/"), routes);
+        File dirJava = Files.createTempDirectory("simplifier-java").toFile();
+        File dirPython = Files.createTempDirectory("simplifier-python").toFile();
+        Files.copy(new File(dirScript, "Route-Simplifier.py").toPath(),
+                new File(dirPython, "Route-Simplifier.py").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        PrintStream out = System.out;
+        long timeJava = 0;
+        long timePython = 0;
+        int legs = 0;
+        int legsPython = 0;
+        int diff = 0;
+        int sizeInit = 0;
+        int sizeFinal = 0;
+        for (double factor : FACTORS) {
+            for (File route : routes) {
+                String path = route.getAbsolutePath();
+                File outJava = new File(dirJava, "output-simplifier.txt");
+                File outPython = new File(dirPython, "output-simplifier.txt");
+                outPython.delete();
+                System.setOut(new PrintStream(new ByteArrayOutputStream()));
+                long t0 = System.nanoTime();
+                UtilRoute.execRouteSimplifier(path, dirJava.getPath(), String.valueOf(factor), ";");
+                long t1 = System.nanoTime();
+                UtilRunThread.runCmdSingleThreadWaitFor(python + " Route-Simplifier.py " + factor
+                        + " " + path + " ';'", dirPython, false);
+                long t2 = System.nanoTime();
+                System.setOut(out);
+                List<double[]> java = read(outJava);
+                sizeInit += read(route).size();
+                sizeFinal += java.size();
+                timeJava += t1 - t0;
+                legs++;
+                if (outPython.exists()) {
+                    timePython += t2 - t1;
+                    legsPython++;
+                    if (!equals(java, read(outPython))) {
+                        diff++;
+                        StandardPrints.printMsgWarning("different routes: " + route.getPath() + " factor " + factor);
+                    }
+                }
+            }
+        }
+        System.out.println(String.format("routes: %d | factors: %d | waypoints: %d -> %d (%.2f times)",
+                routes.size(), FACTORS.length, sizeInit, sizeFinal, (double) sizeInit / sizeFinal));
+        System.out.println(String.format("Java:   %5d legs | per leg: %9.3f ms", legs, timeJava / 1e6 / legs));
+        if (legsPython > 0) {
+            System.out.println(String.format("Python: %5d legs | per leg: %9.3f ms | speedup: %.0f times"
+                    + " | different routes: %d", legsPython, timePython / 1e6 / legsPython,
+                    (timePython / 1e6 / legsPython) / (timeJava / 1e6 / legs), diff));
+        } else {
+            StandardPrints.printMsgWarning("the script of Python did not run (only Java measured)");
+        }
+        System.exit(0);
+    }
+
+    private static void listRoutes(File dir, List<File> routes) throws IOException {
+        File files[] = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                listRoutes(file, routes);
+            } else if (file.getName().endsWith(".txt") && isRoute(file)) {
+                routes.add(file);
+            }
+        }
+    }
+
+    private static boolean isRoute(File file) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            int count = 0;
+            while ((line = br.readLine()) != null) {
+                if (!line.trim().matches("-?[0-9.]+;-?[0-9.]+;-?[0-9.]+")) {
+                    return false;
+                }
+                count++;
+            }
+            return count >= 2;
+        }
+    }
+
+    private static List<double[]> read(File file) throws IOException {
+        List<double[]> route = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String s[] = line.trim().split(";");
+                double coord[] = new double[s.length];
+                for (int i = 0; i < s.length; i++) {
+                    coord[i] = Double.parseDouble(s[i]);
+                }
+                route.add(coord);
+            }
+        }
+        return route;
+    }
+
+    private static boolean equals(List<double[]> a, List<double[]> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!Arrays.equals(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
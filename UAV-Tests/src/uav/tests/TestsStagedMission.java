@@ -0,0 +1,150 @@
+package uav.tests;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.AutopilotCommandPipeline;
+import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.StagedMission;
+import lib.uav.util.UtilRoute;
+
+/**
+ * Measures the time from the failure injection to the arrival of the POST of
+ * the emergency mission (fixed route of IFA) in a local server that
+ * simulates the UAV-S2DK:
+ * before: the route is read from the file, the Mission is created and
+ * serialized by a new Gson at the moment of the failure;
+ * after: the mission was read, validated and serialized at startup
+ * (StagedMission) and the failure only sends the JSON.
+ * It also checks that the server receives the same JSON and that the staged
+ * mission is read again when the file changes.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsStagedMission {
+
+    private static final LinkedBlockingQueue<Long> arrivals = new LinkedBlockingQueue<>();
+    private static volatile String lastBody;
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: staged emergency mission");
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int waypoints = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        HttpHandler handler = new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                long time = System.nanoTime();
+                lastBody = readAll(exchange.getRequestBody());
+                arrivals.add(time);
+                byte[] resp = "{}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, resp.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(resp);
+                out.close();
+            }
+        };
+        server.createContext("/set-mission/", handler);
+        server.createContext("/set-mode/", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        DataAcquisitionS2DK dataAcquisition = new DataAcquisitionS2DK(new DroneRotaryWing("iDroneAlpha"),
+                "IFA", "localhost", server.getAddress().getPort(), null);
+        AutopilotCommandPipeline commands = new AutopilotCommandPipeline(dataAcquisition);
+        File file = File.createTempFile("route-emergencial", ".txt");
+        file.deleteOnExit();
+        writeRoute(file, waypoints, 0.0);
+        String path = file.getAbsolutePath();
+
+        //connection already open, as in flight
+        AutopilotCommandPipeline.waitResult(commands.setMode("GUIDED"));
+        arrivals.clear();
+
+        //before: file, Mission and Gson at the moment of the failure
+        double before[] = new double[repetitions];
+        String bodyBefore = null;
+        for (int i = 0; i < repetitions; i++) {
+            long timeFailure = System.nanoTime();
+            Mission mission = new Mission();
+            UtilRoute.readFileRouteIFA(mission, path, 0);
+            commands.setMission(new Gson().toJson(mission));
+            before[i] = (arrivals.take() - timeFailure) / 1e6;
+            bodyBefore = lastBody;
+        }
+
+        //after: staged at startup
+        StagedMission staged = new StagedMission(path, 0);
+        double after[] = new double[repetitions];
+        String bodyAfter = null;
+        for (int i = 0; i < repetitions; i++) {
+            long timeFailure = System.nanoTime();
+            commands.setMission(staged.getJson());
+            after[i] = (arrivals.take() - timeFailure) / 1e6;
+            bodyAfter = lastBody;
+        }
+        print("read + Gson at the failure", before);
+        print("staged at startup         ", after);
+        System.out.println("same JSON received: " + bodyAfter.equals(bodyBefore));
+
+        //the file changed: the staged mission is read again
+        Thread.sleep(1100);//resolution of lastModified in some file systems
+        writeRoute(file, waypoints, 0.001);
+        staged.refresh();
+        System.out.println("mission refreshed after change: " + !staged.getJson().equals(bodyAfter));
+
+        commands.shutdown();
+        dataAcquisition.close();
+        server.stop(0);
+        System.exit(0);
+    }
+
+    private static void writeRoute(File file, int waypoints, double offset) throws IOException {
+        try (PrintStream out = new PrintStream(file)) {
+            for (int i = 0; i < waypoints; i++) {
+                out.println((-22.0059 + offset - i * 0.00001) + ";" + (-47.8987 + i * 0.00001) + ";" + 10.0);
+            }
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void print(String title, double time[]) {
+        double sorted[] = time.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (double t : sorted) {
+            sum += t;
+        }
+        System.out.println(String.format("%s -> first: %6.2f ms; mean: %6.2f ms; p50: %6.2f ms; max: %6.2f ms",
+                title, time[0], sum / sorted.length, sorted[sorted.length / 2], sorted[sorted.length - 1]));
+    }
+
+}
@@ -0,0 +1,104 @@
+package uav.tests;
+
+import java.util.Locale;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.ParserAllSensors;
+import lib.uav.module.comm.TelemetryFrame;
+import lib.uav.struct.constants.TypeMsgCommunication;
+
+/**
+ * Compares the telemetry of IFA to GCS in text (Drone.toString() in IFA and
+ * split(";") in GCS) and in the binary frame (TelemetryFrame, in Base64):
+ * size of the message, time of encoding and decoding, and the difference
+ * between the values received by the GCS in both formats.
+ * @author Jesimar S. Arantes
+ */
+public class TestsTelemetryFrame {
+
+    private static final String LINE = "{\"all-sensors\": [-22.0059333, -47.8987082, 12.35, 882.3, "
+            + "0.009657, 2.025, 0.004823, 116, 4.57, 4.61, 3, 10, 121, 65535, "
+            + "[0.91, -0.31, 0.01], 5, 9, 85.16173128321728691, 13.42, "
+            + "\"AUTO\", \"ACTIVE\", true, true, true]}";
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: telemetry IFA->GCS text x binary");
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        Drone drone = new DroneRotaryWing("iDroneAlpha");
+        new ParserAllSensors().parse(LINE, drone);
+        drone.getSensors().setInfoBattery(12.31, 15.2, 87);
+        drone.getInfo().setTime(123.4);
+        drone.getInfo().setEstimatedTimeToDoRTL(41.3);
+        drone.getInfo().setEstimatedConsumptionBatForRTL(9.2);
+        drone.getInfo().setEstimatedMaxDistReached(1520.7);
+        drone.getInfo().setEstimatedMaxTimeFlight(387.1);
+
+        TelemetryFrame encoder = new TelemetryFrame();
+        TelemetryFrame decoder = new TelemetryFrame();
+        String text = TypeMsgCommunication.IFA_GCS_INFO + drone.toString();
+        String binary = TypeMsgCommunication.IFA_GCS_INFO_BIN + encoder.encode(drone);
+        System.out.println("text   (" + text.length() + " bytes): " + text);
+        System.out.println("binary (" + binary.length() + " bytes): " + binary);
+
+        //values received by the GCS
+        String v[] = text.substring(TypeMsgCommunication.IFA_GCS_INFO.length()).split(";");
+        decoder.decode(binary.substring(TypeMsgCommunication.IFA_GCS_INFO_BIN.length()));
+        double fromText[] = new double[37];
+        for (int i = 2; i < 27; i++) {
+            fromText[i] = Double.parseDouble(v[i]);
+        }
+        for (int i = 33; i < 37; i++) {
+            fromText[i] = Double.parseDouble(v[i]);
+        }
+        double fromBinary[] = {0, 0, decoder.time, decoder.lat, decoder.lng, decoder.altRel,
+            decoder.altAbs, decoder.voltage, decoder.current, decoder.level, decoder.pitch,
+            decoder.yaw, decoder.roll, decoder.vx, decoder.vy, decoder.vz, decoder.fixType,
+            decoder.satellitesVisible, decoder.eph, decoder.epv, decoder.heading,
+            decoder.groundspeed, decoder.airspeed, decoder.nextWaypoint, decoder.countWaypoint,
+            decoder.distanceToHome, decoder.distanceToCurrentWaypoint, 0, 0, 0, 0, 0, 0,
+            decoder.estimatedTimeToDoRTL, decoder.estimatedConsumptionBatForRTL,
+            decoder.estimatedMaxDistReached, decoder.estimatedMaxTimeFlight};
+        double maxDiff = 0;
+        for (int i = 0; i < fromText.length; i++) {
+            maxDiff = Math.max(maxDiff, Math.abs(fromText[i] - fromBinary[i]));
+        }
+        boolean sameText = v[27].equals(decoder.mode) && v[28].equals(decoder.systemStatus)
+                && Boolean.parseBoolean(v[29]) == decoder.armed
+                && Boolean.parseBoolean(v[30]) == decoder.isArmable
+                && Boolean.parseBoolean(v[31]) == decoder.ekfOk
+                && v[32].equals(decoder.typeFailure);
+        System.out.println(String.format("max difference of the numbers: %.6f; "
+                + "same strings and flags: %s", maxDiff, sameText));
+
+        long sum = 0;
+        for (int round = 0; round < 2; round++) {
+            long timeInit = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                String msg = drone.toString();
+                String f[] = msg.split(";");
+                sum += f.length + (long) Double.parseDouble(f[3]);
+                for (int j = 2; j < 27; j++) {
+                    sum += (long) Double.parseDouble(f[j]);
+                }
+            }
+            double timeText = (System.nanoTime() - timeInit) / 1e3 / n;
+            timeInit = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                decoder.decode(encoder.encode(drone));
+                sum += (long) decoder.lat;
+            }
+            double timeBinary = (System.nanoTime() - timeInit) / 1e3 / n;
+            if (round == 1) {
+                System.out.println(String.format("text   (format + split/parse): %6.2f us/frame", timeText));
+                System.out.println(String.format("binary (encode + decode)     : %6.2f us/frame", timeBinary));
+            }
+        }
+        System.out.println("bytes per frame: text " + text.length() + " x binary " + binary.length()
+                + String.format(" (%.0f%% less) %s", 100.0 * (text.length() - binary.length())
+                        / text.length(), sum == 0 ? "" : ""));
+    }
+
+}
@@ -0,0 +1,205 @@
+package uav.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lib.color.StandardPrints;
+import lib.uav.hardware.aircraft.Drone;
+import lib.uav.hardware.aircraft.DroneRotaryWing;
+import lib.uav.module.comm.DataAcquisitionS2DK;
+import lib.uav.module.comm.TelemetryListener;
+import lib.uav.module.comm.TelemetryStreamS2DK;
+
+/**
+ * Compares the telemetry by polling (get-all-sensors at freq_update_data_ap)
+ * and by streaming (stream-all-sensors) against a local HTTP server that
+ * simulates the UAV-S2DK. The simulated autopilot changes its data at random
+ * instants and the test measures the time between the change and the moment
+ * the drone receives it, the changes not seen and the number of requests.
+ * Note: don't need SITL, MAVProxy or UAV-S2DK running.
+ * @author Jesimar S. Arantes
+ */
+public class TestsTelemetryStream {
+
+    private static final int MAX_CHANGES = 1000000;
+
+    private static final Object lock = new Object();
+    private static final long timeChange[] = new long[MAX_CHANGES];
+    private static final AtomicLong countRequests = new AtomicLong();
+    private static int seq = 0;
+
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: telemetry polling x streaming");
+        int duration = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        double freqUpdateDataAP = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/get-all-sensors/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequests.incrementAndGet();
+                byte[] body = frame(currentSeq()).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.createContext("/stream-all-sensors/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequests.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);//chunked
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    int last = -1;
+                    while (true) {
+                        int s;
+                        synchronized (lock) {
+                            while (seq == last) {
+                                lock.wait(1000);
+                            }
+                            s = seq;
+                        }
+                        out.write((frame(s) + "\n").getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        last = s;
+                    }
+                } catch (InterruptedException | IOException ex) {
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        int port = server.getAddress().getPort();
+        startAutopilot();
+
+        //polling
+        Drone dronePolling = new DroneRotaryWing("iDroneAlpha");
+        DataAcquisitionS2DK dataAcquisition = new DataAcquisitionS2DK(
+                dronePolling, "IFA", "localhost", port, null);
+        int time = (int) (1000.0 / freqUpdateDataAP);
+        long delayPolling[] = new long[MAX_CHANGES];
+        int firstPolling = currentSeq() + 1;
+        countRequests.set(0);
+        long timeEnd = System.currentTimeMillis() + duration;
+        while (System.currentTimeMillis() < timeEnd) {
+            dataAcquisition.getAllInfoSensors();
+            record(delayPolling, (int) dronePolling.getSensors().getSensorUAV().heading);
+            Thread.sleep(time);
+        }
+        int lastPolling = currentSeq();
+        long requestsPolling = countRequests.get();
+        dataAcquisition.close();
+
+        //streaming
+        final Drone droneStreaming = new DroneRotaryWing("iDroneAlpha");
+        TelemetryStreamS2DK telemetry = new TelemetryStreamS2DK(
+                droneStreaming, "IFA", "localhost", port);
+        final long delayStreaming[] = new long[MAX_CHANGES];
+        telemetry.addListener(new TelemetryListener() {
+            @Override
+            public void updateTelemetry(Drone drone, long countFrames) {
+                record(delayStreaming, (int) drone.getSensors().getSensorUAV().heading);
+            }
+        });
+        countRequests.set(0);
+        int firstStreaming = currentSeq() + 1;
+        telemetry.start();
+        Thread.sleep(duration);
+        int lastStreaming = currentSeq();
+        long requestsStreaming = countRequests.get();
+        telemetry.stop();
+
+        print("polling   (" + freqUpdateDataAP + " Hz)", delayPolling, firstPolling, lastPolling, requestsPolling);
+        print("streaming         ", delayStreaming, firstStreaming, lastStreaming, requestsStreaming);
+        System.out.println("frames received by the stream: " + telemetry.getCountFrames()
+                + " connections: " + telemetry.getCountConnectionsOpened());
+
+        server.stop(0);
+        System.exit(0);
+    }
+
+    /**
+     * Thread that simulates the autopilot changing its data each 5 to 75 ms.
+     * The number of the change is sent in the field heading.
+     */
+    private static void startAutopilot() {
+        Executors.newSingleThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Random rnd = new Random(1);
+                try {
+                    while (seq < MAX_CHANGES - 1) {
+                        Thread.sleep(5 + rnd.nextInt(70));
+                        synchronized (lock) {
+                            timeChange[seq + 1] = System.nanoTime();
+                            seq++;
+                            lock.notifyAll();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+
+                }
+            }
+        });
+    }
+
+    private static int currentSeq() {
+        synchronized (lock) {
+            return seq;
+        }
+    }
+
+    /**
+     * Records the delay of the first time the change s is seen.
+     */
+    private static void record(long delay[], int s) {
+        if (s > 0 && delay[s] == 0) {
+            delay[s] = System.nanoTime() - timeChange[s];
+        }
+    }
+
+    private static String frame(int s) {
+        return "{\"all-sensors\": [-22.0059333, -47.8987082, 0.07, 870.0, 0.009657, "
+                + "2.025, 0.004823, " + s + ", 0.0, 0.0, 3, 10, 121, 65535, "
+                + "[0.0, -0.31, 0.01], 0, 0, 0.16173128321728691, null, "
+                + "\"STABILIZE\", \"STANDBY\", false, true, true]}";
+    }
+
+    private static void print(String title, long delay[], int first, int last,
+            long requests) {
+        int total = last - first + 1;
+        double seen[] = new double[total];
+        int n = 0;
+        for (int i = first; i <= last; i++) {
+            if (delay[i] > 0) {
+                seen[n++] = delay[i] / 1e6;
+            }
+        }
+        seen = Arrays.copyOf(seen, n);
+        Arrays.sort(seen);
+        double sum = 0;
+        for (double d : seen) {
+            sum += d;
+        }
+        System.out.println(String.format("%s -> changes: %5d; seen: %5d; "
+                + "delay mean: %7.2f ms; p50: %7.2f ms; p99: %7.2f ms; http requests: %d",
+                title, total, n, n == 0 ? 0 : sum / n, n == 0 ? 0 : seen[n / 2],
+                n == 0 ? 0 : seen[(int) (n * 0.99)], requests));
+    }
+
+}
@@ -0,0 +1,125 @@
+package uav.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import lib.color.StandardPrints;
+import lib.uav.struct.Waypoint;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.mission.Mission;
+import lib.uav.struct.mission.WaypointTrigger;
+import lib.uav.util.UtilGeom;
+
+/**
+ * Compares the search of the waypoints of the actions of the mission (picture)
+ * by linear scan of the Mission (previous code of MissionManager) and by the
+ * WaypointTrigger (grid hash). The aircraft flies a lawnmower path over a
+ * field with N waypoints of pictures, the test checks that both fire the same
+ * waypoints in the same monitoring cycles and measures the time per cycle
+ * (first MAX_CYCLES cycles of the path).
+ * @author Jesimar S. Arantes
+ */
+public class TestsWaypointTrigger {
+
+    private static final double LAT0 = -22.0059;
+    private static final double LNG0 = -47.8987;
+    private static final double HORIZONTAL_ERROR_GPS = 2.0;
+    private static final double VERTICAL_ERROR_BAROMETER = 3.0;
+    private static final double ALT = 10.0;
+    private static final int MAX_CYCLES = 1000;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        StandardPrints.printMsgEmph2("UAV-Tests: waypoint trigger (linear x grid hash)");
+        for (int n : new int[]{10, 100, 1000, 2000}) {
+            run(n);
+        }
+    }
+
+    private static void run(int n) {
+        Random rnd = new Random(n);
+        int side = (int) Math.ceil(Math.sqrt(n));
+        double spacing = 10 * Constants.ONE_METER;
+        Mission linear = new Mission();
+        Mission indexed = new Mission();
+        for (int i = 0; i < n; i++) {
+            double lat = LAT0 + (i / side) * spacing + rnd.nextGaussian() * Constants.ONE_METER;
+            double lng = LNG0 + (i % side) * spacing + rnd.nextGaussian() * Constants.ONE_METER;
+            linear.addWaypoint(new Waypoint(lat, lng, ALT));
+            indexed.addWaypoint(new Waypoint(lat, lng, ALT));
+        }
+        List<double[]> path = new ArrayList<>();
+        double step = 0.5 * Constants.ONE_METER;
+        for (int row = 0; row < side && path.size() < MAX_CYCLES; row++) {
+            double lat = LAT0 + row * spacing;
+            for (double d = 0; d <= (side - 1) * spacing && path.size() < MAX_CYCLES; d += step) {
+                double lng = row % 2 == 0 ? LNG0 + d : LNG0 + (side - 1) * spacing - d;
+                path.add(new double[]{lat, lng, ALT + rnd.nextGaussian() * 0.5});
+            }
+        }
+
+        List<Integer> firedLinear = new ArrayList<>();
+        long timeInit = System.nanoTime();
+        for (int i = 0; i < path.size(); i++) {
+            double p[] = path.get(i);
+            if (linearScan(linear, p[0], p[1], p[2])) {
+                firedLinear.add(i);
+            }
+        }
+        double timeLinear = (System.nanoTime() - timeInit) / 1e3 / path.size();
+
+        final List<Integer> firedIndexed = new ArrayList<>();
+        final int cycle[] = new int[1];
+        WaypointTrigger triggers = new WaypointTrigger(
+                HORIZONTAL_ERROR_GPS * Constants.ONE_METER, VERTICAL_ERROR_BAROMETER);
+        triggers.addAction(indexed, ALT, new Runnable() {
+            @Override
+            public void run() {
+                firedIndexed.add(cycle[0]);
+            }
+        });
+        timeInit = System.nanoTime();
+        for (int i = 0; i < path.size(); i++) {
+            double p[] = path.get(i);
+            cycle[0] = i;
+            triggers.check(p[0], p[1], p[2]);
+        }
+        double timeIndexed = (System.nanoTime() - timeInit) / 1e3 / path.size();
+
+        System.out.println(String.format("waypoints: %5d; cycles: %6d; fired: %5d x %5d; "
+                + "same cycles: %s; linear: %9.3f us/cycle; grid: %6.3f us/cycle",
+                n, path.size(), firedLinear.size(), firedIndexed.size(),
+                firedLinear.equals(firedIndexed), timeLinear, timeIndexed));
+    }
+
+    /**
+     * Previous code of MissionManager (actionTakeAPicture).
+     * @return {@code true} if a waypoint was fired
+     */
+    private static boolean linearScan(Mission wpts, double lat, double lng, double alt) {
+        double distH = Integer.MAX_VALUE;
+        double distV = Integer.MAX_VALUE;
+        int index = 0;
+        for (int i = 0; i < wpts.size(); i++) {
+            double latDestiny = wpts.getWaypoint(i).getLat();
+            double lngDestiny = wpts.getWaypoint(i).getLng();
+            double altDestiny = ALT;
+            double distHActual = UtilGeom.distanceEuclidian(lat, lng, latDestiny, lngDestiny);
+            double distVActual = Math.abs(alt - altDestiny);
+            if (distHActual < distH && distVActual < VERTICAL_ERROR_BAROMETER) {
+                distH = distHActual;
+                distV = distVActual;
+                index = i;
+            }
+        }
+        if (distH < HORIZONTAL_ERROR_GPS * Constants.ONE_METER && distV < VERTICAL_ERROR_BAROMETER) {
+            if (wpts.size() > 0) {
+                wpts.removeWaypoint(index);
+            }
+            return true;
+        }
+        return false;
+    }
+
+}
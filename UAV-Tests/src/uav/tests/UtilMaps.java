@@ -0,0 +1,173 @@
+package uav.tests;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import lib.uav.reader.ReaderFileMap;
+import lib.uav.struct.constants.Constants;
+import lib.uav.struct.constants.TypeRegion;
+import lib.uav.struct.geom.Point3D;
+import lib.uav.struct.geom.Poly;
+import lib.uav.struct.geom.Poly3D;
+import lib.uav.struct.geom.RegionIndex;
+import lib.uav.util.GridAStar;
+
+/**
+ * Class with the util methods of the tests over the maps of Instances
+ * (TestsRegionIndex, TestsGeofenceMonitor, TestsGridAStar and TestsRouteCache).
+ * @author Jesimar S. Arantes
+ */
+public class UtilMaps {
+
+    /**
+     * Half side of the area where the maps are scaled for the program A-Start
+     * (fixed grid of 1 meter in [-100, 100]).
+     */
+    public static final double HALF_AREA = 90.0;
+
+    /**
+     * Gets the bounding box of all the regions of the map, with a border of
+     * 10% on each side.
+     * @param index the regions of the map (Poly3D)
+     * @return the box {minX, maxX, minY, maxY} in meters
+     */
+    public static double[] bounds(RegionIndex index) {
+        double box[] = {Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (String type : new String[]{TypeRegion.NFZ, TypeRegion.PENALTY, TypeRegion.BONUS}) {
+            for (Poly p : index.getRegions(type)) {
+                for (double x : ((Poly3D) p).getVetx()) {
+                    box[0] = Math.min(box[0], x);
+                    box[1] = Math.max(box[1], x);
+                }
+                for (double y : ((Poly3D) p).getVety()) {
+                    box[2] = Math.min(box[2], y);
+                    box[3] = Math.max(box[3], y);
+                }
+            }
+        }
+        double mx = 0.1 * (box[1] - box[0]);
+        double my = 0.1 * (box[3] - box[2]);
+        return new double[]{box[0] - mx, box[1] + mx, box[2] - my, box[3] + my};
+    }
+
+    /**
+     * Makes a bigger map repeating the map side by side (side x side copies).
+     * @param base the regions of the map (Poly3D)
+     * @param side number of copies in each axis
+     * @param sizeCell side of the cells of the grid of the new map (in meters)
+     * @return the regions of the bigger map
+     */
+    public static RegionIndex tile(RegionIndex base, int side, double sizeCell) {
+        double box[] = bounds(base);
+        double width = box[1] - box[0];
+        double height = box[3] - box[2];
+        RegionIndex index = new RegionIndex(sizeCell);
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                for (String type : new String[]{TypeRegion.NFZ, TypeRegion.PENALTY, TypeRegion.BONUS}) {
+                    for (Poly p : base.getRegions(type)) {
+                        Poly3D poly = (Poly3D) p;
+                        List<Point3D> points = new ArrayList<>();
+                        for (int k = 0; k < poly.getNpoints(); k++) {
+                            points.add(new Point3D(poly.getVetx()[k] + i * width,
+                                    poly.getVety()[k] + j * height, 0.0));
+                        }
+                        index.add(new Poly3D(poly.getName(), points), type);
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Lists the files of map (.sgl) of the directory and its subdirectories,
+     * in alphabetical order.
+     * @param dir the directory of the instances
+     * @param maps the list where the files are added
+     */
+    public static void listMaps(File dir, List<File> maps) {
+        File files[] = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                listMaps(file, maps);
+            } else if (file.getName().endsWith(".sgl")) {
+                maps.add(file);
+            }
+        }
+    }
+
+    /**
+     * Reads the map and scales its no-fly zones to [-HALF_AREA, HALF_AREA].
+     * @param file the file of map (.sgl)
+     * @return the no-fly zones of the map scaled
+     * @throws FileNotFoundException
+     */
+    public static RegionIndex scale(File file) throws FileNotFoundException {
+        RegionIndex base = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+        ReaderFileMap.map(file, base);
+        double box[] = bounds(base);
+        double cx = (box[0] + box[1]) / 2;
+        double cy = (box[2] + box[3]) / 2;
+        double s = HALF_AREA / Math.max(box[1] - cx, box[3] - cy);
+        RegionIndex index = new RegionIndex(Constants.SIZE_CELL_GEOFENCE);
+        int count = 0;
+        for (Poly p : base.getRegions(TypeRegion.NFZ)) {
+            double vx[] = ((Poly3D) p).getVetx();
+            double vy[] = ((Poly3D) p).getVety();
+            List<Point3D> points = new ArrayList<>();
+            for (int i = 0; i < vx.length; i++) {
+                points.add(new Point3D((vx[i] - cx) * s, (vy[i] - cy) * s, 0.0));
+            }
+            index.add(new Poly3D("n" + count++, points), TypeRegion.NFZ);
+        }
+        return index;
+    }
+
+    /**
+     * Gets a random point in [-HALF_AREA, HALF_AREA] out of the blocked cells.
+     * @param rnd the random generator
+     * @param grid the grid of the map
+     * @return the point {x, y}
+     */
+    public static double[] randomPoint(Random rnd, GridAStar grid) {
+        while (true) {
+            double x = (rnd.nextDouble() * 2 - 1) * HALF_AREA;
+            double y = (rnd.nextDouble() * 2 - 1) * HALF_AREA;
+            if (!grid.isBlocked(x, y)) {
+                return new double[]{x, y};
+            }
+        }
+    }
+
+    /**
+     * Writes the no-fly zones in the format of the program A-Start
+     * (map-nfz-astar.sgl).
+     * @param file the file of map
+     * @param nfz the no-fly zones (Poly3D)
+     * @throws FileNotFoundException
+     */
+    public static void writeMap(File file, List<Poly> nfz) throws FileNotFoundException {
+        try (PrintStream print = new PrintStream(file)) {
+            int count = 1;
+            for (Poly p : nfz) {
+                double vx[] = ((Poly3D) p).getVetx();
+                double vy[] = ((Poly3D) p).getVety();
+                print.println("#obstaculo " + count++);
+                print.println(vx.length);
+                for (int i = 0; i < vx.length; i++) {
+                    print.println(String.format("%.8f;%.8f", vx[i], vy[i]));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package uav.tests.mock;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Scanner;
+import lib.uav.module.replanner.ReplannerProvider;
+import lib.uav.module.replanner.ReplanningRequest;
+import lib.uav.struct.geom.Position3D;
+import lib.uav.struct.mission.Mission3D;
+
+/**
+ * Replanner simulated (method Mock4s): glides in the direction of the aircraft
+ * and turns 90 degrees to the left in the middle of the route.
+ * It runs in process (ReplannerProvider) and as an external replanner (main),
+ * reading config.sgl and writing route.txt in the directory, as the jars of
+ * Modules-IFA.
+ * @author Jesimar S. Arantes
+ */
+public class MockReplannerProvider implements ReplannerProvider {
+
+    public static final String NAME = "Mock4s";
+    private static final double DT = 2.0;//in seconds
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void load(String dirReplanner) {
+
+    }
+
+    @Override
+    public Mission3D replan(ReplanningRequest request) {
+        Mission3D route = new Mission3D();
+        double x = request.px;
+        double y = request.py;
+        double angle = request.angle;
+        double step = request.speed * DT;
+        for (int i = 0; i < request.numberWaypoints; i++) {
+            if (i == request.numberWaypoints / 2) {
+                angle += Math.PI / 2;
+            }
+            x += Math.cos(angle) * step;
+            y += Math.sin(angle) * step;
+            route.addPosition(new Position3D(x, y, 0.0));
+        }
+        return route;
+    }
+
+    /**
+     * External replanner.
+     * @param args directory with config.sgl (px py speed angle altitude
+     *        numberWaypoints delta timeExec)
+     * @throws FileNotFoundException if config.sgl doesn't exist
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        Locale.setDefault(Locale.US);
+        String dir = args.length > 0 ? args[0] : "./";
+        Scanner sc = new Scanner(new File(dir, "config.sgl"));
+        ReplanningRequest request = new ReplanningRequest(sc.nextDouble(), sc.nextDouble(),
+                sc.nextDouble(), sc.nextDouble(), sc.nextDouble(), sc.nextInt(),
+                sc.nextDouble(), sc.nextDouble());
+        sc.close();
+        Mission3D route = new MockReplannerProvider().replan(request);
+        try (PrintStream out = new PrintStream(new File(dir, "route.txt"))) {
+            for (Position3D p : route.getMission()) {
+                out.println(p.getX() + " " + p.getY());
+            }
+        }
+    }
+
+}
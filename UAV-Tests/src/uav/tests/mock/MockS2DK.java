@@ -0,0 +1,354 @@
+package uav.tests.mock;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lib.color.StandardPrints;
+import uav.tests.mock.MockVehicle.MissionItem;
+
+/**
+ * The class models an in-process stand-in of the UAV-S2DK (same urls and
+ * same format of the responses) with a simulated vehicle (MockVehicle).
+ * It allows load and latency tests of IFA, MOSA and Lib-UAV without SITL,
+ * MAVProxy, DroneKit and Python.
+ * Features:
+ * (1) all the urls of GET_URLS, POST_URLS and STREAM_URLS of UAV-S2DK;
+ * (2) latency and jitter (uniform) configurable added to each request;
+ * (3) counters of requests per url;
+ * (4) kinematics of the vehicle updated at 50 Hz.
+ * Use: java uav.tests.mock.MockS2DK [port] [latency ms] [jitter ms]
+ * (then run IFA with the same port in config-global.properties).
+ * @author Jesimar S. Arantes
+ */
+public class MockS2DK {
+
+    private static final int FREQ_SIMULATION = 50;//in Hz
+    private static final long STREAM_MIN_PERIOD = 50;//in ms
+    private static final long STREAM_KEEP_ALIVE = 1000;//in ms
+
+    private static final String GET_URLS[] = {"/get-gps/", "/get-barometer/",
+        "/get-battery/", "/get-attitude/", "/get-velocity/", "/get-heading/",
+        "/get-groundspeed/", "/get-airspeed/", "/get-gpsinfo/", "/get-mode/",
+        "/get-system-status/", "/get-armed/", "/get-is-armable/", "/get-ekf-ok/",
+        "/get-home-location/", "/get-parameters/", "/get-distance-to-home/",
+        "/get-distance-to-waypoint-current/", "/get-next-waypoint/",
+        "/get-count-waypoint/", "/get-all-sensors/"};
+    private static final String POST_URLS[] = {"/set-waypoint/", "/append-waypoint/",
+        "/set-mission/", "/append-mission/", "/set-velocity/", "/set-parameter/",
+        "/set-heading/", "/set-mode/"};
+    private static final String STREAM_URL = "/stream-all-sensors/";
+
+    private final MockVehicle vehicle;
+    private final int port;
+    private final Map<String, AtomicLong> countRequests = new ConcurrentHashMap<>();
+    private final AtomicLong countTotal = new AtomicLong();
+    private final Random rnd = new Random(1);
+    private volatile int latency;
+    private volatile int jitter;
+    private HttpServer server;
+    private ScheduledExecutorService simulation;
+
+    /**
+     * Class constructor.
+     * @param vehicle the simulated vehicle
+     * @param port network port (0 to choose a free port)
+     * @param latency delay added to each response (in milliseconds)
+     * @param jitter maximum random delay added to the latency (in milliseconds)
+     */
+    public MockS2DK(MockVehicle vehicle, int port, int latency, int jitter) {
+        this.vehicle = vehicle;
+        this.port = port;
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int jitter = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        final MockS2DK mock = new MockS2DK(new MockVehicle(-22.00593264, -47.89870828, 870.0),
+                port, latency, jitter);
+        mock.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                mock.printCounters();
+            }
+        });
+        StandardPrints.printMsgEmph2("MockS2DK: listening on port " + mock.getPort()
+                + " (latency " + latency + " ms, jitter " + jitter + " ms)");
+    }
+
+    /**
+     * Starts the HTTP server and the simulation of the vehicle.
+     * @throws IOException if the port is not available
+     */
+    public void start() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        for (final String url : GET_URLS) {
+            server.createContext(url, new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    count(url);
+                    delay();
+                    send(exchange, 200, get(url));
+                }
+            });
+        }
+        for (final String url : POST_URLS) {
+            server.createContext(url, new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    count(url);
+                    String body = readAll(exchange.getRequestBody());
+                    delay();
+                    String resp;
+                    try {
+                        resp = post(url, new JsonParser().parse(body));
+                    } catch (RuntimeException ex) {
+                        StandardPrints.printMsgWarning("Warning [RuntimeException]: MockS2DK " + url);
+                        send(exchange, 500, "{}");
+                        return;
+                    }
+                    send(exchange, 200, resp);
+                }
+            });
+        }
+        server.createContext(STREAM_URL, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                count(STREAM_URL);
+                delay();
+                stream(exchange);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        simulation = Executors.newSingleThreadScheduledExecutor();
+        simulation.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                vehicle.step(1.0 / FREQ_SIMULATION);
+            }
+        }, 0, 1000 / FREQ_SIMULATION, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the HTTP server and the simulation.
+     */
+    public void stop() {
+        server.stop(0);
+        simulation.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public MockVehicle getVehicle() {
+        return vehicle;
+    }
+
+    public void setLatency(int latency, int jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Gets the number of requests of one url.
+     * @param url the url (ex: /get-all-sensors/)
+     * @return the number of requests
+     */
+    public long getCountRequests(String url) {
+        AtomicLong c = countRequests.get(url);
+        return c == null ? 0 : c.get();
+    }
+
+    public long getCountRequests() {
+        return countTotal.get();
+    }
+
+    public void resetCounters() {
+        countRequests.clear();
+        countTotal.set(0);
+    }
+
+    public void printCounters() {
+        System.out.println("MockS2DK: requests: " + countTotal.get());
+        for (Map.Entry<String, AtomicLong> c : new TreeMap<>(countRequests).entrySet()) {
+            System.out.println(String.format("    %-36s %d", c.getKey(), c.getValue().get()));
+        }
+    }
+
+    private String get(String url) {
+        switch (url) {
+            case "/get-gps/": return vehicle.gps();
+            case "/get-barometer/": return vehicle.barometer();
+            case "/get-battery/": return vehicle.battery();
+            case "/get-attitude/": return vehicle.attitude();
+            case "/get-velocity/": return vehicle.velocity();
+            case "/get-heading/": return vehicle.heading();
+            case "/get-groundspeed/": return vehicle.groundspeed();
+            case "/get-airspeed/": return vehicle.airspeed();
+            case "/get-gpsinfo/": return vehicle.gpsInfo();
+            case "/get-mode/": return vehicle.mode();
+            case "/get-system-status/": return vehicle.systemStatus();
+            case "/get-armed/": return vehicle.armed();
+            case "/get-is-armable/": return vehicle.isArmable();
+            case "/get-ekf-ok/": return vehicle.ekfOk();
+            case "/get-home-location/": return vehicle.homeLocation();
+            case "/get-parameters/": return vehicle.parameters();
+            case "/get-distance-to-home/": return vehicle.distanceToHome();
+            case "/get-distance-to-waypoint-current/": return vehicle.distanceToCurrentWaypoint();
+            case "/get-next-waypoint/": return vehicle.nextWaypoint();
+            case "/get-count-waypoint/": return vehicle.countWaypoint();
+            default: return vehicle.allSensors();
+        }
+    }
+
+    private String post(String url, JsonElement body) {
+        switch (url) {
+            case "/set-waypoint/":
+                vehicle.setMission(items(body.getAsJsonObject().get("waypoint")));
+                return "{\"status-set-waypoint\": \"ok\"}";
+            case "/append-waypoint/":
+                vehicle.appendMission(items(body.getAsJsonObject().get("waypoint")));
+                return "{\"status-append-waypoint\": \"ok\"}";
+            case "/set-mission/":
+                vehicle.setMission(items(body.getAsJsonObject().get("mission")));
+                return "{\"status-set-mission\": \"ok\"}";
+            case "/append-mission/":
+                vehicle.appendMission(items(body.getAsJsonObject().get("mission")));
+                return "{\"status-append-mission\": \"ok\"}";
+            case "/set-velocity/":
+                vehicle.setVelocity(body.getAsDouble());
+                return "{\"status-set-velocity\": \"ok\"}";
+            case "/set-parameter/":
+                JsonObject param = body.getAsJsonObject().getAsJsonObject("parameter");
+                vehicle.setParameter(param.get("key").getAsString(), param.get("value").getAsDouble());
+                return "{\"status-set-parameter\": \"ok\"}";
+            case "/set-heading/":
+                vehicle.setHeading(body.getAsJsonObject().getAsJsonObject("heading")
+                        .get("value").getAsDouble());
+                return "{\"status-set-heading\": \"ok\"}";
+            default:
+                vehicle.setMode(body.getAsString());
+                return "true";
+        }
+    }
+
+    /**
+     * Converts a waypoint or a list of waypoints (WaypointJSON) in items.
+     */
+    private static List<MissionItem> items(JsonElement json) {
+        List<MissionItem> items = new ArrayList<>();
+        if (json.isJsonArray()) {
+            for (JsonElement wpt : json.getAsJsonArray()) {
+                items.add(item(wpt.getAsJsonObject()));
+            }
+        } else {
+            items.add(item(json.getAsJsonObject()));
+        }
+        return items;
+    }
+
+    private static MissionItem item(JsonObject wpt) {
+        return new MissionItem(wpt.get("action").getAsString(), wpt.get("lat").getAsDouble(),
+                wpt.get("lng").getAsDouble(), wpt.get("alt").getAsDouble());
+    }
+
+    /**
+     * Sends the frames of all sensors (chunked, one per line) when they change,
+     * at most one each STREAM_MIN_PERIOD and at least one each STREAM_KEEP_ALIVE.
+     */
+    private void stream(HttpExchange exchange) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            String last = null;
+            long timeLast = 0;
+            while (true) {
+                String frame = vehicle.allSensors();
+                long now = System.currentTimeMillis();
+                if (!frame.equals(last) || now - timeLast >= STREAM_KEEP_ALIVE) {
+                    out.write((frame + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    last = frame;
+                    timeLast = now;
+                }
+                Thread.sleep(STREAM_MIN_PERIOD);
+            }
+        } catch (IOException | InterruptedException ex) {
+            exchange.close();
+        }
+    }
+
+    private void count(String url) {
+        countTotal.incrementAndGet();
+        AtomicLong c = countRequests.get(url);
+        if (c == null) {
+            countRequests.putIfAbsent(url, new AtomicLong());
+            c = countRequests.get(url);
+        }
+        c.incrementAndGet();
+    }
+
+    private void delay() {
+        int time = latency;
+        if (jitter > 0) {
+            synchronized (rnd) {
+                time += rnd.nextInt(jitter + 1);
+            }
+        }
+        if (time > 0) {
+            try {
+                Thread.sleep(time);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int code, String resp) throws IOException {
+        byte[] body = resp.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
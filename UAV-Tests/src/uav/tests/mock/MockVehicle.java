@@ -0,0 +1,451 @@
+package uav.tests.mock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lib.uav.struct.constants.Constants;
+
+/**
+ * The class models the vehicle simulated by MockS2DK (a simplified multi-rotor
+ * following the mission as the ArduPilot in mode AUTO).
+ * Kinematics: the vehicle flies in straight line to the current item of the
+ * mission with horizontal speed WPNAV_SPEED and vertical speeds WPNAV_SPEED_UP
+ * and WPNAV_SPEED_DN (cm/s). Items: takeoff, goto, land, landv and rtl.
+ * The mode RTL and LAND can also be set directly. The battery is discharged
+ * with the efficiencies of simulation of Constants.
+ * Note: all methods are synchronized, the vehicle is updated by the thread of
+ * the simulation and read by the threads of the HTTP server.
+ * @author Jesimar S. Arantes
+ */
+public class MockVehicle {
+
+    private static final double METERS_PER_DEGREE = 1.113195e5;
+    private static final double REACHED = 0.3;//in meters
+
+    private double lat;
+    private double lng;
+    private double alt;
+    private final double latHome;
+    private final double lngHome;
+    private final double altAbsHome;
+    private double vx;
+    private double vy;
+    private double vz;
+    private double yaw;
+    private String mode = "STABILIZE";
+    private String systemStatus = "STANDBY";
+    private boolean armed = false;
+    private boolean ekfOk = true;
+    private int fixType = 3;
+    private int satellitesVisible = 10;
+    private double batteryLevel = 100;
+    private double batteryVoltage = 12.6;
+    private double batteryCurrent = 0.0;
+    private final List<MissionItem> mission = new ArrayList<>();
+    private int next = 0;
+    private int rtlStage = 0;
+    private final Map<String, Double> parameters = new LinkedHashMap<>();
+
+    /**
+     * Class constructor.
+     * @param latHome latitude of home (launch)
+     * @param lngHome longitude of home (launch)
+     * @param altAbsHome absolute altitude of home
+     */
+    public MockVehicle(double latHome, double lngHome, double altAbsHome) {
+        this.latHome = latHome;
+        this.lngHome = lngHome;
+        this.altAbsHome = altAbsHome;
+        this.lat = latHome;
+        this.lng = lngHome;
+        this.alt = 0.0;
+        parameters.put("RTL_ALT", 1500.0);
+        parameters.put("WPNAV_SPEED", 500.0);
+        parameters.put("WPNAV_SPEED_UP", 250.0);
+        parameters.put("WPNAV_SPEED_DN", 150.0);
+        parameters.put("WPNAV_RADIUS", 200.0);
+        parameters.put("WPNAV_ACCEL", 100.0);
+        parameters.put("LAND_SPEED", 50.0);
+        parameters.put("BATT_CAPACITY", 3300.0);
+    }
+
+    /**
+     * Updates the vehicle after dt seconds.
+     * @param dt time step in seconds
+     */
+    public synchronized void step(double dt) {
+        vx = 0;
+        vy = 0;
+        vz = 0;
+        if (armed) {
+            if (mode.equals("AUTO")) {
+                stepMission(dt);
+            } else if (mode.equals("RTL")) {
+                if (stepRTL(dt)) {
+                    disarm();
+                }
+            } else if (mode.equals("LAND")) {
+                if (descend(dt)) {
+                    disarm();
+                }
+            }
+            if (armed) {
+                discharge(dt);
+            }
+        }
+    }
+
+    private void stepMission(double dt) {
+        if (next < 1 || next > mission.size()) {
+            return;
+        }
+        MissionItem item = mission.get(next - 1);
+        boolean reached;
+        switch (item.action) {
+            case "takeoff":
+                reached = moveTo(lat, lng, item.alt, dt);
+                break;
+            case "goto":
+                reached = moveTo(item.lat, item.lng, item.alt, dt);
+                break;
+            case "land":
+                reached = moveTo(item.lat, item.lng, alt, dt) && descend(dt);
+                break;
+            case "landv":
+                reached = descend(dt);
+                break;
+            case "rtl":
+                reached = stepRTL(dt);
+                break;
+            default:
+                reached = true;
+        }
+        if (reached) {
+            if (item.action.equals("land") || item.action.equals("landv")
+                    || item.action.equals("rtl")) {
+                disarm();
+            }
+            next++;
+        }
+    }
+
+    /**
+     * Return to launch: climbs to RTL_ALT, goes to home and lands.
+     * @return {@code true} if landed
+     */
+    private boolean stepRTL(double dt) {
+        double altRTL = Math.max(alt, parameters.get("RTL_ALT") / 100.0);
+        if (rtlStage == 0 && moveTo(lat, lng, altRTL, dt)) {
+            rtlStage = 1;
+        } else if (rtlStage == 1 && moveTo(latHome, lngHome, alt, dt)) {
+            rtlStage = 2;
+        } else if (rtlStage == 2 && descend(dt)) {
+            rtlStage = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the point with the navigation speeds.
+     * @return {@code true} if the point was reached
+     */
+    private boolean moveTo(double latDest, double lngDest, double altDest, double dt) {
+        double dy = (latDest - lat) * METERS_PER_DEGREE;
+        double dx = (lngDest - lng) * METERS_PER_DEGREE;
+        double dist = Math.sqrt(dx * dx + dy * dy);
+        double speedH = parameters.get("WPNAV_SPEED") / 100.0;
+        if (dist > 1e-6) {
+            double step = Math.min(dist, speedH * dt);
+            lat += dy / dist * step / METERS_PER_DEGREE;
+            lng += dx / dist * step / METERS_PER_DEGREE;
+            vx = dy / dist * step / dt;
+            vy = dx / dist * step / dt;
+            yaw = Math.atan2(dx, dy);
+        }
+        double dz = altDest - alt;
+        double speedV = (dz > 0 ? parameters.get("WPNAV_SPEED_UP")
+                : parameters.get("WPNAV_SPEED_DN")) / 100.0;
+        double stepV = Math.min(Math.abs(dz), speedV * dt);
+        alt += Math.signum(dz) * stepV;
+        vz = -Math.signum(dz) * stepV / dt;
+        return dist - speedH * dt < REACHED && Math.abs(altDest - alt) < REACHED;
+    }
+
+    /**
+     * Descends at the current position.
+     * @return {@code true} if on the ground
+     */
+    private boolean descend(double dt) {
+        double speedV = parameters.get("LAND_SPEED") / 100.0;
+        alt = Math.max(0.0, alt - speedV * dt);
+        vz = alt > 0 ? speedV : 0;
+        return alt <= 0.0;
+    }
+
+    private void disarm() {
+        armed = false;
+        alt = 0.0;
+        systemStatus = "STANDBY";
+        batteryCurrent = 0.0;
+    }
+
+    private void discharge(double dt) {
+        double horizontal = Math.sqrt(vx * vx + vy * vy) * dt;
+        double vertical = vz * dt;
+        double spent = Constants.EFFICIENCY_FLIGHT_TIME_SIMULATED * dt
+                + Constants.EFFICIENCY_HORIZONTAL_NAV_SIMULATED * horizontal
+                + (vertical < 0 ? Constants.EFFICIENCY_VERTICAL_UP_SIMULATED * -vertical
+                        : Constants.EFFICIENCY_VERTICAL_DOWN_SIMULATED * vertical);
+        batteryLevel = Math.max(0.0, batteryLevel - spent);
+        batteryVoltage = 10.5 + 2.1 * batteryLevel / 100.0;
+        batteryCurrent = 10.0 + 5.0 * Math.abs(vz);
+    }
+
+    /**
+     * Replaces the mission (set-mission and set-waypoint) and starts it.
+     * @param items the new items of the mission
+     */
+    public synchronized void setMission(List<MissionItem> items) {
+        mission.clear();
+        mission.addAll(items);
+        next = 1;
+        startMission();
+    }
+
+    /**
+     * Adds items in the end of the mission (append-mission and append-waypoint).
+     * @param items the items to be added
+     */
+    public synchronized void appendMission(List<MissionItem> items) {
+        if (next < 1 || next > mission.size()) {
+            next = mission.size() + 1;
+        }
+        mission.addAll(items);
+        startMission();
+    }
+
+    private void startMission() {
+        mode = "AUTO";
+        rtlStage = 0;
+        if (!armed && !mission.isEmpty() && mission.get(0).action.equals("takeoff")) {
+            armed = true;
+            systemStatus = "ACTIVE";
+        }
+    }
+
+    public synchronized void setMode(String mode) {
+        this.mode = mode;
+        this.rtlStage = 0;
+    }
+
+    public synchronized void setParameter(String key, double value) {
+        parameters.put(key, value);
+    }
+
+    public synchronized void setVelocity(double velocity) {
+        parameters.put("WPNAV_SPEED", velocity * 100);
+    }
+
+    public synchronized void setHeading(double angle) {
+        yaw = Math.toRadians(angle);
+    }
+
+    /**
+     * Injects a failure of the autopilot (ex: CRITICAL, EMERGENCY, POWEROFF).
+     * @param systemStatus the new system status
+     */
+    public synchronized void setSystemStatus(String systemStatus) {
+        this.systemStatus = systemStatus;
+    }
+
+    /**
+     * Injects a level of battery (ex: low battery).
+     * @param level the new level in %
+     */
+    public synchronized void setBatteryLevel(double level) {
+        this.batteryLevel = level;
+    }
+
+    /**
+     * Injects a failure of GPS.
+     * @param fixType 0 or 1 no fix, 2: 2D fix, 3: 3D fix
+     */
+    public synchronized void setFixType(int fixType) {
+        this.fixType = fixType;
+    }
+
+    public synchronized boolean isArmed() {
+        return armed;
+    }
+
+    public synchronized double getAlt() {
+        return alt;
+    }
+
+    public synchronized int getNext() {
+        return next;
+    }
+
+    public synchronized int getCount() {
+        return mission.size();
+    }
+
+    public synchronized String getMode() {
+        return mode;
+    }
+
+    public synchronized String gps() {
+        return String.format(Locale.US, "{\"gps\": [%s, %s]}", lat, lng);
+    }
+
+    public synchronized String barometer() {
+        return String.format(Locale.US, "{\"barometer\": [%s, %s]}", alt, alt + altAbsHome);
+    }
+
+    public synchronized String battery() {
+        return String.format(Locale.US, "{\"bat\": [%s, %s, %s]}",
+                batteryVoltage, batteryCurrent, (int) batteryLevel);
+    }
+
+    public synchronized String attitude() {
+        return String.format(Locale.US, "{\"att\": [%s, %s, %s]}", 0.0, yaw, 0.0);
+    }
+
+    public synchronized String velocity() {
+        return String.format(Locale.US, "{\"vel\": [%s, %s, %s]}", vx, vy, vz);
+    }
+
+    public synchronized String heading() {
+        return "{\"heading\": " + heading360() + "}";
+    }
+
+    public synchronized String groundspeed() {
+        return "{\"groundspeed\": " + Math.sqrt(vx * vx + vy * vy) + "}";
+    }
+
+    public synchronized String airspeed() {
+        return "{\"airspeed\": " + Math.sqrt(vx * vx + vy * vy) + "}";
+    }
+
+    public synchronized String gpsInfo() {
+        return "{\"gpsinfo\": [" + fixType + ", " + satellitesVisible + ", 121, 65535]}";
+    }
+
+    public synchronized String mode() {
+        return "{\"mode\": \"" + mode + "\"}";
+    }
+
+    public synchronized String systemStatus() {
+        return "{\"system-status\": \"" + systemStatus + "\"}";
+    }
+
+    public synchronized String armed() {
+        return "{\"armed\": " + armed + "}";
+    }
+
+    public synchronized String isArmable() {
+        return "{\"is-armable\": " + (fixType >= 2 && ekfOk) + "}";
+    }
+
+    public synchronized String ekfOk() {
+        return "{\"ekf-ok\": " + ekfOk + "}";
+    }
+
+    public synchronized String homeLocation() {
+        return String.format(Locale.US, "{\"home-location\": [%s, %s, %s]}",
+                latHome, lngHome, altAbsHome);
+    }
+
+    public synchronized String parameters() {
+        StringBuilder sb = new StringBuilder("{\"parameters\": \"");
+        for (Map.Entry<String, Double> p : parameters.entrySet()) {
+            sb.append("Key:").append(p.getKey()).append(" Value:").append(p.getValue()).append("; ");
+        }
+        return sb.append("\"}").toString();
+    }
+
+    public synchronized String distanceToHome() {
+        return "{\"distance-to-home\": " + distanceToHome0() + "}";
+    }
+
+    public synchronized String distanceToCurrentWaypoint() {
+        return "{\"distance-to-wpt-current\": " + distanceToCurrentWaypoint0() + "}";
+    }
+
+    public synchronized String nextWaypoint() {
+        return "{\"next-waypoint\": " + next + "}";
+    }
+
+    public synchronized String countWaypoint() {
+        return "{\"count-waypoint\": " + mission.size() + "}";
+    }
+
+    /**
+     * Gets all the sensors in the format of get-all-sensors of UAV-S2DK.
+     * @return the line with all sensors
+     */
+    public synchronized String allSensors() {
+        return String.format(Locale.US, "{\"all-sensors\": [%s, %s, %s, %s, %s, %s, %s, "
+                + "%d, %s, %s, %d, %d, 121, 65535, [%s, %s, %s], %d, %d, %s, %s, "
+                + "\"%s\", \"%s\", %s, %s, %s]}",
+                lat, lng, round2(alt), round2(alt + altAbsHome), 0.0, yaw, 0.0,
+                heading360(), round2(Math.sqrt(vx * vx + vy * vy)),
+                round2(Math.sqrt(vx * vx + vy * vy)), fixType, satellitesVisible,
+                vx, vy, vz, next, mission.size(), distanceToHome0(),
+                distanceToCurrentWaypoint0(), mode, systemStatus, armed,
+                fixType >= 2 && ekfOk, ekfOk);
+    }
+
+    private int heading360() {
+        int h = (int) Math.round(Math.toDegrees(yaw));
+        return h < 0 ? h + 360 : h;
+    }
+
+    private double distanceToHome0() {
+        double dlat = latHome - lat;
+        double dlng = lngHome - lng;
+        return Math.sqrt(dlat * dlat + dlng * dlng) * METERS_PER_DEGREE;
+    }
+
+    /**
+     * Distance to the current waypoint (null as the UAV-S2DK if there is not).
+     */
+    private String distanceToCurrentWaypoint0() {
+        if (next < 1 || next > mission.size()) {
+            return "null";
+        }
+        MissionItem item = mission.get(next - 1);
+        if (item.lat == 0.0 || item.lng == 0.0) {
+            return "null";
+        }
+        double dlat = item.lat - lat;
+        double dlng = item.lng - lng;
+        return String.valueOf(Math.sqrt(dlat * dlat + dlng * dlng) * METERS_PER_DEGREE);
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * The class models an item of the mission (same fields of WaypointJSON).
+     */
+    public static class MissionItem {
+
+        final String action;
+        final double lat;
+        final double lng;
+        final double alt;
+
+        public MissionItem(String action, double lat, double lng, double alt) {
+            this.action = action;
+            this.lat = lat;
+            this.lng = lng;
+            this.alt = alt;
+        }
+    }
+
+}